@@ -0,0 +1,466 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates codecs for classes annotated with com.justone.json.JsonCodec.
+ * <P>
+ * For each annotated class the processor writes the source of a codec extending com.justone.json.Codec,
+ * in the package of the class, so that classes are read and written without reflection or generated
+ * bytecode at run time. The generated read() switches on the hash of each key, as returned by
+ * JsonReader.keyHash(), confirms the key with isKey() and reads the value straight into its field,
+ * with primitive fields read without boxing. Unknown keys are skipped. The generated write() writes
+ * every field in declaration order through a JsonGenerator.
+ * </P>
+ * <P>
+ * Classes and fields that cannot be bound are reported as compilation errors against the offending
+ * element, and no codec is generated for their class.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+@SupportedAnnotationTypes(CodecProcessor.ANNOTATION)
+public class CodecProcessor extends AbstractProcessor {
+
+  /**
+   * Qualified name of the annotation processed
+   */
+  static final String ANNOTATION="com.justone.json.JsonCodec";
+  /**
+   * Suffix of generated codec names
+   */
+  private static final String SUFFIX="Codec";
+  /**
+   * Lists bound as List fields
+   */
+  private static final String[] LISTS={"java.util.List", "java.util.ArrayList", "java.util.Collection", "java.lang.Iterable"};
+
+  /**
+   * Returns the latest source version supported
+   * @return latest source version
+   */
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+
+    return SourceVersion.latestSupported();//whatever the compiler supports
+
+  }//getSupportedSourceVersion()
+
+  /**
+   * Generates a codec for each annotated class of a round
+   * @param aAnnotations annotations processed
+   * @param aRound round environment
+   * @return true as the annotation is claimed
+   */
+  @Override
+  public boolean process(Set<? extends TypeElement> aAnnotations, RoundEnvironment aRound) {
+
+    for (TypeElement annotation:aAnnotations) {//for each annotation
+      for (Element element:aRound.getElementsAnnotatedWith(annotation)) {//for each annotated element
+        if (element.getKind()!=ElementKind.CLASS) {//if not a class
+          error("Bad codec class : not a class", element);//report error
+          continue;//on to next element
+        }//if not a class
+        TypeElement type=(TypeElement)element;//annotated class
+        String source=generate(type);//generate codec source
+        if (source!=null) emit(type, source);//write codec if class can be bound
+      }//for each annotated element
+    }//for each annotation
+
+    return true;//annotation claimed
+
+  }//process()
+
+  /**
+   * Generates the source of the codec of a class
+   * @param aClass annotated class
+   * @return codec source; or null if the class cannot be bound
+   */
+  private String generate(TypeElement aClass) {
+
+    if (!check(aClass)) return null;//class cannot be bound
+
+    ArrayList<VariableElement> fields=new ArrayList<>();//bound fields
+    for (VariableElement field:ElementFilter.fieldsIn(aClass.getEnclosedElements())) {//for each field
+      Set<Modifier> modifiers=field.getModifiers();//get field modifiers
+      if (modifiers.contains(Modifier.STATIC)||modifiers.contains(Modifier.FINAL)||modifiers.contains(Modifier.TRANSIENT)) continue;//not bound
+      if (modifiers.contains(Modifier.PRIVATE)) {//if private field
+        error("Bad codec field : private", field);//report error
+        return null;//cannot be bound
+      }//if private field
+      fields.add(field);//bind field
+    }//for each field
+
+    String name=aClass.getQualifiedName().toString();//class as named in source
+    StringBuilder reads=new StringBuilder();//read method
+    StringBuilder writes=new StringBuilder();//write method
+    StringBuilder helpers=new StringBuilder();//list helper methods
+
+    LinkedHashMap<Integer,StringBuilder> cases=new LinkedHashMap<>();//key tests for each key hash
+    for (VariableElement field:fields) {//for each field
+      String key=field.getSimpleName().toString();//key matched by field name
+      TypeMirror type=field.asType();//field type
+      String access="aObject."+key;//field access
+      String read;//statement setting field
+      String write;//statement writing field
+      TypeMirror item=item(type);//type of list items; or null if not a list
+      if (item!=null) {//if list field
+        String itemRead=read(item);//expression reading an item
+        String itemWrite=write(item, "item");//statement writing an item
+        if ((itemRead==null)||(itemWrite==null)) {//if item cannot be bound
+          error("Bad codec field : unsupported type "+type, field);//report error
+          return null;//cannot be bound
+        }//if item cannot be bound
+        helpers.append("\n  private static java.util.ArrayList<").append(item).append("> read_").append(key).append("(com.justone.json.JsonReader aReader) {\n");
+        helpers.append("    java.util.ArrayList<").append(item).append("> list=new java.util.ArrayList<>();\n");
+        helpers.append("    aReader.startArray();\n");
+        helpers.append("    while (aReader.nextItem()) list.add(aReader.isNull()?null:").append(itemRead).append(");\n");
+        helpers.append("    return list;\n");
+        helpers.append("  }\n");
+        helpers.append("\n  private static void write_").append(key).append("(Iterable<").append(item).append("> aList, com.justone.json.JsonGenerator aGenerator) throws java.io.IOException {\n");
+        helpers.append("    aGenerator.startArray();\n");
+        helpers.append("    for (").append(item).append(" item:aList) {\n");
+        helpers.append("      if (item==null) aGenerator.nullValue(); else ").append(itemWrite).append("\n");
+        helpers.append("    }\n");
+        helpers.append("    aGenerator.endArray();\n");
+        helpers.append("  }\n");
+        read="object."+key+"=aReader.isNull()?null:read_"+key+"(aReader);";//read list
+        write="if ("+access+"==null) aGenerator.nullValue(); else write_"+key+"("+access+", aGenerator);";//write list
+      } else {//else single value
+        String value=read(type);//expression reading value
+        write=write(type, access);//statement writing value
+        if ((value==null)||(write==null)) {//if field cannot be bound
+          error("Bad codec field : unsupported type "+type, field);//report error
+          return null;//cannot be bound
+        }//if field cannot be bound
+        if (type.getKind().isPrimitive()) {//if primitive field
+          read="if (!aReader.isNull()) object."+key+"="+value+";";//null leaves default
+        } else {//else object field
+          read="object."+key+"=aReader.isNull()?null:"+value+";";//null clears field
+          write="if ("+access+"==null) aGenerator.nullValue(); else "+write;//write null
+        }//if primitive field
+      }//if list field
+
+      StringBuilder tests=cases.get(key.hashCode());//key tests for hash
+      if (tests==null) {//if first key with hash
+        tests=new StringBuilder();//create tests
+        cases.put(key.hashCode(), tests);//keep tests
+      }//if first key with hash
+      tests.append("          if (aReader.isKey(\"").append(key).append("\")) {\n");
+      tests.append("            ").append(read).append("\n");
+      tests.append("            continue;\n");
+      tests.append("          }\n");
+      writes.append("    aGenerator.name(\"").append(key).append("\");\n");
+      writes.append("    ").append(write).append("\n");
+    }//for each field
+
+    reads.append("    while (aReader.nextKey()) {\n");
+    if (!cases.isEmpty()) {//if any fields
+      reads.append("      switch (aReader.keyHash()) {\n");
+      for (Integer hash:cases.keySet()) {//for each key hash
+        reads.append("        case ").append(hash).append(":\n");
+        reads.append(cases.get(hash));
+        reads.append("          break;\n");
+      }//for each key hash
+      reads.append("      }\n");
+    }//if any fields
+    reads.append("      aReader.skipValue();\n");
+    reads.append("    }\n");
+
+    String codec=codecName(aClass);//codec name
+    String pkg=processingEnv.getElementUtils().getPackageOf(aClass).getQualifiedName().toString();//package of class
+    StringBuilder source=new StringBuilder();//codec source
+    source.append("// Generated by ").append(CodecProcessor.class.getName()).append(" from ").append(name).append("; do not edit\n");
+    if (!pkg.isEmpty()) source.append("package ").append(pkg).append(";\n");
+    source.append("\n");
+    source.append("public final class ").append(codec).append(" extends com.justone.json.Codec<").append(name).append("> {\n");
+    source.append("\n");
+    source.append("  public static final ").append(codec).append(" INSTANCE=new ").append(codec).append("();\n");
+    source.append("\n");
+    source.append("  @Override\n");
+    source.append("  public ").append(name).append(" read(com.justone.json.JsonReader aReader) {\n");
+    source.append("    if (aReader.isNull()) return null;\n");
+    source.append("    ").append(name).append(" object=new ").append(name).append("();\n");
+    source.append("    aReader.startObject();\n");
+    source.append(reads);
+    source.append("    return object;\n");
+    source.append("  }\n");
+    source.append("\n");
+    source.append("  @Override\n");
+    source.append("  public void write(").append(name).append(" aObject, com.justone.json.JsonGenerator aGenerator) throws java.io.IOException {\n");
+    source.append("    if (aObject==null) {\n");
+    source.append("      aGenerator.nullValue();\n");
+    source.append("      return;\n");
+    source.append("    }\n");
+    source.append("    aGenerator.startObject();\n");
+    source.append(writes);
+    source.append("    aGenerator.endObject();\n");
+    source.append("  }\n");
+    source.append(helpers);
+    source.append("\n");
+    source.append("}\n");
+
+    return source.toString();//here you go
+
+  }//generate()
+
+  /**
+   * Checks that a class can be instantiated by its codec
+   * @param aClass annotated class
+   * @return true if the class can be bound
+   */
+  private boolean check(TypeElement aClass) {
+
+    Set<Modifier> modifiers=aClass.getModifiers();//get class modifiers
+    if (modifiers.contains(Modifier.ABSTRACT)) {//if abstract class
+      error("Bad codec class : abstract", aClass);//report error
+      return false;//cannot be instantiated
+    }//if abstract class
+    if (modifiers.contains(Modifier.PRIVATE)) {//if private class
+      error("Bad codec class : private", aClass);//report error
+      return false;//cannot be instantiated
+    }//if private class
+    if ((aClass.getNestingKind()!=NestingKind.TOP_LEVEL)&&!modifiers.contains(Modifier.STATIC)) {//if inner class
+      error("Bad codec class : not static", aClass);//report error
+      return false;//cannot be instantiated
+    }//if inner class
+    if (!aClass.getTypeParameters().isEmpty()) {//if generic class
+      error("Bad codec class : generic", aClass);//report error
+      return false;//field types unknown
+    }//if generic class
+
+    List<ExecutableElement> constructors=ElementFilter.constructorsIn(aClass.getEnclosedElements());//declared constructors
+    for (ExecutableElement constructor:constructors) {//for each constructor
+      if (constructor.getParameters().isEmpty()&&!constructor.getModifiers().contains(Modifier.PRIVATE)) return true;//usable constructor
+    }//for each constructor
+    error("Bad codec class : no constructor without parameters", aClass);//report error
+
+    return false;//cannot be instantiated
+
+  }//check()
+
+  /**
+   * Returns an expression reading a value of a type that is not null
+   * @param aType type of value
+   * @return expression; or null if the type cannot be bound
+   */
+  private String read(TypeMirror aType) {
+
+    switch (aType.getKind()) {//switch on kind of type
+      case BOOLEAN: return "aReader.readBoolean()";
+      case BYTE: return "(byte)aReader.readLong(Byte.MIN_VALUE, Byte.MAX_VALUE)";
+      case SHORT: return "(short)aReader.readLong(Short.MIN_VALUE, Short.MAX_VALUE)";
+      case INT: return "(int)aReader.readLong(Integer.MIN_VALUE, Integer.MAX_VALUE)";
+      case LONG: return "aReader.readLong()";
+      case FLOAT: return "(float)aReader.readDouble()";
+      case DOUBLE: return "aReader.readDouble()";
+      case DECLARED: break;//class
+      default: return null;//cannot be bound
+    }//switch on kind of type
+
+    TypeElement type=(TypeElement)((DeclaredType)aType).asElement();//class of value
+    switch (type.getQualifiedName().toString()) {//switch on class name
+      case "java.lang.Boolean": return read(unbox(aType));
+      case "java.lang.Byte": return read(unbox(aType));
+      case "java.lang.Short": return read(unbox(aType));
+      case "java.lang.Integer": return read(unbox(aType));
+      case "java.lang.Long": return read(unbox(aType));
+      case "java.lang.Float": return read(unbox(aType));
+      case "java.lang.Double": return read(unbox(aType));
+      case "java.lang.String": return "aReader.readString()";
+      case "java.math.BigInteger": return "aReader.readBigInteger()";
+      case "java.math.BigDecimal": return "aReader.readBigDecimal()";
+      default: if (!annotated(type)) return null;//not a codec class
+               return codec(type)+".INSTANCE.read(aReader)";//nested codec
+    }//switch on class name
+
+  }//read()
+
+  /**
+   * Returns a statement writing a value of a type that is not null
+   * @param aType type of value
+   * @param aValue expression of value
+   * @return statement; or null if the type cannot be bound
+   */
+  private String write(TypeMirror aType, String aValue) {
+
+    switch (aType.getKind()) {//switch on kind of type
+      case BOOLEAN:
+      case BYTE:
+      case SHORT:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE: return "aGenerator.value("+aValue+");";
+      case DECLARED: break;//class
+      default: return null;//cannot be bound
+    }//switch on kind of type
+
+    TypeElement type=(TypeElement)((DeclaredType)aType).asElement();//class of value
+    switch (type.getQualifiedName().toString()) {//switch on class name
+      case "java.lang.Boolean": return "aGenerator.value("+aValue+".booleanValue());";
+      case "java.lang.Byte":
+      case "java.lang.Short":
+      case "java.lang.Integer":
+      case "java.lang.Long": return "aGenerator.value("+aValue+".longValue());";
+      case "java.lang.Float":
+      case "java.lang.Double": return "aGenerator.value("+aValue+".doubleValue());";
+      case "java.lang.String":
+      case "java.math.BigInteger":
+      case "java.math.BigDecimal": return "aGenerator.value("+aValue+");";
+      default: if (!annotated(type)) return null;//not a codec class
+               return codec(type)+".INSTANCE.write("+aValue+", aGenerator);";//nested codec
+    }//switch on class name
+
+  }//write()
+
+  /**
+   * Returns the item type of a list type
+   * @param aType field type
+   * @return type of items; or null if not a list
+   */
+  private TypeMirror item(TypeMirror aType) {
+
+    if (aType.getKind()!=TypeKind.DECLARED) return null;//not a class
+    DeclaredType declared=(DeclaredType)aType;//class type
+    String name=((TypeElement)declared.asElement()).getQualifiedName().toString();//class name
+    for (String list:LISTS) {//for each list class
+      if (!list.equals(name)) continue;//not this list
+      if (declared.getTypeArguments().size()!=1) return processingEnv.getTypeUtils().getNoType(TypeKind.NONE);//raw list, which cannot be bound
+      TypeMirror item=declared.getTypeArguments().get(0);//item type
+      return (item.getKind()==TypeKind.DECLARED)?item:processingEnv.getTypeUtils().getNoType(TypeKind.NONE);//wildcards and type variables cannot be bound
+    }//for each list class
+
+    return null;//not a list
+
+  }//item()
+
+  /**
+   * Returns the primitive type of a boxed type
+   * @param aType boxed type
+   * @return primitive type
+   */
+  private TypeMirror unbox(TypeMirror aType) {
+
+    return processingEnv.getTypeUtils().unboxedType(aType);//unbox
+
+  }//unbox()
+
+  /**
+   * Indicates if a class is annotated for a codec
+   * @param aClass class
+   * @return true if annotated with JsonCodec
+   */
+  private static boolean annotated(TypeElement aClass) {
+
+    for (AnnotationMirror annotation:aClass.getAnnotationMirrors()) {//for each annotation
+      if (((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANNOTATION)) return true;//codec class
+    }//for each annotation
+
+    return false;//not a codec class
+
+  }//annotated()
+
+  /**
+   * Returns the qualified name of the codec of a class
+   * @param aClass annotated class
+   * @return qualified codec name
+   */
+  private String codec(TypeElement aClass) {
+
+    String pkg=processingEnv.getElementUtils().getPackageOf(aClass).getQualifiedName().toString();//package of class
+    return pkg.isEmpty()?codecName(aClass):pkg+"."+codecName(aClass);//qualify codec name
+
+  }//codec()
+
+  /**
+   * Returns the simple name of the codec of a class
+   * @param aClass annotated class
+   * @return codec name, being the names of any enclosing classes and the class joined by underscores, with a Codec suffix
+   */
+  private static String codecName(TypeElement aClass) {
+
+    String name=aClass.getSimpleName().toString();//class name
+    for (Element outer=aClass.getEnclosingElement();(outer!=null)&&(outer.getKind()!=ElementKind.PACKAGE);outer=outer.getEnclosingElement()) {//for each enclosing class
+      name=outer.getSimpleName()+"_"+name;//prefix enclosing class name
+    }//for each enclosing class
+
+    return name+SUFFIX;//here you go
+
+  }//codecName()
+
+  /**
+   * Writes the source of a codec
+   * @param aClass annotated class
+   * @param aSource codec source
+   */
+  private void emit(TypeElement aClass, String aSource) {
+
+    try (Writer writer=processingEnv.getFiler().createSourceFile(codec(aClass), aClass).openWriter()) {
+      writer.write(aSource);//write source
+    } catch (IOException e) {//cannot write source
+      error("Bad codec class : "+e.getMessage(), aClass);//report error
+    }//try
+
+  }//emit()
+
+  /**
+   * Reports an error against an element
+   * @param aMessage error message
+   * @param aElement offending element
+   */
+  private void error(String aMessage, Element aElement) {
+
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, aMessage, aElement);//report error
+
+  }//error()
+
+}//CodecProcessor{}
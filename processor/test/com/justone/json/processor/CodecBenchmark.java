@@ -0,0 +1,76 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+package com.justone.json.processor;
+
+import com.justone.json.Binder;
+import com.justone.json.Codec;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+
+/**
+ * Compares the speed of generated codecs with a Binder.
+ * <P>
+ * Run from the command line with the test classes and the library on the class path; the timings are
+ * printed and nothing is asserted, so the benchmark is kept apart from the unit tests.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class CodecBenchmark {
+
+  /**
+   * Runs the benchmark
+   * @param aArguments optional number of messages read per round
+   */
+  public static void main(String[] aArguments) throws Exception {
+
+    int count = (aArguments.length>0)?Integer.parseInt(aArguments[0]):100000;
+    ClassLoader loader = CodecProcessorTest.compile(Files.createTempDirectory("codec").toFile(),
+                                                    new String[][]{{"Location", CodecProcessorTest.LOCATION}, {"Sighting", CodecProcessorTest.SIGHTING}},
+                                                    new ByteArrayOutputStream());
+    String[] classes = {"Sighting", "Location"};
+    String[] messages = {CodecProcessorTest.MESSAGE, CodecProcessorTest.LOCATION_MESSAGE};
+    for (int c=0;c<classes.length;++c) {
+      Codec<Object> codec = CodecProcessorTest.codec(loader, classes[c]+"Codec");
+      @SuppressWarnings("unchecked")
+      Binder<Object> binder = new Binder<>((Class<Object>)loader.loadClass("sample."+classes[c]));
+
+      long codecTime = Long.MAX_VALUE;
+      long binderTime = Long.MAX_VALUE;
+      for (int round=0;round<10;++round) {
+        long start = System.nanoTime();
+        for (int i=0;i<count;++i) codec.read(messages[c]);
+        codecTime = Math.min(codecTime, System.nanoTime()-start);
+        start = System.nanoTime();
+        for (int i=0;i<count;++i) binder.bind(messages[c]);
+        binderTime = Math.min(binderTime, System.nanoTime()-start);
+      }//for
+      System.out.println(classes[c]+" : codec "+(codecTime/count)+" ns/message, binder "+(binderTime/count)+" ns/message");
+    }//for
+
+  }//main()
+
+}//CodecBenchmark{}
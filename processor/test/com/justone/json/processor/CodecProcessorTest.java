@@ -0,0 +1,230 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+package com.justone.json.processor;
+
+import com.justone.json.Binder;
+import com.justone.json.Codec;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import javax.tools.ToolProvider;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class CodecProcessorTest {
+  
+  public CodecProcessorTest() {
+  }
+
+  static final String LOCATION =
+    "package sample;\n"
+  + "@com.justone.json.JsonCodec\n"
+  + "public class Location {\n"
+  + "  double latitude;\n"
+  + "  double longitude;\n"
+  + "}\n";
+
+  static final String SIGHTING =
+    "package sample;\n"
+  + "import java.util.List;\n"
+  + "@com.justone.json.JsonCodec\n"
+  + "public class Sighting {\n"
+  + "  long identity;\n"
+  + "  int count;\n"
+  + "  short code;\n"
+  + "  boolean seen;\n"
+  + "  float score;\n"
+  + "  String name;\n"
+  + "  Integer rank;\n"
+  + "  java.math.BigDecimal price;\n"
+  + "  java.math.BigInteger serial;\n"
+  + "  Location location;\n"
+  + "  List<Location> trail;\n"
+  + "  List<Long> counts;\n"
+  + "  Sighting previous;\n"
+  + "  Tag tag;\n"
+  + "  transient int ignored;\n"
+  + "  static int shared;\n"
+  + "  @com.justone.json.JsonCodec\n"
+  + "  public static class Tag {\n"
+  + "    String Aa;\n"
+  + "    String BB;\n"
+  + "  }\n"
+  + "}\n";
+
+  static final String MESSAGE =
+    "{\"identity\":12345678901234,\"count\":3,\"code\":-7,\"seen\":true,\"score\":2.5,\"name\":\"a\\\"b\",\"rank\":9,"
+  + "\"price\":0.1234567890123456789,\"serial\":123456789012345678901234,\"location\":{\"latitude\":51.504765,\"longitude\":-0.0787108},"
+  + "\"trail\":[{\"latitude\":1.0,\"longitude\":2.0},null],\"counts\":[1,null,3],\"previous\":{\"identity\":1,\"count\":0,\"code\":0,"
+  + "\"seen\":false,\"score\":0.0,\"name\":null,\"rank\":null,\"price\":null,\"serial\":null,\"location\":null,\"trail\":null,"
+  + "\"counts\":[],\"previous\":null,\"tag\":null},\"tag\":{\"Aa\":\"x\",\"BB\":\"y\"}}";
+
+  static final String LOCATION_MESSAGE = "{\"latitude\":51.504765,\"longitude\":-0.0787108}";
+
+  /**
+   * Compiles sources with the processor
+   * @param aDirectory directory to compile into
+   * @param aSources pairs of class name and source
+   * @param aErrors buffer for compiler diagnostics
+   * @return class loader for the compiled classes; or null if compilation failed
+   */
+  static ClassLoader compile(File aDirectory, String[][] aSources, ByteArrayOutputStream aErrors) throws Exception {
+    
+    File directory = new File(aDirectory, "sample");
+    directory.mkdirs();
+    String[] options = {"-d", aDirectory.getPath(), "-s", aDirectory.getPath(), "-classpath", System.getProperty("java.class.path"),
+                        "-processor", CodecProcessor.class.getName()};
+    String[] arguments = Arrays.copyOf(options, options.length+aSources.length);
+    for (int i=0;i<aSources.length;++i) {
+      File file = new File(directory, aSources[i][0]+".java");
+      Files.write(file.toPath(), aSources[i][1].getBytes(StandardCharsets.UTF_8));
+      arguments[options.length+i] = file.getPath();
+    }//for
+    
+    if (ToolProvider.getSystemJavaCompiler().run(null, null, aErrors, arguments)!=0) return null;
+    return new URLClassLoader(new URL[]{aDirectory.toURI().toURL()}, CodecProcessorTest.class.getClassLoader());
+    
+  }//compile()
+
+  /**
+   * Returns the codec generated for a class
+   * @param aLoader class loader for the compiled classes
+   * @param aName codec name
+   * @return codec instance
+   */
+  @SuppressWarnings("unchecked")
+  static Codec<Object> codec(ClassLoader aLoader, String aName) throws Exception {
+    
+    return (Codec<Object>)aLoader.loadClass("sample."+aName).getField("INSTANCE").get(null);
+    
+  }//codec()
+
+  /**
+   * Test of process method, of class CodecProcessor.
+   */
+  @Test
+  public void testProcess() throws Exception {
+    
+    System.out.println("process");
+    
+    File directory = Files.createTempDirectory("codec").toFile();
+    ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    ClassLoader loader = compile(directory, new String[][]{{"Location", LOCATION}, {"Sighting", SIGHTING}}, errors);
+    assertEquals("", errors.toString("UTF-8"));
+    
+    Codec<Object> codec = codec(loader, "SightingCodec");
+    Object sighting = codec.read(MESSAGE);
+    assertEquals(MESSAGE, codec.write(sighting));
+    
+    String reordered = "{ \"tag\" : {\"BB\":\"y\",\"Aa\":\"x\",\"Cc\":[1,{\"d\":\"}\"}]} , \"unknown\":{}, \"ignored\":4, \"shared\":5, \"count\":null }";
+    assertEquals("{\"identity\":0,\"count\":0,\"code\":0,\"seen\":false,\"score\":0.0,\"name\":null,\"rank\":null,\"price\":null,"
+               + "\"serial\":null,\"location\":null,\"trail\":null,\"counts\":null,\"previous\":null,\"tag\":{\"Aa\":\"x\",\"BB\":\"y\"}}",
+                 codec.write(codec.read(reordered)));
+    assertNull(codec.read(" null "));
+    assertEquals("null", codec.write(null));
+    assertEquals("{\"Aa\":null,\"BB\":\"z\"}", codec(loader, "Sighting_TagCodec").write(codec(loader, "Sighting_TagCodec").read("{\"BB\":\"z\"}")));
+    
+    String[] mismatched = {"{\"count\":\"3\"}", "{\"count\":3.5}", "{\"count\":2147483648}", "{\"code\":40000}", "{\"seen\":1}",
+                           "{\"name\":7}", "{\"serial\":1.5}", "{\"location\":[]}", "{\"trail\":{}}", "[]"};
+    for (String message : mismatched) {
+      try {
+        codec.read(message);
+        fail("bad value expected");
+      } catch (com.justone.json.JsonParseException e) {
+        fail("bad value expected");
+      } catch (RuntimeException e) {
+        assertEquals(true, e.getMessage().startsWith("Bad value at offset "));
+      }//try
+    }//for
+    
+    String[] malformed = {"", "{\"count\":3", "{\"count\" 3}", "{\"count\":3,}", "{,\"count\":3}", "{\"counts\":[1,]}", "{\"counts\":[1 2]}", "{} {}"};
+    for (String message : malformed) {
+      try {
+        codec.read(message);
+        fail("parse exception expected");
+      } catch (com.justone.json.JsonParseException e) {
+        assertEquals(true, e.getMessage().startsWith("Invalid syntax"));
+      }//try
+    }//for
+    
+  }//testProcess()
+
+  /**
+   * Test of process method, of class CodecProcessor, with classes that cannot be bound.
+   */
+  @Test
+  public void testProcessErrors() throws Exception {
+    
+    System.out.println("process(errors)");
+    
+    String[][] sources = {
+      {"Hidden", "package sample;\n@com.justone.json.JsonCodec\npublic class Hidden {\n  private int value;\n}\n"},
+      {"Odd", "package sample;\n@com.justone.json.JsonCodec\npublic class Odd {\n  char value;\n}\n"},
+      {"Raw", "package sample;\n@com.justone.json.JsonCodec\npublic class Raw {\n  java.util.List<?> values;\n}\n"},
+      {"Plain", "package sample;\n@com.justone.json.JsonCodec\npublic class Plain {\n  Object value;\n}\n"},
+      {"Needy", "package sample;\n@com.justone.json.JsonCodec\npublic class Needy {\n  Needy(int aValue) {\n  }\n}\n"},
+      {"Outer", "package sample;\npublic class Outer {\n  @com.justone.json.JsonCodec\n  public class Inner {\n  }\n}\n"}};
+    String[] messages = {"Bad codec field : private", "Bad codec field : unsupported type char", "Bad codec field : unsupported type java.util.List<?>",
+                         "Bad codec field : unsupported type java.lang.Object", "Bad codec class : no constructor without parameters",
+                         "Bad codec class : not static"};
+    for (int i=0;i<sources.length;++i) {
+      ByteArrayOutputStream errors = new ByteArrayOutputStream();
+      assertNull(compile(Files.createTempDirectory("codec").toFile(), new String[][]{sources[i]}, errors));
+      assertEquals(true, errors.toString("UTF-8").contains(messages[i]));
+    }//for
+    
+  }//testProcessErrors()
+
+  /**
+   * Test of round trips through a Binder and generated codecs.
+   */
+  @Test
+  public void testRoundTrip() throws Exception {
+    
+    System.out.println("round trip");
+    
+    ClassLoader loader = compile(Files.createTempDirectory("codec").toFile(), new String[][]{{"Location", LOCATION}, {"Sighting", SIGHTING}}, new ByteArrayOutputStream());
+    String[] classes = {"Sighting", "Location"};
+    String[] messages = {MESSAGE, LOCATION_MESSAGE};
+    for (int c=0;c<classes.length;++c) {
+      Codec<Object> codec = codec(loader, classes[c]+"Codec");
+      @SuppressWarnings("unchecked")
+      Binder<Object> binder = new Binder<>((Class<Object>)loader.loadClass("sample."+classes[c]));
+      assertEquals(messages[c], codec.write(binder.bind(messages[c])));
+      assertEquals(messages[c], codec.write(codec.read(messages[c])));
+    }//for
+    
+  }//testRoundTrip()
+
+}//CodecProcessorTest{}
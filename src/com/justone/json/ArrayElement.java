@@ -26,6 +26,7 @@ SOFTWARE.
 
 package com.justone.json;
 
+import java.io.IOException;
 import java.util.*;
 /**
  * A JSON array element
@@ -37,7 +38,27 @@ public class ArrayElement extends Element {
   /**
    * List of child elements
    */
-  private final LinkedList<Element> fArray;
+  private final ArrayList<Element> fArray;
+  /**
+   * Key index the array is numbered in; or null if none
+   */
+  private KeyIndex iKeyIndex;
+  /**
+   * Number of the array in document order within its key index
+   */
+  private int iOrder;
+  /**
+   * Message the array was parsed from; or null if not parsed or changed since
+   */
+  private String iSource;
+  /**
+   * Position of the open bracket of the array in its source message
+   */
+  private int iSourceStart;
+  /**
+   * Position after the close bracket of the array in its source message
+   */
+  private int iSourceEnd;
   
   /**
    * Constructs an empty array
@@ -45,7 +66,7 @@ public class ArrayElement extends Element {
   public ArrayElement() {
     
     super(ARRAY);//base constructor
-    fArray=new LinkedList<>();//create empty linked list
+    fArray=new ArrayList<>();//create empty list
     
   }//ArrayElement{}
 
@@ -57,7 +78,26 @@ public class ArrayElement extends Element {
     super(ARRAY);//base constructor
     assert aArray!=null;
     
-    fArray=aArray;//set linked list
+    fArray=new ArrayList<>(aArray);//copy linked list for indexed access
+    for (int i=0;i<fArray.size();++i) {//for each element
+      Element element=fArray.get(i);//get element
+      mutate(element);//must not be frozen or persistent
+      element.iParent=this;//assign parent
+      element.iIndex=i;//set element index
+      element.iKey=null;//no element key
+    }//for each element
+    
+  }//ArrayElement{}
+
+  /**
+   * Constructs an array around a list of parsed elements
+   * @param aArray list of parsed elements, linked to the array as they are added
+   */
+  ArrayElement(ArrayList<Element> aArray) {
+    super(ARRAY);//base constructor
+    assert aArray!=null;
+    
+    fArray=aArray;//set list
     
   }//ArrayElement{}
   
@@ -70,13 +110,93 @@ public class ArrayElement extends Element {
     assert aElement!=null;
     assert fArray!=null;
     
+    mutate(aElement);//must not be frozen
     fArray.add(aElement);//add element
+    if (iKeyIndex!=null) iKeyIndex.invalidate();//hierarchy has changed
+    changed();//source and hash no longer match
     aElement.iParent=this;//assign parent
     aElement.iIndex=fArray.size()-1;//set element index
     aElement.iKey=null;//no element key
 
   }//addElement{}
 
+  /**
+   * Inserts an element into the array, shifting later elements up one index
+   * @param aIndex index at which the element is to be inserted, from zero to the array size
+   * @param aElement element to be inserted
+   */
+  public void insertElement(int aIndex, Element aElement) {
+    
+    assert aElement!=null;
+    assert fArray!=null;
+    
+    mutate(aElement);//must not be frozen
+    if ((aIndex<0)||(aIndex>fArray.size())) throw new IndexOutOfBoundsException("Bad index : "+aIndex);//index beyond end
+    fArray.add(aIndex, aElement);//insert element
+    if (iKeyIndex!=null) iKeyIndex.invalidate();//hierarchy has changed
+    changed();//source and hash no longer match
+    aElement.iParent=this;//assign parent
+    aElement.iKey=null;//no element key
+    renumber(aIndex);//renumber element and those after it
+
+  }//insertElement{}
+
+  /**
+   * Replaces the element at an index of the array
+   * @param aIndex index of the element to be replaced
+   * @param aElement replacement element
+   * @return element previously at the index
+   */
+  public Element setElement(int aIndex, Element aElement) {
+    
+    assert aElement!=null;
+    assert fArray!=null;
+    
+    mutate(aElement);//must not be frozen
+    if ((aIndex<0)||(aIndex>=fArray.size())) throw new IndexOutOfBoundsException("Bad index : "+aIndex);//no element at index
+    Element previous=fArray.set(aIndex, aElement);//replace element
+    if (iKeyIndex!=null) iKeyIndex.invalidate();//hierarchy has changed
+    changed();//source and hash no longer match
+    previous.iParent=null;//detach previous element
+    aElement.iParent=this;//assign parent
+    aElement.iIndex=aIndex;//set element index
+    aElement.iKey=null;//no element key
+
+    return previous;//here you go
+
+  }//setElement{}
+
+  /**
+   * Removes the element at an index of the array, shifting later elements down one index
+   * @param aIndex index of the element to be removed
+   * @return element removed
+   */
+  public Element removeElement(int aIndex) {
+    
+    assert fArray!=null;
+    
+    mutate(null);//must not be frozen
+    if ((aIndex<0)||(aIndex>=fArray.size())) throw new IndexOutOfBoundsException("Bad index : "+aIndex);//no element at index
+    Element previous=fArray.remove(aIndex);//remove element
+    if (iKeyIndex!=null) iKeyIndex.invalidate();//hierarchy has changed
+    changed();//source and hash no longer match
+    previous.iParent=null;//detach element
+    renumber(aIndex);//renumber elements after it
+
+    return previous;//here you go
+
+  }//removeElement{}
+
+  /**
+   * Resets the index of each element from a given position to the end of the array
+   * @param aIndex first index to be reset
+   */
+  private void renumber(int aIndex) {
+    
+    for (int i=aIndex;i<fArray.size();++i) fArray.get(i).iIndex=i;//set element index
+
+  }//renumber()
+
   /**
    * Always returns false
    * @return false
@@ -125,17 +245,9 @@ public class ArrayElement extends Element {
     
     assert fArray!=null;
     
-    if (fArray.size()==0) return "[]";//if empty array
-    
-    /* append each element in the linked list */
-    StringBuilder buffer=new StringBuilder();//create string buffer
-    Iterator iterator=fArray.iterator();//iterator for array elements
-    while (iterator.hasNext()) {//for each element in the array
-      buffer.append(',');//append element separator
-      buffer.append(iterator.next());//append element
-    }//for each element in the array
+    if (size()==0) return "[]";//if empty array
     
-    return "["+buffer.substring(1)+"]";//wrap in brackets and remove leading comma
+    return new Serializer().write(this, new StringBuilder()).toString();//serialize in one pass
     
   }//toString()
 
@@ -222,7 +334,7 @@ public class ArrayElement extends Element {
     
     assert fArray!=null;
     
-    return fArray.iterator();//return linked list iterator
+    return new Elements();//iterate list
     
   }//getChildElements()
   
@@ -238,6 +350,8 @@ public class ArrayElement extends Element {
     assert aKey!=null;
     assert aList!=null;
     
+    if ((iKeyIndex!=null)&&iKeyIndex.isValid()) return iKeyIndex.getDescendentElements(this, aKey, aList);//use key index
+    
     Iterator<Element> iterator=getChildElements();//get child element iterator
     while (iterator.hasNext()) {//while child iterator not empty
       iterator.next().getDescendentElements(aKey, aList);//get descendent element in child
@@ -264,7 +378,201 @@ public class ArrayElement extends Element {
     
     return aList;//we are done
     
-  }//getScalarElements()    
+  }//getScalarElements()
+  
+  /**
+   * Computes a structural hash that depends on the order of the elements
+   * @return structural hash
+   */
+  @Override
+  long computeHash() {
+    
+    assert fArray!=null;
+    
+    long hash=ARRAY;//start with type
+    Iterator<Element> iterator=getChildElements();//iterate elements
+    while (iterator.hasNext()) {//for each element
+      hash=hash*0x9e3779b97f4a7c15L+iterator.next().getHash();//combine hash of element in order
+    }//for each element
+    
+    return mix(hash);//spread bits
+    
+  }//computeHash()
+  
+  /**
+   * Compares elements with those of another array, in order
+   * @param aElement array of the same hash
+   * @return true if the arrays have equal elements
+   */
+  @Override
+  boolean equalTo(Element aElement) {
+    
+    assert fArray!=null;
+    
+    if (size()!=aElement.size()) return false;//different number of elements
+    Iterator<Element> iterator=getChildElements();//iterate elements
+    Iterator<Element> others=aElement.getChildElements();//iterate other elements
+    while (iterator.hasNext()) {//for each element
+      if (!iterator.next().equals(others.next())) return false;//different element
+    }//for each element
+    
+    return true;//all elements equal
+    
+  }//equalTo()    
+  
+  /**
+   * Releases the spare capacity of the list when the array is frozen
+   */
+  @Override
+  void trim() {
+    
+    assert fArray!=null;
+    
+    fArray.trimToSize();//no more elements will be added
+    
+  }//trim()
+  
+  /**
+   * Returns a deep copy of the array
+   * @return copy of the array
+   */
+  @Override
+  Element copy() {
+    
+    assert fArray!=null;
+    
+    ArrayElement array=new ArrayElement();//create empty array
+    Iterator<Element> iterator=getChildElements();//iterate elements
+    while (iterator.hasNext()) array.addElement(iterator.next().copy());//add copy of each element
+    
+    return array;//here you go
+    
+  }//copy()
+  
+  /**
+   * Iterator over the elements of the array, which removes elements as removeElement() does
+   */
+  private final class Elements implements Iterator<Element> {
+    
+    /**
+     * Index of the next element
+     */
+    private int iPosition;
+    /**
+     * Index of the element last returned; or -1 if none or removed
+     */
+    private int iLast=-1;
+    
+    /**
+     * Indicates if there is another element
+     * @return true if another element
+     */
+    @Override
+    public boolean hasNext() {
+      
+      return iPosition<fArray.size();//another element?
+      
+    }//hasNext()
+    
+    /**
+     * Returns the next element
+     * @return next element
+     */
+    @Override
+    public Element next() {
+      
+      if (iPosition>=fArray.size()) throw new NoSuchElementException();//no more elements
+      iLast=iPosition++;//remember element returned
+      
+      return fArray.get(iLast);//here you go
+      
+    }//next()
+    
+    /**
+     * Removes the element last returned from the array
+     */
+    @Override
+    public void remove() {
+      
+      mutate(null);//must not be frozen
+      if (iLast<0) throw new IllegalStateException();//no element to remove
+      removeElement(iLast);//remove element, shifting later elements down
+      iPosition=iLast;//next element has moved down
+      iLast=-1;//element removed
+      
+    }//remove()
+    
+  }//Elements{}
+  
+  /**
+   * Records the source of a parsed array
+   * @param aSource message the array was parsed from
+   * @param aStart position of the open bracket of the array
+   * @param aEnd position after the close bracket of the array
+   */
+  void setSource(String aSource, int aStart, int aEnd) {
+    
+    iSource=aSource;//set source message
+    iSourceStart=aStart;//set start of array
+    iSourceEnd=aEnd;//set end of array
+    
+  }//setSource()
+  
+  /**
+   * Forgets the source message of the array
+   * @return true if the array had a source
+   */
+  @Override
+  boolean forgetSource() {
+    
+    if (iSource==null) return false;//no source
+    iSource=null;//source no longer matches array
+    
+    return true;//source forgotten
+    
+  }//forgetSource()
+  
+  /**
+   * Copies the source text of the array if it was parsed and has not changed since
+   * @param aOut appendable to write to
+   * @return true if the source was copied
+   * @throws IOException if the appendable cannot be written
+   */
+  @Override
+  boolean writeSource(Appendable aOut) throws IOException {
+    
+    if (iSource==null) return false;//no source
+    aOut.append(iSource, iSourceStart, iSourceEnd);//copy source
+    
+    return true;//source copied
+    
+  }//writeSource()
+  
+  /**
+   * Numbers the array in a key index, abandoning any other index it was numbered in
+   * @param aKeyIndex key index numbering the array
+   * @param aOrder number of the array in document order within the key index
+   */
+  @Override
+  void number(KeyIndex aKeyIndex, int aOrder) {
+    
+    if ((iKeyIndex!=null)&&(iKeyIndex!=aKeyIndex)) iKeyIndex.invalidate();//numbering of another index is lost
+    iKeyIndex=aKeyIndex;//attach array to index
+    iOrder=aOrder;//set array number
+    
+  }//number()
+  
+  /**
+   * Returns the number of the array in a key index
+   * @param aKeyIndex key index
+   * @return number of the array in document order within the key index; or -1 if not numbered by it
+   */
+  @Override
+  int order(KeyIndex aKeyIndex) {
+    
+    return (iKeyIndex==aKeyIndex)?iOrder:-1;//number if numbered by index
+    
+  }//order()
 
 }//ArrayElement{} 
   
\ No newline at end of file
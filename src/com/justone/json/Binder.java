@@ -0,0 +1,548 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Binds JSON messages to instances of a Java class in a single streaming pass.
+ * <P>
+ * A binder is compiled once for a class, when the fields of the class and of every class reachable
+ * from it are resolved to method handles. Each message is then scanned without building any elements,
+ * the value of each object key being written straight into the field of the same name, while keys
+ * with no matching field are skipped. Messages are read with a JsonReader, the lexer shared with the
+ * generated codecs. Keys are matched against field names within the message text,
+ * trying the field following the last one matched first, so that messages whose keys follow the
+ * declaration order find each field at the first attempt.
+ * </P>
+ * <P>
+ * Bound classes need a constructor without parameters, which may be private. Every field that is
+ * neither static, final nor transient is bound, including inherited fields. Fields may be primitives
+ * or their boxed types, String, BigInteger, BigDecimal, another bound class, or a List of any of these.
+ * A JSON null leaves a primitive field at its default and sets any other field to null. A value of the
+ * wrong type for its field, or an integer beyond the range of its field, is rejected.
+ * </P>
+ * <P>
+ * A binder keeps no state of the message being read, so it may be shared between threads once constructed.
+ * </P>
+ * <br>
+ * Code example:
+ * <pre><code>
+ *
+ * class Location { double latitude; double longitude; }
+ * class Sighting { long identity; Location location; }
+ *
+ * Binder&lt;Sighting&gt; binder=new Binder&lt;&gt;(Sighting.class);
+ * Sighting sighting=binder.bind("{\"identity\":12345,\"location\":{\"latitude\":51.5047650,\"longitude\":-0.0787108}}");
+ *
+ * </code></pre>
+ * @param <T> bound class
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Extractor
+ */
+public class Binder<T> {
+
+  /**
+   * Field kinds
+   */
+  private static final int BOOLEAN_KIND=0;
+  private static final int BYTE_KIND=1;
+  private static final int SHORT_KIND=2;
+  private static final int INTEGER_KIND=3;
+  private static final int LONG_KIND=4;
+  private static final int FLOAT_KIND=5;
+  private static final int DOUBLE_KIND=6;
+  private static final int STRING_KIND=7;
+  private static final int BIG_INTEGER_KIND=8;
+  private static final int BIG_DECIMAL_KIND=9;
+  private static final int OBJECT_KIND=10;
+  private static final int LIST_KIND=11;
+
+  /**
+   * Least value of each integral kind
+   */
+  private static final long[] MINIMUMS={0, Byte.MIN_VALUE, Short.MIN_VALUE, Integer.MIN_VALUE, Long.MIN_VALUE};
+  /**
+   * Greatest value of each integral kind
+   */
+  private static final long[] MAXIMUMS={0, Byte.MAX_VALUE, Short.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE};
+
+  /**
+   * Binding of the bound class
+   */
+  private final Binding fRoot;
+  /**
+   * Bindings of every class reachable from the bound class
+   */
+  private final HashMap<Class<?>,Binding> fBindings;
+
+  /**
+   * Constructs a binder for a class
+   * @param aClass class to be bound
+   */
+  public Binder(Class<T> aClass) {
+
+    assert aClass!=null;
+
+    fBindings=new HashMap<>();//create bindings
+    fRoot=binding(aClass);//compile class and every class reachable from it
+
+  }//Binder()
+
+  /**
+   * Binds a message to a new instance of the bound class
+   * @param aMessage message holding a JSON object
+   * @return bound instance; or null if the message is a JSON null
+   */
+  public T bind(String aMessage) {
+
+    assert aMessage!=null;
+
+    JsonReader reader=new JsonReader(aMessage);//reader for message
+    try {
+      Object object=null;//bound instance; or null for a null message
+      if (!reader.isNull()) {//if object message
+        if (reader.peek()!='{') throw reader.error();//object expected
+        object=object(reader, fRoot);//bind object
+      }//if object message
+      reader.end();//nothing may follow root value
+      @SuppressWarnings("unchecked")
+      T instance=(T)object;//instance of bound class
+      return instance;//here you go
+    } catch (RuntimeException|Error e) {//failed to bind
+      throw e;//pass on
+    } catch (Throwable e) {//method handle failed
+      throw new RuntimeException(e);//should never happen
+    }//try
+
+  }//bind()
+
+  /**
+   * Compiles the binding of a class
+   * @param aClass class to be bound
+   * @return binding of the class
+   */
+  private Binding binding(Class<?> aClass) {
+
+    Binding binding=fBindings.get(aClass);//get existing binding
+    if (binding!=null) return binding;//already compiled
+
+    MethodHandles.Lookup lookup=MethodHandles.lookup();//lookup for field and constructor handles
+    try {
+      Constructor<?> constructor=aClass.getDeclaredConstructor();//get constructor without parameters
+      constructor.setAccessible(true);//allow a private constructor
+      binding=new Binding(lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class)));//construct as object
+    } catch (NoSuchMethodException|IllegalAccessException|SecurityException e) {//no usable constructor
+      throw new RuntimeException("Bad class : "+aClass.getName());//cannot instantiate
+    }//try
+    fBindings.put(aClass, binding);//keep binding before resolving fields, as a field may refer back to the class
+
+    ArrayList<Property> properties=new ArrayList<>();//bound fields
+    ArrayList<Class<?>> classes=new ArrayList<>();//class and its superclasses
+    for (Class<?> type=aClass;(type!=null)&&(type!=Object.class);type=type.getSuperclass()) classes.add(0, type);//superclasses first
+    for (Class<?> type:classes) {//for each class from the top
+      for (Field field:type.getDeclaredFields()) {//for each field
+        if ((field.getModifiers()&(Modifier.STATIC|Modifier.FINAL|Modifier.TRANSIENT))!=0) continue;//not bound
+        if (field.isSynthetic()) continue;//not declared in source
+        String label=type.getSimpleName()+"."+field.getName();//name for errors
+        Property property=property(label, field.getGenericType());//resolve field type
+        field.setAccessible(true);//allow a private field
+        try {
+          property.iSetter=MethodHandles.explicitCastArguments(lookup.unreflectSetter(field), setterType(property));//set with narrowing or cast
+        } catch (IllegalAccessException e) {//not settable
+          throw new RuntimeException("Bad field : "+label);//cannot bind
+        }//try
+        property.iName=field.getName();//match key by field name
+        properties.add(property);//bind field
+      }//for each field
+    }//for each class from the top
+    binding.iProperties=properties.toArray(new Property[properties.size()]);//set bound fields
+
+    return binding;//here you go
+
+  }//binding()
+
+  /**
+   * Resolves the kind of a field or list item
+   * @param aLabel name of the field for errors
+   * @param aType declared type
+   * @return unbound property of the type
+   */
+  private Property property(String aLabel, Type aType) {
+
+    Property property=new Property(aLabel);//create property
+    Class<?> type=(aType instanceof ParameterizedType)?(Class<?>)((ParameterizedType)aType).getRawType():(aType instanceof Class)?(Class<?>)aType:null;//raw class
+    if (type==null) throw new RuntimeException("Bad field : "+aLabel);//type variable or wildcard
+
+    property.iPrimitive=type.isPrimitive();//primitive field?
+    if ((type==boolean.class)||(type==Boolean.class)) {//if boolean
+      property.iKind=BOOLEAN_KIND;
+    } else if ((type==byte.class)||(type==Byte.class)) {//else if byte
+      property.iKind=BYTE_KIND;
+    } else if ((type==short.class)||(type==Short.class)) {//else if short
+      property.iKind=SHORT_KIND;
+    } else if ((type==int.class)||(type==Integer.class)) {//else if integer
+      property.iKind=INTEGER_KIND;
+    } else if ((type==long.class)||(type==Long.class)) {//else if long
+      property.iKind=LONG_KIND;
+    } else if ((type==float.class)||(type==Float.class)) {//else if float
+      property.iKind=FLOAT_KIND;
+    } else if ((type==double.class)||(type==Double.class)) {//else if double
+      property.iKind=DOUBLE_KIND;
+    } else if (type==String.class) {//else if string
+      property.iKind=STRING_KIND;
+    } else if (type==BigInteger.class) {//else if big integer
+      property.iKind=BIG_INTEGER_KIND;
+    } else if (type==BigDecimal.class) {//else if big decimal
+      property.iKind=BIG_DECIMAL_KIND;
+    } else if ((type==List.class)||(type==ArrayList.class)||(type==Collection.class)||(type==Iterable.class)) {//else if list
+      if (!(aType instanceof ParameterizedType)) throw new RuntimeException("Bad field : "+aLabel);//item type unknown
+      property.iKind=LIST_KIND;
+      property.iItem=property(aLabel+"[]", ((ParameterizedType)aType).getActualTypeArguments()[0]);//resolve item type
+    } else if (type.isPrimitive()||type.isArray()||type.isInterface()||type.isEnum()||Modifier.isAbstract(type.getModifiers())) {//else if not instantiable
+      throw new RuntimeException("Bad field : "+aLabel);//cannot bind
+    } else {//else bound class
+      property.iKind=OBJECT_KIND;
+      property.iBinding=binding(type);//compile class
+    }//if boolean
+
+    return property;//here you go
+
+  }//property()
+
+  /**
+   * Returns the type of the setter by which a property is set
+   * @param aProperty property
+   * @return setter type taking the instance as an object and the value as a boolean, long, double or object
+   */
+  private static MethodType setterType(Property aProperty) {
+
+    Class<?> type=Object.class;//objects by default
+    if (aProperty.iPrimitive) {//if primitive field
+      if (aProperty.iKind==BOOLEAN_KIND) {//if boolean
+        type=boolean.class;
+      } else if ((aProperty.iKind==FLOAT_KIND)||(aProperty.iKind==DOUBLE_KIND)) {//else if floating point
+        type=double.class;
+      } else {//else integral
+        type=long.class;
+      }//if boolean
+    }//if primitive field
+
+    return MethodType.methodType(void.class, Object.class, type);//setter type
+
+  }//setterType()
+
+  /**
+   * Binds an object
+   * @param aReader reader positioned at the object
+   * @param aBinding binding of the class of the object
+   * @return bound instance
+   * @throws Throwable if a method handle fails
+   */
+  private Object object(JsonReader aReader, Binding aBinding) throws Throwable {
+
+    assert aBinding!=null;
+    assert aReader.peek()=='{';
+
+    Object object=(Object)aBinding.fConstructor.invokeExact();//construct instance
+    aReader.startObject();//consume open bracket
+    Property[] properties=aBinding.iProperties;//bound fields
+    int next=0;//position of the field expected next
+    while (aReader.nextKey()) {//for each member
+      Property property=null;//field for key
+      for (int i=0;i<properties.length;++i) {//for each field, starting with the one expected next
+        Property candidate=properties[(next+i)%properties.length];//get field
+        if (aReader.isKey(candidate.iName)) {//if key matches field name
+          property=candidate;//found field
+          next=(next+i+1)%properties.length;//expect following field next
+          break;//done
+        }//if key matches field name
+      }//for each field, starting with the one expected next
+      if (property==null) {//if no such field
+        aReader.skipValue();//skip value
+      } else {//else bound field
+        set(aReader, object, property);//bind value
+      }//if no such field
+    }//for each member
+
+    return object;//end of object
+
+  }//object()
+
+  /**
+   * Binds a value to a field
+   * @param aReader reader positioned at the value
+   * @param aObject instance holding the field
+   * @param aProperty field to be set
+   * @throws Throwable if a method handle fails
+   */
+  private void set(JsonReader aReader, Object aObject, Property aProperty) throws Throwable {
+
+    if (aReader.isNull()) {//if null
+      if (!aProperty.iPrimitive) aProperty.iSetter.invokeExact(aObject, (Object)null);//clear field
+      return;//primitive left at default
+    }//if null
+
+    if (!aProperty.iPrimitive) {//if object field
+      aProperty.iSetter.invokeExact(aObject, value(aReader, aProperty));//set object
+    } else if (aProperty.iKind==BOOLEAN_KIND) {//else if boolean field
+      aProperty.iSetter.invokeExact(aObject, booleanValue(aReader, aProperty));//set boolean
+    } else if ((aProperty.iKind==FLOAT_KIND)||(aProperty.iKind==DOUBLE_KIND)) {//else if floating point field
+      aProperty.iSetter.invokeExact(aObject, doubleValue(aReader, aProperty));//set double
+    } else {//else integral field
+      aProperty.iSetter.invokeExact(aObject, longValue(aReader, aProperty));//set long
+    }//if object field
+
+  }//set()
+
+  /**
+   * Binds a value to an object
+   * @param aReader reader positioned at the value
+   * @param aProperty property of the value
+   * @return bound value; or null for null
+   * @throws Throwable if a method handle fails
+   */
+  private Object value(JsonReader aReader, Property aProperty) throws Throwable {
+
+    if (aReader.isNull()) return null;//no value
+
+    switch (aProperty.iKind) {//switch on kind
+      case BOOLEAN_KIND: return booleanValue(aReader, aProperty);//boolean
+      case BYTE_KIND: return (byte)longValue(aReader, aProperty);//byte
+      case SHORT_KIND: return (short)longValue(aReader, aProperty);//short
+      case INTEGER_KIND: return (int)longValue(aReader, aProperty);//integer
+      case LONG_KIND: return longValue(aReader, aProperty);//long
+      case FLOAT_KIND: return (float)doubleValue(aReader, aProperty);//float
+      case DOUBLE_KIND: return doubleValue(aReader, aProperty);//double
+      case STRING_KIND: try {
+                          return aReader.readString();//decode string
+                        } catch (JsonParseException e) {//malformed message
+                          throw e;//pass on
+                        } catch (RuntimeException e) {//not a string
+                          throw mismatch(aReader, aProperty);//string expected
+                        }//try
+      case BIG_INTEGER_KIND:
+      case BIG_DECIMAL_KIND: return exactValue(aReader, aProperty);//exact number
+      case OBJECT_KIND: if (aReader.peek()!='{') throw mismatch(aReader, aProperty);//object expected
+                        return object(aReader, aProperty.iBinding);//bind object
+      default : return list(aReader, aProperty);//list
+    }//switch on kind
+
+  }//value()
+
+  /**
+   * Binds an array to a list
+   * @param aReader reader positioned at the array
+   * @param aProperty property of the list
+   * @return bound list
+   * @throws Throwable if a method handle fails
+   */
+  private ArrayList<Object> list(JsonReader aReader, Property aProperty) throws Throwable {
+
+    assert aProperty.iKind==LIST_KIND;
+
+    if (aReader.peek()!='[') throw mismatch(aReader, aProperty);//array expected
+    ArrayList<Object> list=new ArrayList<>();//create list
+    aReader.startArray();//consume open bracket
+    while (aReader.nextItem()) list.add(value(aReader, aProperty.iItem));//bind each element
+
+    return list;//end of array
+
+  }//list()
+
+  /**
+   * Reads a boolean value
+   * @param aReader reader positioned at the value
+   * @param aProperty property of the value
+   * @return boolean value
+   */
+  private static boolean booleanValue(JsonReader aReader, Property aProperty) {
+
+    try {
+      return aReader.readBoolean();//read boolean
+    } catch (JsonParseException e) {//malformed message
+      throw e;//pass on
+    } catch (RuntimeException e) {//not a boolean
+      throw mismatch(aReader, aProperty);//boolean expected
+    }//try
+
+  }//booleanValue()
+
+  /**
+   * Reads an integer value within the range of its kind
+   * @param aReader reader positioned at the value
+   * @param aProperty property of the value
+   * @return long value
+   */
+  private static long longValue(JsonReader aReader, Property aProperty) {
+
+    try {
+      return aReader.readLong(MINIMUMS[aProperty.iKind], MAXIMUMS[aProperty.iKind]);//read integer within range of kind
+    } catch (JsonParseException e) {//malformed message
+      throw e;//pass on
+    } catch (RuntimeException e) {//not an integer of the kind
+      throw mismatch(aReader, aProperty);//fraction, exponent or beyond range
+    }//try
+
+  }//longValue()
+
+  /**
+   * Reads a floating point value
+   * @param aReader reader positioned at the value
+   * @param aProperty property of the value
+   * @return double value
+   */
+  private static double doubleValue(JsonReader aReader, Property aProperty) {
+
+    try {
+      return aReader.readDouble();//read number
+    } catch (JsonParseException e) {//malformed message
+      throw e;//pass on
+    } catch (RuntimeException e) {//not a number
+      throw mismatch(aReader, aProperty);//number expected
+    }//try
+
+  }//doubleValue()
+
+  /**
+   * Reads an exact number
+   * @param aReader reader positioned at the value
+   * @param aProperty property of the value
+   * @return BigInteger or BigDecimal value
+   */
+  private static Number exactValue(JsonReader aReader, Property aProperty) {
+
+    try {
+      if (aProperty.iKind==BIG_DECIMAL_KIND) return aReader.readBigDecimal();//exact decimal
+      return aReader.readBigInteger();//exact integer
+    } catch (JsonParseException e) {//malformed message
+      throw e;//pass on
+    } catch (RuntimeException e) {//not a number of the kind
+      throw mismatch(aReader, aProperty);//fraction or exponent
+    }//try
+
+  }//exactValue()
+
+  /**
+   * Returns an exception for a value that does not fit its field
+   * @param aReader reader positioned at or after the value
+   * @param aProperty property of the value
+   * @return exception to be thrown
+   */
+  private static RuntimeException mismatch(JsonReader aReader, Property aProperty) {
+
+    return new RuntimeException("Bad value : "+aProperty.fLabel+" at offset "+aReader.getIndex());//describe mismatch
+
+  }//mismatch()
+
+  /**
+   * Compiled binding of a class
+   */
+  private static final class Binding {
+
+    /**
+     * Constructor of the class, as a handle returning an object
+     */
+    private final MethodHandle fConstructor;
+    /**
+     * Bound fields in declaration order, superclass fields first
+     */
+    private Property[] iProperties;
+
+    /**
+     * Constructs a binding
+     * @param aConstructor constructor handle
+     */
+    private Binding(MethodHandle aConstructor) {
+
+      fConstructor=aConstructor;//set constructor
+
+    }//Binding()
+
+  }//Binding{}
+
+  /**
+   * Compiled binding of a field or list item
+   */
+  private static final class Property {
+
+    /**
+     * Name of the field for errors
+     */
+    private final String fLabel;
+    /**
+     * Field name matched against object keys; or null for a list item
+     */
+    private String iName;
+    /**
+     * Kind of value
+     */
+    private int iKind;
+    /**
+     * Indicates if the field is primitive
+     */
+    private boolean iPrimitive;
+    /**
+     * Setter taking the instance and the value; or null for a list item
+     */
+    private MethodHandle iSetter;
+    /**
+     * Binding of the class of an object value
+     */
+    private Binding iBinding;
+    /**
+     * Property of the items of a list value
+     */
+    private Property iItem;
+
+    /**
+     * Constructs a property
+     * @param aLabel name of the field for errors
+     */
+    private Property(String aLabel) {
+
+      fLabel=aLabel;//set label
+
+    }//Property()
+
+  }//Property{}
+
+}//Binder{}
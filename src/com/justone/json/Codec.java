@@ -0,0 +1,110 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes instances of a class as JSON messages.
+ * <P>
+ * Codecs are generated at compile time for classes annotated with JsonCodec. A generated codec reads an
+ * object by switching on the hash of each key read by a JsonReader and writes each field straight into
+ * the instance, and writes an object by calling a JsonGenerator for each field in turn, so that neither
+ * reflection nor a hierarchy of elements is involved. Codecs hold no state and may be shared between
+ * threads through the INSTANCE field of each generated codec.
+ * </P>
+ * <br>
+ * Code example:
+ * <pre><code>
+ *
+ * &#64;JsonCodec
+ * public class Sighting { long identity; String name; }
+ *
+ * Sighting sighting=SightingCodec.INSTANCE.read("{\"identity\":12345,\"name\":\"Tower Bridge\"}");
+ * String message=SightingCodec.INSTANCE.write(sighting);
+ *
+ * </code></pre>
+ * @param <T> class read and written
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see JsonCodec
+ * @see JsonReader
+ * @see JsonGenerator
+ */
+public abstract class Codec<T> {
+
+  /**
+   * Reads a value from a reader
+   * @param aReader reader positioned at the value
+   * @return instance read; or null for a null value
+   */
+  public abstract T read(JsonReader aReader);
+
+  /**
+   * Writes a value to a generator
+   * @param aObject instance to be written; or null to write a null value
+   * @param aGenerator generator to write to
+   * @throws IOException if the output cannot be written
+   */
+  public abstract void write(T aObject, JsonGenerator aGenerator) throws IOException;
+
+  /**
+   * Reads a message
+   * @param aMessage message holding a single value
+   * @return instance read; or null if the message is a JSON null
+   */
+  public T read(String aMessage) {
+
+    assert aMessage!=null;
+
+    JsonReader reader=new JsonReader(aMessage);//reader for message
+    T object=read(reader);//read value
+    reader.end();//nothing may follow
+
+    return object;//here you go
+
+  }//read()
+
+  /**
+   * Writes a message
+   * @param aObject instance to be written; or null to write a null value
+   * @return message
+   */
+  public String write(T aObject) {
+
+    StringBuilder buffer=new StringBuilder();//buffer for message
+    try {
+      write(aObject, new JsonGenerator(buffer));//write value
+    } catch (IOException e) {//cannot happen with a string builder
+      throw new RuntimeException(e);//just in case
+    }//try
+
+    return buffer.toString();//here you go
+
+  }//write()
+
+}//Codec{}
@@ -0,0 +1,306 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * A diff between two hierarchies of elements, written as an RFC 6902 JSON Patch.
+ * <P>
+ * The patch is an array of add, remove and replace operations that turns the source element into
+ * the target element. Subtrees are compared by their structural hashes, so that unchanged
+ * subtrees are skipped without being walked; subtrees of the same type and 64-bit hash are taken
+ * to be equal without a deep comparison. Objects are compared key by key. Arrays are compared
+ * by trimming their common prefix and suffix and matching the remaining elements by a longest common
+ * subsequence of their hashes, as long as the remainder is small enough; larger remainders are compared
+ * position by position. Elements in the same position of both arrays are diffed rather than replaced.
+ * </P>
+ * <P>
+ * Paths are written as RFC 6901 JSON Pointers, and array indexes account for the operations before them.
+ * A diff may be reused for many pairs of elements but must not be shared between threads.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see JsonGenerator
+ * @see Patch
+ */
+public class Diff {
+
+  /**
+   * Largest product of the unmatched lengths of two arrays that is matched by longest common subsequence
+   */
+  public static final int MATCH_LIMIT=1<<16;
+
+  /**
+   * JSON Pointer of the elements being compared
+   */
+  private final StringBuilder fPointer=new StringBuilder();
+  /**
+   * Generator being written to
+   */
+  private JsonGenerator iOut;
+
+  /**
+   * Returns the patch that turns one element into another
+   * @param aSource element to be patched
+   * @param aTarget element the patch should produce
+   * @return JSON Patch text
+   */
+  public String diff(Element aSource, Element aTarget) {
+
+    StringBuilder buffer=new StringBuilder();//buffer for patch
+    try {
+      diff(aSource, aTarget, new JsonGenerator(buffer));//write patch into buffer
+    } catch (IOException e) {
+      throw new RuntimeException(e);//string builders do not throw
+    }//try
+
+    return buffer.toString();//return patch
+
+  }//diff()
+
+  /**
+   * Writes the patch that turns one element into another
+   * @param aSource element to be patched
+   * @param aTarget element the patch should produce
+   * @param aOut generator to write the patch array to
+   * @throws IOException if the patch cannot be written
+   */
+  public void diff(Element aSource, Element aTarget, JsonGenerator aOut) throws IOException {
+
+    assert aSource!=null;
+    assert aTarget!=null;
+    assert aOut!=null;
+
+    iOut=aOut;//write to generator
+    fPointer.setLength(0);//start at root
+    try {
+      iOut.startArray();//open patch
+      compare(aSource, aTarget);//compare roots
+      iOut.endArray();//close patch
+    } finally {
+      iOut=null;//release generator
+    }//try
+
+  }//diff()
+
+  /**
+   * Writes the operations that turn one element into another at the current pointer
+   * @param aSource element to be patched
+   * @param aTarget element the patch should produce
+   * @throws IOException if the patch cannot be written
+   */
+  private void compare(Element aSource, Element aTarget) throws IOException {
+
+    if (same(aSource, aTarget)) return;//unchanged subtree
+    if (aSource.isObject()&&aTarget.isObject()) {//if both objects
+      compareObjects((ObjectElement)aSource, (ObjectElement)aTarget);//compare members
+    } else if (aSource.isArray()&&aTarget.isArray()) {//else if both arrays
+      compareArrays(aSource, aTarget);//compare elements
+    } else {//else different types or scalar values
+      write("replace", aTarget);//replace element
+    }//if both objects
+
+  }//compare()
+
+  /**
+   * Writes the operations that turn the members of one object into those of another
+   * @param aSource object to be patched
+   * @param aTarget object the patch should produce
+   * @throws IOException if the patch cannot be written
+   */
+  private void compareObjects(ObjectElement aSource, ObjectElement aTarget) throws IOException {
+
+    Iterator<String> sourceKeys=aSource.getKeyIterator();//source keys in order
+    Iterator<String> targetKeys=aTarget.getKeyIterator();//target keys in order
+    String sourceKey=sourceKeys.hasNext()?sourceKeys.next():null;//first source key
+    String targetKey=targetKeys.hasNext()?targetKeys.next():null;//first target key
+    while ((sourceKey!=null)||(targetKey!=null)) {//until both key sets are exhausted
+      int order=(sourceKey==null)?1:(targetKey==null)?-1:sourceKey.compareTo(targetKey);//compare keys
+      int length=push(Serializer.unescape((order<=0)?sourceKey:targetKey));//point at member
+      if (order<0) {//if key only in source
+        write("remove", null);//remove member
+      } else if (order>0) {//else if key only in target
+        write("add", aTarget.getChildElement(targetKey));//add member
+      } else {//else key in both
+        compare(aSource.getChildElement(sourceKey), aTarget.getChildElement(targetKey));//compare members
+      }//if key only in source
+      fPointer.setLength(length);//back to object
+      if (order<=0) sourceKey=sourceKeys.hasNext()?sourceKeys.next():null;//next source key
+      if (order>=0) targetKey=targetKeys.hasNext()?targetKeys.next():null;//next target key
+    }//until both key sets are exhausted
+
+  }//compareObjects()
+
+  /**
+   * Writes the operations that turn the elements of one array into those of another
+   * @param aSource array to be patched
+   * @param aTarget array the patch should produce
+   * @throws IOException if the patch cannot be written
+   */
+  private void compareArrays(Element aSource, Element aTarget) throws IOException {
+
+    Element[] source=elements(aSource);//source elements
+    Element[] target=elements(aTarget);//target elements
+    int start=0;//length of common prefix
+    while ((start<source.length)&&(start<target.length)&&same(source[start], target[start])) ++start;//skip common prefix
+    int sourceEnd=source.length;//end of unmatched source elements
+    int targetEnd=target.length;//end of unmatched target elements
+    while ((sourceEnd>start)&&(targetEnd>start)&&same(source[sourceEnd-1], target[targetEnd-1])) {//while common suffix
+      --sourceEnd;//skip source element
+      --targetEnd;//skip target element
+    }//while common suffix
+
+    int rows=sourceEnd-start;//unmatched source elements
+    int columns=targetEnd-start;//unmatched target elements
+    int[] lengths=null;//longest common subsequence lengths; or null if not matched
+    if ((rows>0)&&(columns>0)&&((long)rows*columns<=MATCH_LIMIT)) {//if small enough to match
+      lengths=new int[(rows+1)*(columns+1)];//lengths of common subsequences of each pair of suffixes
+      for (int i=rows-1;i>=0;--i) {//for each source suffix, shortest first
+        long hash=source[start+i].getHash();//hash of source element
+        for (int j=columns-1;j>=0;--j) {//for each target suffix, shortest first
+          if (hash==target[start+j].getHash()) {//if elements match
+            lengths[i*(columns+1)+j]=lengths[(i+1)*(columns+1)+j+1]+1;//extend subsequence
+          } else {//else elements differ
+            lengths[i*(columns+1)+j]=Math.max(lengths[(i+1)*(columns+1)+j], lengths[i*(columns+1)+j+1]);//best of skipping either
+          }//if elements match
+        }//for each target suffix
+      }//for each source suffix
+    }//if small enough to match
+
+    int index=start;//index in the array being patched
+    int i=0;//next unmatched source element
+    int j=0;//next unmatched target element
+    while ((i<rows)||(j<columns)) {//until all unmatched elements handled
+      int here=(lengths==null)?0:lengths[i*(columns+1)+j];//subsequence length from here
+      if ((i<rows)&&(j<columns)&&((lengths==null)||(lengths[(i+1)*(columns+1)+j+1]+((source[start+i].getHash()==target[start+j].getHash())?1:0)==here))) {//if elements pair up
+        int length=push(index);//point at element
+        compare(source[start+i], target[start+j]);//diff elements in the same position
+        fPointer.setLength(length);//back to array
+        ++i;//next source element
+        ++j;//next target element
+        ++index;//next array element
+      } else if ((j>=columns)||((i<rows)&&(lengths[(i+1)*(columns+1)+j]>=lengths[i*(columns+1)+j+1]))) {//else if source element is dropped
+        int length=push(index);//point at element
+        write("remove", null);//remove element
+        fPointer.setLength(length);//back to array
+        ++i;//next source element
+      } else {//else target element is new
+        int length=push(index);//point at element
+        write("add", target[start+j]);//insert element
+        fPointer.setLength(length);//back to array
+        ++j;//next target element
+        ++index;//next array element
+      }//if elements pair up
+    }//until all unmatched elements handled
+
+  }//compareArrays()
+
+  /**
+   * Writes a patch operation for the current pointer
+   * @param aOperation name of the operation
+   * @param aValue value of the operation; or null if none
+   * @throws IOException if the patch cannot be written
+   */
+  private void write(String aOperation, Element aValue) throws IOException {
+
+    iOut.startObject();//open operation
+    iOut.name("op").value(aOperation);//write operation name
+    iOut.name("path").value(fPointer);//write pointer
+    if (aValue!=null) iOut.name("value").value(aValue);//write value
+    iOut.endObject();//close operation
+
+  }//write()
+
+  /**
+   * Appends an object key to the pointer
+   * @param aKey unescaped object key
+   * @return length of the pointer before the key
+   */
+  private int push(String aKey) {
+
+    int length=fPointer.length();//current length
+    fPointer.append('/');//separate token
+    for (int i=0;i<aKey.length();++i) {//for each key character
+      char chr=aKey.charAt(i);//get character
+      if (chr=='~') {//if tilde
+        fPointer.append("~0");//escape tilde
+      } else if (chr=='/') {//else if slash
+        fPointer.append("~1");//escape slash
+      } else {//else ordinary character
+        fPointer.append(chr);//copy character
+      }//if tilde
+    }//for each key character
+
+    return length;//length to restore
+
+  }//push()
+
+  /**
+   * Appends an array index to the pointer
+   * @param aIndex array index
+   * @return length of the pointer before the index
+   */
+  private int push(int aIndex) {
+
+    int length=fPointer.length();//current length
+    fPointer.append('/');//separate token
+    fPointer.append(aIndex);//append index
+
+    return length;//length to restore
+
+  }//push()
+
+  /**
+   * Indicates if two elements are taken to be the same, by their types and structural hashes alone
+   * @param aSource source element
+   * @param aTarget target element
+   * @return true if the elements have the same type and hash
+   */
+  private static boolean same(Element aSource, Element aTarget) {
+
+    return (aSource.fType==aTarget.fType)&&(aSource.getHash()==aTarget.getHash());//compare type and hash
+
+  }//same()
+
+  /**
+   * Returns the children of an array as an array
+   * @param aArray array element
+   * @return child elements in order
+   */
+  private static Element[] elements(Element aArray) {
+
+    Element[] elements=new Element[aArray.size()];//allocate array
+    Iterator<Element> iterator=aArray.getChildElements();//iterate children
+    for (int i=0;i<elements.length;++i) elements[i]=iterator.next();//copy child
+
+    return elements;//return children
+
+  }//elements()
+
+}//Diff{}
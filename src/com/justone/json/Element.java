@@ -26,6 +26,9 @@ SOFTWARE.
 
 package com.justone.json;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 
@@ -77,6 +80,18 @@ public abstract class Element {
    * Array index of the element
    */
   protected int iIndex;
+  /**
+   * Structural hash of the element, if computed
+   */
+  protected long iHash;
+  /**
+   * Indicates if the structural hash has been computed
+   */
+  protected boolean iHashed;
+  /**
+   * Indicates if the element is frozen and can no longer be changed
+   */
+  protected boolean iFrozen;
   
   /**
    * Constructor for element
@@ -137,6 +152,261 @@ public abstract class Element {
   @Override
   public abstract String toString();
   
+  /**
+   * Forgets the source and structural hash of this element and of its ancestors after a change to its children
+   */
+  void changed() {
+    
+    for (Element element=this;element!=null;element=element.iParent) {//for each element up to one already changed
+      if (!element.forgetSource()&&!element.iHashed) break;//already changed
+      element.iHashed=false;//hash no longer matches element
+    }//for each element up to one already changed
+    
+  }//changed()
+  
+  /**
+   * Forgets the source message of the element, which only objects and arrays keep
+   * @return true if the element had a source
+   */
+  boolean forgetSource() {
+    
+    return false;//no source kept
+    
+  }//forgetSource()
+  
+  /**
+   * Copies the source text of the element if it was parsed and has not changed since
+   * @param aOut appendable to write to
+   * @return true if the source was copied
+   * @throws IOException if the appendable cannot be written
+   */
+  boolean writeSource(Appendable aOut) throws IOException {
+    
+    return false;//no source kept
+    
+  }//writeSource()
+  
+  /**
+   * Numbers the element in a key index, which only objects and arrays record
+   * @param aKeyIndex key index numbering the element
+   * @param aOrder number of the element in document order within the key index
+   */
+  void number(KeyIndex aKeyIndex, int aOrder) {
+    
+  }//number()
+  
+  /**
+   * Returns the number of the element in a key index
+   * @param aKeyIndex key index
+   * @return number of the element in document order within the key index; or -1 if not numbered by it
+   */
+  int order(KeyIndex aKeyIndex) {
+    
+    return -1;//not numbered
+    
+  }//order()
+  
+  /**
+   * Checks that the element may be changed and that an element may be added to it
+   * @param aElement element to be added; or null if none
+   */
+  void mutate(Element aElement) {
+    
+    if (iFrozen) throw new UnsupportedOperationException("Frozen element");//cannot change frozen element
+    if ((aElement!=null)&&aElement.iFrozen) throw new UnsupportedOperationException("Frozen element");//cannot link frozen element
+    if ((aElement instanceof PersistentObjectElement)||(aElement instanceof PersistentArrayElement)) throw new UnsupportedOperationException("Persistent element");//cannot link element shared by versions
+    
+  }//mutate()
+  
+  /**
+   * Freezes the hierarchy the element belongs to, so that it can no longer be changed.
+   * <P>
+   * Every element of the hierarchy is marked frozen, has its structural hash computed and kept, and
+   * releases any spare storage. Afterwards the mutators of every element throw an
+   * UnsupportedOperationException and no element can be added to another element. The only writes
+   * a read still makes are the decoded values a scalar keeps on first use; these are immutable objects,
+   * and a thread that sees none yet decodes the value again, so the races are benign. A frozen hierarchy
+   * may therefore be read by any number of threads without locks once it has been safely published,
+   * for example through a final or volatile field or a concurrent collection.
+   * A key index should be built before freezing, as none can be built afterwards.
+   * </P>
+   * @return this element
+   */
+  public Element freeze() {
+    
+    Element root=this;//root of the hierarchy
+    while (root.iParent!=null) root=root.iParent;//find root
+    if (root.iFrozen) return this;//already frozen
+    
+    root.getHash();//compute and keep hashes of every element
+    Element[] stack=new Element[16];//stack of elements to be frozen
+    int depth=0;//stack depth
+    stack[depth++]=root;//push root
+    while (depth>0) {//until every element frozen
+      Element element=stack[--depth];//pop element
+      if (element.iFrozen) continue;//shared subtree already frozen
+      element.trim();//release spare storage
+      element.iFrozen=true;//no more changes
+      if (element.isScalar()) continue;//no children
+      Iterator<Element> iterator=element.getChildElements();//iterate children
+      while (iterator.hasNext()) {//for each child
+        if (depth==stack.length) stack=Arrays.copyOf(stack, depth*2);//grow stack if full
+        stack[depth++]=iterator.next();//push child
+      }//for each child
+    }//until every element frozen
+    
+    return this;//here you go
+    
+  }//freeze()
+  
+  /**
+   * Indicates if the element is frozen
+   * @return true if the element can no longer be changed
+   */
+  public boolean isFrozen() {
+    
+    return iFrozen;//return frozen flag
+    
+  }//isFrozen()
+  
+  /**
+   * Releases spare storage when the element is frozen
+   */
+  void trim() {
+  }//trim()
+  
+  /**
+   * Returns a 64-bit structural hash of the element.
+   * <P>
+   * Elements that are equal have the same hash. The hash of an object does not depend on the
+   * order of its keys, while the hash of an array depends on the order of its elements. Scalars
+   * are hashed as written, so that 1 and 1.0 differ. The hash is computed on first use and kept
+   * until the element or one of its descendents is changed through putElement(), addElement() or
+   * any of the other element mutators, and is computed for every element when it is frozen.
+   * </P>
+   * @return structural hash
+   */
+  public long getHash() {
+    
+    if (!iHashed) {//if not yet computed
+      iHash=computeHash();//compute hash
+      iHashed=true;//keep hash
+    }//if not yet computed
+    
+    return iHash;//return hash
+    
+  }//getHash()
+  
+  /**
+   * Indicates if an object is an element of the same structure and values as this element.
+   * Elements with different structural hashes are rejected before they are compared deeply.
+   * @param aObject object to compare with
+   * @return true if the object is an equal element
+   */
+  @Override
+  public boolean equals(Object aObject) {
+    
+    if (aObject==this) return true;//same element
+    if (!(aObject instanceof Element)) return false;//not an element
+    Element element=(Element)aObject;//other element
+    if (fType!=element.fType) return false;//different type
+    if (getHash()!=element.getHash()) return false;//different hash
+    
+    return equalTo(element);//compare deeply
+    
+  }//equals()
+  
+  /**
+   * Returns a hash code consistent with equals(), derived from the structural hash.
+   * As the hash changes when the element changes, an element should not be changed
+   * while it is a key of a hashed collection.
+   * @return hash code
+   */
+  @Override
+  public int hashCode() {
+    
+    long hash=getHash();//get structural hash
+    return (int)(hash^(hash>>>32));//fold into int
+    
+  }//hashCode()
+  
+  /**
+   * Computes the structural hash of the element
+   * @return structural hash
+   */
+  abstract long computeHash();
+  
+  /**
+   * Compares the structure and values of the element with another element of the same type and hash
+   * @param aElement element to compare with
+   * @return true if equal
+   */
+  abstract boolean equalTo(Element aElement);
+  
+  /**
+   * Returns a deep copy of the element that belongs to no parent
+   * @return copy of the element
+   */
+  abstract Element copy();
+  
+  /**
+   * Computes a 64-bit hash of a string
+   * @param aSeed seed for the hash
+   * @param aString string to hash
+   * @return hash of the string
+   */
+  static long hash(long aSeed, String aString) {
+    
+    long hash=aSeed^0xcbf29ce484222325L;//FNV offset basis
+    for (int i=0;i<aString.length();++i) {//for each character
+      hash^=aString.charAt(i);//mix in character
+      hash*=0x100000001b3L;//FNV prime
+    }//for each character
+    
+    return mix(hash);//spread bits
+    
+  }//hash()
+  
+  /**
+   * Spreads the bits of a 64-bit hash
+   * @param aHash hash to be spread
+   * @return well mixed hash
+   */
+  static long mix(long aHash) {
+    
+    long hash=aHash;//hash to mix
+    hash^=hash>>>33;//fold high bits
+    hash*=0xff51afd7ed558ccdL;//first multiplier
+    hash^=hash>>>33;//fold high bits
+    hash*=0xc4ceb9fe1a85ec53L;//second multiplier
+    hash^=hash>>>33;//fold high bits
+    
+    return hash;//mixed hash
+    
+  }//mix()
+  
+  /**
+   * Writes the JSON representation of the element into an appendable, such as a writer
+   * @param aOut appendable to write to
+   * @throws IOException if the appendable cannot be written
+   */
+  public void writeTo(Appendable aOut) throws IOException {
+    
+    new Serializer().write(this, aOut);//serialize in one pass
+    
+  }//writeTo()
+  
+  /**
+   * Writes the JSON representation of the element, encoded as UTF-8, into an output stream
+   * @param aOut stream to write to
+   * @throws IOException if the stream cannot be written
+   */
+  public void writeTo(OutputStream aOut) throws IOException {
+    
+    new Serializer().write(this, aOut);//serialize in one pass
+    
+  }//writeTo()
+  
   /**
    * Returns the number of child elements in the element
    * @return number of child elements in the element
@@ -196,7 +466,9 @@ public abstract class Element {
   public abstract Iterator<Element> getChildElements();
   
   /**
-   * Returns a list of all descendent elements with a given object key below this element 
+   * Returns a list of all descendent elements with a given object key below this element,
+   * excluding those below another element with the key. Uses the key index of the element
+   * if it has a valid one.
    * @param aKey key of the descendent elements to be searched for
    * @param aList list to place descendent elements into
    * @return list containing descendent elements
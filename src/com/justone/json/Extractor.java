@@ -0,0 +1,445 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+/**
+ * Extracts values at known paths from JSON messages in a single streaming pass.
+ * <P>
+ * An extractor is compiled once from a set of paths and then used to scan each message without
+ * building any elements. The value found at each path is written into the slot of a reusable
+ * SlotRecord with the same id as the path, while everything else in the message is skipped.
+ * Scanning stops as soon as every path has been found. Once a record's text buffers have grown to
+ * fit the values extracted, extraction creates no objects.
+ * </P>
+ * <br>
+ * Code example:
+ * <pre><code>
+ *
+ * Extractor extractor=new Extractor(new Path[]{new Path("/@identity"),new Path("/@location/@latitude")});
+ * SlotRecord record=new SlotRecord(extractor.size());
+ *
+ * extractor.extract("{\"identity\":12345,\"location\":{\"latitude\":51.5047650}}", record);
+ * long identity=record.getLong(0);
+ * double latitude=record.getDouble(1);
+ *
+ * </code></pre>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see SlotRecord
+ */
+public class Extractor {
+
+  /**
+   * Represents no character at end of message
+   */
+  private static final char NONE=0;
+
+  /**
+   * Paths to be extracted
+   */
+  private final PathSet fPaths;
+
+  /**
+   * Message being scanned
+   */
+  private String iMessage;
+  /**
+   * Length of message being scanned
+   */
+  private int iLength;
+  /**
+   * Character position in message being scanned
+   */
+  private int iIndex;
+  /**
+   * Record being filled
+   */
+  private SlotRecord iRecord;
+  /**
+   * Number of paths not yet found
+   */
+  private int iRemaining;
+
+  /**
+   * Constructs an extractor for given paths
+   * @param aPaths paths to be extracted, where the position of each path is its slot id
+   */
+  public Extractor(Path[] aPaths) {
+
+    this(new PathSet(aPaths));//compile paths
+
+  }//Extractor()
+
+  /**
+   * Constructs an extractor for a path set
+   * @param aPaths path set to be extracted
+   */
+  public Extractor(PathSet aPaths) {
+
+    assert aPaths!=null;
+
+    fPaths=aPaths;//set paths
+
+  }//Extractor()
+
+  /**
+   * Returns the number of paths extracted, which is the number of slots needed in a record
+   * @return number of paths
+   */
+  public int size() {
+
+    return fPaths.size();//return number of paths
+
+  }//size()
+
+  /**
+   * Extracts values from a message into a record
+   * @param aMessage message to be scanned
+   * @param aRecord record to be filled, whose slots are cleared first
+   * @return the given record
+   */
+  public SlotRecord extract(String aMessage, SlotRecord aRecord) {
+
+    assert aMessage!=null;
+    assert aRecord!=null;
+    assert aRecord.size()>=fPaths.size();
+
+    iMessage=aMessage;//set message
+    iLength=aMessage.length();//set message length
+    iIndex=0;//start at first character
+    iRecord=aRecord;//set record
+    iRemaining=fPaths.size();//no paths found yet
+    aRecord.clear();//clear slots
+
+    try {
+      white();//skip leading whitespace
+      if (value(fPaths.root())) {//if message scanned to the end
+        white();//skip trailing whitespace
+        if (iIndex<iLength) throw error();//nothing may follow root value
+      }//if message scanned to the end
+    } finally {
+      iMessage=null;//release message
+      iRecord=null;//release record
+    }//try
+
+    return aRecord;//here you go
+
+  }//extract()
+
+  /**
+   * Scans a value
+   * @param aNode tag tree node for the value; or null if no paths lie at or below it
+   * @return true to continue scanning; or false if all paths have been found
+   */
+  private boolean value(PathSet.Node aNode) {
+
+    if (aNode==null) {//if value is of no interest
+      skip();//skip over value
+      return true;//continue scanning
+    }//if value is of no interest
+
+    switch (peek()) {//switch on next character
+      case '{': fill(aNode, Element.OBJECT);//record object
+                return (iRemaining>0)&&object(aNode);//scan object if paths remain
+      case '[': fill(aNode, Element.ARRAY);//record array
+                return (iRemaining>0)&&array(aNode);//scan array if paths remain
+      case '"': int start=iIndex+1;//start of string text
+                string();//scan string
+                fill(aNode, Element.STRING, start, iIndex-1);//record string
+                break;
+      case 't': literal("true");//scan true token
+                fill(aNode, Element.BOOLEAN, iIndex-4, iIndex);//record boolean
+                break;
+      case 'f': literal("false");//scan false token
+                fill(aNode, Element.BOOLEAN, iIndex-5, iIndex);//record boolean
+                break;
+      case 'n': literal("null");//scan null token
+                fill(aNode, Element.NULL, iIndex-4, iIndex);//record null
+                break;
+      case '-':
+      case '0':
+      case '1':
+      case '2':
+      case '3':
+      case '4':
+      case '5':
+      case '6':
+      case '7':
+      case '8':
+      case '9': start=iIndex;//start of number
+                number();//scan number
+                fill(aNode, Element.NUMBER, start, iIndex);//record number
+                break;
+      default : throw error();//not a value
+    }//switch on next character
+
+    return iRemaining>0;//continue if paths remain
+
+  }//value()
+
+  /**
+   * Scans an object
+   * @param aNode tag tree node for the object
+   * @return true to continue scanning; or false if all paths have been found
+   */
+  private boolean object(PathSet.Node aNode) {
+
+    assert aNode!=null;
+
+    ++iIndex;//consume open bracket
+    white();//skip whitespace
+    if (peek()=='}') {//if empty object
+      ++iIndex;//consume close bracket
+      return iRemaining>0;//continue if paths remain
+    }//if empty object
+
+    while (true) {//for each member
+      if (peek()!='"') throw error();//key expected
+      int start=iIndex+1;//start of key
+      string();//scan key
+      PathSet.Node node=aNode.find(iMessage, start, iIndex-1);//find node for key
+      white();//skip whitespace
+      if (peek()!=':') throw error();//colon expected
+      ++iIndex;//consume colon
+      white();//skip whitespace
+      if (!value(node)) return false;//scan member value
+      white();//skip whitespace
+      char chr=peek();//get separator
+      if (chr!=',') {//if not another member
+        if (chr!='}') throw error();//comma expected
+        ++iIndex;//consume close bracket
+        return iRemaining>0;//end of object
+      }//if not another member
+      ++iIndex;//consume comma
+      white();//skip whitespace
+    }//for each member
+
+  }//object()
+
+  /**
+   * Scans an array
+   * @param aNode tag tree node for the array
+   * @return true to continue scanning; or false if all paths have been found
+   */
+  private boolean array(PathSet.Node aNode) {
+
+    assert aNode!=null;
+
+    ++iIndex;//consume open bracket
+    white();//skip whitespace
+    if (peek()==']') {//if empty array
+      ++iIndex;//consume close bracket
+      return iRemaining>0;//continue if paths remain
+    }//if empty array
+
+    int index=0;//first array index
+    while (true) {//for each element
+      if (!value(aNode.find(index++))) return false;//scan element
+      white();//skip whitespace
+      char chr=peek();//get separator
+      if (chr!=',') {//if not another element
+        if (chr!=']') throw error();//comma expected
+        ++iIndex;//consume close bracket
+        return iRemaining>0;//end of array
+      }//if not another element
+      ++iIndex;//consume comma
+      white();//skip whitespace
+    }//for each element
+
+  }//array()
+
+  /**
+   * Skips over a value of no interest
+   */
+  private void skip() {
+
+    int depth=0;//nesting depth
+    do {//until value complete
+      switch (peek()) {//switch on next character
+        case '"': string();//skip string
+                  break;
+        case '{':
+        case '[': ++depth;//one level deeper
+                  ++iIndex;//consume open bracket
+                  break;
+        case '}':
+        case ']': if (depth==0) throw error();//unbalanced bracket
+                  --depth;//one level shallower
+                  ++iIndex;//consume close bracket
+                  break;
+        case NONE: throw error();//unexpected end of message
+        default : ++iIndex;//skip any other character
+                  while ((depth==0)&&(iIndex<iLength)&&(",]}".indexOf(iMessage.charAt(iIndex))<0)) ++iIndex;//skip rest of scalar
+      }//switch on next character
+    } while (depth>0);//until value complete
+
+  }//skip()
+
+  /**
+   * Scans a string including its quotes
+   */
+  private void string() {
+
+    assert peek()=='"';
+
+    ++iIndex;//consume open quote
+    while (true) {//until close quote
+      if (iIndex>=iLength) throw error();//unterminated string
+      char chr=iMessage.charAt(iIndex++);//consume character
+      if (chr=='"') return;//close quote
+      if (chr=='\\') ++iIndex;//skip escaped character
+    }//until close quote
+
+  }//string()
+
+  /**
+   * Scans a literal token
+   * @param aToken expected token
+   */
+  private void literal(String aToken) {
+
+    assert aToken!=null;
+
+    if (!iMessage.startsWith(aToken, iIndex)) throw error();//token mismatch
+    iIndex+=aToken.length();//consume token
+
+  }//literal()
+
+  /**
+   * Scans a number
+   */
+  private void number() {
+
+    int end=Numbers.scan(iMessage, iIndex, iLength);//scan number strictly
+    if (end<0) throw error(~end);//report offending character
+    iIndex=end;//consume number
+
+  }//number()
+
+  /**
+   * Records a container at a node
+   * @param aNode tag tree node
+   * @param aType element type
+   */
+  private void fill(PathSet.Node aNode, int aType) {
+
+    for (int i=0;i<aNode.iIdCount;++i) {//for each path ending at the node
+      if (iRecord.set(aNode.iIds[i], aType)) --iRemaining;//record type
+    }//for each path ending at the node
+
+  }//fill()
+
+  /**
+   * Records a scalar at a node
+   * @param aNode tag tree node
+   * @param aType element type
+   * @param aStart position of first character of the scalar text
+   * @param aEnd position after last character of the scalar text
+   */
+  private void fill(PathSet.Node aNode, int aType, int aStart, int aEnd) {
+
+    if (aNode.iIdCount==0) return;//no paths end here
+
+    long longValue=0;//long value
+    double doubleValue=0;//double value
+    if (aType==Element.NUMBER) {//if number
+      doubleValue=Numbers.parseDouble(iMessage, aStart, aEnd);//parse as double
+      longValue=parseLong(aStart, aEnd, doubleValue);//parse as long
+    } else if (aType==Element.BOOLEAN) {//else if boolean
+      longValue=(aEnd-aStart==4)?1:0;//true or false
+      doubleValue=longValue;//same as double
+    }//if number
+
+    for (int i=0;i<aNode.iIdCount;++i) {//for each path ending at the node
+      int slot=aNode.iIds[i];//get slot id
+      if (iRecord.set(slot, aType)) --iRemaining;//record type
+      iRecord.set(slot, longValue, doubleValue);//record numeric value
+      iRecord.set(slot, iMessage, aStart, aEnd);//record text
+    }//for each path ending at the node
+
+  }//fill()
+
+  /**
+   * Parses a number as a long without creating objects where the digits allow
+   * @param aStart position of first number character
+   * @param aEnd position after last number character
+   * @param aDouble double value of the number for use if not an integer within range
+   * @return long value of the number
+   */
+  private long parseLong(int aStart, int aEnd, double aDouble) {
+
+    if (!Numbers.isInteger(iMessage, aStart, aEnd)) return (long)aDouble;//not an integer, so truncate double value
+    try {
+      return Numbers.parseLong(iMessage, aStart, aEnd);//convert integer
+    } catch (NumberFormatException e) {//not a long
+      return (long)aDouble;//truncate double value
+    }//try
+
+  }//parseLong()
+
+  /**
+   * Skips over whitespace
+   */
+  private void white() {
+
+    while ((iIndex<iLength)&&(iMessage.charAt(iIndex)<=' ')) ++iIndex;//skip whitespace
+
+  }//white()
+
+  /**
+   * Peeks at the next character from the message
+   * @return next character; or NONE if at end of message
+   */
+  private char peek() {
+
+    if (iIndex>=iLength) return NONE;//no character beyond end of the message
+    return iMessage.charAt(iIndex);//return current character
+
+  }//peek()
+
+  /**
+   * Returns a parse exception for the current character position
+   * @return parse exception to be thrown
+   */
+  private JsonParseException error() {
+
+    return error(Math.min(iIndex, iLength));//report current character
+
+  }//error()
+
+  /**
+   * Returns a parse exception for a given character position
+   * @param aIndex position of the error
+   * @return parse exception to be thrown
+   */
+  private JsonParseException error(int aIndex) {
+
+    return new JsonParseException(iMessage, aIndex, false);//exception referencing the message
+
+  }//error()
+
+}//Extractor{}
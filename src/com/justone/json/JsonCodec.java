@@ -0,0 +1,55 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for which a codec is generated at compile time.
+ * <P>
+ * With the annotation processor of the processor module on the processor path, the compiler generates a
+ * class named after the annotated class with a Codec suffix, in the same package, which extends Codec and
+ * reads and writes the class without reflection. A nested class gives a codec named after the enclosing
+ * classes as well, such as Outer_InnerCodec.
+ * </P>
+ * <P>
+ * The annotated class must be a static class with a constructor without parameters that is not private.
+ * Every field declared by the class that is neither static, final nor transient is read and written, and
+ * must not be private. Fields may be primitives other than char, their boxed types, String, BigInteger,
+ * BigDecimal, another annotated class, or a List of any of these.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Codec
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface JsonCodec {
+}//JsonCodec{}
@@ -0,0 +1,528 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * A streaming JSON generator.
+ * <P>
+ * The generator writes JSON as its methods are called, without building a hierarchy of elements.
+ * For example, the calls startObject(), name("a"), value(1), name("b"), startArray(), value(true),
+ * endArray() and endObject() write the message {"a":1,"b":[true]}. Output is written to an
+ * Appendable (such as a Writer or StringBuilder) or, encoded as UTF-8, to an OutputStream or
+ * ByteBuffer. Byte output is buffered until flush() is called.
+ * </P>
+ * <P>
+ * The generator only keeps one bit per nesting level and writes names, strings, integers and
+ * integral doubles without creating objects. The order of calls is only checked when assertions
+ * are enabled, so that a misplaced call fails fast during testing but costs nothing in production.
+ * </P>
+ * <P>
+ * A generator must not be shared between threads. Use reset() to write another message to the
+ * same output.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Serializer
+ */
+public class JsonGenerator {
+
+  /**
+   * Number of nesting levels held by each word of the nesting stack
+   */
+  private static final int WORD=64;
+  /**
+   * Largest magnitude of a double written in plain notation by Double.toString()
+   */
+  private static final double PLAIN=1e7;
+
+  /**
+   * Output being written to
+   */
+  private final Appendable fOut;
+  /**
+   * UTF-8 encoder of byte output; or null if writing characters
+   */
+  private final Utf8Output fUtf8;
+  /**
+   * Digits of an integer, filled from the end
+   */
+  private final char[] fDigits=new char[20];
+  /**
+   * Nesting stack with a set bit for an object and a clear bit for an array
+   */
+  private long[] iNesting=new long[1];
+  /**
+   * Current nesting depth
+   */
+  private int iDepth;
+  /**
+   * Indicates if nothing has been written yet at the current nesting level
+   */
+  private boolean iFirst;
+  /**
+   * Indicates if a name has been written and awaits its value
+   */
+  private boolean iNamed;
+  /**
+   * Indicates if the root value is complete
+   */
+  private boolean iComplete;
+  /**
+   * Serializer for writing elements; or null until first needed
+   */
+  private Serializer iSerializer;
+
+  /**
+   * Constructs a generator writing to an appendable, such as a writer
+   * @param aOut appendable to write to
+   */
+  public JsonGenerator(Appendable aOut) {
+
+    assert aOut!=null;
+
+    fOut=aOut;//write characters
+    fUtf8=null;//no encoding
+
+  }//JsonGenerator()
+
+  /**
+   * Constructs a generator writing UTF-8 to an output stream
+   * @param aOut stream to write to
+   */
+  public JsonGenerator(OutputStream aOut) {
+
+    assert aOut!=null;
+
+    fUtf8=new Utf8Output();//create encoder
+    fUtf8.open(aOut);//encode into stream
+    fOut=fUtf8;//write through encoder
+
+  }//JsonGenerator()
+
+  /**
+   * Constructs a generator writing UTF-8 to a heap or direct byte buffer, from its position
+   * @param aBuffer buffer to write to, which is replaced by a larger one if it fills
+   */
+  public JsonGenerator(ByteBuffer aBuffer) {
+
+    assert aBuffer!=null;
+
+    fUtf8=new Utf8Output();//create encoder
+    fUtf8.open(aBuffer);//encode into buffer
+    fOut=fUtf8;//write through encoder
+
+  }//JsonGenerator()
+
+  /**
+   * Starts an object
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator startObject() throws IOException {
+
+    before();//separate from previous value
+    push(true);//enter object
+    fOut.append('{');//open object
+
+    return this;//for chaining
+
+  }//startObject()
+
+  /**
+   * Ends the current object
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator endObject() throws IOException {
+
+    assert (iDepth>0)&&object() : "Not in an object";
+    assert !iNamed : "Name without value";
+
+    fOut.append('}');//close object
+    pop();//leave object
+
+    return this;//for chaining
+
+  }//endObject()
+
+  /**
+   * Starts an array
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator startArray() throws IOException {
+
+    before();//separate from previous value
+    push(false);//enter array
+    fOut.append('[');//open array
+
+    return this;//for chaining
+
+  }//startArray()
+
+  /**
+   * Ends the current array
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator endArray() throws IOException {
+
+    assert (iDepth>0)&&!object() : "Not in an array";
+
+    fOut.append(']');//close array
+    pop();//leave array
+
+    return this;//for chaining
+
+  }//endArray()
+
+  /**
+   * Writes the name of the next member of the current object
+   * @param aName member name, which is escaped as needed
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator name(CharSequence aName) throws IOException {
+
+    assert aName!=null;
+    assert (iDepth>0)&&object() : "Not in an object";
+    assert !iNamed : "Name without value";
+
+    if (iFirst) {//if first member
+      iFirst=false;//no longer first
+    } else {//else later member
+      fOut.append(',');//separate from previous member
+    }//if first member
+    fOut.append('"');//open name
+    Serializer.escape(aName, fOut);//write name
+    fOut.append('"');//close name
+    fOut.append(':');//separate name from value
+    iNamed=true;//value expected
+
+    return this;//for chaining
+
+  }//name()
+
+  /**
+   * Writes an integer value
+   * @param aValue integer value
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator value(long aValue) throws IOException {
+
+    before();//separate from previous value
+    digits(aValue);//write integer
+    after();//value complete
+
+    return this;//for chaining
+
+  }//value()
+
+  /**
+   * Writes a floating number value, formatted as by Double.toString(). Only integral values
+   * below ten million are written without creating a string.
+   * @param aValue finite floating number value
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator value(double aValue) throws IOException {
+
+    if (Double.isNaN(aValue)||Double.isInfinite(aValue)) throw new RuntimeException("Bad number : "+aValue);//not representable in JSON
+
+    before();//separate from previous value
+    if ((aValue==(long)aValue)&&(Math.abs(aValue)<PLAIN)&&(Double.doubleToRawLongBits(aValue)!=Long.MIN_VALUE)) {//if integral and in plain notation, but not negative zero
+      digits((long)aValue);//write integer part
+      fOut.append(".0");//write fraction
+    } else {//else general value
+      fOut.append(Double.toString(aValue));//write formatted value
+    }//if integral and in plain notation
+    after();//value complete
+
+    return this;//for chaining
+
+  }//value()
+
+  /**
+   * Writes an exact decimal value
+   * @param aValue decimal value; or null to write a null value
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator value(BigDecimal aValue) throws IOException {
+
+    if (aValue==null) return nullValue();//write null
+
+    before();//separate from previous value
+    fOut.append(aValue.toString());//write decimal, in scientific notation if its scale calls for it
+    after();//value complete
+
+    return this;//for chaining
+
+  }//value()
+
+  /**
+   * Writes an exact integer value
+   * @param aValue integer value; or null to write a null value
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator value(BigInteger aValue) throws IOException {
+
+    if (aValue==null) return nullValue();//write null
+
+    before();//separate from previous value
+    fOut.append(aValue.toString());//write integer
+    after();//value complete
+
+    return this;//for chaining
+
+  }//value()
+
+  /**
+   * Writes a boolean value
+   * @param aValue boolean value
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator value(boolean aValue) throws IOException {
+
+    before();//separate from previous value
+    fOut.append(aValue?"true":"false");//write boolean
+    after();//value complete
+
+    return this;//for chaining
+
+  }//value()
+
+  /**
+   * Writes a string value
+   * @param aValue string value, which is escaped as needed; or null to write a null value
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator value(CharSequence aValue) throws IOException {
+
+    if (aValue==null) return nullValue();//write null
+
+    before();//separate from previous value
+    fOut.append('"');//open string
+    Serializer.escape(aValue, fOut);//write string
+    fOut.append('"');//close string
+    after();//value complete
+
+    return this;//for chaining
+
+  }//value()
+
+  /**
+   * Writes an element as a value
+   * @param aValue element to be written; or null to write a null value
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator value(Element aValue) throws IOException {
+
+    if (aValue==null) return nullValue();//write null
+
+    before();//separate from previous value
+    if (iSerializer==null) iSerializer=new Serializer();//create serializer on first use
+    iSerializer.write(aValue, fOut);//write element
+    after();//value complete
+
+    return this;//for chaining
+
+  }//value()
+
+  /**
+   * Writes a null value
+   * @return this generator
+   * @throws IOException if the output cannot be written
+   */
+  public JsonGenerator nullValue() throws IOException {
+
+    before();//separate from previous value
+    fOut.append("null");//write null
+    after();//value complete
+
+    return this;//for chaining
+
+  }//nullValue()
+
+  /**
+   * Indicates if the root value is complete
+   * @return true if the message is complete
+   */
+  public boolean isComplete() {
+
+    return iComplete;//return completeness
+
+  }//isComplete()
+
+  /**
+   * Writes any buffered bytes to the output stream or byte buffer
+   * @throws IOException if the output cannot be written
+   */
+  public void flush() throws IOException {
+
+    if (fUtf8!=null) fUtf8.flush();//write buffered bytes
+
+  }//flush()
+
+  /**
+   * Writes any buffered bytes and returns the byte buffer being written to
+   * @return byte buffer, which may have replaced the one given; or null if not writing to a byte buffer
+   * @throws IOException if the output cannot be written
+   */
+  public ByteBuffer getBuffer() throws IOException {
+
+    if (fUtf8==null) return null;//not writing bytes
+    fUtf8.flush();//write buffered bytes
+    return fUtf8.getBuffer();//return buffer
+
+  }//getBuffer()
+
+  /**
+   * Forgets any unfinished message so that another message may be written to the same output
+   */
+  public void reset() {
+
+    iDepth=0;//not nested
+    iFirst=false;//no level
+    iNamed=false;//no name
+    iComplete=false;//no root value
+
+  }//reset()
+
+  /**
+   * Separates a value from the previous value at the current nesting level
+   * @throws IOException if the output cannot be written
+   */
+  private void before() throws IOException {
+
+    assert !iComplete : "Message already complete";
+
+    if (iDepth==0) return;//root value
+    if (object()) {//if object member value
+      assert iNamed : "Value without name";
+      iNamed=false;//name has its value
+    } else if (iFirst) {//else if first array element
+      iFirst=false;//no longer first
+    } else {//else later array element
+      fOut.append(',');//separate from previous element
+    }//if object member value
+
+  }//before()
+
+  /**
+   * Completes the message after a root scalar value
+   */
+  private void after() {
+
+    if (iDepth==0) iComplete=true;//root value written
+
+  }//after()
+
+  /**
+   * Writes the digits of an integer
+   * @param aValue integer value
+   * @throws IOException if the output cannot be written
+   */
+  private void digits(long aValue) throws IOException {
+
+    if (aValue==Long.MIN_VALUE) {//if not negatable
+      fOut.append("-9223372036854775808");//write smallest long
+      return;//done
+    }//if not negatable
+    long value=aValue;//value left to write
+    if (value<0) {//if negative
+      fOut.append('-');//write sign
+      value=-value;//write magnitude
+    }//if negative
+    int position=fDigits.length;//fill digits from the end
+    do {//for each digit from the last
+      fDigits[--position]=(char)('0'+value%10);//get digit
+      value/=10;//next digit
+    } while (value>0);//for each digit from the last
+    for (;position<fDigits.length;++position) fOut.append(fDigits[position]);//write digits
+
+  }//digits()
+
+  /**
+   * Indicates if the current nesting level is an object
+   * @return true if object; false if array
+   */
+  private boolean object() {
+
+    assert iDepth>0;
+
+    int level=iDepth-1;//innermost level
+    return (iNesting[level/WORD]&(1L<<(level%WORD)))!=0;//test nesting bit
+
+  }//object()
+
+  /**
+   * Pushes a nesting level onto the nesting stack
+   * @param aObject true if an object; false if an array
+   */
+  private void push(boolean aObject) {
+
+    int word=iDepth/WORD;//word holding the new level
+    if (word==iNesting.length) {//if nesting stack is full
+      long[] nesting=new long[iNesting.length*2];//double the stack
+      System.arraycopy(iNesting, 0, nesting, 0, iNesting.length);//copy existing levels
+      iNesting=nesting;//keep the larger stack
+    }//if nesting stack is full
+    long bit=1L<<(iDepth%WORD);//bit for the new level
+    if (aObject) {//if object
+      iNesting[word]|=bit;//set bit
+    } else {//else array
+      iNesting[word]&=~bit;//clear bit
+    }//if object
+    ++iDepth;//one level deeper
+    iFirst=true;//nothing written at new level
+
+  }//push()
+
+  /**
+   * Pops a nesting level from the nesting stack
+   */
+  private void pop() {
+
+    --iDepth;//one level shallower
+    iFirst=false;//the container was written at the outer level
+    if (iDepth==0) iComplete=true;//root value written
+
+  }//pop()
+
+}//JsonGenerator{}
@@ -0,0 +1,173 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+/**
+ * Indicates a syntax error in a JSON message.
+ * <P>
+ * The exception holds a reference to the message being parsed and the character offset
+ * of the error. The line, column and snippet of the message around the error are only
+ * derived when asked for, so that rejecting a malformed message does not copy it.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class JsonParseException extends RuntimeException {
+
+  /**
+   * Serialization version
+   */
+  private static final long serialVersionUID=1L;
+  /**
+   * Number of characters either side of the error shown in a snippet
+   */
+  public static final int SNIPPET=32;
+  /**
+   * Message being parsed
+   */
+  private final CharSequence fSource;
+  /**
+   * Character offset of the error in the message
+   */
+  private final int fOffset;
+  /**
+   * Line number of the error, starting at one; or zero if not yet derived
+   */
+  private int iLine;
+  /**
+   * Column number of the error, starting at one
+   */
+  private int iColumn;
+
+  /**
+   * Constructs a parse exception
+   * @param aSource message being parsed
+   * @param aOffset character offset of the error in the message
+   * @param aStackless true if no stack trace is to be captured
+   */
+  public JsonParseException(CharSequence aSource, int aOffset, boolean aStackless) {
+
+    super(null, null, false, !aStackless);//base constructor without suppression
+
+    assert aSource!=null;
+    assert aOffset>=0;
+    assert aOffset<=aSource.length();
+
+    fSource=aSource;//keep reference to message
+    fOffset=aOffset;//set error offset
+
+  }//JsonParseException()
+
+  /**
+   * Returns the character offset of the error
+   * @return offset of the error from the start of the message
+   */
+  public int getOffset() {
+
+    return fOffset;//return error offset
+
+  }//getOffset()
+
+  /**
+   * Returns the line of the error
+   * @return line number of the error, starting at one
+   */
+  public int getLine() {
+
+    if (iLine==0) locate();//derive line and column on first use
+
+    return iLine;//return line number
+
+  }//getLine()
+
+  /**
+   * Returns the column of the error
+   * @return column number of the error, starting at one
+   */
+  public int getColumn() {
+
+    if (iLine==0) locate();//derive line and column on first use
+
+    return iColumn;//return column number
+
+  }//getColumn()
+
+  /**
+   * Returns a bounded snippet of the message around the error
+   * @return snippet with the error position marked by a caret
+   */
+  public String getSnippet() {
+
+    assert fSource!=null;
+
+    int start=Math.max(0, fOffset-SNIPPET);//start of snippet
+    int end=Math.min(fSource.length(), fOffset+SNIPPET);//end of snippet
+
+    StringBuilder buffer=new StringBuilder(end-start+9);//buffer for snippet
+    if (start>0) buffer.append("...");//mark truncated start
+    buffer.append(fSource, start, fOffset);//append text before error
+    buffer.append(" ^ ");//mark error position
+    buffer.append(fSource, fOffset, end);//append text after error
+    if (end<fSource.length()) buffer.append("...");//mark truncated end
+
+    return buffer.toString();//return snippet
+
+  }//getSnippet()
+
+  /**
+   * Returns a description of the error
+   * @return description of the error including its location and snippet
+   */
+  @Override
+  public String getMessage() {
+
+    return "Invalid syntax at line "+getLine()+" column "+getColumn()+" : "+getSnippet();//describe error
+
+  }//getMessage()
+
+  /**
+   * Derives the line and column of the error from its offset
+   */
+  private void locate() {
+
+    assert fSource!=null;
+
+    int line=1;//first line
+    int start=0;//offset of first character in current line
+    for (int i=0;i<fOffset;++i) {//for each character before the error
+      if (fSource.charAt(i)=='\n') {//if new line
+        ++line;//next line
+        start=i+1;//line starts after new line character
+      }//if new line
+    }//for each character before the error
+
+    iColumn=fOffset-start+1;//set column
+    iLine=line;//set line
+
+  }//locate()
+
+}//JsonParseException{}
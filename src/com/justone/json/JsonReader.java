@@ -0,0 +1,483 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * A streaming JSON reader.
+ * <P>
+ * The reader scans a message token by token as its methods are called, without building a hierarchy of
+ * elements. It is the counterpart of JsonGenerator and the lexer beneath the codecs generated for classes
+ * annotated with JsonCodec. For example, the message {"a":1,"b":[true]} is read by the calls startObject(),
+ * nextKey() and isKey("a"), readLong(), nextKey() and isKey("b"), startArray(), nextItem(), readBoolean(),
+ * nextItem() returning false and nextKey() returning false.
+ * </P>
+ * <P>
+ * Object keys are compared as written, so that a key is matched without creating a string; keyHash()
+ * returns the same hash as String.hashCode() of the key, so that a switch on the hash may dispatch a key
+ * before isKey() confirms it. Numbers, exponents included, are read without creating objects unless their
+ * digits exceed the mantissa of a double or their decimal scale lies beyond 22, where an exact result needs
+ * the JDK to parse a string. A value of the wrong type, or an integer beyond the range asked for, is
+ * rejected with a RuntimeException, while a malformed message is rejected with a JsonParseException.
+ * </P>
+ * <P>
+ * A reader must not be shared between threads.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Codec
+ */
+public class JsonReader {
+
+  /**
+   * Represents no character at end of message
+   */
+  private static final char NONE=0;
+
+  /**
+   * Message being read
+   */
+  private final String fMessage;
+  /**
+   * Length of message being read
+   */
+  private final int fLength;
+  /**
+   * Character position in message being read
+   */
+  private int iIndex;
+  /**
+   * Indicates if nothing has been read yet in the current object or array
+   */
+  private boolean iFirst;
+  /**
+   * Position of first character of last key read
+   */
+  private int iKeyStart;
+  /**
+   * Position after last character of last key read
+   */
+  private int iKeyEnd;
+
+  /**
+   * Constructs a reader for a message
+   * @param aMessage message to be read
+   */
+  public JsonReader(String aMessage) {
+
+    assert aMessage!=null;
+
+    fMessage=aMessage;//set message
+    fLength=aMessage.length();//set message length
+    white();//skip leading whitespace
+
+  }//JsonReader()
+
+  /**
+   * Reads a null value if one is next
+   * @return true if a null value was read; or false if another value is next
+   */
+  public boolean isNull() {
+
+    if (peek()!='n') return false;//not null
+    literal("null");//scan null token
+
+    return true;//null read
+
+  }//isNull()
+
+  /**
+   * Reads the start of an object
+   */
+  public void startObject() {
+
+    if (peek()!='{') throw mismatch();//object expected
+    ++iIndex;//consume open bracket
+    white();//skip whitespace
+    iFirst=true;//no members read yet
+
+  }//startObject()
+
+  /**
+   * Reads the next object key and its colon, or the end of the object
+   * @return true if a key was read and its value is next; or false at the end of the object
+   */
+  public boolean nextKey() {
+
+    white();//skip whitespace
+    char chr=peek();//get next character
+    if (chr=='}') {//if end of object
+      ++iIndex;//consume close bracket
+      white();//skip whitespace
+      iFirst=false;//object is a complete value
+      return false;//no more keys
+    }//if end of object
+    if (!iFirst) {//if not first member
+      if (chr!=',') throw error();//comma expected
+      ++iIndex;//consume comma
+      white();//skip whitespace
+    }//if not first member
+    if (peek()!='"') throw error();//key expected
+    iKeyStart=iIndex+1;//start of key
+    string();//scan key
+    iKeyEnd=iIndex-1;//end of key
+    white();//skip whitespace
+    if (peek()!=':') throw error();//colon expected
+    ++iIndex;//consume colon
+    white();//skip whitespace
+    iFirst=false;//member read
+
+    return true;//value is next
+
+  }//nextKey()
+
+  /**
+   * Returns the hash of the last key read
+   * @return hash of the key as written, equal to String.hashCode() of the key
+   */
+  public int keyHash() {
+
+    int hash=0;//accumulated hash
+    for (int i=iKeyStart;i<iKeyEnd;++i) hash=31*hash+fMessage.charAt(i);//hash as String.hashCode()
+
+    return hash;//here you go
+
+  }//keyHash()
+
+  /**
+   * Indicates if the last key read is a given key
+   * @param aKey key to be compared
+   * @return true if the key as written equals the given key
+   */
+  public boolean isKey(String aKey) {
+
+    assert aKey!=null;
+
+    int length=iKeyEnd-iKeyStart;//key length
+    return (aKey.length()==length)&&fMessage.regionMatches(iKeyStart, aKey, 0, length);//compare key
+
+  }//isKey()
+
+  /**
+   * Reads the start of an array
+   */
+  public void startArray() {
+
+    if (peek()!='[') throw mismatch();//array expected
+    ++iIndex;//consume open bracket
+    white();//skip whitespace
+    iFirst=true;//no elements read yet
+
+  }//startArray()
+
+  /**
+   * Reads the separator before the next array element, or the end of the array
+   * @return true if an element is next; or false at the end of the array
+   */
+  public boolean nextItem() {
+
+    white();//skip whitespace
+    char chr=peek();//get next character
+    if (chr==']') {//if end of array
+      ++iIndex;//consume close bracket
+      white();//skip whitespace
+      iFirst=false;//array is a complete value
+      return false;//no more elements
+    }//if end of array
+    if (!iFirst) {//if not first element
+      if (chr!=',') throw error();//comma expected
+      ++iIndex;//consume comma
+      white();//skip whitespace
+      if (peek()==']') throw error();//element expected
+    }//if not first element
+    iFirst=false;//element read
+
+    return true;//element is next
+
+  }//nextItem()
+
+  /**
+   * Reads a boolean value
+   * @return boolean value
+   */
+  public boolean readBoolean() {
+
+    char chr=peek();//get first character
+    if (chr=='t') {//if true
+      literal("true");//scan true token
+      return true;//true
+    }//if true
+    if (chr!='f') throw mismatch();//boolean expected
+    literal("false");//scan false token
+
+    return false;//false
+
+  }//readBoolean()
+
+  /**
+   * Reads an integer value
+   * @return long value
+   */
+  public long readLong() {
+
+    return readLong(Long.MIN_VALUE, Long.MAX_VALUE);//any long
+
+  }//readLong()
+
+  /**
+   * Reads an integer value within a range
+   * @param aMinimum least value allowed
+   * @param aMaximum greatest value allowed
+   * @return long value
+   */
+  public long readLong(long aMinimum, long aMaximum) {
+
+    int start=number();//scan number
+    long value;//long value
+    try {
+      value=Numbers.parseLong(fMessage, start, iIndex);//convert integer
+    } catch (NumberFormatException e) {//not a long
+      throw mismatch(start);//fraction, exponent or beyond range
+    }//try
+    if ((value<aMinimum)||(value>aMaximum)) throw mismatch(start);//beyond range asked for
+
+    return value;//here you go
+
+  }//readLong()
+
+  /**
+   * Reads a floating point value
+   * @return double value
+   */
+  public double readDouble() {
+
+    int start=number();//scan number
+
+    return Numbers.parseDouble(fMessage, start, iIndex);//convert number
+
+  }//readDouble()
+
+  /**
+   * Reads an exact integer value
+   * @return integer value
+   */
+  public BigInteger readBigInteger() {
+
+    int start=number();//scan number
+    try {
+      return new BigInteger(fMessage.substring(start, iIndex));//exact integer
+    } catch (NumberFormatException e) {//not an integer
+      throw mismatch(start);//integer expected
+    }//try
+
+  }//readBigInteger()
+
+  /**
+   * Reads an exact decimal value
+   * @return decimal value
+   */
+  public BigDecimal readBigDecimal() {
+
+    int start=number();//scan number
+    return new BigDecimal(fMessage.substring(start, iIndex));//exact decimal
+
+  }//readBigDecimal()
+
+  /**
+   * Reads a string value
+   * @return unescaped text of the string
+   */
+  public String readString() {
+
+    if (peek()!='"') throw mismatch();//string expected
+    int start=iIndex+1;//start of string text
+    string();//scan string
+
+    return Serializer.unescape(fMessage.substring(start, iIndex-1));//decode escape sequences
+
+  }//readString()
+
+  /**
+   * Skips over a value of no interest
+   */
+  public void skipValue() {
+
+    int depth=0;//nesting depth
+    do {//until value complete
+      switch (peek()) {//switch on next character
+        case '"': string();//skip string
+                  break;
+        case '{':
+        case '[': ++depth;//one level deeper
+                  ++iIndex;//consume open bracket
+                  break;
+        case '}':
+        case ']': if (depth==0) throw error();//unbalanced bracket
+                  --depth;//one level shallower
+                  ++iIndex;//consume close bracket
+                  break;
+        case NONE: throw error();//unexpected end of message
+        default : ++iIndex;//skip any other character
+                  while ((depth==0)&&(iIndex<fLength)&&(",]}".indexOf(fMessage.charAt(iIndex))<0)) ++iIndex;//skip rest of scalar
+      }//switch on next character
+    } while (depth>0);//until value complete
+
+  }//skipValue()
+
+  /**
+   * Checks that nothing but whitespace follows the root value
+   */
+  public void end() {
+
+    white();//skip trailing whitespace
+    if (iIndex<fLength) throw error();//nothing may follow root value
+
+  }//end()
+
+  /**
+   * Scans a number
+   * @return position of the first character of the number
+   */
+  private int number() {
+
+    int start=iIndex;//start of number
+    char chr=peek();//get first character
+    if ((chr!='-')&&((chr<'0')||(chr>'9'))) throw mismatch();//number expected
+    int end=Numbers.scan(fMessage, start, fLength);//scan number strictly
+    if (end<0) throw error(~end);//report offending character
+    iIndex=end;//consume number
+
+    return start;//here you go
+
+  }//number()
+
+  /**
+   * Scans a string including its quotes
+   */
+  private void string() {
+
+    assert peek()=='"';
+
+    ++iIndex;//consume open quote
+    while (true) {//until close quote
+      if (iIndex>=fLength) throw error();//unterminated string
+      char chr=fMessage.charAt(iIndex++);//consume character
+      if (chr=='"') return;//close quote
+      if (chr=='\\') ++iIndex;//skip escaped character
+    }//until close quote
+
+  }//string()
+
+  /**
+   * Scans a literal token
+   * @param aToken expected token
+   */
+  private void literal(String aToken) {
+
+    assert aToken!=null;
+
+    if (!fMessage.startsWith(aToken, iIndex)) throw error();//token mismatch
+    iIndex+=aToken.length();//consume token
+
+  }//literal()
+
+  /**
+   * Skips over whitespace
+   */
+  private void white() {
+
+    while ((iIndex<fLength)&&(fMessage.charAt(iIndex)<=' ')) ++iIndex;//skip whitespace
+
+  }//white()
+
+  /**
+   * Returns the character position reached in the message
+   * @return position of the next character to be read
+   */
+  int getIndex() {
+
+    return iIndex;//return position
+
+  }//getIndex()
+
+  /**
+   * Peeks at the next character from the message
+   * @return next character; or NONE if at end of message
+   */
+  char peek() {
+
+    if (iIndex>=fLength) return NONE;//no character beyond end of the message
+    return fMessage.charAt(iIndex);//return current character
+
+  }//peek()
+
+  /**
+   * Returns an exception for a value of the wrong type at the current character position
+   * @return exception to be thrown
+   */
+  private RuntimeException mismatch() {
+
+    if (peek()==NONE) return error();//message ended early
+    return mismatch(iIndex);//report current character
+
+  }//mismatch()
+
+  /**
+   * Returns an exception for a value of the wrong type
+   * @param aIndex position of the value
+   * @return exception to be thrown
+   */
+  private RuntimeException mismatch(int aIndex) {
+
+    return new RuntimeException("Bad value at offset "+aIndex);//describe mismatch
+
+  }//mismatch()
+
+  /**
+   * Returns a parse exception for the current character position
+   * @return parse exception to be thrown
+   */
+  JsonParseException error() {
+
+    return error(Math.min(iIndex, fLength));//report current character
+
+  }//error()
+
+  /**
+   * Returns a parse exception for a given character position
+   * @param aIndex position of the error
+   * @return parse exception to be thrown
+   */
+  private JsonParseException error(int aIndex) {
+
+    return new JsonParseException(fMessage, aIndex, false);//exception referencing the message
+
+  }//error()
+
+}//JsonReader{}
@@ -0,0 +1,263 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * An inverted index of the object keys in a hierarchy of elements.
+ * <P>
+ * The index numbers every element in document order and records, for each object key,
+ * the elements carrying that key together with their numbers. The index also records, for every
+ * number, the number following the last element below that element, so that the elements below
+ * any element form a contiguous range of numbers. The numbering is held by the index itself, and
+ * only objects and arrays keep their own number and a link to the index.
+ * A search for descendent elements with a given key is then answered by a binary search
+ * of the elements carrying the key, rather than by walking the hierarchy.
+ * </P>
+ * <P>
+ * Once built, getDescendentElements() on any element of the hierarchy uses the index. The index
+ * is abandoned as soon as the hierarchy is changed by putElement(), addElement() or any of the
+ * other element mutators, after which searches walk the hierarchy as before. An index is also
+ * abandoned when another index is built over any of its elements.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Element#getDescendentElements(String, LinkedList)
+ */
+public class KeyIndex {
+
+  /**
+   * Elements carrying each key, in document order
+   */
+  private final HashMap<String,Entries> fEntries;
+  /**
+   * Number following the last element below each element, by element number
+   */
+  private int[] iEnds=new int[16];
+  /**
+   * Indicates if the index still reflects the hierarchy
+   */
+  private boolean iValid;
+
+  /**
+   * Constructs an index for a hierarchy of elements
+   * @param aRoot root element of the hierarchy
+   */
+  public KeyIndex(Element aRoot) {
+
+    assert aRoot!=null;
+
+    if (aRoot.iFrozen) throw new UnsupportedOperationException("Frozen element");//numbering would change frozen elements
+    fEntries=new HashMap<>();//create element lists
+    index(aRoot);//number and index elements
+    iValid=true;//index is good
+
+  }//KeyIndex()
+
+  /**
+   * Indicates if the index still reflects the hierarchy
+   * @return true if the hierarchy has not changed since it was indexed
+   */
+  public boolean isValid() {
+
+    return iValid;//return validity
+
+  }//isValid()
+
+  /**
+   * Returns the number of elements carrying a given key
+   * @param aKey object key
+   * @return number of elements in the hierarchy with the key
+   */
+  public int count(String aKey) {
+
+    assert aKey!=null;
+
+    Entries entries=fEntries.get(aKey);//get elements carrying key
+    return (entries==null)?0:entries.iCount;//return count
+
+  }//count()
+
+  /**
+   * Returns all descendent elements with a given key below an element, excluding those below another such element
+   * <P>
+   * Once the index has been abandoned, or for an element it does not number, the hierarchy is walked instead.
+   * </P>
+   * @param aElement element to search below
+   * @param aKey key of the descendent elements to be searched for
+   * @param aList list to place descendent elements into
+   * @return list containing descendent elements
+   */
+  public LinkedList<Element> getDescendentElements(Element aElement, String aKey, LinkedList<Element> aList) {
+
+    assert aElement!=null;
+    assert aKey!=null;
+    assert aList!=null;
+
+    int order=aElement.order(this);//number of the given element
+    if (!iValid||(order<0)) return aElement.getDescendentElements(aKey, aList);//walk the hierarchy if abandoned or not numbered here
+    Entries entries=fEntries.get(aKey);//get elements carrying key
+    if (entries==null) return aList;//key not found anywhere
+
+    int[] orders=entries.iOrders;//numbers of elements carrying key
+    int count=entries.iCount;//number of elements carrying key
+    int low=0;//lowest candidate position
+    int high=count;//position after highest candidate
+    while (low<high) {//binary search for first element after the given element
+      int middle=(low+high)>>>1;//middle position
+      if (orders[middle]<=order) {//if middle element is not after the given element
+        low=middle+1;//search upper half
+      } else {//else middle element is after the given element
+        high=middle;//search lower half
+      }//if middle element is not after the given element
+    }//binary search for first element after the given element
+
+    int end=iEnds[order];//number following the last element below the given element
+    int skip=0;//number before which elements lie below an element already found
+    for (int i=low;(i<count)&&(orders[i]<end);++i) {//for each element below the given element
+      if (orders[i]<skip) continue;//lies below an element already found
+      aList.add(entries.iElements[i]);//add element to the list
+      skip=iEnds[orders[i]];//skip elements below this one
+    }//for each element below the given element
+
+    return aList;//that's all folks
+
+  }//getDescendentElements()
+
+  /**
+   * Abandons the index when the hierarchy changes
+   */
+  void invalidate() {
+
+    iValid=false;//index no longer reflects hierarchy
+
+  }//invalidate()
+
+  /**
+   * Numbers the elements of a hierarchy in document order and indexes their keys
+   * @param aRoot root element of the hierarchy
+   */
+  private void index(Element aRoot) {
+
+    int[] parents=new int[16];//stack of numbers of the elements being numbered
+    Iterator<?>[] children=new Iterator<?>[16];//stack of child iterators
+    Iterator<?>[] keys=new Iterator<?>[16];//stack of key iterators
+    int depth=0;//stack depth
+    int order=0;//next element number
+
+    number(aRoot, order++);//number root element
+    parents[0]=0;//push root element
+    children[0]=aRoot.isScalar()?null:aRoot.getChildElements();//iterate children of root
+    keys[0]=aRoot.isObject()?((ObjectElement)aRoot).getKeyIterator():null;//iterate keys of root
+    depth=1;//root pushed
+
+    while (depth>0) {//until all elements numbered
+      Iterator<?> iterator=children[depth-1];//innermost child iterator
+      if ((iterator==null)||!iterator.hasNext()) {//if no more children
+        iEnds[parents[--depth]]=order;//elements below the parent end here
+        continue;//back to the parent's parent
+      }//if no more children
+      Element element=(Element)iterator.next();//get child
+      int number=order++;//number of child
+      number(element, number);//number child
+      if (keys[depth-1]!=null) add((String)keys[depth-1].next(), element, number);//index child by key
+      if (element.isScalar()) {//if scalar child
+        iEnds[number]=order;//nothing below a scalar
+        continue;//on to next child
+      }//if scalar child
+      if (depth==parents.length) {//if stacks are full
+        parents=Arrays.copyOf(parents, depth*2);//grow parent stack
+        children=Arrays.copyOf(children, depth*2);//grow child iterator stack
+        keys=Arrays.copyOf(keys, depth*2);//grow key iterator stack
+      }//if stacks are full
+      parents[depth]=number;//push child
+      children[depth]=element.getChildElements();//iterate its children
+      keys[depth]=element.isObject()?((ObjectElement)element).getKeyIterator():null;//iterate its keys
+      ++depth;//one level deeper
+    }//until all elements numbered
+
+  }//index()
+
+  /**
+   * Numbers an element, attaching an object or array to this index
+   * @param aElement element to be numbered
+   * @param aOrder number of the element in document order
+   */
+  private void number(Element aElement, int aOrder) {
+
+    if (aOrder==iEnds.length) iEnds=Arrays.copyOf(iEnds, aOrder*2);//grow ends if full
+    aElement.number(this, aOrder);//attach element to index
+
+  }//number()
+
+  /**
+   * Adds an element to the list of elements carrying a key
+   * @param aKey object key of the element
+   * @param aElement element carrying the key
+   * @param aOrder number of the element in document order
+   */
+  private void add(String aKey, Element aElement, int aOrder) {
+
+    Entries entries=fEntries.get(aKey);//get elements carrying key
+    if (entries==null) {//if key not seen before
+      entries=new Entries();//create list
+      fEntries.put(aKey, entries);//keep list
+    }//if key not seen before
+    if (entries.iCount==entries.iElements.length) {//if list is full
+      entries.iElements=Arrays.copyOf(entries.iElements, entries.iCount*2);//grow elements
+      entries.iOrders=Arrays.copyOf(entries.iOrders, entries.iCount*2);//grow numbers
+    }//if list is full
+    entries.iElements[entries.iCount]=aElement;//add element to list
+    entries.iOrders[entries.iCount++]=aOrder;//add its number
+
+  }//add()
+
+  /**
+   * List of the elements carrying a key
+   */
+  private static final class Entries {
+
+    /**
+     * Elements in document order
+     */
+    private Element[] iElements=new Element[4];
+    /**
+     * Numbers of the elements in document order
+     */
+    private int[] iOrders=new int[4];
+    /**
+     * Number of elements
+     */
+    private int iCount;
+
+  }//Entries{}
+
+}//KeyIndex{}
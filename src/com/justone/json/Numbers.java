@@ -0,0 +1,215 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+/**
+ * Scans and converts numbers written in a message, shared by the readers that work on message text.
+ * <P>
+ * A number is scanned strictly by the RFC 8259 grammar: an optional minus sign, an integer part
+ * that is a lone zero or starts with a non-zero digit, an optional fraction with at least one digit
+ * and an optional exponent with at least one digit, not followed by any further number character.
+ * Scanned numbers are then converted without creating objects wherever the digits allow an exact result.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Binder
+ * @see JsonReader
+ * @see Extractor
+ */
+final class Numbers {
+
+  /**
+   * Greatest number of digits always held exactly by a long
+   */
+  private static final int LONG_DIGITS=18;
+  /**
+   * Greatest number held exactly by a double mantissa
+   */
+  private static final long DOUBLE_MANTISSA=1L<<53;
+  /**
+   * Powers of ten held exactly by a double
+   */
+  private static final double[] POWERS={
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /**
+   * Not instantiated
+   */
+  private Numbers() {
+  }
+
+  /**
+   * Scans a number
+   * @param aText message text
+   * @param aStart position of the first character of the number
+   * @param aEnd position after the last character that may be scanned
+   * @return position after the number; or the complement of the position of the offending character if the number is malformed
+   */
+  static int scan(String aText, int aStart, int aEnd) {
+
+    assert aText!=null;
+    assert (aStart>=0)&&(aStart<=aEnd)&&(aEnd<=aText.length());
+
+    int i=aStart;//start at first character
+    if ((i<aEnd)&&(aText.charAt(i)=='-')) ++i;//consume minus sign
+    if ((i<aEnd)&&(aText.charAt(i)=='0')) {//if leading zero
+      ++i;//consume zero which must stand alone
+    } else {//else integer digits
+      int digits=i;//start of digits
+      i=digits(aText, i, aEnd);//consume digits
+      if (i==digits) return ~i;//integer part missing
+    }//if leading zero
+    if ((i<aEnd)&&(aText.charAt(i)=='.')) {//if fraction
+      int digits=++i;//consume decimal point
+      i=digits(aText, i, aEnd);//consume digits
+      if (i==digits) return ~i;//fraction digits missing
+    }//if fraction
+    if ((i<aEnd)&&((aText.charAt(i)=='e')||(aText.charAt(i)=='E'))) {//if exponent
+      ++i;//consume exponent character
+      if ((i<aEnd)&&((aText.charAt(i)=='+')||(aText.charAt(i)=='-'))) ++i;//consume exponent sign
+      int digits=i;//start of digits
+      i=digits(aText, i, aEnd);//consume digits
+      if (i==digits) return ~i;//exponent digits missing
+    }//if exponent
+    if ((i<aEnd)&&("0123456789.Ee+-".indexOf(aText.charAt(i))>=0)) return ~i;//number runs on, as in 01 or 1-2
+
+    return i;//here you go
+
+  }//scan()
+
+  /**
+   * Scans a run of decimal digits
+   * @param aText message text
+   * @param aStart position of the first character
+   * @param aEnd position after the last character that may be scanned
+   * @return position after the digits
+   */
+  private static int digits(String aText, int aStart, int aEnd) {
+
+    int i=aStart;//start at first character
+    while ((i<aEnd)&&(aText.charAt(i)>='0')&&(aText.charAt(i)<='9')) ++i;//consume digits
+
+    return i;//here you go
+
+  }//digits()
+
+  /**
+   * Indicates if a scanned number is an integer, having neither fraction nor exponent
+   * @param aText message text
+   * @param aStart position of the first character of the number
+   * @param aEnd position after the last character of the number
+   * @return true if an integer
+   */
+  static boolean isInteger(String aText, int aStart, int aEnd) {
+
+    for (int i=aStart;i<aEnd;++i) {//for each character
+      char chr=aText.charAt(i);//get character
+      if ((chr=='.')||(chr=='e')||(chr=='E')) return false;//fraction or exponent
+    }//for each character
+
+    return true;//digits only
+
+  }//isInteger()
+
+  /**
+   * Converts a scanned integer to a long, summing the digits where there are few enough
+   * @param aText message text
+   * @param aStart position of the first character of the number
+   * @param aEnd position after the last character of the number
+   * @return long value
+   * @throws NumberFormatException if the number is not an integer or is beyond the range of a long
+   */
+  static long parseLong(String aText, int aStart, int aEnd) {
+
+    int i=aStart;//start at first character
+    boolean negative=aText.charAt(i)=='-';//negative number?
+    if (negative) ++i;//skip minus sign
+    if (aEnd-i>LONG_DIGITS) return Long.parseLong(aText.substring(aStart, aEnd));//too many digits for a simple sum
+
+    long value=0;//accumulated value
+    for (;i<aEnd;++i) {//for each character
+      char chr=aText.charAt(i);//get character
+      if ((chr<'0')||(chr>'9')) throw new NumberFormatException("Not an integer");//fraction or exponent
+      value=value*10+(chr-'0');//accumulate digit
+    }//for each character
+
+    return negative?-value:value;//apply sign
+
+  }//parseLong()
+
+  /**
+   * Converts a scanned number to a double, exactly and without creating objects where the digits allow
+   * @param aText message text
+   * @param aStart position of the first character of the number
+   * @param aEnd position after the last character of the number
+   * @return double value
+   */
+  static double parseDouble(String aText, int aStart, int aEnd) {
+
+    int i=aStart;//start at first character
+    boolean negative=aText.charAt(i)=='-';//negative number?
+    if (negative) ++i;//skip minus sign
+
+    long mantissa=0;//decimal mantissa
+    int scale=0;//decimal exponent of the mantissa
+    int digits=0;//number of mantissa digits
+    boolean fraction=false;//in fraction part?
+    for (;i<aEnd;++i) {//for each character
+      char chr=aText.charAt(i);//get character
+      if ((chr>='0')&&(chr<='9')) {//if digit
+        if (++digits>LONG_DIGITS) return Double.parseDouble(aText.substring(aStart, aEnd));//too many digits
+        mantissa=mantissa*10+(chr-'0');//accumulate digit
+        if (fraction) --scale;//one more decimal place
+      } else if (chr=='.') {//else if decimal point
+        fraction=true;//now in fraction part
+      } else {//else exponent
+        break;//exponent follows
+      }//if digit
+    }//for each character
+
+    if (i<aEnd) {//if exponent
+      int exponent=0;//exponent value
+      boolean minus=false;//negative exponent?
+      ++i;//skip exponent character
+      if ((aText.charAt(i)=='+')||(aText.charAt(i)=='-')) minus=aText.charAt(i++)=='-';//consume sign
+      for (;i<aEnd;++i) {//for each exponent digit
+        if (exponent>1000) return Double.parseDouble(aText.substring(aStart, aEnd));//leave huge exponents to the JDK
+        exponent=exponent*10+(aText.charAt(i)-'0');//accumulate digit
+      }//for each exponent digit
+      scale+=minus?-exponent:exponent;//apply exponent
+    }//if exponent
+
+    if ((mantissa>=DOUBLE_MANTISSA)||(scale<-22)||(scale>22)) return Double.parseDouble(aText.substring(aStart, aEnd));//rounding could be inexact
+    double value=(scale<0)?mantissa/POWERS[-scale]:mantissa*POWERS[scale];//single rounding gives the exact result
+
+    return negative?-value:value;//apply sign
+
+  }//parseDouble()
+
+}//Numbers{}
@@ -26,22 +26,80 @@ SOFTWARE.
 
 package com.justone.json;
 
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.TreeMap;
 
 /**
  * A JSON object element
+ * <P>
+ * A parsed object is held as an array of values laid out by a shape that it shares with every other
+ * object parsed with the same keys in the same order, so that the keys and their lookup table are not
+ * repeated in each object. Replacing the value of an existing key keeps the shape, while adding or
+ * removing a key turns the object into a map of its own. Members are always visited in key order.
+ * </P>
+ * <P>
+ * Keys are held as written in a message, so a key given to or returned by any method of an object has
+ * its special characters escaped; use Serializer.escape() and Serializer.unescape() to convert a key
+ * from and to plain text. This differs from the values of string scalars, which are given unescaped.
+ * </P>
  * @author Duncan Pauly
  * @version 1.0
  */
 public class ObjectElement extends Element {
 
   /**
-   * Map of child elements
+   * No values
    */
-  private final TreeMap<String,Element> fObject;//map of values
+  private static final Element[] NONE=new Element[0];
+  /**
+   * Iterator kind for values
+   */
+  private static final int VALUES=0;
+  /**
+   * Iterator kind for keys
+   */
+  private static final int KEYS=1;
+  /**
+   * Iterator kind for entries
+   */
+  private static final int ENTRIES=2;
+  
+  /**
+   * Map of child elements; or null while shaped
+   */
+  private TreeMap<String,Element> iObject;//map of values
+  /**
+   * Shared key layout; or null once a map
+   */
+  private ObjectShape iShape;
+  /**
+   * Child elements in slot order; or null once a map
+   */
+  private Element[] iValues;
+  /**
+   * Key index the object is numbered in; or null if none
+   */
+  private KeyIndex iKeyIndex;
+  /**
+   * Number of the object in document order within its key index
+   */
+  private int iOrder;
+  /**
+   * Message the object was parsed from; or null if not parsed or changed since
+   */
+  private String iSource;
+  /**
+   * Position of the open bracket of the object in its source message
+   */
+  private int iSourceStart;
+  /**
+   * Position after the close bracket of the object in its source message
+   */
+  private int iSourceEnd;
   
   /**
    * Constructs an empty object
@@ -50,7 +108,7 @@ public class ObjectElement extends Element {
     
     super(OBJECT);//base constructor
     
-    fObject=new TreeMap<>();//create empty child element map
+    iObject=new TreeMap<>();//create empty child element map
     
   }//ObjectElement()
   
@@ -63,28 +121,101 @@ public class ObjectElement extends Element {
     super(OBJECT);//base constructor
     
     assert aObject!=null;
-    fObject=aObject;//set object
+    iObject=aObject;//set object
+    
+  }//ObjectElement()
+  
+  /**
+   * Constructs an object of a shape
+   * @param aShape shape of the object
+   * @param aValues child elements in slot order, owned by the object
+   */
+  ObjectElement(ObjectShape aShape, Element[] aValues) {
+    
+    super(OBJECT);//base constructor
+    
+    assert aShape!=null;
+    assert aValues.length==aShape.size();
+    iShape=aShape;//set shape
+    iValues=aValues;//set values
     
   }//ObjectElement()
   
+  /**
+   * Sets the members of a parsed object, sharing a shape if the keys fit it
+   * @param aShape shape reached by the keys; or null if none
+   * @param aKeys keys in parsed order
+   * @param aValues child elements in parsed order
+   * @param aCount number of members
+   */
+  void setMembers(ObjectShape aShape, String[] aKeys, Element[] aValues, int aCount) {
+    
+    if ((aShape!=null)&&(aShape.size()==aCount)) {//if keys fit shape
+      Element[] values=NONE;//no values for an empty object
+      if (aCount>0) {//if any members
+        values=new Element[aCount];//allocate values
+        System.arraycopy(aValues, 0, values, 0, aCount);//copy values in slot order
+      }//if any members
+      iObject=null;//no map
+      iShape=aShape;//set shape
+      iValues=values;//set values
+    } else {//else no shape, or repeated keys
+      TreeMap<String,Element> object=new TreeMap<>();//create map
+      for (int i=0;i<aCount;++i) object.put(aKeys[i], aValues[i]);//put members, the last of a repeated key winning
+      iObject=object;//set map
+      iShape=null;//no shape
+      iValues=null;//no values
+    }//if keys fit shape
+    
+  }//setMembers()
+  
   /**
    * Puts an element into the object
-   * @param aKey key for the element
+   * @param aKey key for the element, escaped as written in a message
    * @param aElement element to be put
    */
   public void putElement(String aKey, Element aElement) {
     
     assert aKey!=null;
+    assert Serializer.isEscaped(aKey);
     assert aElement!=null;
-    assert fObject!=null;
     
-    fObject.put(aKey,aElement);//add element to map
+    mutate(aElement);//must not be frozen
+    int slot=(iShape==null)?-1:iShape.slot(aKey);//slot of key if shaped
+    if (slot>=0) {//if key already in shape
+      iValues[slot]=aElement;//replace value, keeping shape
+    } else {//else new key
+      if (iShape!=null) inflate();//shape no longer fits
+      iObject.put(aKey,aElement);//add element to map
+    }//if key already in shape
+    if (iKeyIndex!=null) iKeyIndex.invalidate();//hierarchy has changed
+    changed();//source and hash no longer match
     aElement.iParent=this;//assign parent
     aElement.iKey=aKey;//set element key
     aElement.iIndex=-1;//no element index
     
   }//putElement{}
 
+  /**
+   * Removes an element from the object
+   * @param aKey key of the element to be removed
+   * @return element removed; or null if the object has no such key
+   */
+  public Element removeElement(String aKey) {
+    
+    assert aKey!=null;
+    
+    mutate(null);//must not be frozen
+    if ((iShape!=null)&&(iShape.slot(aKey)<0)) return null;//nothing to remove
+    if (iShape!=null) inflate();//shape no longer fits
+    Element previous=iObject.remove(aKey);//remove element from map
+    if (previous==null) return null;//nothing to remove
+    removed(previous);//detach element
+
+    return previous;//here you go
+    
+  }//removeElement{}
+
   /**
    * Always returns false
    * @return false
@@ -92,8 +223,6 @@ public class ObjectElement extends Element {
   @Override
   public boolean isScalar() {
     
-    assert fObject!=null;
-    
     return false;//not a scalar
     
   }//isScalar{}
@@ -105,8 +234,6 @@ public class ObjectElement extends Element {
   @Override
   public boolean isObject() {
     
-    assert fObject!=null;
-    
     return true;//is an object
     
   }//isObject{}
@@ -118,8 +245,6 @@ public class ObjectElement extends Element {
   @Override
   public boolean isArray() {
     
-    assert fObject!=null;
-    
     return false;//not an array
     
   }//isArray{}
@@ -131,28 +256,9 @@ public class ObjectElement extends Element {
   @Override
   public String toString() {
     
-    assert fObject!=null;
-    
-    if (fObject.size()==0) return "{}";
-
-    StringBuilder buffer=new StringBuilder();//buffer for string construction
-
-    Iterator<Map.Entry<String, Element>> iterator=fObject.entrySet().iterator();//create map entry iterator
-    while (iterator.hasNext()) {//for each map entry
-      Map.Entry<String, Element> entry=iterator.next();//get next entry
-      String key=entry.getKey();//get element key
-      Element element=entry.getValue();//get child element
+    if (size()==0) return "{}";
 
-      /* append string of the form: ,"key":<element> */
-      buffer.append(',');
-      buffer.append('"');
-      buffer.append(key.toString());
-      buffer.append('"');
-      buffer.append(':');
-      buffer.append(element.toString());
-    }//for each map entry
-    
-    return "{"+buffer.substring(1)+"}";//wrap in brackets and remove leading comma
+    return new Serializer().write(this, new StringBuilder()).toString();//serialize in one pass
     
   }//toString()
     
@@ -163,9 +269,8 @@ public class ObjectElement extends Element {
   @Override
   public int size() {
     
-    assert fObject!=null;  
-    
-    return fObject.size();//return size of the map
+    if (iValues!=null) return iValues.length;//number of values
+    return iObject.size();//return size of the map
     
   }//size()
   
@@ -178,9 +283,9 @@ public class ObjectElement extends Element {
   public boolean hasKey(String aKey) {
     
     assert aKey!=null;
-    assert fObject!=null;
     
-    return fObject.containsKey(aKey);//map contains key?
+    if (iShape!=null) return iShape.slot(aKey)>=0;//shape contains key?
+    return iObject.containsKey(aKey);//map contains key?
     
   }//hasKey()
 
@@ -192,8 +297,6 @@ public class ObjectElement extends Element {
   @Override
   public boolean hasIndex(Integer aIndex) {
     
-    assert fObject!=null;
-    
     return false;//not an array
     
   }//hasIndex()
@@ -206,9 +309,11 @@ public class ObjectElement extends Element {
   @Override
   public Element getChildElement(String aKey) {
     
-    assert fObject!=null;
-    
-    return fObject.get(aKey);//get element from map
+    if (iShape!=null) {//if shaped
+      int slot=iShape.slot(aKey);//get slot of key
+      return (slot<0)?null:iValues[slot];//get element from values
+    }//if shaped
+    return iObject.get(aKey);//get element from map
     
   }//getElement()
   
@@ -221,8 +326,6 @@ public class ObjectElement extends Element {
   public Element getChildElement(Integer aIndex) {
     
     assert aIndex>=0;    
-    assert fObject!=null;
-    
     return null;//not an array
     
   }//getElement()
@@ -234,9 +337,8 @@ public class ObjectElement extends Element {
   @Override
   public Iterator<Element> getChildElements() {
     
-    assert fObject!=null;
-    
-    return fObject.values().iterator();//return map value iterator
+    if (iShape!=null) return new Members<>(VALUES);//iterate values in key order
+    return new Mapped<>(VALUES);//iterate map values
     
   }//getChildElements()
 
@@ -252,13 +354,15 @@ public class ObjectElement extends Element {
     assert aKey!=null;
     assert aList!=null;
     
-    Iterator<Element> iterator=getChildElements();//get child element iterator
+    if ((iKeyIndex!=null)&&iKeyIndex.isValid()) return iKeyIndex.getDescendentElements(this, aKey, aList);//use key index
+    
+    Iterator<Map.Entry<String,Element>> iterator=getEntryIterator();//get member iterator
     while (iterator.hasNext()) {//while iterator not empty
-      Element element=iterator.next();//get next child element
-      if (element.iKey.equals(aKey)) {//if child has the key being searched for
-        aList.add(element);//add child to the list
+      Map.Entry<String,Element> entry=iterator.next();//get next member
+      if (entry.getKey().equals(aKey)) {//if child has the key being searched for
+        aList.add(entry.getValue());//add child to the list
       } else {//else child does not have the key being searched for
-        element.getDescendentElements(aKey, aList);//get descendents from child
+        entry.getValue().getDescendentElements(aKey, aList);//get descendents from child
       }//if child has the key being searched for
     }//while iterator not empty      
 
@@ -291,10 +395,385 @@ public class ObjectElement extends Element {
    */
   public Iterator<String> getKeyIterator() {
     
-    assert fObject!=null;
-    
-    return fObject.keySet().iterator();//return key iterator from map
+    if (iShape!=null) return new Members<>(KEYS);//iterate keys in key order
+    return new Mapped<>(KEYS);//iterate map keys
     
   }//getKeyIterator()
   
+  /**
+   * Computes a structural hash that does not depend on the order of the keys
+   * @return structural hash
+   */
+  @Override
+  long computeHash() {
+    
+    long hash=OBJECT;//start with type
+    Iterator<Map.Entry<String,Element>> iterator=getEntryIterator();//iterate members
+    while (iterator.hasNext()) {//for each member
+      Map.Entry<String,Element> entry=iterator.next();//get member
+      hash+=mix(hash(entry.getValue().getHash(), entry.getKey()));//add hash of member, in any order
+    }//for each member
+    
+    return mix(hash);//spread bits
+    
+  }//computeHash()
+  
+  /**
+   * Compares members with those of another object
+   * @param aElement object of the same hash
+   * @return true if the objects have equal members
+   */
+  @Override
+  boolean equalTo(Element aElement) {
+    
+    if (size()!=aElement.size()) return false;//different number of members
+    if ((iShape!=null)&&(aElement instanceof ObjectElement)&&(((ObjectElement)aElement).iShape==iShape)) {//if same shape
+      Element[] values=((ObjectElement)aElement).iValues;//other values
+      for (int i=0;i<iValues.length;++i) {//for each slot
+        if (!iValues[i].equals(values[i])) return false;//different member
+      }//for each slot
+      return true;//all members equal
+    }//if same shape
+    Iterator<Map.Entry<String,Element>> iterator=getEntryIterator();//iterate members
+    while (iterator.hasNext()) {//for each member
+      Map.Entry<String,Element> entry=iterator.next();//get member
+      Element element=aElement.getChildElement(entry.getKey());//get other member with key
+      if ((element==null)||!entry.getValue().equals(element)) return false;//missing or different member
+    }//for each member
+    
+    return true;//all members equal
+    
+  }//equalTo()
+  
+  /**
+   * Returns a deep copy of the object
+   * @return copy of the object
+   */
+  @Override
+  Element copy() {
+    
+    if (iShape!=null) {//if shaped
+      Element[] values=new Element[iValues.length];//allocate values
+      ObjectElement object=new ObjectElement(iShape, values);//share shape
+      for (int i=0;i<values.length;++i) {//for each slot
+        Element value=iValues[i].copy();//copy member
+        value.iParent=object;//assign parent
+        value.iKey=iShape.key(i);//set element key
+        value.iIndex=-1;//no element index
+        values[i]=value;//set member
+      }//for each slot
+      return object;//here you go
+    }//if shaped
+    
+    ObjectElement object=new ObjectElement();//create empty object
+    Iterator<Map.Entry<String,Element>> iterator=getEntryIterator();//iterate members
+    while (iterator.hasNext()) {//for each member
+      Map.Entry<String,Element> entry=iterator.next();//get member
+      object.putElement(entry.getKey(), entry.getValue().copy());//put copy of member
+    }//for each member
+    
+    return object;//here you go
+    
+  }//copy()
+  
+  /**
+   * Returns an iterator for the object members, in key order
+   * <P>
+   * The entries of a shaped object are reused, so an entry is only valid until the next member is returned.
+   * </P>
+   * @return iterator for the map entries of the object
+   */
+  Iterator<Map.Entry<String,Element>> getEntryIterator() {
+    
+    if (iShape!=null) return new Members<>(ENTRIES);//iterate entries in key order
+    return new Mapped<>(ENTRIES);//iterate map entries
+    
+  }//getEntryIterator()
+  
+  /**
+   * Detaches an element removed from the object
+   * @param aElement element removed
+   */
+  private void removed(Element aElement) {
+    
+    if (iKeyIndex!=null) iKeyIndex.invalidate();//hierarchy has changed
+    changed();//source and hash no longer match
+    aElement.iParent=null;//detach element
+    
+  }//removed()
+  
+  /**
+   * Turns a shaped object into a map, so that keys may be added or removed
+   */
+  private void inflate() {
+    
+    assert iShape!=null;
+    
+    TreeMap<String,Element> object=new TreeMap<>();//create map
+    for (int i=0;i<iValues.length;++i) object.put(iShape.key(i), iValues[i]);//put each member
+    iObject=object;//set map
+    iShape=null;//no shape
+    iValues=null;//no values
+    
+  }//inflate()
+  
+  /**
+   * Records the source of a parsed object
+   * @param aSource message the object was parsed from
+   * @param aStart position of the open bracket of the object
+   * @param aEnd position after the close bracket of the object
+   */
+  void setSource(String aSource, int aStart, int aEnd) {
+    
+    iSource=aSource;//set source message
+    iSourceStart=aStart;//set start of object
+    iSourceEnd=aEnd;//set end of object
+    
+  }//setSource()
+  
+  /**
+   * Forgets the source message of the object
+   * @return true if the object had a source
+   */
+  @Override
+  boolean forgetSource() {
+    
+    if (iSource==null) return false;//no source
+    iSource=null;//source no longer matches object
+    
+    return true;//source forgotten
+    
+  }//forgetSource()
+  
+  /**
+   * Copies the source text of the object if it was parsed and has not changed since
+   * @param aOut appendable to write to
+   * @return true if the source was copied
+   * @throws IOException if the appendable cannot be written
+   */
+  @Override
+  boolean writeSource(Appendable aOut) throws IOException {
+    
+    if (iSource==null) return false;//no source
+    aOut.append(iSource, iSourceStart, iSourceEnd);//copy source
+    
+    return true;//source copied
+    
+  }//writeSource()
+  
+  /**
+   * Numbers the object in a key index, abandoning any other index it was numbered in
+   * @param aKeyIndex key index numbering the object
+   * @param aOrder number of the object in document order within the key index
+   */
+  @Override
+  void number(KeyIndex aKeyIndex, int aOrder) {
+    
+    if ((iKeyIndex!=null)&&(iKeyIndex!=aKeyIndex)) iKeyIndex.invalidate();//numbering of another index is lost
+    iKeyIndex=aKeyIndex;//attach object to index
+    iOrder=aOrder;//set object number
+    
+  }//number()
+  
+  /**
+   * Returns the number of the object in a key index
+   * @param aKeyIndex key index
+   * @return number of the object in document order within the key index; or -1 if not numbered by it
+   */
+  @Override
+  int order(KeyIndex aKeyIndex) {
+    
+    return (iKeyIndex==aKeyIndex)?iOrder:-1;//number if numbered by index
+    
+  }//order()
+  
+  /**
+   * Iterator over the members of an object held as a map, which removes members as removeElement() does
+   * @param <T> type of item
+   */
+  private final class Mapped<T> implements Iterator<T> {
+    
+    /**
+     * Iterator over the map entries
+     */
+    private final Iterator<Map.Entry<String,Element>> fIterator=iObject.entrySet().iterator();
+    /**
+     * Kind of item returned
+     */
+    private final int fKind;
+    /**
+     * Entry last returned; or null if none or removed
+     */
+    private Map.Entry<String,Element> iEntry;
+    
+    /**
+     * Constructs a member iterator
+     * @param aKind VALUES, KEYS or ENTRIES
+     */
+    private Mapped(int aKind) {
+      
+      fKind=aKind;//set kind
+      
+    }//Mapped()
+    
+    /**
+     * Indicates if there is another member
+     * @return true if another member
+     */
+    @Override
+    public boolean hasNext() {
+      
+      return fIterator.hasNext();//another member?
+      
+    }//hasNext()
+    
+    /**
+     * Returns the next member
+     * @return value, key or entry of the next member
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+      
+      iEntry=fIterator.next();//get next entry
+      switch (fKind) {//switch on kind
+        case VALUES: return (T)iEntry.getValue();//value
+        case KEYS: return (T)iEntry.getKey();//key
+        default: return (T)iEntry;//entry
+      }//switch on kind
+      
+    }//next()
+    
+    /**
+     * Removes the member last returned from the object
+     */
+    @Override
+    public void remove() {
+      
+      mutate(null);//must not be frozen
+      if (iEntry==null) throw new IllegalStateException();//no member to remove
+      fIterator.remove();//remove member from map
+      removed(iEntry.getValue());//detach member
+      iEntry=null;//member removed
+      
+    }//remove()
+    
+  }//Mapped{}
+  
+  /**
+   * Iterator over the members of a shaped object in key order, which serves as the entry of the
+   * member last returned, so that visiting the members of an object allocates nothing but the iterator
+   * @param <T> type of item
+   */
+  private final class Members<T> implements Iterator<T>, Map.Entry<String,Element> {
+    
+    /**
+     * Shape of the object when the iterator was created
+     */
+    private final ObjectShape fShape=iShape;
+    /**
+     * Values of the object when the iterator was created
+     */
+    private final Element[] fValues=iValues;
+    /**
+     * Kind of item returned
+     */
+    private final int fKind;
+    /**
+     * Position of the next member in key order
+     */
+    private int iPosition;
+    /**
+     * Slot of the member last returned; or -1 if none or removed
+     */
+    private int iSlot=-1;
+    
+    /**
+     * Constructs a member iterator
+     * @param aKind VALUES, KEYS or ENTRIES
+     */
+    private Members(int aKind) {
+      
+      fKind=aKind;//set kind
+      
+    }//Members()
+    
+    /**
+     * Indicates if there is another member
+     * @return true if another member
+     */
+    @Override
+    public boolean hasNext() {
+      
+      return iPosition<fValues.length;//another member?
+      
+    }//hasNext()
+    
+    /**
+     * Returns the next member
+     * @return value, key or entry of the next member, where the entry is only valid until the next call
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+      
+      if (iPosition>=fValues.length) throw new NoSuchElementException();//no more members
+      iSlot=fShape.order(iPosition++);//slot of next member
+      switch (fKind) {//switch on kind
+        case VALUES: return (T)fValues[iSlot];//value
+        case KEYS: return (T)fShape.key(iSlot);//key
+        default: return (T)this;//entry
+      }//switch on kind
+      
+    }//next()
+    
+    /**
+     * Removes the member last returned from the object, which turns the object into a map
+     */
+    @Override
+    public void remove() {
+      
+      mutate(null);//must not be frozen
+      if (iSlot<0) throw new IllegalStateException();//no member to remove
+      removeElement(fShape.key(iSlot));//remove member, leaving the rest of the iteration intact
+      iSlot=-1;//member removed
+      
+    }//remove()
+    
+    /**
+     * Returns the key of the member last returned
+     * @return key
+     */
+    @Override
+    public String getKey() {
+      
+      return fShape.key(iSlot);//return key
+      
+    }//getKey()
+    
+    /**
+     * Returns the value of the member last returned
+     * @return element
+     */
+    @Override
+    public Element getValue() {
+      
+      return fValues[iSlot];//return element
+      
+    }//getValue()
+    
+    /**
+     * Always throws an exception as entries cannot be changed
+     * @param aElement ignored
+     * @return never returns
+     */
+    @Override
+    public Element setValue(Element aElement) {
+      
+      throw new UnsupportedOperationException();//read only
+      
+    }//setValue()
+    
+  }//Members{}
+  
 }//ObjectElement
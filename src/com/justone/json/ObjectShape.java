@@ -0,0 +1,237 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.HashMap;
+
+/**
+ * An immutable key layout shared by the parsed objects having the same keys in the same order.
+ * <P>
+ * A shape holds the keys of an object in the order they were parsed, each key giving the slot of
+ * its value, together with a hash table from key to slot and the slots in key order. An object of
+ * a given shape then only needs an array of values. Shapes are found by following transitions from
+ * an empty root shape, one key at a time, so that objects of the same keys arrive at the same shape.
+ * Each parser keeps its own tree of shapes, which is bounded in the number of keys in a shape and
+ * the number of shapes; objects beyond those bounds are held in a map as before.
+ * </P>
+ * <P>
+ * The layout of a shape never changes once created and may be read by any thread. Transitions are
+ * only followed by the parser that owns the tree.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see ObjectElement
+ */
+final class ObjectShape {
+
+  /**
+   * Greatest number of keys in a shape
+   */
+  static final int MAXIMUM_KEYS=64;
+  /**
+   * Greatest number of shapes in a tree
+   */
+  static final int MAXIMUM_SHAPES=4096;
+
+  /**
+   * Keys in slot order
+   */
+  private final String[] fKeys;
+  /**
+   * Slots in key order
+   */
+  private final int[] fOrder;
+  /**
+   * Open addressed hash table of slot plus one for each key; or zero if empty
+   */
+  private final int[] fTable;
+  /**
+   * Root shape of the tree
+   */
+  private final ObjectShape fRoot;
+  /**
+   * Shapes following this shape by key; or null if none yet
+   */
+  private HashMap<String,ObjectShape> iTransitions;
+  /**
+   * Key of the last transition followed
+   */
+  private String iLastKey;
+  /**
+   * Shape of the last transition followed
+   */
+  private ObjectShape iLastShape;
+  /**
+   * Number of shapes in the tree, counted by the root
+   */
+  private int iShapes;
+
+  /**
+   * Constructs the empty root shape of a tree
+   */
+  ObjectShape() {
+
+    fKeys=new String[0];//no keys
+    fOrder=new int[0];//no slots
+    fTable=new int[1];//empty table
+    fRoot=this;//root of its own tree
+    iShapes=1;//just the root
+
+  }//ObjectShape()
+
+  /**
+   * Constructs the shape following a shape by a key
+   * @param aShape preceding shape
+   * @param aKey key added to the preceding shape
+   */
+  private ObjectShape(ObjectShape aShape, String aKey) {
+
+    int size=aShape.fKeys.length;//slot of the added key
+    fKeys=new String[size+1];//allocate keys
+    System.arraycopy(aShape.fKeys, 0, fKeys, 0, size);//copy preceding keys
+    fKeys[size]=aKey;//add key
+
+    int low=0;//lowest candidate position
+    int high=size;//position after highest candidate
+    while (low<high) {//binary search for position of key in key order
+      int middle=(low+high)>>>1;//middle position
+      if (aShape.fKeys[aShape.fOrder[middle]].compareTo(aKey)<0) {//if middle key is before the key
+        low=middle+1;//search upper half
+      } else {//else middle key is after the key
+        high=middle;//search lower half
+      }//if middle key is before the key
+    }//binary search for position of key in key order
+    fOrder=new int[size+1];//allocate order
+    System.arraycopy(aShape.fOrder, 0, fOrder, 0, low);//copy slots before key
+    fOrder[low]=size;//insert slot of key
+    System.arraycopy(aShape.fOrder, low, fOrder, low+1, size-low);//copy slots after key
+
+    int capacity=2;//table capacity
+    while (capacity<2*fKeys.length) capacity<<=1;//at most half full
+    fTable=new int[capacity];//allocate table
+    for (int slot=0;slot<fKeys.length;++slot) {//for each key
+      int index=hash(fKeys[slot])&(capacity-1);//first probe
+      while (fTable[index]!=0) index=(index+1)&(capacity-1);//probe for free entry
+      fTable[index]=slot+1;//enter slot
+    }//for each key
+
+    fRoot=aShape.fRoot;//same tree
+
+  }//ObjectShape()
+
+  /**
+   * Returns the number of keys
+   * @return number of keys in the shape
+   */
+  int size() {
+
+    return fKeys.length;//return key count
+
+  }//size()
+
+  /**
+   * Returns the key of a slot
+   * @param aSlot slot
+   * @return key of the slot
+   */
+  String key(int aSlot) {
+
+    return fKeys[aSlot];//return key
+
+  }//key()
+
+  /**
+   * Returns the slot at a position in key order
+   * @param aPosition position in key order
+   * @return slot of the key at the position
+   */
+  int order(int aPosition) {
+
+    return fOrder[aPosition];//return slot
+
+  }//order()
+
+  /**
+   * Returns the slot of a key
+   * @param aKey object key
+   * @return slot of the key; or -1 if not in the shape
+   */
+  int slot(String aKey) {
+
+    assert aKey!=null;
+
+    int mask=fTable.length-1;//index mask
+    int index=hash(aKey)&mask;//first probe
+    while (true) {//until key or free entry found
+      int entry=fTable[index];//get entry
+      if (entry==0) return -1;//key not found
+      String key=fKeys[entry-1];//get key of entry
+      if ((key==aKey)||key.equals(aKey)) return entry-1;//key found
+      index=(index+1)&mask;//next probe
+    }//until key or free entry found
+
+  }//slot()
+
+  /**
+   * Returns the shape following this shape by a key, creating it on first use
+   * @param aKey key following the keys of this shape
+   * @return following shape; this shape if it already has the key; or null if beyond the bounds of the tree
+   */
+  ObjectShape next(String aKey) {
+
+    assert aKey!=null;
+
+    if ((aKey==iLastKey)||aKey.equals(iLastKey)) return iLastShape;//same key as last time
+    ObjectShape shape=(iTransitions==null)?null:iTransitions.get(aKey);//look up transition
+    if (shape==null) {//if no transition yet
+      if (slot(aKey)>=0) return this;//repeated key
+      if ((fKeys.length==MAXIMUM_KEYS)||(fRoot.iShapes==MAXIMUM_SHAPES)) return null;//tree is full
+      shape=new ObjectShape(this, aKey);//create following shape
+      ++fRoot.iShapes;//count shape
+      if (iTransitions==null) iTransitions=new HashMap<>();//create transitions on first use
+      iTransitions.put(aKey, shape);//keep transition
+    }//if no transition yet
+    iLastKey=aKey;//remember key
+    iLastShape=shape;//remember shape
+
+    return shape;//here you go
+
+  }//next()
+
+  /**
+   * Returns the spread hash of a key
+   * @param aKey object key
+   * @return hash of the key
+   */
+  private static int hash(String aKey) {
+
+    int hash=aKey.hashCode();//hash of key
+    return hash^(hash>>>16);//spread high bits
+
+  }//hash()
+
+}//ObjectShape{}
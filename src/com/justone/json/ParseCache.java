@@ -0,0 +1,239 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A cache of parsed messages, addressed by content.
+ * <P>
+ * Messages that are received over and over, such as polled configuration, need only be parsed once.
+ * The cache looks up a message by a 64-bit hash of its characters, confirms a hit by comparing the
+ * message with the one cached, and returns the root element parsed from the first copy of the message.
+ * Malformed messages are never cached, and throw a JsonParseException on every call.
+ * </P>
+ * <P>
+ * The cache is bounded by an estimate of the memory retained by the cached messages and their elements,
+ * and evicts the least recently used messages first when the bound is exceeded. A message whose estimate
+ * alone exceeds the bound is parsed but not cached. The numbers of hits, misses and evictions are counted.
+ * </P>
+ * <P>
+ * A cache may be shared between threads. As cached elements are shared by every caller that parses the
+ * same message, every element returned is frozen.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Parser
+ */
+public class ParseCache {
+
+  /**
+   * Estimated memory retained per cached message, beyond its characters
+   */
+  private static final long OVERHEAD=128;
+  /**
+   * Estimated memory retained per character of a cached message, including its elements
+   */
+  private static final long BYTES_PER_CHAR=10;
+
+  /**
+   * Most memory the cached messages may be estimated to retain
+   */
+  private final long fCapacity;
+  /**
+   * Cached messages by hash, from least to most recently used
+   */
+  private final LinkedHashMap<Long,Entry> fEntries;
+  /**
+   * Memory the cached messages are estimated to retain
+   */
+  private long iBytes;
+  /**
+   * Number of messages found in the cache
+   */
+  private long iHits;
+  /**
+   * Number of messages not found in the cache
+   */
+  private long iMisses;
+  /**
+   * Number of messages evicted from the cache
+   */
+  private long iEvictions;
+
+  /**
+   * Constructs an empty cache
+   * @param aCapacity most memory, in bytes, the cached messages may be estimated to retain
+   */
+  public ParseCache(long aCapacity) {
+
+    assert aCapacity>=0;
+
+    fCapacity=aCapacity;//set bound
+    fEntries=new LinkedHashMap<>(16, 0.75f, true);//keep entries in order of use
+
+  }//ParseCache()
+
+  /**
+   * Returns the root element of a message, parsing the message unless it is cached
+   * @param aMessage message to be parsed
+   * @return frozen root element of the message
+   * @throws JsonParseException if the message is malformed
+   */
+  public Element parse(String aMessage) {
+
+    assert aMessage!=null;
+
+    long hash=Element.hash(0, aMessage);//hash message
+    synchronized (this) {//look up under lock
+      Entry entry=fEntries.get(hash);//look up message
+      if ((entry!=null)&&entry.fMessage.equals(aMessage)) {//if same message cached
+        ++iHits;//count hit
+        return entry.fRoot;//return cached element
+      }//if same message cached
+      ++iMisses;//count miss
+    }//look up under lock
+
+    Parser parser=new Parser();//create parser for this message
+    parser.parse(aMessage);//parse message outside lock
+    Element root=parser.getRootElement().freeze();//get parsed element, frozen for sharing
+
+    long bytes=OVERHEAD+BYTES_PER_CHAR*aMessage.length();//estimate retained memory
+    if (bytes>fCapacity) return root;//too large to cache
+    synchronized (this) {//update under lock
+      Entry previous=fEntries.put(hash, new Entry(aMessage, root, bytes));//cache message
+      if (previous!=null) iBytes-=previous.fBytes;//replaced message with same hash
+      iBytes+=bytes;//account for message
+      Iterator<Entry> iterator=fEntries.values().iterator();//least recently used first
+      while (iBytes>fCapacity) {//until within bound
+        Entry eldest=iterator.next();//get least recently used message
+        iterator.remove();//evict message
+        iBytes-=eldest.fBytes;//release its memory
+        ++iEvictions;//count eviction
+      }//until within bound
+    }//update under lock
+
+    return root;//here you go
+
+  }//parse()
+
+  /**
+   * Returns the number of messages found in the cache
+   * @return number of hits
+   */
+  public synchronized long getHitCount() {
+
+    return iHits;//return hits
+
+  }//getHitCount()
+
+  /**
+   * Returns the number of messages not found in the cache
+   * @return number of misses
+   */
+  public synchronized long getMissCount() {
+
+    return iMisses;//return misses
+
+  }//getMissCount()
+
+  /**
+   * Returns the number of messages evicted from the cache
+   * @return number of evictions
+   */
+  public synchronized long getEvictionCount() {
+
+    return iEvictions;//return evictions
+
+  }//getEvictionCount()
+
+  /**
+   * Returns the number of cached messages
+   * @return number of messages
+   */
+  public synchronized int size() {
+
+    return fEntries.size();//return size
+
+  }//size()
+
+  /**
+   * Returns the memory the cached messages are estimated to retain
+   * @return estimated bytes
+   */
+  public synchronized long getRetainedBytes() {
+
+    return iBytes;//return estimate
+
+  }//getRetainedBytes()
+
+  /**
+   * Removes every cached message, keeping the counts
+   */
+  public synchronized void clear() {
+
+    fEntries.clear();//forget messages
+    iBytes=0;//nothing retained
+
+  }//clear()
+
+  /**
+   * A cached message
+   */
+  private static final class Entry {
+
+    /**
+     * Cached message
+     */
+    private final String fMessage;
+    /**
+     * Root element parsed from the message
+     */
+    private final Element fRoot;
+    /**
+     * Memory the message is estimated to retain
+     */
+    private final long fBytes;
+
+    /**
+     * Constructs a cached message
+     * @param aMessage message
+     * @param aRoot root element parsed from the message
+     * @param aBytes estimated retained memory
+     */
+    private Entry(String aMessage, Element aRoot, long aBytes) {
+
+      fMessage=aMessage;//set message
+      fRoot=aRoot;//set root element
+      fBytes=aBytes;//set estimate
+
+    }//Entry()
+
+  }//Entry{}
+
+}//ParseCache{}
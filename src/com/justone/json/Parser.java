@@ -26,7 +26,9 @@ SOFTWARE.
 
 package com.justone.json;
 
-import java.util.TreeMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 
 /**
@@ -48,7 +50,20 @@ import java.util.LinkedList;
  * </P>
  * <P>
  * Use the contains(), containsAll() and containsAny() methods to test the existence of one or more
- * paths within a parsed message.
+ * paths within a parsed message. Paths given together are compiled into a PathSet so that
+ * they are all resolved in a single traversal of the message.
+ * </P>
+ * <P>
+ * A malformed message causes a JsonParseException to be thrown, which may be made stackless
+ * with setStackless(). Use tryParse() to reject malformed messages without any exception being thrown.
+ * Use a Validator to strictly check that a message is well formed without parsing it.
+ * </P>
+ * <P>
+ * Use setAdaptive() when consecutive messages nearly always have the same keys in the same order.
+ * The parser then learns the keys of each object from the messages it parses and matches the keys
+ * it expects directly against the message, sharing the learned key strings rather than copying each
+ * key out of the message. The first key that differs returns the rest of that message to generic
+ * parsing, and getShapeHitRate() reports how often objects matched.
  * </P>
  * <br>
  * Code example:
@@ -92,10 +107,34 @@ public class Parser {
    * Prefix character for array index label
    */
   public static final char INDEX='#';
+  /**
+   * Number policy decoding every number as a double
+   */
+  public static final int DOUBLE_NUMBERS=1;
+  /**
+   * Number policy decoding integers that fit a long as longs, and other numbers as doubles
+   */
+  public static final int INTEGRAL_NUMBERS=2;
+  /**
+   * Number policy decoding integers that fit a long as longs, and other numbers exactly as BigInteger or BigDecimal
+   */
+  public static final int LOSSLESS_NUMBERS=3;
+  /**
+   * Shared stackless exception used to abandon a parse when only a status is wanted
+   */
+  private static final JsonParseException FAILURE=new JsonParseException("", 0, true);
+  /**
+   * No elements
+   */
+  private static final Element[] NONE_ELEMENTS=new Element[0];
   /**
    * Buffer for string manipulation
    */
   private final StringBuilder fBuffer;
+  /**
+   * Root of the shapes shared by parsed objects of the same keys
+   */
+  private final ObjectShape fShapes;
   
   /**
    * Message to be parsed
@@ -110,6 +149,70 @@ public class Parser {
    * Root element of parsed message
    */
   private Element iRootElement;
+  /**
+   * Path set compiled for the last paths searched for
+   */
+  private PathSet iPathSet;
+  /**
+   * Character position of the last parse error; or -1 if none
+   */
+  private int iErrorIndex=-1;
+  /**
+   * Indicates if parse exceptions are thrown without a stack trace
+   */
+  private boolean iStackless;
+  /**
+   * Indicates if a parse is only returning a status
+   */
+  private boolean iTrying;
+  /**
+   * Indicates if each parsed message is given a key index
+   */
+  private boolean iIndexed;
+  /**
+   * Key index of parsed message; or null if none yet
+   */
+  private KeyIndex iKeyIndex;
+  /**
+   * Policy by which parsed numbers are decoded
+   */
+  private int iNumberPolicy=INTEGRAL_NUMBERS;
+  /**
+   * Schema parsed messages are validated against; or null if none
+   */
+  private Schema iSchema;
+  /**
+   * Indicates if the parser learns the shape of parsed objects
+   */
+  private boolean iAdaptive;
+  /**
+   * Learned shape of the root element; or null if none yet
+   */
+  private Shape iShape;
+  /**
+   * Indicates if keys are still being matched against learned shapes in the current message
+   */
+  private boolean iSpeculating;
+  /**
+   * Number of objects that matched their learned shape
+   */
+  private long iShapeHits;
+  /**
+   * Number of objects that did not match their learned shape
+   */
+  private long iShapeMisses;
+  /**
+   * Stack of keys of the objects being parsed, by nesting depth
+   */
+  private String[][] iKeys=new String[8][];
+  /**
+   * Stack of values of the objects being parsed, by nesting depth
+   */
+  private Element[][] iValues=new Element[8][];
+  /**
+   * Nesting depth of the object being parsed
+   */
+  private int iDepth;
   
   /**
    * Constructor for parser
@@ -117,6 +220,7 @@ public class Parser {
   public Parser() {
     
     fBuffer=new StringBuilder();//create string buffer
+    fShapes=new ObjectShape();//create root shape
     
   }//Parser()
    
@@ -131,10 +235,149 @@ public class Parser {
     
     iMessage=aMessage;//set parse string
     iIndex=0;//start parsing at first character
+    iErrorIndex=-1;//no error yet
+    iKeyIndex=null;//no key index yet
+    iSpeculating=iAdaptive;//match learned shapes until a key differs
+    iDepth=0;//not within any object
     iRootElement=parseRoot();//parse message
+    if (iIndexed) iKeyIndex=new KeyIndex(iRootElement);//index keys of message
     
   }//parse()
   
+  /**
+   * Parses a JSON message without throwing an exception if the message is malformed
+   * @param aMessage message to be parsed
+   * @return true if the message was parsed; or false if it is malformed
+   * @see #getErrorIndex()
+   */
+  public boolean tryParse(String aMessage) {
+    
+    assert aMessage!=null;
+    
+    iTrying=true;//only a status is wanted
+    try {
+      parse(aMessage);//parse message
+      return true;//message is good
+    } catch (JsonParseException e) {//message is malformed
+      iRootElement=null;//no root element for a malformed message
+      return false;//message is bad
+    } finally {
+      iTrying=false;//back to throwing exceptions
+    }//try
+    
+  }//tryParse()
+  
+  /**
+   * Returns the character position at which the last message failed to parse
+   * @return position of the parse error; or -1 if the last message was parsed
+   */
+  public int getErrorIndex() {
+    
+    return iErrorIndex;//return error position
+    
+  }//getErrorIndex()
+  
+  /**
+   * Sets whether each parsed message is given a key index as it is parsed
+   * @param aIndexed true if parsed messages are to be indexed
+   * @see KeyIndex
+   */
+  public void setIndexed(boolean aIndexed) {
+    
+    iIndexed=aIndexed;//set indexing mode
+    
+  }//setIndexed()
+  
+  /**
+   * Returns the key index of a parsed message, building it on first use and rebuilding it once abandoned
+   * @return key index of the parsed message
+   * @see KeyIndex
+   */
+  public KeyIndex getKeyIndex() {
+    
+    assert iRootElement!=null;
+    
+    if ((iKeyIndex==null)||!iKeyIndex.isValid()) iKeyIndex=new KeyIndex(iRootElement);//index keys on first use or after a change
+    
+    return iKeyIndex;//here you go
+    
+  }//getKeyIndex()
+  
+  /**
+   * Sets whether parse exceptions are thrown without capturing a stack trace
+   * @param aStackless true if parse exceptions are to be stackless
+   */
+  public void setStackless(boolean aStackless) {
+    
+    iStackless=aStackless;//set stackless mode
+    
+  }//setStackless()
+  
+  /**
+   * Sets the policy by which the numbers of parsed messages are decoded when read.
+   * <P>
+   * Numbers are held as written and only decoded when first read through ScalarElement.getNumber(),
+   * getLong(), getDouble() and the like, so the policy costs nothing for numbers that are never read.
+   * </P>
+   * @param aPolicy DOUBLE_NUMBERS, INTEGRAL_NUMBERS (the default) or LOSSLESS_NUMBERS
+   */
+  public void setNumberPolicy(int aPolicy) {
+    
+    assert (aPolicy>=DOUBLE_NUMBERS)&&(aPolicy<=LOSSLESS_NUMBERS);
+    
+    iNumberPolicy=aPolicy;//set number policy
+    
+  }//setNumberPolicy()
+  
+  /**
+   * Sets the schema that parsed messages are validated against as they are parsed.
+   * <P>
+   * Each element is checked as soon as it is parsed, so a message that does not conform is
+   * abandoned at the first violation with a SchemaException, or a false status from tryParse().
+   * Elements below a subschema that constrains nothing are parsed without being checked.
+   * </P>
+   * @param aSchema schema to validate against; or null to stop validating
+   * @see Schema
+   */
+  public void setSchema(Schema aSchema) {
+    
+    iSchema=aSchema;//set schema
+    
+  }//setSchema()
+  
+  /**
+   * Sets whether the parser learns the shape of parsed objects to speed up parsing messages of the same shape.
+   * <P>
+   * The shape of an object is the sequence of its keys, learned for each object position in the hierarchy,
+   * with the objects of an array sharing one shape. Expected keys are matched directly against the message,
+   * and the first key that differs returns the rest of the message to generic parsing while its shape is
+   * learned afresh. Setting the mode forgets any learned shapes and resets the hit rate.
+   * </P>
+   * @param aAdaptive true if shapes are to be learned
+   * @see #getShapeHitRate()
+   */
+  public void setAdaptive(boolean aAdaptive) {
+    
+    iAdaptive=aAdaptive;//set adaptive mode
+    iShape=null;//forget learned shapes
+    iShapeHits=0;//no hits yet
+    iShapeMisses=0;//no misses yet
+    
+  }//setAdaptive()
+  
+  /**
+   * Returns the proportion of parsed objects whose keys all matched their learned shape
+   * @return hit rate between zero and one; or zero if no objects have been parsed adaptively
+   * @see #setAdaptive(boolean)
+   */
+  public double getShapeHitRate() {
+    
+    long total=iShapeHits+iShapeMisses;//number of objects parsed adaptively
+    
+    return (total==0)?0:(double)iShapeHits/total;//here you go
+    
+  }//getShapeHitRate()
+  
   /**
    * Returns root element of parsed message 
    * @return root element of parsed message
@@ -171,23 +414,13 @@ public class Parser {
     assert aPath!=null;
     assert iRootElement!=null;
     
-    Element element=iRootElement;//start at root element
-    for (int i=0;i<aPath.fDepth;++i) {//for each level
-      if (aPath.fKeys[i]!=null) {//if object key
-        element=element.getChildElement(aPath.fKeys[i]);//get element for object key
-      } else {//else array index
-        element=element.getChildElement(aPath.fIndexes[i]);//get element for array index
-      }//if object key
-      if (element==null) return false;//if element not found then return false        
-    }//for each key
-    
-    return true;//path found
+    return getElement(aPath)!=null;//path found?
     
   }//contains
 
   /**
    * Indicates if a parsed message contains all given paths
-   * @param aPaths paths to search for
+   * @param aPaths paths to search for, where exact paths are checked together in one traversal
    * @return true if the parsed message contains all of the given paths
    * @see Path
    */
@@ -195,17 +428,33 @@ public class Parser {
     
     assert aPaths!=null;
     
-    for (int i=0;i<aPaths.length;++i) {//for each path
-      if (!contains(aPaths[i])) return false;//not found, so quit
+    if (!containsAll(compile(aPaths))) return false;//check compiled exact paths
+    for (Path path:aPaths) {//for each path
+      if (!path.fExact&&!contains(path)) return false;//search for path that is not exact
     }//for each path
     
     return true;//all paths found
     
   }//containsAll()
 
+  /**
+   * Indicates if a parsed message contains all paths in a path set
+   * @param aPaths path set to search for
+   * @return true if the parsed message contains all of the paths
+   * @see PathSet
+   */
+  public boolean containsAll(PathSet aPaths) {
+    
+    assert aPaths!=null;
+    assert iRootElement!=null;
+    
+    return aPaths.containsAll(iRootElement);//check paths from root element
+    
+  }//containsAll()
+
   /**
    * Indicates if a parsed message contains any of the given paths
-   * @param aPaths paths to search for
+   * @param aPaths paths to search for, where exact paths are checked together in one traversal
    * @return true if the parsed message contains any of the given paths
    * @see Path
    */
@@ -213,18 +462,66 @@ public class Parser {
     
     assert aPaths!=null;
     
-    for (int i=0;i<aPaths.length;++i) {//for each path
-      if (contains(aPaths[i])) return true;//path found, so quit
+    if (containsAny(compile(aPaths))) return true;//check compiled exact paths
+    for (Path path:aPaths) {//for each path
+      if (!path.fExact&&contains(path)) return true;//search for path that is not exact
     }//for each path
     
-    return false;//no paths found
+    return false;//no path found
+    
+  }//containsAny()  
+
+  /**
+   * Indicates if a parsed message contains any of the paths in a path set
+   * @param aPaths path set to search for
+   * @return true if the parsed message contains any of the paths
+   * @see PathSet
+   */
+  public boolean containsAny(PathSet aPaths) {
+    
+    assert aPaths!=null;
+    assert iRootElement!=null;
+    
+    return aPaths.containsAny(iRootElement);//check paths from root element
     
   }//containsAny()  
     
+  /**
+   * Returns the elements associated with each path in a path set
+   * @param aPaths path set of the elements
+   * @param aElements array to place elements into, indexed by path id
+   * @return array with the element for each path; or null where a path does not exist
+   * @see PathSet
+   */
+  public Element[] getElements(PathSet aPaths, Element[] aElements) {
+    
+    assert aPaths!=null;
+    assert aElements!=null;
+    assert iRootElement!=null;
+    
+    return aPaths.getElements(iRootElement, aElements);//resolve paths from root element
+    
+  }//getElements()
+    
+  /**
+   * Returns an iterator of the elements matched by a path
+   * @param aPath path of the elements, which may contain wildcard, slice or descent tags
+   * @return lazy iterator of matching elements
+   * @see Path#iterator(Element)
+   */
+  public Iterator<Element> getElements(Path aPath) {
+    
+    assert aPath!=null;
+    assert iRootElement!=null;
+    
+    return aPath.iterator(iRootElement);//search lazily from root element
+    
+  }//getElements()
+  
   /**
    * Returns an element associated with a path
    * @param aPath path of the element
-   * @return string representation the element
+   * @return the element; or the first element matched if the path searches for elements
    * @see Path
    */
   public Element getElement(Path aPath) {
@@ -232,6 +529,11 @@ public class Parser {
     assert aPath!=null;
     assert iRootElement!=null;
     
+    if (!aPath.fExact) {//if path searches for elements
+      Iterator<Element> iterator=aPath.iterator(iRootElement);//search lazily
+      return iterator.hasNext()?iterator.next():null;//return first match
+    }//if path searches for elements
+    
     Element element=iRootElement;//start at root element
     for (int i=0;i<aPath.fDepth;++i) {//for each level
       if (aPath.fKeys[i]!=null) {//if object key
@@ -247,18 +549,59 @@ public class Parser {
   }//getElement()
   
   /**
-   * Returns parsing context
-   * @return parse context
+   * Returns a path set compiled from the exact paths among given paths, reusing the last one compiled if possible
+   * @param aPaths paths to be compiled, of which those that are not exact are left out
+   * @return compiled path set
+   */
+  private PathSet compile(Path[] aPaths) {
+    
+    assert aPaths!=null;
+    
+    if ((iPathSet==null)||!iPathSet.matches(aPaths)) {//if not already compiled
+      int count=0;//number of exact paths
+      for (Path path:aPaths) if (path.fExact) ++count;//count exact paths
+      Path[] paths=new Path[count];//exact paths
+      count=0;//fill from the start
+      for (Path path:aPaths) if (path.fExact) paths[count++]=path;//keep exact path
+      iPathSet=new PathSet(paths);//compile exact paths
+    }//if not already compiled
+    
+    return iPathSet;//return compiled paths
+    
+  }//compile()
+  
+  /**
+   * Returns a parse exception for the current character position
+   * @return parse exception to be thrown
    */
-  private String context(){
+  private JsonParseException error(){
     
     assert iMessage!=null;
     assert iIndex>=0;
     assert iIndex<=iMessage.length();
 
-    return iMessage.substring(0, iIndex)+" ^ "+iMessage.substring(iIndex);//return parse context
+    iErrorIndex=iIndex;//remember error position
+    if (iTrying) return FAILURE;//no need for a new exception if caller only wants a status
+    return new JsonParseException(iMessage, iIndex, iStackless);//exception referencing the message
+    
+  }//error()
+  
+  /**
+   * Returns a schema exception for an element violating its schema
+   * @param aKeyword schema keyword violated
+   * @param aElement element violating the schema, linked to its parent
+   * @return schema exception to be thrown
+   */
+  private JsonParseException violation(String aKeyword, Element aElement) {
+    
+    assert iMessage!=null;
+    assert aKeyword!=null;
     
-  }//context()
+    iErrorIndex=iIndex;//remember error position
+    if (iTrying) return FAILURE;//no need for a new exception if caller only wants a status
+    return new SchemaException(iMessage, iIndex, aKeyword, Path.getPath(aElement, '/'), iStackless);//exception locating the element
+    
+  }//violation()
  
   /**
    * Advances to the next non-whitespace character from the message being parsed
@@ -320,6 +663,23 @@ public class Parser {
     
   }//skip()
   
+  /**
+   * Skips over any whitespace characters
+   */
+  private void white(){
+    
+    assert iMessage!=null;
+    assert iIndex>=0;
+    assert iIndex<=iMessage.length();
+
+    while (iIndex<iMessage.length()) {//until end of message
+      char chr=iMessage.charAt(iIndex);//get current character
+      if ((chr!=' ')&&(chr!='\n')&&(chr!='\r')&&(chr!='\t')) return;//not whitespace
+      ++iIndex;//consume whitespace
+    }//until end of message
+    
+  }//white()
+  
   /**
    * Parses a string from the message
    * @return string parsed
@@ -334,25 +694,35 @@ public class Parser {
     
     char chr=next();//consume opening quote
     assert chr=='"';//assert quote found
-    chr=next();//get next character
-    if (chr=='"') return "";//return empty string if closing quote
-    while (chr!='"') {//until closing quote reached
-      fBuffer.append(chr);//append character to the string
-      chr=next();//get the next character
-      if (chr==NONE) throw new RuntimeException("Invalid syntax : "+context());//Awwww....
+    if (peek()=='"') {//if closing quote
+      next();//consume closing quote
+      return "";//return empty string
+    }//if closing quote
+    for (chr=peek();chr!='"';chr=peek()) {//until closing quote reached
+      if (chr<' ') throw error();//Awwww.... unterminated string or unescaped control character
+      fBuffer.append(next());//append character to the string
       if (chr=='\\') {//if escape character
-        fBuffer.append('\\');//append escape character
-        fBuffer.append(next());//append next character
-        chr=next();//get next character
+        chr=peek();//get escaped character
+        if (chr=='u') {//if unicode escape
+          fBuffer.append(next());//append u
+          for (int i=0;i<4;++i) {//for each hex digit
+            if (Character.digit(peek(), 16)<0) throw error();//not a hex digit
+            fBuffer.append(next());//append hex digit
+          }//for each hex digit
+        } else {//else single character escape
+          if ("\"\\/bfnrt".indexOf(chr)<0) throw error();//bad escape
+          fBuffer.append(next());//append escaped character
+        }//if unicode escape
       }//if escape character
     }//until closing quote reached 
+    next();//consume closing quote
     
     return fBuffer.toString();//return string in buffer
     
   }//parseString() 
 
   /**
-   * Parses a number from the message
+   * Parses a number from the message, strictly by the RFC 8259 number grammar
    * @return string representation of the number value
    */
   private String parseNumber () {
@@ -360,22 +730,17 @@ public class Parser {
     assert iMessage!=null;
     assert iIndex>=0;
     assert iIndex<=iMessage.length();
+    assert "-0123456789".indexOf(peek())>=0;//assert valid start character
     
-    fBuffer.delete(0, fBuffer.length());//empty string buffer
-        
-    char chr=next();//get next character
-    assert "-0123456789".indexOf(chr)>=0;//assert valid start character
-    while ("0123456789.Ee+-".indexOf(chr)>=0) {//until non number character
-      fBuffer.append(chr);//append to string buffer
-      chr=next();//get next character
-      if (chr==NONE) throw new RuntimeException("Invalid syntax : "+context());//gee, thanks...
-    }//until non number character
-    
-    if ("]},".indexOf(chr)<0) throw new RuntimeException("Invalid syntax : "+context());//no way jose
-
-    back(); //rewind to the terminator character
+    int start=iIndex;//position of first character
+    int end=Numbers.scan(iMessage, start, iMessage.length());//position after number
+    if (end<0) {//if malformed
+      iIndex=~end;//point at offending character
+      throw error();//no way jose
+    }//if malformed
+    iIndex=end;//consume number
     
-    return fBuffer.toString();//return string in buffer
+    return iMessage.substring(start, end);//return number as written
     
   }//parseNumber() 
   
@@ -392,9 +757,11 @@ public class Parser {
     char chr=next();//get next character
     assert "ft".indexOf(chr)>=0;//assert valid boolean start character
     switch (chr) {//switch on first character
-      case 'f': skip(4);//skip to last character
+      case 'f': if (!iMessage.startsWith("alse", iIndex)) throw error();//not false after all
+                skip(4);//skip to last character
                 return "false";
-      case 't': skip(3);//skip to last character
+      case 't': if (!iMessage.startsWith("rue", iIndex)) throw error();//not true after all
+                skip(3);//skip to last character
                 return "true";
       default: assert false;//assert that we do not reach this statement
                return null;
@@ -414,6 +781,7 @@ public class Parser {
 
     char chr=next();//get next character
     assert chr=='n';//assert correct first character
+    if (!iMessage.startsWith("ull", iIndex)) throw error();//not null after all
     skip(3);//skip to end of null token
         
     return "null";//return string representation of null
@@ -421,7 +789,7 @@ public class Parser {
   }//parseNull() 
 
   /**
-   * Parses a message as the root element (object or array)
+   * Parses a message as the root element (any value, with nothing but whitespace around it)
    * @return parsed element
    */
   private Element parseRoot() {
@@ -430,37 +798,70 @@ public class Parser {
     assert iIndex>=0;
     assert iIndex<=iMessage.length();
     
-    while (peek()<=' ') next();//skip whitespace
+    Schema.Node node=(iSchema==null)?null:iSchema.fRoot;//constraints of root element
+    if (iAdaptive&&(iShape==null)) iShape=new Shape();//learn root shape on first use
+    white();//skip whitespace
+    Element root;//root element
     switch (peek()) {//switch on next character
-      case 'n': return new ScalarElement(parseNull());//parse null 
-      case 'f': return new ScalarElement(parseBoolean());//parse false
-      case 't': return new ScalarElement(parseBoolean());//parse true
-      case '[': return new ArrayElement(parseArray());//parse array 
-      case '{': return new ObjectElement(parseObject());//parse object
-      default : throw new RuntimeException("Invalid syntax : "+context());//ruh roh
+      case '"': root=check(new ScalarElement(Element.STRING,parseString()), node);//parse string
+                break;
+      case '-':
+      case '0':
+      case '1':
+      case '2':
+      case '3':
+      case '4':
+      case '5':
+      case '6':
+      case '7':
+      case '8':
+      case '9': root=check(new ScalarElement(parseNumber(),iNumberPolicy), node);//parse number
+                break;
+      case 'n': root=check(new ScalarElement(Element.NULL,parseNull()), node);//parse null 
+                break;
+      case 'f':
+      case 't': root=check(new ScalarElement(Element.BOOLEAN,parseBoolean()), node);//parse boolean
+                break;
+      case '[': root=parseArray(null, null, -1, node, iShape);//parse array 
+                break;
+      case '{': root=parseObject(null, null, -1, node, iShape);//parse object
+                break;
+      default : throw error();//ruh roh
     }//switch on next character
+    white();//skip whitespace
+    if (iIndex<iMessage.length()) throw error();//nothing may follow the root element
+    
+    return root;//root of the message
     
   }//parseRoot()
 
   /**
    * Parses an array element
-   * @return linked list representation of the array
+   * @param aParent parent element; or null if the root element
+   * @param aKey object key of the array; or null if an array element
+   * @param aIndex array index of the array; or -1 if an object element
+   * @param aNode constraints of the array; or null if unconstrained
+   * @param aShape learned shape of the array; or null if not adaptive
+   * @return parsed array with its children linked to it
    */
-  private LinkedList<Element> parseArray() {
+  private ArrayElement parseArray(Element aParent, String aKey, int aIndex, Schema.Node aNode, Shape aShape) {
  
-    LinkedList<Element> array=new LinkedList<>();//create linked list
+    ArrayList<Element> list=new ArrayList<>();//create list
+    ArrayElement array=new ArrayElement(list);//create array around list
+    if (aParent!=null) link(array, aParent, aKey, aIndex);//link before children, so that violations below have a path
+    int start=iIndex;//position of open bracket
+    if ((aNode!=null)&&!aNode.allows(Element.ARRAY)) throw violation("type", array);//reject before parsing children
+    Schema.Node items=(aNode==null)?null:aNode.items();//constraints of children
+    Shape shape=(aShape==null)?null:aShape.child(0);//shape shared by children
     
     char chr=next();//consume first character
     assert chr=='[';//assert first character is an open square bracket
+    white();//skip whitespace
+    if (peek()==']') chr=next();//consume close bracket of empty array
     while (chr!=']') {//until closing bracket
            
       switch (peek()) {//switch on next character
-        case ' ':
-        case '\t':
-        case '\n':
-        case '\r': chr=next(); //discard whitespace
-                   break;
-        case '"': array.add(new ScalarElement(Element.STRING,parseString()));//parse string 
+        case '"': list.add(check(link(new ScalarElement(Element.STRING,parseString()), array, null, list.size()), items));//parse string 
                   break;
         case '-':
         case '0':
@@ -472,57 +873,85 @@ public class Parser {
         case '6':
         case '7':
         case '8':
-        case '9': array.add(new ScalarElement(Element.NUMBER,parseNumber()));//parse number
+        case '9': list.add(check(link(new ScalarElement(parseNumber(),iNumberPolicy), array, null, list.size()), items));//parse number
                   break;
         case 'f':
-        case 't': array.add(new ScalarElement(Element.BOOLEAN,parseBoolean()));//parse boolean token
+        case 't': list.add(check(link(new ScalarElement(Element.BOOLEAN,parseBoolean()), array, null, list.size()), items));//parse boolean token
                   break;
-        case 'n': array.add(new ScalarElement(Element.NULL,parseNull()));//parse null token
+        case 'n': list.add(check(link(new ScalarElement(Element.NULL,parseNull()), array, null, list.size()), items));//parse null token
                   break;
 
-        case '{': array.add(new ObjectElement(parseObject()));//parse object
-                  break;
-        case '[': array.add(new ArrayElement(parseArray()));//parse array
+        case '{': list.add(parseObject(array, null, list.size(), items, shape));//parse object
                   break;
-        case ',': chr=next(); //consume the comma character
+        case '[': list.add(parseArray(array, null, list.size(), items, shape));//parse array
                   break;
-        case ']': chr=next(); //consume the close bracket character
-                  break;
-        default : throw new RuntimeException("Invalid syntax : "+context());//holy syntax batman...
+        default : throw error();//holy syntax batman...
 
       }//switch on next character      
+      white();//skip whitespace
+      chr=peek();//get separator
+      if ((chr!=',')&&(chr!=']')) throw error();//value must be followed by a comma or close bracket
+      next();//consume separator
+      if (chr==',') white();//skip whitespace before next value
             
     }//until closing bracket 
     
+    array.setSource(iMessage, start, iIndex);//remember source of array
+    check(array, aNode);//check array once complete
     return array;//looking good Huston
     
   }//parseArray()
   
   /**
    * Parses an object
-   * @return hashed map representation of the object
+   * @param aParent parent element; or null if the root element
+   * @param aKey object key of the object; or null if an array element
+   * @param aIndex array index of the object; or -1 if an object element
+   * @param aNode constraints of the object; or null if unconstrained
+   * @param aShape learned shape of the object; or null if not adaptive
+   * @return parsed object with its children linked to it
    */
-  private TreeMap<String,Element> parseObject() {
+  private ObjectElement parseObject(Element aParent, String aKey, int aIndex, Schema.Node aNode, Shape aShape) {
  
-    TreeMap<String,Element> object=new TreeMap<>();//create hashed map    
+    ObjectElement object=new ObjectElement(fShapes, NONE_ELEMENTS);//create object, empty until complete
+    if (aParent!=null) link(object, aParent, aKey, aIndex);//link before children, so that violations below have a path
+    int start=iIndex;//position of open bracket
+    if ((aNode!=null)&&!aNode.allows(Element.OBJECT)) throw violation("type", object);//reject before parsing children
+    int depth=iDepth++;//object nesting depth
+    if (depth==iKeys.length) {//if no scratch arrays at this depth
+      iKeys=Arrays.copyOf(iKeys, depth*2);//grow key stack
+      iValues=Arrays.copyOf(iValues, depth*2);//grow value stack
+    }//if no scratch arrays at this depth
+    if (iKeys[depth]==null) {//if scratch arrays not yet used
+      iKeys[depth]=new String[8];//create keys
+      iValues[depth]=new Element[8];//create values
+    }//if scratch arrays not yet used
+    String[] keys=iKeys[depth];//keys in parsed order
+    Element[] values=iValues[depth];//values in parsed order
+    int count=0;//number of members
+    ObjectShape shape=fShapes;//shape reached by the keys so far
         
     char chr=next();//consume first character
     assert chr=='{';//assert first character is open curly bracket
+    white();//skip whitespace
+    if (peek()=='}') chr=next();//consume close bracket of empty object
     while (chr!='}') {//until closing bracket found
        
       switch (peek()) {//switch on next character
-        case ' ':
-        case '\t':
-        case '\n':
-        case '\r': chr=next(); //discard whitespace
-                   break;
-        case '"': String key=parseString();//parse key
-                  while (peek()<=' ') next();//skip whitespace
-                  chr=next();//consume the next character
-                  if (chr!=':') throw new RuntimeException("Invalid syntax : "+context());//must be havin a giraffe?
-                  while (peek()<=' ') next();//skip whitespace
+        case '"': String key=(aShape==null)?parseString():parseKey(aShape, count);//parse key
+                  if (count==keys.length) {//if scratch arrays are full
+                    keys=iKeys[depth]=Arrays.copyOf(keys, count*2);//grow keys
+                    values=iValues[depth]=Arrays.copyOf(values, count*2);//grow values
+                  }//if scratch arrays are full
+                  keys[count]=key;//keep key
+                  if (shape!=null) shape=shape.next(key);//follow shape transition
+                  white();//skip whitespace
+                  if (peek()!=':') throw error();//must be havin a giraffe?
+                  next();//consume colon
+                  Schema.Node node=(aNode==null)?null:aNode.property(key);//constraints of value
+                  white();//skip whitespace
                   switch (peek()) {//switch on the next character in key value pair
-                    case '"': object.put(key, new ScalarElement(Element.STRING,parseString()));//parse string value
+                    case '"': values[count]=check(link(new ScalarElement(Element.STRING,parseString()), object, key, -1), node);//parse string value
                               break;
                     case '-':
                     case '0':
@@ -534,31 +963,157 @@ public class Parser {
                     case '6':
                     case '7':
                     case '8':
-                    case '9': object.put(key, new ScalarElement(Element.NUMBER,parseNumber()));//parse number value
+                    case '9': values[count]=check(link(new ScalarElement(parseNumber(),iNumberPolicy), object, key, -1), node);//parse number value
                               break;
                     case 'f':
-                    case 't': object.put(key, new ScalarElement(Element.BOOLEAN,parseBoolean()));//parse boolean value
+                    case 't': values[count]=check(link(new ScalarElement(Element.BOOLEAN,parseBoolean()), object, key, -1), node);//parse boolean value
                               break;
-                    case 'n': object.put(key, new ScalarElement(Element.NULL,parseNull()));//parse null value
+                    case 'n': values[count]=check(link(new ScalarElement(Element.NULL,parseNull()), object, key, -1), node);//parse null value
                               break;
-                    case '[': object.put(key, new ArrayElement(parseArray()));//parse array value 
+                    case '[': values[count]=parseArray(object, key, -1, node, (aShape==null)?null:aShape.child(count));//parse array value 
                               break;
-                    case '{': object.put(key, new ObjectElement(parseObject()));//parse object value
+                    case '{': values[count]=parseObject(object, key, -1, node, (aShape==null)?null:aShape.child(count));//parse object value
                               break;
-                    default : throw new RuntimeException("Invalid syntax : "+context());//we have a problem houston
+                    default : throw error();//we have a problem houston
                   };//switch on the next character in key value pair
+                  ++count;//member parsed
                   break;
-        case ',': chr=next();//consume comma character
-                  break;
-        case '}': chr=next();//consume close bracket character
-                  break;
-        default : throw new RuntimeException("Invalid syntax : "+context(), "chr="+chr, "iIndex:"+iIndex, "iMessage:"+iMessage);//gone pete tong
+        default : throw error();//gone pete tong
       }//switch on next character
+      white();//skip whitespace
+      chr=peek();//get separator
+      if ((chr!=',')&&(chr!='}')) throw error();//member must be followed by a comma or close bracket
+      next();//consume separator
+      if (chr==',') white();//skip whitespace before next value
                     
     }//until closing bracket found 
     
+    if (aShape!=null) learned(aShape, count);//learn number of keys
+    object.setMembers(shape, keys, values, count);//share shape, or fall back to a map
+    Arrays.fill(values, 0, count, null);//release values held for parsing
+    --iDepth;//back to the parent's depth
+    object.setSource(iMessage, start, iIndex);//remember source of object
+    check(object, aNode);//check object once complete
     return object;//happy days
     
   }//parseObject() 
   
+  /**
+   * Parses an object key, matching the key expected by a learned shape directly against the message
+   * @param aShape learned shape of the object
+   * @param aPosition position of the key in the object
+   * @return key parsed, shared with the shape
+   */
+  private String parseKey(Shape aShape, int aPosition) {
+    
+    assert iMessage!=null;
+    assert peek()=='"';
+    
+    if (iSpeculating&&(aPosition<aShape.iCount)) {//if a key is expected
+      String key=aShape.iKeys[aPosition];//expected key
+      int end=iIndex+1+key.length();//position of closing quote if the key matches
+      if ((end<iMessage.length())&&(iMessage.charAt(end)=='"')&&iMessage.regionMatches(iIndex+1, key, 0, key.length())) {//if key matches
+        iIndex=end+1;//skip key and closing quote
+        return key;//expected key found
+      }//if key matches
+    }//if a key is expected
+    
+    iSpeculating=false;//message differs, so parse the rest of it generically
+    String key=parseString();//parse key
+    if (aPosition==aShape.iKeys.length) aShape.iKeys=Arrays.copyOf(aShape.iKeys, aPosition*2);//grow keys if full
+    aShape.iKeys[aPosition]=key;//learn key
+    
+    return key;//here you go
+    
+  }//parseKey()
+  
+  /**
+   * Learns the number of keys of a parsed object and counts whether the object matched its shape
+   * @param aShape learned shape of the object
+   * @param aCount number of keys in the object
+   */
+  private void learned(Shape aShape, int aCount) {
+    
+    if (iSpeculating&&(aCount==aShape.iCount)) {//if every key matched
+      ++iShapeHits;//object matched shape
+    } else {//else object differs
+      ++iShapeMisses;//object missed shape
+      iSpeculating=false;//parse the rest of the message generically
+      aShape.iCount=aCount;//learn number of keys
+    }//if every key matched
+    
+  }//learned()
+  
+  /**
+   * Links a parsed element to its parent
+   * @param aElement parsed element
+   * @param aParent parent element
+   * @param aKey object key of the element; or null if an array element
+   * @param aIndex array index of the element; or -1 if an object element
+   * @return the parsed element
+   */
+  private static Element link(Element aElement, Element aParent, String aKey, int aIndex) {
+    
+    aElement.iParent=aParent;//assign parent
+    aElement.iKey=aKey;//set element key
+    aElement.iIndex=aIndex;//set element index
+    
+    return aElement;//linked
+    
+  }//link()
+  
+  /**
+   * Checks a parsed element against its schema constraints
+   * @param aElement parsed element, linked to its parent
+   * @param aNode constraints of the element; or null if unconstrained
+   * @return the parsed element
+   */
+  private Element check(Element aElement, Schema.Node aNode) {
+    
+    if (aNode==null) return aElement;//unconstrained
+    String keyword=aNode.check(aElement);//check element
+    if (keyword!=null) throw violation(keyword, aElement);//violation
+    
+    return aElement;//conforms
+    
+  }//check()
+  
+  /**
+   * Learned shape of an object or array, holding the keys of an object and the shapes of its children
+   */
+  private static final class Shape {
+    
+    /**
+     * Keys of an object in order
+     */
+    private String[] iKeys=new String[8];
+    /**
+     * Number of keys learned; or -1 if none yet
+     */
+    private int iCount=-1;
+    /**
+     * Shapes of the children at each key position, or of every element of an array
+     */
+    private Shape[] iChildren=new Shape[0];
+    
+    /**
+     * Returns the shape of a child, creating it on first use
+     * @param aPosition key position of the child; or zero for an array element
+     * @return shape of the child
+     */
+    private Shape child(int aPosition) {
+      
+      if (aPosition>=iChildren.length) iChildren=Arrays.copyOf(iChildren, Math.max(aPosition+1, iChildren.length*2));//grow children if needed
+      Shape child=iChildren[aPosition];//get child shape
+      if (child==null) {//if no child shape yet
+        child=new Shape();//create child shape
+        iChildren[aPosition]=child;//keep child shape
+      }//if no child shape yet
+      
+      return child;//here you go
+      
+    }//child()
+    
+  }//Shape{}
+  
 }//Parse{}
@@ -0,0 +1,400 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Applies RFC 6902 JSON Patch and RFC 7396 JSON Merge Patch documents to a hierarchy of elements.
+ * <P>
+ * Patches are applied in place: the elements of the target are changed through putElement(),
+ * addElement() and the other element mutators, so that unchanged subtrees keep their structural
+ * hashes and may still be copied verbatim by a Serializer. Values taken from a patch are copied,
+ * so a patch document may be applied to many targets. Object keys held by elements are compared
+ * in escaped form, so a key written with a needless escape sequence in a parsed message is not
+ * found by a pointer that names it plainly.
+ * </P>
+ * <P>
+ * Paths are RFC 6901 JSON Pointers, resolved by walking the target one reference token at a time.
+ * Consecutive operations on members of the same parent, as written by a Diff, resolve the parent
+ * only once. A test operation compares values with equals(), so numbers must be written alike to
+ * be equal. Operations are applied one at a time, so when an operation fails, those before it
+ * remain applied.
+ * </P>
+ * <P>
+ * A patch may be reused for many targets but must not be shared between threads.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Diff
+ */
+public class Patch {
+
+  /**
+   * Pointer to the parent of the last path resolved; or null if none
+   */
+  private String iParentPointer;
+  /**
+   * Parent element of the last path resolved
+   */
+  private Element iParent;
+
+  /**
+   * Applies a JSON Patch to an element
+   * @param aTarget element to be patched
+   * @param aPatch JSON Patch text
+   * @return patched element, which is a new element if the patch replaced the whole target
+   */
+  public Element apply(Element aTarget, String aPatch) {
+
+    assert aPatch!=null;
+
+    Parser parser=new Parser();//create parser
+    parser.parse(aPatch);//parse patch
+    return apply(aTarget, parser.getRootElement());//apply parsed patch
+
+  }//apply()
+
+  /**
+   * Applies a JSON Patch to an element
+   * @param aTarget element to be patched
+   * @param aPatch array of patch operations
+   * @return patched element, which is a new element if the patch replaced the whole target
+   */
+  public Element apply(Element aTarget, Element aPatch) {
+
+    assert aTarget!=null;
+    assert aPatch!=null;
+
+    if (!aPatch.isArray()) throw new RuntimeException("Bad patch : not an array");//patch must be an array
+    iParentPointer=null;//nothing resolved yet
+    iParent=null;//no parent yet
+    Element root=aTarget;//root of the target
+    int op=0;//operation number
+    Iterator<Element> operations=aPatch.getChildElements();//iterate operations
+    while (operations.hasNext()) {//for each operation
+      root=apply(root, operations.next(), op++);//apply operation
+    }//for each operation
+    iParentPointer=null;//forget parent
+    iParent=null;//do not retain target
+
+    return root;//that's all folks
+
+  }//apply()
+
+  /**
+   * Applies a JSON Merge Patch to an element
+   * @param aTarget element to be patched; or null if none
+   * @param aPatch merge patch
+   * @return patched element, which is a new element unless both the target and patch are objects
+   */
+  public Element merge(Element aTarget, Element aPatch) {
+
+    assert aPatch!=null;
+
+    if (!aPatch.isObject()) return aPatch.copy();//non-object patch replaces target
+    ObjectElement target=((aTarget!=null)&&aTarget.isObject())?(ObjectElement)aTarget:new ObjectElement();//patch members of an object
+    Iterator<Map.Entry<String,Element>> members=((ObjectElement)aPatch).getEntryIterator();//iterate patch members
+    while (members.hasNext()) {//for each patch member
+      Map.Entry<String,Element> member=members.next();//get member
+      String key=member.getKey();//get member key
+      Element value=member.getValue();//get member value
+      if (value.type()==Element.NULL) {//if null member
+        target.removeElement(key);//remove target member
+        continue;//on to next member
+      }//if null member
+      Element element=target.getChildElement(key);//get target member
+      Element merged=merge(element, value);//merge member
+      if (merged!=element) target.putElement(key, merged);//put merged member if new
+    }//for each patch member
+
+    return target;//here you go
+
+  }//merge()
+
+  /**
+   * Applies one patch operation
+   * @param aRoot root of the target
+   * @param aOperation patch operation
+   * @param aOp operation number for error reporting
+   * @return root of the target after the operation
+   */
+  private Element apply(Element aRoot, Element aOperation, int aOp) {
+
+    if (!aOperation.isObject()) throw error("not an object", aOp);//operation must be an object
+    String op=text(aOperation, "op", aOp);//get operation name
+    String path=text(aOperation, "path", aOp);//get target pointer
+
+    switch (op) {//switch on operation
+      case "add": return add(aRoot, path, value(aOperation, aOp).copy(), aOp);//add copy of value
+      case "remove": remove(aRoot, path, aOp);//remove element
+                     return aRoot;//root unchanged
+      case "replace": return replace(aRoot, path, value(aOperation, aOp).copy(), aOp);//replace with copy of value
+      case "move": {
+        String from=text(aOperation, "from", aOp);//get source pointer
+        if (from.equals(path)) return aRoot;//nothing to move
+        if (path.startsWith(from)&&(path.charAt(from.length())=='/')) throw error("move into itself", aOp);//cannot move into own child
+        Element element=remove(aRoot, from, aOp);//remove element from source
+        return add(aRoot, path, element, aOp);//add element at target
+      }
+      case "copy": return add(aRoot, path, get(aRoot, text(aOperation, "from", aOp), aOp).copy(), aOp);//add copy of source
+      case "test": if (!get(aRoot, path, aOp).equals(value(aOperation, aOp))) throw error("test failed", aOp);//values differ
+                   return aRoot;//root unchanged
+      default: throw error("unknown op "+op, aOp);//unsupported operation
+    }//switch on operation
+
+  }//apply()
+
+  /**
+   * Adds an element at a pointer
+   * @param aRoot root of the target
+   * @param aPointer pointer to the new element
+   * @param aElement element to be added
+   * @param aOp operation number for error reporting
+   * @return root of the target after the operation
+   */
+  private Element add(Element aRoot, String aPointer, Element aElement, int aOp) {
+
+    if (aPointer.length()==0) {//if whole target
+      iParentPointer=null;//target replaced
+      return aElement;//element is new root
+    }//if whole target
+    Element parent=parent(aRoot, aPointer, aOp);//resolve parent
+    String token=token(aPointer, aPointer.lastIndexOf('/')+1, aPointer.length());//get last reference token
+    if (parent.isObject()) {//if object parent
+      ((ObjectElement)parent).putElement(Serializer.escape(token), aElement);//add or replace member
+    } else if (token.equals("-")) {//else if appending to array
+      ((ArrayElement)parent).addElement(aElement);//append element
+    } else {//else inserting into array
+      int index=index(token, aOp);//get array index
+      if (index>parent.size()) throw error("no index "+aPointer, aOp);//index beyond end
+      ((ArrayElement)parent).insertElement(index, aElement);//insert element
+    }//if object parent
+
+    return aRoot;//root unchanged
+
+  }//add()
+
+  /**
+   * Removes the element at a pointer
+   * @param aRoot root of the target
+   * @param aPointer pointer to the element
+   * @param aOp operation number for error reporting
+   * @return element removed
+   */
+  private Element remove(Element aRoot, String aPointer, int aOp) {
+
+    if (aPointer.length()==0) throw error("cannot remove root", aOp);//root cannot be removed
+    Element parent=parent(aRoot, aPointer, aOp);//resolve parent
+    String token=token(aPointer, aPointer.lastIndexOf('/')+1, aPointer.length());//get last reference token
+    Element element;//element removed
+    if (parent.isObject()) {//if object parent
+      element=((ObjectElement)parent).removeElement(Serializer.escape(token));//remove member
+    } else {//else array parent
+      int index=index(token, aOp);//get array index
+      element=(index<parent.size())?((ArrayElement)parent).removeElement(index):null;//remove element
+    }//if object parent
+    if (element==null) throw error("no element "+aPointer, aOp);//nothing to remove
+
+    return element;//here you go
+
+  }//remove()
+
+  /**
+   * Replaces the element at a pointer
+   * @param aRoot root of the target
+   * @param aPointer pointer to the element
+   * @param aElement replacement element
+   * @param aOp operation number for error reporting
+   * @return root of the target after the operation
+   */
+  private Element replace(Element aRoot, String aPointer, Element aElement, int aOp) {
+
+    if (aPointer.length()==0) {//if whole target
+      iParentPointer=null;//target replaced
+      return aElement;//element is new root
+    }//if whole target
+    Element parent=parent(aRoot, aPointer, aOp);//resolve parent
+    String token=token(aPointer, aPointer.lastIndexOf('/')+1, aPointer.length());//get last reference token
+    if (parent.isObject()) {//if object parent
+      String key=Serializer.escape(token);//get member key
+      if (!parent.hasKey(key)) throw error("no element "+aPointer, aOp);//nothing to replace
+      ((ObjectElement)parent).putElement(key, aElement);//replace member
+    } else {//else array parent
+      int index=index(token, aOp);//get array index
+      if (index>=parent.size()) throw error("no element "+aPointer, aOp);//nothing to replace
+      ((ArrayElement)parent).setElement(index, aElement);//replace element
+    }//if object parent
+
+    return aRoot;//root unchanged
+
+  }//replace()
+
+  /**
+   * Returns the element at a pointer
+   * @param aRoot root of the target
+   * @param aPointer pointer to the element
+   * @param aOp operation number for error reporting
+   * @return element at the pointer
+   */
+  private Element get(Element aRoot, String aPointer, int aOp) {
+
+    if (aPointer.length()==0) return aRoot;//whole target
+    Element element=child(parent(aRoot, aPointer, aOp), token(aPointer, aPointer.lastIndexOf('/')+1, aPointer.length()), aOp);//get child of parent
+    if (element==null) throw error("no element "+aPointer, aOp);//nothing there
+
+    return element;//here you go
+
+  }//get()
+
+  /**
+   * Resolves the parent of the element at a pointer, reusing the parent of the previous pointer if the same
+   * @param aRoot root of the target
+   * @param aPointer pointer to an element below the root
+   * @param aOp operation number for error reporting
+   * @return parent object or array
+   */
+  private Element parent(Element aRoot, String aPointer, int aOp) {
+
+    if (aPointer.charAt(0)!='/') throw error("bad pointer "+aPointer, aOp);//pointer must start with separator
+    int end=aPointer.lastIndexOf('/');//position of last separator
+    if ((iParentPointer!=null)&&(iParentPointer.length()==end)&&aPointer.startsWith(iParentPointer)) return iParent;//same parent as before
+
+    Element parent=aRoot;//start at the root
+    int start=1;//start of first reference token
+    while (start<=end) {//for each reference token before the last
+      int next=aPointer.indexOf('/', start);//end of reference token
+      parent=child(parent, token(aPointer, start, next), aOp);//step down to child
+      if (parent==null) throw error("no element "+aPointer.substring(0, next), aOp);//nothing there
+      start=next+1;//start of next reference token
+    }//for each reference token before the last
+    if (parent.isScalar()) throw error("not a container "+aPointer.substring(0, end), aOp);//scalars have no children
+    iParentPointer=aPointer.substring(0, end);//remember parent pointer
+    iParent=parent;//remember parent
+
+    return parent;//here you go
+
+  }//parent()
+
+  /**
+   * Returns the child of an element named by a reference token
+   * @param aParent parent element
+   * @param aToken unescaped reference token
+   * @param aOp operation number for error reporting
+   * @return child element; or null if none
+   */
+  private static Element child(Element aParent, String aToken, int aOp) {
+
+    if (aParent.isObject()) return aParent.getChildElement(Serializer.escape(aToken));//look up member
+    if (aParent.isArray()) return aParent.getChildElement(index(aToken, aOp));//look up element
+
+    return null;//scalars have no children
+
+  }//child()
+
+  /**
+   * Unescapes a reference token of a pointer
+   * @param aPointer pointer
+   * @param aStart position of first token character
+   * @param aEnd position after last token character
+   * @return unescaped token
+   */
+  private static String token(String aPointer, int aStart, int aEnd) {
+
+    String token=aPointer.substring(aStart, aEnd);//get escaped token
+    if (token.indexOf('~')<0) return token;//nothing to unescape
+
+    return token.replace("~1", "/").replace("~0", "~");//unescape slash then tilde
+
+  }//token()
+
+  /**
+   * Parses an array index from a reference token
+   * @param aToken reference token
+   * @param aOp operation number for error reporting
+   * @return array index
+   */
+  private static int index(String aToken, int aOp) {
+
+    int length=aToken.length();//token length
+    if ((length==0)||(length>9)||((length>1)&&(aToken.charAt(0)=='0'))) throw error("bad index "+aToken, aOp);//empty, too long or leading zero
+    int index=0;//index value
+    for (int i=0;i<length;++i) {//for each character
+      char chr=aToken.charAt(i);//get character
+      if ((chr<'0')||(chr>'9')) throw error("bad index "+aToken, aOp);//not a digit
+      index=index*10+(chr-'0');//accumulate digit
+    }//for each character
+
+    return index;//here you go
+
+  }//index()
+
+  /**
+   * Returns the unescaped text of a string member of an operation
+   * @param aOperation patch operation
+   * @param aKey member key
+   * @param aOp operation number for error reporting
+   * @return member text
+   */
+  private static String text(Element aOperation, String aKey, int aOp) {
+
+    Element element=aOperation.getChildElement(aKey);//get member
+    if ((element==null)||(element.type()!=Element.STRING)) throw error("no "+aKey, aOp);//member missing or not a string
+
+    return ((ScalarElement)element).getString();//return unescaped text
+
+  }//text()
+
+  /**
+   * Returns the value member of an operation
+   * @param aOperation patch operation
+   * @param aOp operation number for error reporting
+   * @return value element
+   */
+  private static Element value(Element aOperation, int aOp) {
+
+    Element element=aOperation.getChildElement("value");//get member
+    if (element==null) throw error("no value", aOp);//member missing
+
+    return element;//here you go
+
+  }//value()
+
+  /**
+   * Creates an exception for a bad patch operation
+   * @param aReason reason the operation failed
+   * @param aOp operation number
+   * @return exception to be thrown
+   */
+  private static RuntimeException error(String aReason, int aOp) {
+
+    return new RuntimeException("Bad patch : "+aReason+" ["+aOp+"]");//describe failure
+
+  }//error()
+
+}//Patch{}
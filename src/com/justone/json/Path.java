@@ -26,6 +26,8 @@ SOFTWARE.
 
 package com.justone.json;
 
+import java.util.Iterator;
+
 /**
  * A JSON navigation path.
  * <P>
@@ -43,8 +45,21 @@ package com.justone.json;
  * to the elements 1 and 2 respectively. For a JSON message of {"a":[1,2,3]} the strings
  * "/@a/#0" and "/@a/#2" represent the paths for elements 1 and 3 respectively. 
  * </P>
+ * <P>
+ * A path may also search for elements. The tags "@*" and "#*" match any object key and any array 
+ * index respectively, while a tag of the form "#2:5" matches array indexes 2 to 4 inclusive, where 
+ * either bound may be omitted. An empty tag, such as in "/@a//@c", lets the following tag match at 
+ * any depth below the previous one. For a JSON message of {"a":[{"p":1},{"p":2}]}, the string
+ * "/@a/#*&#47;@p" matches the elements 1 and 2. Use iterator() to lazily visit the elements matched 
+ * by such a path.
+ * </P>
+ * <P>
+ * Paths used repeatedly should be compiled once by a PathRegistry, which returns the same
+ * instance for the same string and gives each path an id for caching results against.
+ * </P>
  * @author Duncan Pauly
  * @version 1.0
+ * @see PathRegistry
  */
 public class Path {
   
@@ -56,12 +71,40 @@ public class Path {
    * Prefix character for array index tag
    */
   public static final char INDEX='#';
+  /**
+   * Tag suffix matching any object key or array index
+   */
+  public static final char WILDCARD='*';
+  /**
+   * Separator between the first and end array index of a slice
+   */
+  public static final char SLICE=':';
+  /**
+   * Tag matches an object key
+   */
+  static final int KEY_STEP=1;
+  /**
+   * Tag matches an array index
+   */
+  static final int INDEX_STEP=2;
+  /**
+   * Tag matches any object key
+   */
+  static final int ANY_KEY_STEP=3;
+  /**
+   * Tag matches any array index
+   */
+  static final int ANY_INDEX_STEP=4;
+  /**
+   * Tag matches a range of array indexes
+   */
+  static final int SLICE_STEP=5;
   /**
    * Tag separator character
    */
   protected final char fSeparator;
   /**
-   * Tag levels in the path 
+   * Tag levels in the path
    */
   protected final int fDepth;
   /**
@@ -69,71 +112,217 @@ public class Path {
    */
   protected final String[] fKeys;
   /**
-   * Array index at each tag level
+   * Array index at each tag level, or first index of a slice
    */
   protected final int[] fIndexes;
-  
   /**
-   * Path constructor   
+   * Array index after the last index of a slice at each tag level
+   */
+  protected final int[] fEnds;
+  /**
+   * Kind of tag at each tag level
+   */
+  protected final int[] fSteps;
+  /**
+   * Indicates if the tag at each level may match at any depth below the previous level
+   */
+  protected final boolean[] fDescents;
+  /**
+   * Indicates if the path only has exact keys and indexes, so that it leads to at most one element
+   */
+  protected final boolean fExact;
+  /**
+   * Registry id of the path; or -1 if not registered
+   */
+  protected final int fId;
+
+  /**
+   * Path constructor
    * @param aString canonical path string
-   * 
+   *
    */
   public Path(String aString) {
-    
+
+    this(aString, -1, null);//unregistered path
+
+  }//Path()
+
+  /**
+   * Constructs a path held by a registry
+   * @param aString canonical path string
+   * @param aId registry id of the path; or -1 if not registered
+   * @param aRegistry registry sharing key instances between paths; or null if none
+   */
+  Path(String aString, int aId, PathRegistry aRegistry) {
+
     assert aString!=null;
 
     if (aString.length()<2) throw new RuntimeException("Empty path : "+aString);//empty path
-    
+
     fSeparator=aString.charAt(0);//extract leading character as tag separator
-    String[] tags=aString.substring(1).split("\\"+fSeparator,-1);//split path into array of tags
-    fDepth=tags.length;//set tag depth
+    fId=aId;//set registry id
+    int length=aString.length();//length of path string
+    int depth=0;//number of non-empty tags
+    for (int i=1;i<length;++i) {//for each character after the leading separator
+      if ((aString.charAt(i)!=fSeparator)&&(aString.charAt(i-1)==fSeparator)) ++depth;//count first character of a non-empty tag
+    }//for each character after the leading separator
+    fDepth=depth;//set tag depth
     fKeys=new String[fDepth];//allocate array for key tags
     fIndexes=new int[fDepth];//allocate array for index tags
-    for (int i=0;i<fDepth;++i) {//for each tag
-      if (tags[i].trim().length()<2) throw new RuntimeException("Bad tag : "+aString+" ["+i+"]");//bad key tag
-      if (tags[i].charAt(0)==KEY) {//if object key tag
-        fKeys[i]=tags[i].substring(1);//set key tag after removing @ prefix
-        assert fKeys[i]!=null;
-      } else if (tags[i].charAt(0)==INDEX) {//else if array index tag
-        for (int j=1;j<tags[i].length();++j) {//for each subsequent character
-          if ("0123456789".indexOf(tags[i].charAt(j))<0) throw new RuntimeException("Bad tag : "+aString+" ["+i+"]");//bad index tag
-        }//for each subsequent character
-        fIndexes[i]=Integer.parseInt(tags[i].substring(1));//set array index after removing # tag
-        assert fIndexes[i]>=0;
+    fEnds=new int[fDepth];//allocate array for slice ends
+    fSteps=new int[fDepth];//allocate array for tag kinds
+    fDescents=new boolean[fDepth];//allocate array for descent flags
+    boolean exact=true;//exact until shown otherwise
+    int level=0;//tag level
+    int end;//position after current tag
+    for (int i=0,start=1;start<=length;++i,start=end+1) {//for each tag
+      end=aString.indexOf(fSeparator, start);//find end of tag
+      if (end<0) end=length;//last tag runs to end of path
+      if ((start==end)&&(end+1<length)&&(aString.charAt(end+1)!=fSeparator)) {//if empty tag before a tag
+        fDescents[level]=true;//next tag may match at any depth
+        exact=false;//path is not exact
+        continue;//on to next tag
+      }//if empty tag before a tag
+      int first=start;//first non-blank character of tag
+      while ((first<end)&&(aString.charAt(first)<=' ')) ++first;//skip leading blanks
+      int last=end;//position after last non-blank character of tag
+      while ((last>first)&&(aString.charAt(last-1)<=' ')) --last;//skip trailing blanks
+      if (last-first<2) throw new RuntimeException("Bad tag : "+aString+" ["+i+"]");//bad key tag
+      boolean wildcard=(end-start==2)&&(aString.charAt(start+1)==WILDCARD);//is tag a wildcard?
+      if (aString.charAt(start)==KEY) {//if object key tag
+        if (wildcard) {//if wildcard key
+          fSteps[level]=ANY_KEY_STEP;//any key
+          exact=false;//path is not exact
+        } else {//else exact key
+          String key=aString.substring(start+1, end);//key tag after removing @ prefix
+          fKeys[level]=(aRegistry==null)?key:aRegistry.symbol(key);//set key, sharing registered instance
+          fSteps[level]=KEY_STEP;//exact key
+        }//if wildcard key
+      } else if (aString.charAt(start)==INDEX) {//else if array index tag
+        int slice=aString.indexOf(SLICE, start+1);//position of slice separator
+        if (wildcard) {//if wildcard index
+          fSteps[level]=ANY_INDEX_STEP;//any index
+          exact=false;//path is not exact
+        } else if ((slice>=0)&&(slice<end)) {//else if slice
+          fIndexes[level]=(slice==start+1)?0:index(aString, i, start+1, slice);//first index, defaulting to zero
+          fEnds[level]=(slice==end-1)?Integer.MAX_VALUE:index(aString, i, slice+1, end);//end index, defaulting to no end
+          fSteps[level]=SLICE_STEP;//range of indexes
+          exact=false;//path is not exact
+        } else {//else exact index
+          fIndexes[level]=index(aString, i, start+1, end);//set array index
+          fSteps[level]=INDEX_STEP;//exact index
+        }//if wildcard index
       } else {//else bad prefix
         throw new RuntimeException("Bad tag : "+aString+" ["+i+"]");//bad tag prefix
       }//if object key tag
+      ++level;//next tag level
     }//for each tag
-        
+    fExact=exact;//set exactness
+
   }//Path()
-      
+
+  /**
+   * Parses an array index from part of a path string
+   * @param aString path string
+   * @param aTag tag position for error reporting
+   * @param aStart position of first index digit
+   * @param aEnd position after last index digit
+   * @return array index
+   */
+  private static int index(String aString, int aTag, int aStart, int aEnd) {
+
+    assert aString!=null;
+
+    if (aStart>=aEnd) throw new RuntimeException("Bad tag : "+aString+" ["+aTag+"]");//no index digits
+    long index=0;//index value
+    for (int j=aStart;j<aEnd;++j) {//for each character
+      char c=aString.charAt(j);//get character
+      if ((c<'0')||(c>'9')) throw new RuntimeException("Bad tag : "+aString+" ["+aTag+"]");//bad index tag
+      index=index*10+(c-'0');//accumulate digit
+      if (index>Integer.MAX_VALUE) throw new RuntimeException("Bad tag : "+aString+" ["+aTag+"]");//index too large
+    }//for each character
+
+    return (int)index;//return index
+
+  }//index()
+
+  /**
+   * Returns the registry id of the path
+   * @return id given by the registry that compiled the path; or -1 if not registered
+   */
+  public int getId() {
+
+    return fId;//return id
+
+  }//getId()
+
+  /**
+   * Indicates if the path only has exact object keys and array indexes
+   * @return true if the path leads to at most one element
+   */
+  public boolean isExact() {
+
+    return fExact;//return exactness
+
+  }//isExact()
+
+  /**
+   * Returns an iterator of the elements matched by the path below a given element
+   * <P>
+   * Elements are found lazily as the iterator is advanced, so a search may be abandoned
+   * as soon as a wanted element is found. Where recursive descent tags overlap, an element
+   * may be returned more than once.
+   * </P>
+   * @param aElement element from which the path is navigated
+   * @return iterator of matching elements
+   */
+  public Iterator<Element> iterator(Element aElement) {
+
+    assert aElement!=null;
+
+    return new PathIterator(this, aElement);//create lazy iterator
+
+  }//iterator()
+
   /**
    * Returns canonical string representation of the path
    * @return string representation of the path
    */
   @Override
   public String toString() {
-    
+
     assert fDepth>0;
-   
+
     StringBuilder buffer=new StringBuilder();//create buffer for string manipulation
-    
+
     for (int i=0;i<fDepth;++i) {//for each tag
-      
+
+      if (fDescents[i]) buffer.append(fSeparator);//append empty tag for descent
       buffer.append(fSeparator);//append label separator
-      if (fKeys[i]!=null) {//if object key
-        buffer.append(KEY);//append object key prefix
-        buffer.append(fKeys[i]);//append key
-      } else {//else array index
-        buffer.append(INDEX);//append array index prefix
-        buffer.append(fIndexes[i]);//append index    
-      }//if object key
+      switch (fSteps[i]) {//switch on tag kind
+        case KEY_STEP: buffer.append(KEY);//append object key prefix
+                       buffer.append(fKeys[i]);//append key
+                       break;
+        case INDEX_STEP: buffer.append(INDEX);//append array index prefix
+                         buffer.append(fIndexes[i]);//append index
+                         break;
+        case ANY_KEY_STEP: buffer.append(KEY);//append object key prefix
+                           buffer.append(WILDCARD);//append wildcard
+                           break;
+        case ANY_INDEX_STEP: buffer.append(INDEX);//append array index prefix
+                             buffer.append(WILDCARD);//append wildcard
+                             break;
+        default: buffer.append(INDEX);//append array index prefix
+                 if (fIndexes[i]>0) buffer.append(fIndexes[i]);//append first index
+                 buffer.append(SLICE);//append slice separator
+                 if (fEnds[i]<Integer.MAX_VALUE) buffer.append(fEnds[i]);//append end index
+      }//switch on tag kind
     }//for each tag
-    
+
     return buffer.toString();//return string
-    
+
   }//toString()
- 
+
  /**
    * Returns the tag of a given element
    * @param aElement given element to return tag for
@@ -162,16 +351,47 @@ public class Path {
     assert aElement!=null;
     assert aSeparator>0;
     
-    StringBuilder stringBuilder=new StringBuilder();//buffer for path string result
-    Element element=aElement;//start at given element
-    while (element.iParent!=null) {//until root element
-      stringBuilder.insert(0, getTag(element));//prepend element label
-      stringBuilder.insert(0, aSeparator);//prepend label separator
-      element=element.iParent;//go to parent
-    }//until root element
+    int length=0;//length of path string
+    for (Element element=aElement;element.iParent!=null;element=element.iParent) {//for each element up to root
+      length+=2+((element.iKey!=null)?element.iKey.length():digits(element.iIndex));//add length of separator, prefix and label
+    }//for each element up to root
+    
+    char[] chars=new char[length];//buffer for path string result
+    int position=length;//fill buffer from the end
+    for (Element element=aElement;element.iParent!=null;element=element.iParent) {//for each element up to root
+      if (element.iKey!=null) {//if object key
+        position-=element.iKey.length();//make room for key
+        element.iKey.getChars(0, element.iKey.length(), chars, position);//copy key
+        chars[--position]=KEY;//prepend object key prefix
+      } else {//else array index
+        int index=element.iIndex;//get index
+        do {//for each digit from the last
+          chars[--position]=(char)('0'+index%10);//prepend digit
+          index/=10;//next digit
+        } while (index>0);//for each digit from the last
+        chars[--position]=INDEX;//prepend array index prefix
+      }//if object key
+      chars[--position]=aSeparator;//prepend label separator
+    }//for each element up to root
     
-    return stringBuilder.toString();//return path string
+    return new String(chars);//return path string
     
   }//getPath()    
   
+  /**
+   * Returns the number of decimal digits in an array index
+   * @param aIndex array index
+   * @return number of digits
+   */
+  private static int digits(int aIndex) {
+    
+    assert aIndex>=0;
+    
+    int digits=1;//at least one digit
+    for (int index=aIndex;index>=10;index/=10) ++digits;//count further digits
+    
+    return digits;//return count
+    
+  }//digits()
+  
 }//Path{}
@@ -0,0 +1,326 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates over the elements matched by a path.
+ * <P>
+ * The iterator keeps one cursor per tag level and advances the deepest cursor first, so
+ * elements are visited in document order and no more of the message is searched than is
+ * needed to find the next match.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Path#iterator(Element)
+ */
+class PathIterator implements Iterator<Element> {
+
+  /**
+   * Path being matched
+   */
+  private final Path fPath;
+  /**
+   * Cursor over the candidate elements at each tag level
+   */
+  private final Level[] fLevels;
+  /**
+   * Deepest tag level holding a cursor; or -1 when exhausted
+   */
+  private int iLevel;
+  /**
+   * Next matching element; or null when exhausted
+   */
+  private Element iNext;
+
+  /**
+   * Constructs a path iterator
+   * @param aPath path to be matched
+   * @param aElement element from which the path is navigated
+   */
+  PathIterator(Path aPath, Element aElement) {
+
+    assert aPath!=null;
+    assert aElement!=null;
+
+    fPath=aPath;//set path
+    fLevels=new Level[aPath.fDepth];//allocate level cursors
+    for (int i=0;i<fLevels.length;++i) fLevels[i]=new Level(aPath, i);//create cursor for each level
+    fLevels[0].reset(aElement);//start at the given element
+    iLevel=0;//first level
+    advance();//find first match
+
+  }//PathIterator()
+
+  /**
+   * Indicates if there is another matching element
+   * @return true if another element matches
+   */
+  @Override
+  public boolean hasNext() {
+
+    return iNext!=null;//another match?
+
+  }//hasNext()
+
+  /**
+   * Returns the next matching element
+   * @return next matching element
+   */
+  @Override
+  public Element next() {
+
+    if (iNext==null) throw new NoSuchElementException();//no more matches
+    Element element=iNext;//get match
+    advance();//find following match
+
+    return element;//here you go
+
+  }//next()
+
+  /**
+   * Always throws an exception as elements cannot be removed
+   */
+  @Override
+  public void remove() {
+
+    throw new UnsupportedOperationException();//read only
+
+  }//remove()
+
+  /**
+   * Advances to the next matching element
+   */
+  private void advance() {
+
+    int last=fPath.fDepth-1;//last tag level
+    while (iLevel>=0) {//until exhausted
+      Element element=fLevels[iLevel].next();//get next candidate at this level
+      if (element==null) {//if no more candidates at this level
+        --iLevel;//back up a level
+      } else if (iLevel==last) {//else if candidate at the last level
+        iNext=element;//found match
+        return;//done for now
+      } else {//else candidate at an intermediate level
+        fLevels[++iLevel].reset(element);//search below candidate at next level
+      }//if no more candidates at this level
+    }//until exhausted
+    iNext=null;//no more matches
+
+  }//advance()
+
+  /**
+   * Cursor over the candidate elements for one tag level below a parent element
+   */
+  private static final class Level {
+
+    /**
+     * Object key of the tag
+     */
+    private final String fKey;
+    /**
+     * Array index of the tag, or first index of a slice
+     */
+    private final int fIndex;
+    /**
+     * Array index after the last index of a slice
+     */
+    private final int fEnd;
+    /**
+     * Kind of tag
+     */
+    private final int fStep;
+    /**
+     * Indicates if the tag may match at any depth
+     */
+    private final boolean fDescent;
+    /**
+     * Stack of child cursors, with a single entry unless descending
+     */
+    private Children[] iStack=new Children[1];
+    /**
+     * Number of child cursors on the stack
+     */
+    private int iDepth;
+    /**
+     * Element to be returned for an exact tag; or null if none
+     */
+    private Element iExact;
+
+    /**
+     * Constructs a level cursor
+     * @param aPath path being matched
+     * @param aLevel tag level
+     */
+    private Level(Path aPath, int aLevel) {
+
+      fKey=aPath.fKeys[aLevel];//set key
+      fIndex=aPath.fIndexes[aLevel];//set index
+      fEnd=aPath.fEnds[aLevel];//set slice end
+      fStep=aPath.fSteps[aLevel];//set tag kind
+      fDescent=aPath.fDescents[aLevel];//set descent flag
+
+    }//Level()
+
+    /**
+     * Restarts the cursor below a parent element
+     * @param aParent parent element
+     */
+    private void reset(Element aParent) {
+
+      iDepth=0;//no child cursors
+      iExact=null;//no exact element
+      if (!fDescent&&(fStep==Path.KEY_STEP)) {//if exact key
+        iExact=aParent.getChildElement(fKey);//look up key
+      } else if (!fDescent&&(fStep==Path.INDEX_STEP)) {//else if exact index
+        iExact=aParent.getChildElement(fIndex);//look up index
+      } else {//else search children
+        push(aParent);//cursor over children
+      }//if exact key
+
+    }//reset()
+
+    /**
+     * Returns the next candidate element
+     * @return next candidate; or null if none
+     */
+    private Element next() {
+
+      if (iExact!=null) {//if exact element pending
+        Element element=iExact;//get element
+        iExact=null;//only once
+        return element;//here you go
+      }//if exact element pending
+
+      while (iDepth>0) {//until no child cursors left
+        Children children=iStack[iDepth-1];//innermost child cursor
+        if (!children.next()) {//if no more children
+          --iDepth;//pop cursor
+          continue;//carry on with outer cursor
+        }//if no more children
+        Element element=children.iElement;//get child
+        if (fDescent&&!element.isScalar()) push(element);//descend into child after it
+        switch (fStep) {//switch on tag kind
+          case Path.KEY_STEP: if (fKey.equals(children.iKey)) return element;//key matches
+                              break;
+          case Path.INDEX_STEP: if ((children.iKey==null)&&(children.iIndex==fIndex)) return element;//index matches
+                                break;
+          case Path.ANY_KEY_STEP: if (children.iKey!=null) return element;//any key matches
+                                  break;
+          case Path.ANY_INDEX_STEP: if (children.iKey==null) return element;//any index matches
+                                    break;
+          default: if (children.iKey!=null) break;//not an array element
+                   if (children.iIndex>=fEnd) {//if beyond end of slice
+                     if (!fDescent) return null;//no more matches in this array
+                     break;//carry on descending
+                   }//if beyond end of slice
+                   if (children.iIndex>=fIndex) return element;//index within slice
+        }//switch on tag kind
+      }//until no child cursors left
+
+      return null;//no more candidates
+
+    }//next()
+
+    /**
+     * Pushes a cursor over the children of an element
+     * @param aParent parent element
+     */
+    private void push(Element aParent) {
+
+      if (iDepth==iStack.length) {//if stack is full
+        Children[] stack=new Children[iStack.length*2];//double stack
+        System.arraycopy(iStack, 0, stack, 0, iStack.length);//copy cursors
+        iStack=stack;//use larger stack
+      }//if stack is full
+      if (iStack[iDepth]==null) iStack[iDepth]=new Children();//create cursor on first use
+      iStack[iDepth++].reset(aParent);//reset cursor for parent
+
+    }//push()
+
+  }//Level{}
+
+  /**
+   * Cursor over the immediate children of an element, tracking the key or index of each
+   */
+  private static final class Children {
+
+    /**
+     * Iterator over child elements; or null if none
+     */
+    private Iterator<Element> iElements;
+    /**
+     * Iterator over object keys; or null if an array
+     */
+    private Iterator<String> iKeys;
+    /**
+     * Current child element
+     */
+    private Element iElement;
+    /**
+     * Object key of current child; or null if an array element
+     */
+    private String iKey;
+    /**
+     * Array index of current child
+     */
+    private int iIndex;
+
+    /**
+     * Restarts the cursor over the children of an element
+     * @param aParent parent element
+     */
+    private void reset(Element aParent) {
+
+      iElements=aParent.isScalar()?null:aParent.getChildElements();//get child iterator
+      iKeys=aParent.isObject()?((ObjectElement)aParent).getKeyIterator():null;//get key iterator for an object
+      iElement=null;//no current child
+      iKey=null;//no current key
+      iIndex=-1;//before first child
+
+    }//reset()
+
+    /**
+     * Advances to the next child
+     * @return true if there is another child
+     */
+    private boolean next() {
+
+      if ((iElements==null)||!iElements.hasNext()) return false;//no more children
+      iElement=iElements.next();//get child
+      if (iKeys!=null) iKey=iKeys.next();//get key in step with child
+      ++iIndex;//next index
+
+      return true;//child found
+
+    }//next()
+
+  }//Children{}
+
+}//PathIterator{}
@@ -0,0 +1,162 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of compiled paths.
+ * <P>
+ * The registry compiles each distinct path string once and returns the same Path instance
+ * whenever that string is compiled again, so that code building paths from configuration on
+ * every request pays only for a map lookup. Each registered path is given an integer id, counting
+ * from zero in order of registration, against which callers may cache results resolved for the path.
+ * </P>
+ * <P>
+ * Object keys are shared between the paths of a registry, so that equal keys in different paths are
+ * the same String instance and compare by identity.
+ * </P>
+ * <P>
+ * A registry may be shared between threads. Registered paths are never removed, so a registry should
+ * only be used for a bounded set of path strings.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Path
+ */
+public class PathRegistry {
+
+  /**
+   * Registered paths by path string
+   */
+  private final ConcurrentHashMap<String,Path> fPaths;
+  /**
+   * Shared object key instances
+   */
+  private final ConcurrentHashMap<String,String> fSymbols;
+  /**
+   * Registered paths by id
+   */
+  private volatile Path[] iIds;
+  /**
+   * Number of registered paths
+   */
+  private volatile int iCount;
+
+  /**
+   * Constructs an empty registry
+   */
+  public PathRegistry() {
+
+    fPaths=new ConcurrentHashMap<>();//create path map
+    fSymbols=new ConcurrentHashMap<>();//create key map
+    iIds=new Path[16];//allocate id table
+
+  }//PathRegistry()
+
+  /**
+   * Returns the path for a path string, compiling and registering it on first use
+   * @param aString canonical path string
+   * @return registered path
+   */
+  public Path compile(String aString) {
+
+    assert aString!=null;
+
+    Path path=fPaths.get(aString);//look up path
+    if (path!=null) return path;//already registered
+
+    synchronized (this) {//one registration at a time
+      path=fPaths.get(aString);//look up path again
+      if (path!=null) return path;//registered meanwhile
+      path=new Path(aString, iCount, this);//compile path with next id
+      Path[] ids=iIds;//get id table
+      if (iCount==ids.length) ids=Arrays.copyOf(ids, iCount*2);//grow id table if full
+      ids[iCount]=path;//add path to id table
+      iIds=ids;//publish id table
+      iCount=iCount+1;//publish path count
+      fPaths.put(aString, path);//register path
+    }//one registration at a time
+
+    return path;//here you go
+
+  }//compile()
+
+  /**
+   * Returns the registered path leading to an element, so that elements reached by the same path
+   * in different messages share the same path id
+   * @param aElement element below the root element
+   * @param aSeparator character to be used as tag separator
+   * @return registered path of the element
+   */
+  public Path compile(Element aElement, char aSeparator) {
+
+    assert aElement!=null;
+
+    if (aElement.iParent==null) throw new RuntimeException("Root element has no path");//nothing to compile
+    return compile(Path.getPath(aElement, aSeparator));//compile path string
+
+  }//compile()
+
+  /**
+   * Returns the path registered with a given id
+   * @param aId path id
+   * @return registered path
+   */
+  public Path getPath(int aId) {
+
+    if ((aId<0)||(aId>=iCount)) throw new IndexOutOfBoundsException("Bad path id : "+aId);//unknown id
+    return iIds[aId];//return path
+
+  }//getPath()
+
+  /**
+   * Returns the number of registered paths
+   * @return number of paths
+   */
+  public int size() {
+
+    return iCount;//return count
+
+  }//size()
+
+  /**
+   * Returns the shared instance of an object key
+   * @param aKey object key
+   * @return registered instance equal to the key
+   */
+  String symbol(String aKey) {
+
+    assert aKey!=null;
+
+    String symbol=fSymbols.putIfAbsent(aKey, aKey);//register key unless already present
+    return (symbol==null)?aKey:symbol;//return shared instance
+
+  }//symbol()
+
+}//PathRegistry{}
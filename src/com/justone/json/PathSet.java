@@ -0,0 +1,359 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.Arrays;
+
+/**
+ * A compiled set of JSON navigation paths.
+ * <P>
+ * A path set compiles a number of paths into a tree of tags, so that paths sharing a common
+ * prefix are navigated together. A single traversal of a parsed message then resolves every path
+ * in the set. Each path is identified by its position in the array the set was compiled from, and
+ * resolved elements are returned in an array indexed by that path id.
+ * </P>
+ * <br>
+ * Code example:
+ * <pre><code>
+ *
+ * PathSet paths=new PathSet(new Path[]{new Path("/@location/@latitude"),new Path("/@location/@longitude")});
+ * Element[] elements=new Element[paths.size()];
+ *
+ * parser.parse(message);
+ * parser.getElements(paths, elements);
+ * System.out.println("loc="+elements[0]+","+elements[1]);
+ *
+ * </code></pre>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Path
+ */
+public class PathSet {
+
+  /**
+   * Paths in the set indexed by path id
+   */
+  private final Path[] fPaths;
+  /**
+   * Root node of the tag tree
+   */
+  private final Node fRoot;
+
+  /**
+   * Constructs a path set
+   * @param aPaths exact paths to be compiled, where the position of each path is its path id
+   */
+  public PathSet(Path[] aPaths) {
+
+    assert aPaths!=null;
+
+    fPaths=aPaths.clone();//copy paths so that the set cannot change
+    fRoot=new Node();//create root node
+    for (int i=0;i<fPaths.length;++i) {//for each path
+      assert fPaths[i]!=null;
+      if (!fPaths[i].fExact) throw new RuntimeException("Path is not exact : "+fPaths[i]);//only exact paths can share a traversal
+      Node node=fRoot;//start at root node
+      for (int j=0;j<fPaths[i].fDepth;++j) {//for each tag
+        node=node.child(fPaths[i].fKeys[j], fPaths[i].fIndexes[j]);//get or add child node for tag
+      }//for each tag
+      node.add(i);//path ends at this node
+    }//for each path
+
+  }//PathSet()
+
+  /**
+   * Returns the number of paths in the set
+   * @return number of paths in the set
+   */
+  public int size() {
+
+    assert fPaths!=null;
+
+    return fPaths.length;//return number of paths
+
+  }//size()
+
+  /**
+   * Returns the path with a given path id
+   * @param aId id of the path
+   * @return path with the given id
+   */
+  public Path getPath(int aId) {
+
+    assert aId>=0;
+    assert aId<fPaths.length;
+
+    return fPaths[aId];//return path
+
+  }//getPath()
+
+  /**
+   * Resolves every path in the set from a given element in a single traversal
+   * @param aElement element from which paths are navigated
+   * @param aElements array to place resolved elements into, indexed by path id
+   * @return array with the element for each path; or null where a path does not exist
+   */
+  public Element[] getElements(Element aElement, Element[] aElements) {
+
+    assert aElement!=null;
+    assert aElements!=null;
+    assert aElements.length>=fPaths.length;
+
+    Arrays.fill(aElements, 0, fPaths.length, null);//no paths resolved yet
+    resolve(fRoot, aElement, aElements);//resolve all paths from the element
+
+    return aElements;//here you go
+
+  }//getElements()
+
+  /**
+   * Indicates if all paths in the set exist below a given element
+   * @param aElement element from which paths are navigated
+   * @return true if all of the paths exist
+   */
+  public boolean containsAll(Element aElement) {
+
+    assert aElement!=null;
+
+    return all(fRoot, aElement);//check all paths from the element
+
+  }//containsAll()
+
+  /**
+   * Indicates if any path in the set exists below a given element
+   * @param aElement element from which paths are navigated
+   * @return true if any of the paths exist
+   */
+  public boolean containsAny(Element aElement) {
+
+    assert aElement!=null;
+
+    return any(fRoot, aElement);//check for any path from the element
+
+  }//containsAny()
+
+  /**
+   * Returns the root node of the tag tree
+   * @return root node
+   */
+  Node root() {
+
+    return fRoot;//return root node
+
+  }//root()
+
+  /**
+   * Indicates if the set was compiled from the exact paths among those given
+   * @param aPaths paths to compare with, of which any that are not exact are ignored
+   * @return true if the set holds the same exact path instances in the same order
+   */
+  boolean matches(Path[] aPaths) {
+
+    assert aPaths!=null;
+
+    int count=0;//number of exact paths compared
+    for (Path path:aPaths) {//for each path
+      if (!path.fExact) continue;//not in the set
+      if ((count==fPaths.length)||(path!=fPaths[count])) return false;//different path
+      ++count;//path matches
+    }//for each path
+
+    return count==fPaths.length;//same paths?
+
+  }//matches()
+
+  /**
+   * Resolves the paths below a node of the tag tree
+   * @param aNode node of the tag tree
+   * @param aElement element corresponding to the node
+   * @param aElements array to place resolved elements into
+   */
+  private static void resolve(Node aNode, Element aElement, Element[] aElements) {
+
+    for (int i=0;i<aNode.iIdCount;++i) {//for each path ending at this node
+      aElements[aNode.iIds[i]]=aElement;//path resolved
+    }//for each path ending at this node
+    for (int i=0;i<aNode.iCount;++i) {//for each child node
+      Element element=aNode.step(i, aElement);//navigate to child element
+      if (element!=null) resolve(aNode.iChildren[i], element, aElements);//resolve paths below child
+    }//for each child node
+
+  }//resolve()
+
+  /**
+   * Indicates if all paths below a node of the tag tree exist
+   * @param aNode node of the tag tree
+   * @param aElement element corresponding to the node
+   * @return true if all paths exist
+   */
+  private static boolean all(Node aNode, Element aElement) {
+
+    for (int i=0;i<aNode.iCount;++i) {//for each child node
+      Element element=aNode.step(i, aElement);//navigate to child element
+      if (element==null) return false;//every child node leads to a path, so one is missing
+      if (!all(aNode.iChildren[i], element)) return false;//path below child is missing
+    }//for each child node
+
+    return true;//all paths found
+
+  }//all()
+
+  /**
+   * Indicates if any path below a node of the tag tree exists
+   * @param aNode node of the tag tree
+   * @param aElement element corresponding to the node
+   * @return true if any path exists
+   */
+  private static boolean any(Node aNode, Element aElement) {
+
+    if (aNode.iIdCount>0) return true;//a path ends here
+    for (int i=0;i<aNode.iCount;++i) {//for each child node
+      Element element=aNode.step(i, aElement);//navigate to child element
+      if ((element!=null)&&any(aNode.iChildren[i], element)) return true;//path found below child
+    }//for each child node
+
+    return false;//no paths found
+
+  }//any()
+
+  /**
+   * A node of the tag tree
+   */
+  static final class Node {
+
+    /**
+     * Object key of each child node; or null for an array index
+     */
+    String[] iKeys=new String[0];
+    /**
+     * Array index of each child node
+     */
+    int[] iIndexes=new int[0];
+    /**
+     * Child nodes
+     */
+    Node[] iChildren=new Node[0];
+    /**
+     * Number of child nodes
+     */
+    int iCount;
+    /**
+     * Ids of paths ending at this node
+     */
+    int[] iIds=new int[0];
+    /**
+     * Number of paths ending at this node
+     */
+    int iIdCount;
+
+    /**
+     * Returns the child node for a tag, adding it if necessary
+     * @param aKey object key of the tag; or null for an array index
+     * @param aIndex array index of the tag
+     * @return child node for the tag
+     */
+    private Node child(String aKey, int aIndex) {
+
+      for (int i=0;i<iCount;++i) {//for each child node
+        if ((aKey!=null)?aKey.equals(iKeys[i]):((iKeys[i]==null)&&(iIndexes[i]==aIndex))) return iChildren[i];//found tag
+      }//for each child node
+
+      if (iCount==iChildren.length) {//if child arrays are full
+        int length=iCount*2+1;//new length
+        iKeys=Arrays.copyOf(iKeys, length);//grow key array
+        iIndexes=Arrays.copyOf(iIndexes, length);//grow index array
+        iChildren=Arrays.copyOf(iChildren, length);//grow child array
+      }//if child arrays are full
+      iKeys[iCount]=aKey;//set key
+      iIndexes[iCount]=aIndex;//set index
+      iChildren[iCount]=new Node();//create child node
+
+      return iChildren[iCount++];//return new child node
+
+    }//child()
+
+    /**
+     * Adds the id of a path ending at this node
+     * @param aId path id
+     */
+    private void add(int aId) {
+
+      if (iIdCount==iIds.length) iIds=Arrays.copyOf(iIds, iIdCount*2+1);//grow id array if full
+      iIds[iIdCount++]=aId;//add path id
+
+    }//add()
+
+    /**
+     * Returns the child node for an object key held in part of a message
+     * @param aMessage message holding the key
+     * @param aStart position of first key character
+     * @param aEnd position after last key character
+     * @return child node for the key; or null if none
+     */
+    Node find(String aMessage, int aStart, int aEnd) {
+
+      int length=aEnd-aStart;//key length
+      for (int i=0;i<iCount;++i) {//for each child node
+        String key=iKeys[i];//get child key
+        if ((key!=null)&&(key.length()==length)&&aMessage.regionMatches(aStart, key, 0, length)) return iChildren[i];//found key
+      }//for each child node
+
+      return null;//key not found
+
+    }//find()
+
+    /**
+     * Returns the child node for an array index
+     * @param aIndex array index
+     * @return child node for the index; or null if none
+     */
+    Node find(int aIndex) {
+
+      for (int i=0;i<iCount;++i) {//for each child node
+        if ((iKeys[i]==null)&&(iIndexes[i]==aIndex)) return iChildren[i];//found index
+      }//for each child node
+
+      return null;//index not found
+
+    }//find()
+
+    /**
+     * Navigates from an element to the element for a child node
+     * @param aChild position of the child node
+     * @param aElement element corresponding to this node
+     * @return element for the child node; or null if none
+     */
+    private Element step(int aChild, Element aElement) {
+
+      if (iKeys[aChild]!=null) return aElement.getChildElement(iKeys[aChild]);//get element for object key
+      return aElement.getChildElement(iIndexes[aChild]);//get element for array index
+
+    }//step()
+
+  }//Node{}
+
+}//PathSet{}
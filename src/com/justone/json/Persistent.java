@@ -0,0 +1,195 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Creates and updates persistent hierarchies of elements.
+ * <P>
+ * A persistent hierarchy is made of PersistentObjectElement and PersistentArrayElement containers
+ * and scalars, none of which change once made. An update made through put() or remove() returns a new
+ * root, copying only the containers on the path to the element changed and sharing every other
+ * subtree with the hierarchy it was made from. Keeping the old root is then a snapshot of the
+ * document that costs nothing to take.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see PersistentObjectElement
+ * @see PersistentArrayElement
+ */
+public final class Persistent {
+
+  /**
+   * Not to be constructed
+   */
+  private Persistent() {
+  }//Persistent()
+
+  /**
+   * Returns a persistent hierarchy equal to an element
+   * <P>
+   * Persistent containers and scalars that belong to no parent are returned as they are; other
+   * elements are copied.
+   * </P>
+   * @param aElement element to be made persistent
+   * @return persistent element
+   */
+  public static Element of(Element aElement) {
+
+    assert aElement!=null;
+
+    if ((aElement instanceof PersistentObjectElement)||(aElement instanceof PersistentArrayElement)) return aElement;//already persistent
+    if (aElement.isScalar()) return (aElement.iParent==null)?aElement:aElement.copy();//share unparented scalar
+
+    int size=aElement.size();//number of children
+    Element[] elements=new Element[size];//persistent children
+    if (aElement.isObject()) {//if object
+      String[] keys=new String[size];//keys in order
+      Iterator<Map.Entry<String,Element>> iterator=((ObjectElement)aElement).getEntryIterator();//iterate members in key order
+      for (int i=0;i<size;++i) {//for each member
+        Map.Entry<String,Element> entry=iterator.next();//get member
+        keys[i]=entry.getKey();//keep key
+        elements[i]=of(entry.getValue());//make member persistent
+      }//for each member
+      return new PersistentObjectElement(TreeNode.build(keys, elements, 0, size));//build balanced member tree
+    }//if object
+    Iterator<Element> iterator=aElement.getChildElements();//iterate elements in order
+    for (int i=0;i<size;++i) elements[i]=of(iterator.next());//make element persistent
+
+    return new PersistentArrayElement(TreeNode.build(null, elements, 0, size));//build balanced element tree
+
+  }//of()
+
+  /**
+   * Returns a hierarchy with an element put at a path
+   * <P>
+   * Every tag of the path but the last must lead to an existing element. The last tag replaces or
+   * adds the member with its key, or replaces the element at its index, or adds an element if the
+   * index is the size of the array.
+   * </P>
+   * @param aRoot root of a persistent hierarchy
+   * @param aPath exact path of the element
+   * @param aElement element to be put, which is made persistent if need be
+   * @return root of the new hierarchy
+   */
+  public static Element put(Element aRoot, Path aPath, Element aElement) {
+
+    assert aRoot!=null;
+    assert aPath!=null;
+    assert aElement!=null;
+
+    Element[] parents=parents(aRoot, aPath);//resolve containers along the path
+    int last=aPath.fDepth-1;//last tag level
+    Element element=of(aElement);//element to be put
+    if (aPath.fSteps[last]==Path.KEY_STEP) {//if key tag
+      element=((PersistentObjectElement)parents[last]).withElement(aPath.fKeys[last], element);//put member
+    } else {//else index tag
+      PersistentArrayElement array=(PersistentArrayElement)parents[last];//parent array
+      int index=aPath.fIndexes[last];//array index
+      element=(index<array.size())?array.withElement(index, element):array.withInsertedElement(index, element);//replace or add element
+    }//if key tag
+
+    return rebuild(parents, aPath, last, element);//copy containers above
+
+  }//put()
+
+  /**
+   * Returns a hierarchy without the element at a path
+   * @param aRoot root of a persistent hierarchy
+   * @param aPath exact path of the element
+   * @return root of the new hierarchy; or the same root if there is no such member
+   */
+  public static Element remove(Element aRoot, Path aPath) {
+
+    assert aRoot!=null;
+    assert aPath!=null;
+
+    Element[] parents=parents(aRoot, aPath);//resolve containers along the path
+    int last=aPath.fDepth-1;//last tag level
+    Element element;//parent without the element
+    if (aPath.fSteps[last]==Path.KEY_STEP) {//if key tag
+      element=((PersistentObjectElement)parents[last]).withoutElement(aPath.fKeys[last]);//remove member
+    } else {//else index tag
+      element=((PersistentArrayElement)parents[last]).withoutElement(aPath.fIndexes[last]);//remove element
+    }//if key tag
+    if (element==parents[last]) return aRoot;//nothing removed
+
+    return rebuild(parents, aPath, last, element);//copy containers above
+
+  }//remove()
+
+  /**
+   * Resolves the container at each tag level of a path
+   * @param aRoot root of a persistent hierarchy
+   * @param aPath exact path
+   * @return container holding the element of each tag level
+   */
+  private static Element[] parents(Element aRoot, Path aPath) {
+
+    if (!aPath.fExact) throw new RuntimeException("Inexact path : "+aPath);//path must lead to one element
+
+    Element[] parents=new Element[aPath.fDepth];//containers along the path
+    Element element=aRoot;//start at the root
+    for (int i=0;i<aPath.fDepth;++i) {//for each tag level
+      if (element==null) throw new RuntimeException("No element : "+aPath+" ["+i+"]");//nothing at previous tag
+      boolean key=aPath.fSteps[i]==Path.KEY_STEP;//key tag?
+      if (key?!(element instanceof PersistentObjectElement):!(element instanceof PersistentArrayElement)) {//if wrong container
+        throw new RuntimeException("Not a persistent "+(key?"object":"array")+" : "+aPath+" ["+i+"]");//cannot update
+      }//if wrong container
+      parents[i]=element;//keep container
+      element=key?element.getChildElement(aPath.fKeys[i]):element.getChildElement(aPath.fIndexes[i]);//step down
+    }//for each tag level
+
+    return parents;//here you go
+
+  }//parents()
+
+  /**
+   * Copies the containers above a changed container
+   * @param aParents container holding the element of each tag level
+   * @param aPath exact path
+   * @param aLevel tag level of the changed container
+   * @param aElement changed container
+   * @return root of the new hierarchy
+   */
+  private static Element rebuild(Element[] aParents, Path aPath, int aLevel, Element aElement) {
+
+    for (int i=aLevel-1;i>=0;--i) {//for each container above
+      if (aPath.fSteps[i]==Path.KEY_STEP) {//if key tag
+        aElement=((PersistentObjectElement)aParents[i]).withElement(aPath.fKeys[i], aElement);//replace member
+      } else {//else index tag
+        aElement=((PersistentArrayElement)aParents[i]).withElement(aPath.fIndexes[i], aElement);//replace element
+      }//if key tag
+    }//for each container above
+
+    return aElement;//new root
+
+  }//rebuild()
+
+}//Persistent{}
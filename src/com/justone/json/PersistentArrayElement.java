@@ -0,0 +1,241 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * An immutable JSON array element whose updates return new arrays that share unchanged elements.
+ * <P>
+ * Elements are held by a balanced tree ordered by position, with each node counting the elements
+ * below it, so an element is found, replaced, inserted or removed at any index in O(log n). An
+ * update copies only the tree nodes on the path to the index changed; every element, and every other
+ * node, is shared with the array it was made from.
+ * </P>
+ * <P>
+ * Because elements may be shared by many versions of a document, the elements of a persistent tree
+ * have no parent, key or index of their own. The mutators of ArrayElement throw an
+ * UnsupportedOperationException, as do the mutators of a mutable element given a persistent element to add.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Persistent
+ */
+public class PersistentArrayElement extends ArrayElement {
+
+  /**
+   * Root of the element tree; or null if empty
+   */
+  private final TreeNode fRoot;
+
+  /**
+   * Constructs an empty array
+   */
+  public PersistentArrayElement() {
+
+    this(null);//no elements
+
+  }//PersistentArrayElement()
+
+  /**
+   * Constructs an array from an element tree
+   * @param aRoot root of the element tree; or null if empty
+   */
+  PersistentArrayElement(TreeNode aRoot) {
+
+    super(new ArrayList<Element>(0));//base constructor, with an empty list of its own that is never used
+
+    fRoot=aRoot;//set element tree
+
+  }//PersistentArrayElement()
+
+  /**
+   * Returns an array with an element added to its end
+   * @param aElement element to be added, which is made persistent if need be
+   * @return new array
+   */
+  public PersistentArrayElement withElement(Element aElement) {
+
+    assert aElement!=null;
+
+    return new PersistentArrayElement(TreeNode.insert(fRoot, size(), Persistent.of(aElement)));//share all but the last path
+
+  }//withElement()
+
+  /**
+   * Returns an array with the element at an index replaced
+   * @param aIndex index of the element to be replaced
+   * @param aElement replacement element, which is made persistent if need be
+   * @return new array
+   */
+  public PersistentArrayElement withElement(int aIndex, Element aElement) {
+
+    assert aElement!=null;
+
+    if ((aIndex<0)||(aIndex>=size())) throw new IndexOutOfBoundsException("Bad index : "+aIndex);//no element at index
+
+    return new PersistentArrayElement(TreeNode.set(fRoot, aIndex, Persistent.of(aElement)));//share all but the path to the index
+
+  }//withElement()
+
+  /**
+   * Returns an array with an element inserted, shifting later elements up one index
+   * @param aIndex index at which the element is to be inserted, from zero to the array size
+   * @param aElement element to be inserted, which is made persistent if need be
+   * @return new array
+   */
+  public PersistentArrayElement withInsertedElement(int aIndex, Element aElement) {
+
+    assert aElement!=null;
+
+    if ((aIndex<0)||(aIndex>size())) throw new IndexOutOfBoundsException("Bad index : "+aIndex);//index beyond end
+
+    return new PersistentArrayElement(TreeNode.insert(fRoot, aIndex, Persistent.of(aElement)));//share all but the path to the index
+
+  }//withInsertedElement()
+
+  /**
+   * Returns an array without the element at an index, shifting later elements down one index
+   * @param aIndex index of the element to be removed
+   * @return new array
+   */
+  public PersistentArrayElement withoutElement(int aIndex) {
+
+    if ((aIndex<0)||(aIndex>=size())) throw new IndexOutOfBoundsException("Bad index : "+aIndex);//no element at index
+
+    return new PersistentArrayElement(TreeNode.remove(fRoot, aIndex));//share all but the path to the index
+
+  }//withoutElement()
+
+  /**
+   * Always throws an exception as persistent arrays cannot be changed
+   * @param aElement ignored
+   */
+  @Override
+  public void addElement(Element aElement) {
+
+    throw new UnsupportedOperationException();//use withElement()
+
+  }//addElement()
+
+  /**
+   * Always throws an exception as persistent arrays cannot be changed
+   * @param aIndex ignored
+   * @param aElement ignored
+   */
+  @Override
+  public void insertElement(int aIndex, Element aElement) {
+
+    throw new UnsupportedOperationException();//use withInsertedElement()
+
+  }//insertElement()
+
+  /**
+   * Always throws an exception as persistent arrays cannot be changed
+   * @param aIndex ignored
+   * @param aElement ignored
+   * @return never returns
+   */
+  @Override
+  public Element setElement(int aIndex, Element aElement) {
+
+    throw new UnsupportedOperationException();//use withElement()
+
+  }//setElement()
+
+  /**
+   * Always throws an exception as persistent arrays cannot be changed
+   * @param aIndex ignored
+   * @return never returns
+   */
+  @Override
+  public Element removeElement(int aIndex) {
+
+    throw new UnsupportedOperationException();//use withoutElement()
+
+  }//removeElement()
+
+  /**
+   * Does nothing as the list of the base class is never used
+   */
+  @Override
+  void trim() {
+  }//trim()
+
+  /**
+   * Returns the number of elements in the array
+   * @return number of elements in the array
+   */
+  @Override
+  public int size() {
+
+    return TreeNode.size(fRoot);//return size of the tree
+
+  }//size()
+
+  /**
+   * Indicates if the array index exists
+   * @param aIndex index to verify
+   * @return true if the element index exists
+   */
+  @Override
+  public boolean hasIndex(Integer aIndex) {
+
+    assert aIndex>=0;
+
+    return aIndex<size();//if index less than number of elements
+
+  }//hasIndex()
+
+  /**
+   * Returns element at array index
+   * @param aIndex index to retrieve by
+   * @return element at the index position or null if none
+   */
+  @Override
+  public Element getChildElement(Integer aIndex) {
+
+    assert aIndex>=0;
+
+    if (aIndex>=size()) return null;//if index beyond last element
+    return TreeNode.get(fRoot, aIndex).fElement;//return element
+
+  }//getChildElement()
+
+  /**
+   * Returns an iterator for elements in the array
+   * @return iterator for the elements in the array
+   */
+  @Override
+  public Iterator<Element> getChildElements() {
+
+    return new TreeNode.Cursor<Element>(fRoot, TreeNode.ELEMENTS);//iterate tree elements
+
+  }//getChildElements()
+
+}//PersistentArrayElement{}
@@ -0,0 +1,207 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable JSON object element whose updates return new objects that share unchanged members.
+ * <P>
+ * Members are held by a balanced tree ordered by key, so a member is found, put or removed in
+ * O(log n) and keys are visited in the same order as for an ObjectElement. An update copies only the
+ * tree nodes on the path to the member changed; every member, and every other node, is shared with
+ * the object it was made from. Together with Persistent.put(), this lets a whole document be updated
+ * at O(depth) cost while earlier versions remain intact.
+ * </P>
+ * <P>
+ * Because members may be shared by many versions of a document, the elements of a persistent tree
+ * have no parent, key or index of their own. The mutators of ObjectElement throw an
+ * UnsupportedOperationException, as do the mutators of a mutable element given a persistent element to add.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Persistent
+ */
+public class PersistentObjectElement extends ObjectElement {
+
+  /**
+   * Root of the member tree; or null if empty
+   */
+  private final TreeNode fRoot;
+
+  /**
+   * Constructs an empty object
+   */
+  public PersistentObjectElement() {
+
+    this(null);//no members
+
+  }//PersistentObjectElement()
+
+  /**
+   * Constructs an object from a member tree
+   * @param aRoot root of the member tree; or null if empty
+   */
+  PersistentObjectElement(TreeNode aRoot) {
+
+    super(new TreeMap<String,Element>());//base constructor, with an empty map of its own that is never used
+
+    fRoot=aRoot;//set member tree
+
+  }//PersistentObjectElement()
+
+  /**
+   * Returns an object with an element put under a key
+   * @param aKey key for the element, escaped as written in a message
+   * @param aElement element to be put, which is made persistent if need be
+   * @return new object
+   */
+  public PersistentObjectElement withElement(String aKey, Element aElement) {
+
+    assert aKey!=null;
+    assert Serializer.isEscaped(aKey);
+    assert aElement!=null;
+
+    return new PersistentObjectElement(TreeNode.put(fRoot, aKey, Persistent.of(aElement)));//share all but the path to the key
+
+  }//withElement()
+
+  /**
+   * Returns an object without the element under a key
+   * @param aKey key of the element to be removed
+   * @return new object; or this object if it has no such key
+   */
+  public PersistentObjectElement withoutElement(String aKey) {
+
+    assert aKey!=null;
+
+    TreeNode root=TreeNode.remove(fRoot, aKey);//remove key from tree
+    if (root==fRoot) return this;//nothing removed
+
+    return new PersistentObjectElement(root);//share all but the path to the key
+
+  }//withoutElement()
+
+  /**
+   * Always throws an exception as persistent objects cannot be changed
+   * @param aKey ignored
+   * @param aElement ignored
+   */
+  @Override
+  public void putElement(String aKey, Element aElement) {
+
+    throw new UnsupportedOperationException();//use withElement()
+
+  }//putElement()
+
+  /**
+   * Always throws an exception as persistent objects cannot be changed
+   * @param aKey ignored
+   * @return never returns
+   */
+  @Override
+  public Element removeElement(String aKey) {
+
+    throw new UnsupportedOperationException();//use withoutElement()
+
+  }//removeElement()
+
+  /**
+   * Returns the number of elements in the object
+   * @return number of elements in the object
+   */
+  @Override
+  public int size() {
+
+    return TreeNode.size(fRoot);//return size of the tree
+
+  }//size()
+
+  /**
+   * Indicates if object contains the key
+   * @param aKey key to verify
+   * @return true if key is known in this object
+   */
+  @Override
+  public boolean hasKey(String aKey) {
+
+    assert aKey!=null;
+
+    return TreeNode.get(fRoot, aKey)!=null;//tree contains key?
+
+  }//hasKey()
+
+  /**
+   * Returns the element associated with the key
+   * @param aKey key to retrieve by
+   * @return element with the key; or null if none
+   */
+  @Override
+  public Element getChildElement(String aKey) {
+
+    TreeNode node=TreeNode.get(fRoot, aKey);//find key in tree
+
+    return (node==null)?null:node.fElement;//return element
+
+  }//getChildElement()
+
+  /**
+   * Returns an iterator for the child elements, in key order
+   * @return iterator for the child elements
+   */
+  @Override
+  public Iterator<Element> getChildElements() {
+
+    return new TreeNode.Cursor<Element>(fRoot, TreeNode.ELEMENTS);//iterate tree elements
+
+  }//getChildElements()
+
+  /**
+   * Returns an iterator for the object element keys
+   * @return iterator for the object element keys
+   */
+  @Override
+  public Iterator<String> getKeyIterator() {
+
+    return new TreeNode.Cursor<String>(fRoot, TreeNode.KEYS);//iterate tree keys
+
+  }//getKeyIterator()
+
+  /**
+   * Returns an iterator for the object members, in key order
+   * @return iterator for the members of the object
+   */
+  @Override
+  Iterator<Map.Entry<String,Element>> getEntryIterator() {
+
+    return new TreeNode.Cursor<Map.Entry<String,Element>>(fRoot, TreeNode.ENTRIES);//iterate tree nodes
+
+  }//getEntryIterator()
+
+}//PersistentObjectElement{}
@@ -26,17 +26,31 @@ SOFTWARE.
 
 package com.justone.json;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Iterator;
 import java.util.LinkedList;
 
 /**
  * A JSON scalar element (null, boolean, number or string)
+ * <P>
+ * The value is held as written in the message. Typed accessors decode the value on first use and keep
+ * the result, as does toString() for a string, so that repeated reads neither parse nor allocate. How a
+ * number is decoded depends on the number policy of the parser that read it; see Parser.setNumberPolicy().
+ * The results kept are immutable objects, so an element may still be read by many threads once frozen; a
+ * thread that finds no result yet simply decodes the value again.
+ * </P>
  * @author Duncan Pauly
  * @version 1.0
  */
 public class ScalarElement extends Element {
 
-  private final String fScalar;//scalar value
+  final String fScalar;//scalar value
+  private String iText;//quoted string value, once serialized
+  private Object iValue;//decoded value, once accessed
+  private BigDecimal iDecimal;//exact decimal value, once accessed
+  private int iPolicy=Parser.INTEGRAL_NUMBERS;//policy by which a number is decoded
 
   /**
    * Constructs a generic scalar element from a string
@@ -54,16 +68,34 @@ public class ScalarElement extends Element {
     
   }//ScalarElement()
 
+  /**
+   * Constructs a number scalar value as written in a message
+   * @param aNumber number as written
+   * @param aPolicy policy by which the number is decoded when read
+   */
+  ScalarElement(String aNumber, int aPolicy) {
+    
+    this(NUMBER, aNumber);//number as written
+    
+    iPolicy=aPolicy;//set number policy
+    
+  }//ScalarElement()
+
   /**
    * Constructs a string scalar value
-   * @param aValue string value
+   * <P>
+   * The value is plain text, which is escaped as needed for JSON and held escaped, so that getString()
+   * returns the text given. Earlier versions held the value as given, so text that is already escaped
+   * is now escaped again. Object keys, unlike values, are given escaped.
+   * </P>
+   * @param aValue string value, which is escaped as needed for JSON
    */
   public ScalarElement(String aValue) {
     
     super(STRING);//base constructor
     
     assert aValue!=null;
-    fScalar=aValue;
+    fScalar=Serializer.escape(aValue);//hold escaped text
     
   }//ScalarElement()
 
@@ -163,13 +195,236 @@ public class ScalarElement extends Element {
     assert fScalar!=null;
     
     if (fType==STRING) {//if string value
-      return '"'+fScalar+'"';//enclose string value in quotes
+      String text=iText;//read quoted value once
+      if (text==null) {//if not yet serialized
+        text='"'+fScalar+'"';//enclose string value in quotes
+        iText=text;//keep quoted value
+      }//if not yet serialized
+      return text;//return quoted value
     } else {//else non string value
       return fScalar;
     }//if text value
     
   }//toString()
 
+  /**
+   * Returns the text of the value
+   * @return unescaped text without quotes for a string; the value as written for a number or boolean; or null for null
+   */
+  public String getString() {
+    
+    assert fScalar!=null;
+    
+    if (fType==NULL) return null;//no text for null
+    if (fType!=STRING) return fScalar;//numbers and booleans as written
+    Object value=iValue;//read decoded value once
+    if (value==null) {//if not yet decoded
+      value=Serializer.unescape(fScalar);//decode escape sequences
+      iValue=value;//keep decoded text
+    }//if not yet decoded
+    
+    return (String)value;//return decoded text
+    
+  }//getString()
+
+  /**
+   * Returns the boolean value
+   * @return true if the value is true or a non-zero number
+   */
+  public boolean getBoolean() {
+    
+    assert fScalar!=null;
+    
+    if (fType==BOOLEAN) return fScalar.charAt(0)=='t';//true or false
+    
+    return getNumber().doubleValue()!=0;//non-zero number
+    
+  }//getBoolean()
+
+  /**
+   * Returns the long value, truncated if not integral
+   * @return long value of a number; or 1 or 0 for a boolean
+   */
+  public long getLong() {
+    
+    assert fScalar!=null;
+    
+    if (fType==BOOLEAN) return (fScalar.charAt(0)=='t')?1:0;//true or false
+    
+    return getNumber().longValue();//number as long
+    
+  }//getLong()
+
+  /**
+   * Returns the double value
+   * @return double value of a number; or 1 or 0 for a boolean
+   */
+  public double getDouble() {
+    
+    assert fScalar!=null;
+    
+    if (fType==BOOLEAN) return (fScalar.charAt(0)=='t')?1:0;//true or false
+    
+    return getNumber().doubleValue();//number as double
+    
+  }//getDouble()
+
+  /**
+   * Returns the exact decimal value
+   * @return decimal value of a number; or 1 or 0 for a boolean
+   */
+  public BigDecimal getBigDecimal() {
+    
+    assert fScalar!=null;
+    
+    if (fType==BOOLEAN) return (fScalar.charAt(0)=='t')?BigDecimal.ONE:BigDecimal.ZERO;//true or false
+    if (fType!=NUMBER) throw new RuntimeException("Not a number : "+toString());//no numeric value
+    Object value=iValue;//read decoded value once
+    if (value instanceof BigDecimal) return (BigDecimal)value;//already decoded exactly
+    BigDecimal decimal=iDecimal;//read decimal once
+    if (decimal==null) {//if not yet decoded as decimal
+      decimal=(value instanceof Long)?BigDecimal.valueOf((Long)value):new BigDecimal(fScalar);//convert long or parse exactly
+      iDecimal=decimal;//keep decimal
+    }//if not yet decoded as decimal
+    
+    return decimal;//return decimal
+    
+  }//getBigDecimal()
+
+  /**
+   * Returns the exact integer value, truncated if not integral
+   * @return integer value of a number; or 1 or 0 for a boolean
+   */
+  public BigInteger getBigInteger() {
+    
+    assert fScalar!=null;
+    
+    Object value=iValue;//read decoded value once
+    if (value instanceof BigInteger) return (BigInteger)value;//already decoded exactly
+    if (value instanceof Long) return BigInteger.valueOf((Long)value);//convert long
+    
+    return getBigDecimal().toBigInteger();//truncate decimal
+    
+  }//getBigInteger()
+
+  /**
+   * Returns the numeric value, decoding it on first use by the number policy of the parser
+   * @return Double for every number under DOUBLE_NUMBERS; otherwise a Long for an integer that fits a long,
+   * and for any other number a Double under INTEGRAL_NUMBERS or an exact BigInteger or BigDecimal under LOSSLESS_NUMBERS
+   */
+  public Number getNumber() {
+    
+    assert fScalar!=null;
+    
+    if (fType!=NUMBER) throw new RuntimeException("Not a number : "+toString());//no numeric value
+    Object value=iValue;//read decoded value once
+    if (value==null) {//if not yet decoded
+      value=decode(fScalar, iPolicy);//parse number
+      iValue=value;//keep number
+    }//if not yet decoded
+    
+    return (Number)value;//return number
+    
+  }//getNumber()
+
+  /**
+   * Parses a number by a number policy
+   * @param aNumber number as written
+   * @param aPolicy number policy
+   * @return parsed number
+   */
+  private static Number decode(String aNumber, int aPolicy) {
+    
+    if (aPolicy==Parser.DOUBLE_NUMBERS) return Double.valueOf(aNumber);//always double
+    
+    int length=aNumber.length();//number of characters
+    int start=(aNumber.charAt(0)=='-')?1:0;//position of first digit
+    long value=0;//accumulated value of up to 18 digits
+    int i=start;//character position
+    for (;i<length;++i) {//for each character
+      char chr=aNumber.charAt(i);//get character
+      if ((chr<'0')||(chr>'9')) break;//not an integer
+      if (i-start<18) value=value*10+(chr-'0');//accumulate digit without overflow
+    }//for each character
+    
+    if (i<length) {//if fraction or exponent
+      if (aPolicy==Parser.LOSSLESS_NUMBERS) return new BigDecimal(aNumber);//exact decimal
+    } else if (length-start<=18) {//else if integer short enough to be a long
+      return (start==0)?value:-value;//fast path
+    } else {//else long integer
+      if (length-start==19) {//if integer may just fit a long
+        try {
+          return Long.valueOf(aNumber);//integer of 19 digits
+        } catch (NumberFormatException e) {//beyond the range of a long
+        }//try
+      }//if integer may just fit a long
+      if (aPolicy==Parser.LOSSLESS_NUMBERS) return new BigInteger(aNumber);//exact integer
+    }//if fraction or exponent
+    
+    return Double.valueOf(aNumber);//fraction, exponent or long integer
+    
+  }//decode()
+
+  /**
+   * Computes a structural hash of the type and value as written
+   * @return structural hash
+   */
+  @Override
+  long computeHash() {
+    
+    assert fScalar!=null;
+    
+    return hash(fType, fScalar);//hash type and value
+    
+  }//computeHash()
+  
+  /**
+   * Compares the value with that of another scalar
+   * @param aElement scalar of the same type and hash
+   * @return true if the values are written the same
+   */
+  @Override
+  boolean equalTo(Element aElement) {
+    
+    assert fScalar!=null;
+    
+    return fScalar.equals(((ScalarElement)aElement).fScalar);//compare values
+    
+  }//equalTo()
+  
+  /**
+   * Returns a copy of the scalar
+   * @return copy of the scalar
+   */
+  @Override
+  Element copy() {
+    
+    ScalarElement scalar=new ScalarElement(fType, fScalar);//copy type and value as written
+    scalar.iPolicy=iPolicy;//copy number policy
+    
+    return scalar;//here you go
+    
+  }//copy()
+  
+  /**
+   * Writes JSON string representation of scalar value
+   * @param aOut appendable to write to
+   * @throws IOException if the appendable cannot be written
+   */
+  void write(Appendable aOut) throws IOException {
+    
+    assert fScalar!=null;
+    
+    if (fType==STRING) {//if string value
+      aOut.append('"');//open quote
+      aOut.append(fScalar);//write string value
+      aOut.append('"');//close quote
+    } else {//else non string value
+      aOut.append(fScalar);//write value
+    }//if string value
+    
+  }//write()
+
   /**
    * Always returns 0
    * @return 0
@@ -0,0 +1,436 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A JSON Schema compiled for validating messages as they are parsed.
+ * <P>
+ * A schema is compiled once into a tree of constraints, with one node for each subschema that
+ * constrains anything. Given to Parser.setSchema(), the parser then checks each element against its
+ * node as soon as the element is parsed, and stops at the first violation with a SchemaException
+ * giving the path of the offending element. An object or array of the wrong type is rejected before
+ * anything inside it is parsed, while elements below an unconstrained subschema are never checked.
+ * </P>
+ * <P>
+ * The keywords supported are type (including integer), enum, minimum, maximum, exclusiveMinimum,
+ * exclusiveMaximum, minLength, maxLength, pattern, required, properties and items, where items gives
+ * a single subschema for every array element. Enum values are compared as written, so that 1 and 1.0
+ * are different values, and patterns are unanchored, as by Matcher.find(). Other keywords are ignored.
+ * </P>
+ * <br>
+ * Code example:
+ * <pre><code>
+ *
+ * Schema schema=new Schema("{\"type\":\"object\",\"required\":[\"identity\"],\"properties\":{\"identity\":{\"type\":\"integer\",\"minimum\":1}}}");
+ * parser.setSchema(schema);
+ * try {
+ *   parser.parse(message);
+ * } catch (SchemaException e) {
+ *   System.out.println(e.getKeyword()+" violated at "+e.getPath());
+ * }
+ *
+ * </code></pre>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Parser#setSchema(Schema)
+ * @see SchemaException
+ */
+public class Schema {
+
+  /**
+   * Type bit for an integer, beyond the bits of the element types
+   */
+  private static final int INTEGER=1<<7;
+
+  /**
+   * Constraints on the root element; or null if unconstrained
+   */
+  final Node fRoot;
+
+  /**
+   * Constructs a schema from its JSON text
+   * @param aSchema JSON schema
+   */
+  public Schema(String aSchema) {
+
+    this(parse(aSchema));//compile parsed schema
+
+  }//Schema()
+
+  /**
+   * Constructs a schema from its elements
+   * @param aSchema JSON schema
+   */
+  public Schema(Element aSchema) {
+
+    assert aSchema!=null;
+
+    fRoot=compile(aSchema, "#");//compile root schema
+
+  }//Schema()
+
+  /**
+   * Parses the JSON text of a schema
+   * @param aSchema JSON schema
+   * @return root element of schema
+   */
+  private static Element parse(String aSchema) {
+
+    assert aSchema!=null;
+
+    Parser parser=new Parser();//parser for schema
+    parser.parse(aSchema);//parse schema
+
+    return parser.getRootElement();//here you go
+
+  }//parse()
+
+  /**
+   * Compiles a subschema
+   * @param aSchema subschema
+   * @param aPointer location of the subschema for errors
+   * @return constraints of the subschema; or null if it constrains nothing
+   */
+  private static Node compile(Element aSchema, String aPointer) {
+
+    if ((aSchema.type()==Element.BOOLEAN)&&((ScalarElement)aSchema).getBoolean()) return null;//true allows anything
+    if (aSchema.type()!=Element.OBJECT) throw new RuntimeException("Bad schema : "+aPointer);//subschema must be an object
+
+    Node node=new Node();//constraints of subschema
+    boolean constrained=false;//constrains anything?
+    ObjectElement schema=(ObjectElement)aSchema;//subschema object
+    Iterator<String> keys=schema.getKeyIterator();//keywords
+    Iterator<Element> values=schema.getChildElements();//keyword values
+    while (keys.hasNext()) {//for each keyword
+      String keyword=keys.next();//get keyword
+      Element value=values.next();//get value
+      String pointer=aPointer+"/"+keyword;//location of keyword
+      switch (keyword) {//switch on keyword
+        case "type": if (value.type()==Element.ARRAY) {//if several types
+                       for (Iterator<Element> i=value.getChildElements();i.hasNext();) node.fTypes|=type(i.next(), pointer);//allow each type
+                     } else {//else single type
+                       node.fTypes=type(value, pointer);//allow type
+                     }//if several types
+                     if (node.fTypes==0) throw new RuntimeException("Bad schema : "+pointer);//no types
+                     break;
+        case "enum": if (value.type()!=Element.ARRAY) throw new RuntimeException("Bad schema : "+pointer);//enum must be an array
+                     node.fEnum=new HashSet<>();//create value set
+                     for (Iterator<Element> i=value.getChildElements();i.hasNext();) node.fEnum.add(i.next());//allow value
+                     break;
+        case "minimum": node.fMinimum=number(value, pointer);//set bound
+                        node.fMinimumDouble=node.fMinimum.doubleValue();//bound as double
+                        break;
+        case "maximum": node.fMaximum=number(value, pointer);//set bound
+                        node.fMaximumDouble=node.fMaximum.doubleValue();//bound as double
+                        break;
+        case "exclusiveMinimum": node.fExclusiveMinimum=number(value, pointer);//set bound
+                                 node.fExclusiveMinimumDouble=node.fExclusiveMinimum.doubleValue();//bound as double
+                                 break;
+        case "exclusiveMaximum": node.fExclusiveMaximum=number(value, pointer);//set bound
+                                 node.fExclusiveMaximumDouble=node.fExclusiveMaximum.doubleValue();//bound as double
+                                 break;
+        case "minLength": node.fMinLength=length(value, pointer);//set bound
+                          break;
+        case "maxLength": node.fMaxLength=length(value, pointer);//set bound
+                          break;
+        case "pattern": if (value.type()!=Element.STRING) throw new RuntimeException("Bad schema : "+pointer);//pattern must be a string
+                        try {
+                          node.fPattern=Pattern.compile(((ScalarElement)value).getString());//compile pattern
+                        } catch (PatternSyntaxException e) {//bad pattern
+                          throw new RuntimeException("Bad schema : "+pointer);//report pattern
+                        }//try
+                        break;
+        case "required": if (value.type()!=Element.ARRAY) throw new RuntimeException("Bad schema : "+pointer);//required must be an array
+                         node.fRequired=new String[((ArrayElement)value).size()];//allocate keys
+                         int count=0;//number of keys
+                         for (Iterator<Element> i=value.getChildElements();i.hasNext();) {//for each key
+                           Element key=i.next();//get key
+                           if (key.type()!=Element.STRING) throw new RuntimeException("Bad schema : "+pointer);//key must be a string
+                           node.fRequired[count++]=Serializer.escape(((ScalarElement)key).getString());//require key, escaped as parsed keys are held
+                         }//for each key
+                         break;
+        case "properties": if (value.type()!=Element.OBJECT) throw new RuntimeException("Bad schema : "+pointer);//properties must be an object
+                           Iterator<String> names=((ObjectElement)value).getKeyIterator();//property names
+                           for (Iterator<Element> i=value.getChildElements();i.hasNext();) {//for each property
+                             String name=names.next();//get name
+                             Node property=compile(i.next(), pointer+"/"+name);//compile property subschema
+                             if (property==null) continue;//property unconstrained
+                             if (node.fProperties==null) node.fProperties=new HashMap<>();//create properties on first use
+                             node.fProperties.put(name, property);//constrain property
+                           }//for each property
+                           if (node.fProperties==null) continue;//no property constrained
+                           break;
+        case "items": node.fItems=compile(value, pointer);//compile item subschema
+                      if (node.fItems==null) continue;//items unconstrained
+                      break;
+        default: continue;//keyword not supported, so ignored
+      }//switch on keyword
+      constrained=true;//node constrains something
+    }//for each keyword
+
+    return constrained?node:null;//here you go
+
+  }//compile()
+
+  /**
+   * Returns the type bit of a type name
+   * @param aType type name
+   * @param aPointer location of the type for errors
+   * @return type bit
+   */
+  private static int type(Element aType, String aPointer) {
+
+    if (aType.type()!=Element.STRING) throw new RuntimeException("Bad schema : "+aPointer);//type must be a string
+    switch (((ScalarElement)aType).getString()) {//switch on type name
+      case "null": return 1<<Element.NULL;
+      case "boolean": return 1<<Element.BOOLEAN;
+      case "number": return (1<<Element.NUMBER)|INTEGER;//integers are numbers
+      case "integer": return INTEGER;
+      case "string": return 1<<Element.STRING;
+      case "object": return 1<<Element.OBJECT;
+      case "array": return 1<<Element.ARRAY;
+      default: throw new RuntimeException("Bad schema : "+aPointer);//unknown type
+    }//switch on type name
+
+  }//type()
+
+  /**
+   * Returns a numeric bound
+   * @param aNumber bound
+   * @param aPointer location of the bound for errors
+   * @return exact bound
+   */
+  private static BigDecimal number(Element aNumber, String aPointer) {
+
+    if (aNumber.type()!=Element.NUMBER) throw new RuntimeException("Bad schema : "+aPointer);//bound must be a number
+    return ((ScalarElement)aNumber).getBigDecimal();//exact bound
+
+  }//number()
+
+  /**
+   * Returns a length bound
+   * @param aLength bound
+   * @param aPointer location of the bound for errors
+   * @return length
+   */
+  private static int length(Element aLength, String aPointer) {
+
+    if (aLength.type()!=Element.NUMBER) throw new RuntimeException("Bad schema : "+aPointer);//bound must be a number
+    long length=((ScalarElement)aLength).getLong();//get length
+    if ((length<0)||(length>Integer.MAX_VALUE)) throw new RuntimeException("Bad schema : "+aPointer);//bad length
+
+    return (int)length;//here you go
+
+  }//length()
+
+  /**
+   * Constraints of a subschema
+   */
+  static final class Node {
+
+    /**
+     * Type bits allowed; or zero if any type
+     */
+    private int fTypes;
+    /**
+     * Values allowed; or null if any value
+     */
+    private HashSet<Element> fEnum;
+    /**
+     * Inclusive lower bound; or null if none
+     */
+    private BigDecimal fMinimum;
+    /**
+     * Inclusive lower bound as a double
+     */
+    private double fMinimumDouble;
+    /**
+     * Inclusive upper bound; or null if none
+     */
+    private BigDecimal fMaximum;
+    /**
+     * Inclusive upper bound as a double
+     */
+    private double fMaximumDouble;
+    /**
+     * Exclusive lower bound; or null if none
+     */
+    private BigDecimal fExclusiveMinimum;
+    /**
+     * Exclusive lower bound as a double
+     */
+    private double fExclusiveMinimumDouble;
+    /**
+     * Exclusive upper bound; or null if none
+     */
+    private BigDecimal fExclusiveMaximum;
+    /**
+     * Exclusive upper bound as a double
+     */
+    private double fExclusiveMaximumDouble;
+    /**
+     * Least string length in code points
+     */
+    private int fMinLength;
+    /**
+     * Greatest string length in code points
+     */
+    private int fMaxLength=Integer.MAX_VALUE;
+    /**
+     * Pattern a string must contain; or null if none
+     */
+    private Pattern fPattern;
+    /**
+     * Keys an object must have; or null if none
+     */
+    private String[] fRequired;
+    /**
+     * Constraints of object members by key; or null if none
+     */
+    private HashMap<String,Node> fProperties;
+    /**
+     * Constraints of array elements; or null if none
+     */
+    private Node fItems;
+
+    /**
+     * Indicates if an element type is allowed, so that an object or array may be rejected before it is parsed
+     * @param aType element type
+     * @return true if the type may be allowed
+     */
+    boolean allows(int aType) {
+
+      if (fTypes==0) return true;//any type
+      return ((fTypes&(1<<aType))!=0)||((aType==Element.NUMBER)&&((fTypes&INTEGER)!=0));//type or integer allowed
+
+    }//allows()
+
+    /**
+     * Returns the constraints of an object member
+     * @param aKey object key
+     * @return constraints; or null if unconstrained
+     */
+    Node property(String aKey) {
+
+      return (fProperties==null)?null:fProperties.get(aKey);//look up key
+
+    }//property()
+
+    /**
+     * Returns the constraints of array elements
+     * @return constraints; or null if unconstrained
+     */
+    Node items() {
+
+      return fItems;//return item constraints
+
+    }//items()
+
+    /**
+     * Checks a parsed element
+     * @param aElement element to be checked
+     * @return keyword violated; or null if none
+     */
+    String check(Element aElement) {
+
+      int type=aElement.type();//element type
+      if (!allows(type)) return "type";//wrong type
+      if ((type==Element.NUMBER)&&(fTypes!=0)&&((fTypes&(1<<Element.NUMBER))==0)&&!integral((ScalarElement)aElement)) return "type";//not an integer
+      if ((fEnum!=null)&&!fEnum.contains(aElement)) return "enum";//not an allowed value
+
+      switch (type) {//switch on type
+        case Element.NUMBER: ScalarElement number=(ScalarElement)aElement;//number
+                             if ((fMinimum!=null)&&(compare(number, fMinimumDouble, fMinimum)<0)) return "minimum";//below minimum
+                             if ((fMaximum!=null)&&(compare(number, fMaximumDouble, fMaximum)>0)) return "maximum";//above maximum
+                             if ((fExclusiveMinimum!=null)&&(compare(number, fExclusiveMinimumDouble, fExclusiveMinimum)<=0)) return "exclusiveMinimum";//not above bound
+                             if ((fExclusiveMaximum!=null)&&(compare(number, fExclusiveMaximumDouble, fExclusiveMaximum)>=0)) return "exclusiveMaximum";//not below bound
+                             break;
+        case Element.STRING: ScalarElement string=(ScalarElement)aElement;//string
+                             if ((fMinLength>0)||(string.fScalar.length()>fMaxLength)) {//if length may be out of bounds, as text never grows when unescaped
+                               String text=string.getString();//unescaped text
+                               int length=text.codePointCount(0, text.length());//length in code points
+                               if (length<fMinLength) return "minLength";//too short
+                               if (length>fMaxLength) return "maxLength";//too long
+                             }//if length may be out of bounds
+                             if ((fPattern!=null)&&!fPattern.matcher(string.getString()).find()) return "pattern";//pattern not found
+                             break;
+        case Element.OBJECT: if (fRequired==null) break;//no keys required
+                             for (String key:fRequired) {//for each key required
+                               if (aElement.getChildElement(key)==null) return "required";//key missing
+                             }//for each key required
+                             break;
+        default: break;//nothing more to check
+      }//switch on type
+
+      return null;//element conforms
+
+    }//check()
+
+    /**
+     * Indicates if a number is integral
+     * @param aNumber number
+     * @return true if the number has no fractional part
+     */
+    private static boolean integral(ScalarElement aNumber) {
+
+      String text=aNumber.fScalar;//number as written
+      for (int i=0;i<text.length();++i) {//for each character
+        char chr=text.charAt(i);//get character
+        if ((chr=='.')||(chr=='e')||(chr=='E')) return aNumber.getBigDecimal().stripTrailingZeros().scale()<=0;//decide exactly
+      }//for each character
+
+      return true;//plain integer
+
+    }//integral()
+
+    /**
+     * Compares a number with a bound, exactly but without decoding the number exactly unless needed
+     * @param aNumber number
+     * @param aBoundDouble bound as a double
+     * @param aBound exact bound
+     * @return negative, zero or positive as the number is below, equal to or above the bound
+     */
+    private static int compare(ScalarElement aNumber, double aBoundDouble, BigDecimal aBound) {
+
+      double value=aNumber.getDouble();//number as double
+      if (value<aBoundDouble) return -1;//rounding preserves order, so below
+      if (value>aBoundDouble) return 1;//rounding preserves order, so above
+
+      return aNumber.getBigDecimal().compareTo(aBound);//too close to call without exact values
+
+    }//compare()
+
+  }//Node{}
+
+}//Schema{}
@@ -0,0 +1,105 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+/**
+ * Indicates that a JSON message does not conform to the schema it was parsed against.
+ * <P>
+ * The exception gives the keyword violated and the path of the offending element, and, as a
+ * kind of parse exception, the character offset in the message at which parsing stopped.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Parser#setSchema(Schema)
+ */
+public class SchemaException extends JsonParseException {
+
+  /**
+   * Serialization version
+   */
+  private static final long serialVersionUID=1L;
+  /**
+   * Schema keyword violated
+   */
+  private final String fKeyword;
+  /**
+   * Path string of the offending element; or empty for the root element
+   */
+  private final String fPath;
+
+  /**
+   * Constructs a schema exception
+   * @param aSource message being parsed
+   * @param aOffset character offset at which parsing stopped
+   * @param aKeyword schema keyword violated
+   * @param aPath path string of the offending element; or empty for the root element
+   * @param aStackless true if no stack trace is to be captured
+   */
+  public SchemaException(CharSequence aSource, int aOffset, String aKeyword, String aPath, boolean aStackless) {
+
+    super(aSource, aOffset, aStackless);//base constructor
+
+    assert aKeyword!=null;
+    assert aPath!=null;
+
+    fKeyword=aKeyword;//set keyword
+    fPath=aPath;//set path string
+
+  }//SchemaException()
+
+  /**
+   * Returns the schema keyword violated
+   * @return keyword such as type, required or maximum
+   */
+  public String getKeyword() {
+
+    return fKeyword;//return keyword
+
+  }//getKeyword()
+
+  /**
+   * Returns the path of the offending element
+   * @return path of the element; or null for the root element
+   */
+  public Path getPath() {
+
+    return fPath.isEmpty()?null:new Path(fPath);//compile path string
+
+  }//getPath()
+
+  /**
+   * Returns a description of the violation
+   * @return description of the violation including its location
+   */
+  @Override
+  public String getMessage() {
+
+    return "Schema violation : "+fKeyword+" at "+(fPath.isEmpty()?"root":fPath)+" line "+getLine()+" column "+getColumn();//describe violation
+
+  }//getMessage()
+
+}//SchemaException{}
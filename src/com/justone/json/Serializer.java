@@ -0,0 +1,414 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A JSON serializer.
+ * <P>
+ * The serializer walks a hierarchy of elements iteratively and writes the JSON representation
+ * straight into an Appendable (such as a Writer or StringBuilder) or, encoded as UTF-8, into an
+ * OutputStream or ByteBuffer. Each character is written once, and no intermediate strings are built
+ * for the containers of the hierarchy.
+ * </P>
+ * <P>
+ * String values are held by their elements in escaped form, so they are written as they are. Text
+ * given to a ScalarElement is escaped once, when the element is constructed, by escape().
+ * </P>
+ * <P>
+ * In verbatim mode, objects and arrays that were parsed and have not changed since are copied from
+ * the message they were parsed from, rather than written element by element. Such output keeps the
+ * whitespace, key order and any duplicate keys of the original message, and may differ from
+ * toString(), which always writes keys in order. A change made through putElement(), addElement() or
+ * any of the other element mutators makes the changed element and its ancestors be written element by element again, while their
+ * unchanged children are still copied.
+ * </P>
+ * <P>
+ * A serializer keeps its working stacks between calls and may be reused for many elements, but must
+ * not be shared between threads.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Element#writeTo(Appendable)
+ */
+public class Serializer {
+
+  /**
+   * Hexadecimal digits for unicode escape sequences
+   */
+  private static final String HEX="0123456789abcdef";
+  /**
+   * Escape character for each ASCII character; 0 if none needed, u for a unicode escape sequence
+   */
+  private static final char[] ESCAPES=new char[128];
+
+  static {
+    for (int i=0;i<' ';++i) ESCAPES[i]='u';//control characters need unicode escapes
+    ESCAPES['"']='"';//escape quote
+    ESCAPES['\\']='\\';//escape backslash
+    ESCAPES['\b']='b';//escape backspace
+    ESCAPES['\f']='f';//escape form feed
+    ESCAPES['\n']='n';//escape new line
+    ESCAPES['\r']='r';//escape carriage return
+    ESCAPES['\t']='t';//escape tab
+  }//static
+
+  /**
+   * Containers being written
+   */
+  private Element[] iParents=new Element[16];
+  /**
+   * Child iterator of each container being written
+   */
+  private Iterator<?>[] iIterators=new Iterator<?>[16];
+  /**
+   * Indicates if no child of each container has been written yet
+   */
+  private boolean[] iFirsts=new boolean[16];
+  /**
+   * UTF-8 encoder for output streams and byte buffers; or null until first needed
+   */
+  private Utf8Output iUtf8;
+  /**
+   * Indicates if unchanged parsed elements are copied from their source
+   */
+  private boolean iVerbatim;
+
+  /**
+   * Sets verbatim mode, in which unchanged parsed objects and arrays are copied from their source message
+   * @param aVerbatim true to copy unchanged elements from their source; false to always write element by element
+   */
+  public void setVerbatim(boolean aVerbatim) {
+
+    iVerbatim=aVerbatim;//set mode
+
+  }//setVerbatim()
+
+  /**
+   * Returns a string escaped for use as JSON string text
+   * @param aText text to be escaped
+   * @return escaped text; or the given text if no characters need escaping
+   */
+  public static String escape(String aText) {
+
+    assert aText!=null;
+
+    int length=aText.length();//length of text
+    int i=0;//position in text
+    while ((i<length)&&((aText.charAt(i)>=128)||(ESCAPES[aText.charAt(i)]==0))) ++i;//skip characters not needing escape
+    if (i==length) return aText;//nothing to escape
+
+    StringBuilder buffer=new StringBuilder(length+16);//buffer for escaped text
+    buffer.append(aText, 0, i);//copy characters not needing escape
+    for (;i<length;++i) {//for each remaining character
+      char chr=aText.charAt(i);//get character
+      char escape=(chr<128)?ESCAPES[chr]:0;//get escape character
+      if (escape==0) {//if no escape needed
+        buffer.append(chr);//copy character
+      } else if (escape=='u') {//else if unicode escape
+        buffer.append("\\u00");//append unicode escape prefix
+        buffer.append(HEX.charAt(chr>>4));//append high digit
+        buffer.append(HEX.charAt(chr&15));//append low digit
+      } else {//else short escape
+        buffer.append('\\');//append escape character
+        buffer.append(escape);//append escaped character
+      }//if no escape needed
+    }//for each remaining character
+
+    return buffer.toString();//return escaped text
+
+  }//escape()
+
+  /**
+   * Returns JSON string text with its escape sequences replaced by the characters they stand for
+   * @param aText escaped text, as held by elements
+   * @return unescaped text; or the given text if it has no escape sequences
+   */
+  public static String unescape(String aText) {
+
+    assert aText!=null;
+
+    int i=aText.indexOf('\\');//position of first escape sequence
+    if (i<0) return aText;//nothing to unescape
+
+    int length=aText.length();//length of text
+    StringBuilder buffer=new StringBuilder(length);//buffer for unescaped text
+    buffer.append(aText, 0, i);//copy characters before first escape sequence
+    while (i<length) {//for each remaining character
+      char chr=aText.charAt(i++);//get character
+      if ((chr!='\\')||(i>=length)) {//if not an escape sequence
+        buffer.append(chr);//copy character
+        continue;//on to next character
+      }//if not an escape sequence
+      chr=aText.charAt(i++);//get escaped character
+      switch (chr) {//switch on escaped character
+        case 'b': buffer.append('\b');//backspace
+                  break;
+        case 'f': buffer.append('\f');//form feed
+                  break;
+        case 'n': buffer.append('\n');//new line
+                  break;
+        case 'r': buffer.append('\r');//carriage return
+                  break;
+        case 't': buffer.append('\t');//tab
+                  break;
+        case 'u': if (i+4>length) throw new RuntimeException("Bad escape : "+aText);//truncated unicode escape
+                  int code=0;//character code
+                  for (int j=0;j<4;++j) {//for each hexadecimal digit
+                    int digit=Character.digit(aText.charAt(i++), 16);//get digit value
+                    if (digit<0) throw new RuntimeException("Bad escape : "+aText);//not a hexadecimal digit
+                    code=code*16+digit;//accumulate digit
+                  }//for each hexadecimal digit
+                  buffer.append((char)code);//append character
+                  break;
+        default : buffer.append(chr);//quote, backslash, slash or other character stands for itself
+      }//switch on escaped character
+    }//for each remaining character
+
+    return buffer.toString();//return unescaped text
+
+  }//unescape()
+
+  /**
+   * Indicates if text is valid JSON string text, with every special character escaped
+   * @param aText text to be checked
+   * @return true if the text may be written between quotes as it is
+   */
+  static boolean isEscaped(String aText) {
+
+    assert aText!=null;
+
+    int length=aText.length();//length of text
+    for (int i=0;i<length;++i) {//for each character
+      char chr=aText.charAt(i);//get character
+      if ((chr<' ')||(chr=='"')) return false;//character must be escaped
+      if (chr!='\\') continue;//on to next character
+      if (++i>=length) return false;//truncated escape sequence
+      chr=aText.charAt(i);//get escaped character
+      if (chr=='u') {//if unicode escape
+        if (i+4>=length) return false;//truncated unicode escape
+        for (int j=0;j<4;++j) if (Character.digit(aText.charAt(++i), 16)<0) return false;//not a hexadecimal digit
+      } else if ("\"\\/bfnrt".indexOf(chr)<0) {//else if not a short escape
+        return false;//bad escape
+      }//if unicode escape
+    }//for each character
+
+    return true;//text is escaped
+
+  }//isEscaped()
+
+  /**
+   * Writes text escaped for use as JSON string text
+   * @param aText text to be escaped
+   * @param aOut appendable to write to
+   * @throws IOException if the appendable cannot be written
+   */
+  static void escape(CharSequence aText, Appendable aOut) throws IOException {
+
+    assert aText!=null;
+    assert aOut!=null;
+
+    int length=aText.length();//length of text
+    int start=0;//start of characters not needing escape
+    for (int i=0;i<length;++i) {//for each character
+      char chr=aText.charAt(i);//get character
+      char escape=(chr<128)?ESCAPES[chr]:0;//get escape character
+      if (escape==0) continue;//no escape needed
+      aOut.append(aText, start, i);//copy characters not needing escape
+      aOut.append('\\');//append escape character
+      if (escape=='u') {//if unicode escape
+        aOut.append("u00");//append unicode escape prefix
+        aOut.append(HEX.charAt(chr>>4));//append high digit
+        aOut.append(HEX.charAt(chr&15));//append low digit
+      } else {//else short escape
+        aOut.append(escape);//append escaped character
+      }//if unicode escape
+      start=i+1;//next run starts after escaped character
+    }//for each character
+    aOut.append(aText, start, length);//copy remaining characters
+
+  }//escape()
+
+  /**
+   * Writes the JSON representation of an element into a string builder
+   * @param aElement element to be written
+   * @param aBuffer buffer to append to
+   * @return the given buffer
+   */
+  public StringBuilder write(Element aElement, StringBuilder aBuffer) {
+
+    try {
+      write(aElement, (Appendable)aBuffer);//append to buffer
+    } catch (IOException e) {
+      throw new RuntimeException(e);//string builders do not throw
+    }//try
+
+    return aBuffer;//here you go
+
+  }//write()
+
+  /**
+   * Writes the JSON representation of an element, encoded as UTF-8, into an output stream
+   * @param aElement element to be written
+   * @param aOut stream to write to
+   * @throws IOException if the stream cannot be written
+   */
+  public void write(Element aElement, OutputStream aOut) throws IOException {
+
+    assert aOut!=null;
+
+    if (iUtf8==null) iUtf8=new Utf8Output();//create encoder on first use
+    iUtf8.open(aOut);//encode into stream
+    try {
+      write(aElement, iUtf8);//write element
+      iUtf8.flush();//write remaining bytes
+    } finally {
+      iUtf8.close();//release stream
+    }//try
+
+  }//write()
+
+  /**
+   * Writes the JSON representation of an element, encoded as UTF-8, into a heap or direct byte buffer.
+   * <P>
+   * Bytes are written from the position of the buffer. If the buffer fills, a larger buffer of the same
+   * kind is allocated and the bytes already in the buffer are copied to it, so callers should keep the
+   * returned buffer for reuse.
+   * </P>
+   * @param aElement element to be written
+   * @param aBuffer buffer to write to
+   * @return buffer holding the bytes, positioned after the last byte written
+   */
+  public ByteBuffer write(Element aElement, ByteBuffer aBuffer) {
+
+    assert aBuffer!=null;
+
+    if (iUtf8==null) iUtf8=new Utf8Output();//create encoder on first use
+    iUtf8.open(aBuffer);//encode into buffer
+    try {
+      write(aElement, iUtf8);//write element
+      iUtf8.flush();//write remaining bytes
+      return iUtf8.getBuffer();//return buffer, which may have grown
+    } catch (IOException e) {
+      throw new RuntimeException(e);//byte buffers do not throw
+    } finally {
+      iUtf8.close();//release buffer
+    }//try
+
+  }//write()
+
+  /**
+   * Writes the JSON representation of an element into an appendable, such as a writer
+   * @param aElement element to be written
+   * @param aOut appendable to write to
+   * @throws IOException if the appendable cannot be written
+   */
+  public void write(Element aElement, Appendable aOut) throws IOException {
+
+    assert aElement!=null;
+    assert aOut!=null;
+
+    if (aElement.isScalar()) {//if scalar element
+      ((ScalarElement)aElement).write(aOut);//write scalar
+      return;//done
+    }//if scalar element
+    if (iVerbatim&&aElement.writeSource(aOut)) return;//unchanged parsed element copied from its source
+
+    int depth=push(aElement, 0, aOut);//open root container
+    try {
+      while (depth>0) {//until root container closed
+        Iterator<?> iterator=iIterators[depth-1];//innermost child iterator
+        if (!iterator.hasNext()) {//if no more children
+          aOut.append(iParents[depth-1].isObject()?'}':']');//close container
+          --depth;//back to the parent
+          continue;//carry on with parent
+        }//if no more children
+        if (iFirsts[depth-1]) {//if first child
+          iFirsts[depth-1]=false;//no longer first
+        } else {//else later child
+          aOut.append(',');//separate from previous child
+        }//if first child
+        Element element;//child element
+        if (iParents[depth-1].isObject()) {//if object member
+          Map.Entry<?,?> entry=(Map.Entry<?,?>)iterator.next();//get member
+          aOut.append('"');//open key
+          aOut.append((String)entry.getKey());//write key
+          aOut.append('"');//close key
+          aOut.append(':');//separate key from value
+          element=(Element)entry.getValue();//get value
+        } else {//else array element
+          element=(Element)iterator.next();//get element
+        }//if object member
+        if (element.isScalar()) {//if scalar child
+          ((ScalarElement)element).write(aOut);//write scalar
+        } else if (!iVerbatim||!element.writeSource(aOut)) {//else if container child not copied from its source
+          depth=push(element, depth, aOut);//open container
+        }//if scalar child
+      }//until root container closed
+    } finally {
+      Arrays.fill(iParents, null);//release containers
+      Arrays.fill(iIterators, null);//release iterators
+    }//try
+
+  }//write()
+
+  /**
+   * Opens a container and pushes it onto the stacks
+   * @param aElement container element
+   * @param aDepth current stack depth
+   * @param aOut appendable to write to
+   * @return new stack depth
+   * @throws IOException if the appendable cannot be written
+   */
+  private int push(Element aElement, int aDepth, Appendable aOut) throws IOException {
+
+    if (aDepth==iParents.length) {//if stacks are full
+      iParents=Arrays.copyOf(iParents, aDepth*2);//grow container stack
+      iIterators=Arrays.copyOf(iIterators, aDepth*2);//grow iterator stack
+      iFirsts=Arrays.copyOf(iFirsts, aDepth*2);//grow first child stack
+    }//if stacks are full
+    iParents[aDepth]=aElement;//push container
+    if (aElement.isObject()) {//if object
+      iIterators[aDepth]=((ObjectElement)aElement).getEntryIterator();//iterate members
+      aOut.append('{');//open object
+    } else {//else array
+      iIterators[aDepth]=aElement.getChildElements();//iterate elements
+      aOut.append('[');//open array
+    }//if object
+    iFirsts[aDepth]=true;//no child written yet
+
+    return aDepth+1;//one level deeper
+
+  }//push()
+
+}//Serializer{}
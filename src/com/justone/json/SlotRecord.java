@@ -0,0 +1,235 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+/**
+ * A reusable record of values extracted from a JSON message.
+ * <P>
+ * A record holds one slot for each path of an Extractor, indexed by path id. Each slot
+ * records whether its path was present in the last message extracted, the element type found
+ * there and, for scalars, the value as a long, a double and as text. A record is intended to be
+ * allocated once and reused for every message, so that extraction creates no objects.
+ * </P>
+ * <P>
+ * Numbers are available both as a long (truncated if not integral) and as a double. Booleans are
+ * available as a long of 1 or 0. String text excludes the enclosing quotes and escape sequences
+ * are left as they appear in the message. The text of a slot is only valid until the record is
+ * reused.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Extractor
+ */
+public class SlotRecord {
+
+  /**
+   * Number of slots held by each word of the presence bits
+   */
+  private static final int WORD=64;
+
+  /**
+   * Presence bit for each slot
+   */
+  private final long[] fPresent;
+  /**
+   * Element type of each slot
+   */
+  private final int[] fTypes;
+  /**
+   * Long value of each slot
+   */
+  private final long[] fLongs;
+  /**
+   * Double value of each slot
+   */
+  private final double[] fDoubles;
+  /**
+   * Text of each slot
+   */
+  private final StringBuilder[] fStrings;
+
+  /**
+   * Constructs a record
+   * @param aSize number of slots
+   */
+  public SlotRecord(int aSize) {
+
+    assert aSize>=0;
+
+    fPresent=new long[(aSize+WORD-1)/WORD];//allocate presence bits
+    fTypes=new int[aSize];//allocate types
+    fLongs=new long[aSize];//allocate long values
+    fDoubles=new double[aSize];//allocate double values
+    fStrings=new StringBuilder[aSize];//allocate text buffers on first use
+
+  }//SlotRecord()
+
+  /**
+   * Returns the number of slots in the record
+   * @return number of slots
+   */
+  public int size() {
+
+    return fTypes.length;//return number of slots
+
+  }//size()
+
+  /**
+   * Marks every slot as absent
+   */
+  public void clear() {
+
+    for (int i=0;i<fPresent.length;++i) fPresent[i]=0;//clear presence bits
+
+  }//clear()
+
+  /**
+   * Indicates if a slot's path was present in the message
+   * @param aSlot slot id
+   * @return true if the path was present
+   */
+  public boolean isPresent(int aSlot) {
+
+    return (fPresent[aSlot/WORD]&(1L<<(aSlot%WORD)))!=0;//test presence bit
+
+  }//isPresent()
+
+  /**
+   * Returns the element type found at a slot's path
+   * @param aSlot slot id
+   * @return element type; or 0 if not present
+   */
+  public int getType(int aSlot) {
+
+    if (!isPresent(aSlot)) return 0;//no type if not present
+    return fTypes[aSlot];//return type
+
+  }//getType()
+
+  /**
+   * Returns the long value of a slot
+   * @param aSlot slot id
+   * @return long value of a number or boolean; otherwise 0
+   */
+  public long getLong(int aSlot) {
+
+    assert isPresent(aSlot);
+
+    return fLongs[aSlot];//return long value
+
+  }//getLong()
+
+  /**
+   * Returns the double value of a slot
+   * @param aSlot slot id
+   * @return double value of a number or boolean; otherwise 0
+   */
+  public double getDouble(int aSlot) {
+
+    assert isPresent(aSlot);
+
+    return fDoubles[aSlot];//return double value
+
+  }//getDouble()
+
+  /**
+   * Returns the boolean value of a slot
+   * @param aSlot slot id
+   * @return true if the slot holds true or a non-zero number
+   */
+  public boolean getBoolean(int aSlot) {
+
+    assert isPresent(aSlot);
+
+    return fLongs[aSlot]!=0;//return boolean value
+
+  }//getBoolean()
+
+  /**
+   * Returns the text of a scalar slot
+   * @param aSlot slot id
+   * @return text of the scalar value; or null if not present or not a scalar
+   */
+  public CharSequence getString(int aSlot) {
+
+    if (!isPresent(aSlot)) return null;//no text if not present
+    if (fTypes[aSlot]>=Element.OBJECT) return null;//no text for an object or array
+    return fStrings[aSlot];//return text
+
+  }//getString()
+
+  /**
+   * Sets a slot as present with a given type
+   * @param aSlot slot id
+   * @param aType element type
+   * @return true if the slot was not already present
+   */
+  boolean set(int aSlot, int aType) {
+
+    boolean absent=!isPresent(aSlot);//was slot absent?
+    fPresent[aSlot/WORD]|=1L<<(aSlot%WORD);//set presence bit
+    fTypes[aSlot]=aType;//set type
+    fLongs[aSlot]=0;//no long value yet
+    fDoubles[aSlot]=0;//no double value yet
+
+    return absent;//slot newly filled?
+
+  }//set()
+
+  /**
+   * Sets the numeric value of a slot
+   * @param aSlot slot id
+   * @param aLong long value
+   * @param aDouble double value
+   */
+  void set(int aSlot, long aLong, double aDouble) {
+
+    fLongs[aSlot]=aLong;//set long value
+    fDoubles[aSlot]=aDouble;//set double value
+
+  }//set()
+
+  /**
+   * Sets the text of a slot from part of a message
+   * @param aSlot slot id
+   * @param aMessage message holding the text
+   * @param aStart position of first text character
+   * @param aEnd position after last text character
+   */
+  void set(int aSlot, String aMessage, int aStart, int aEnd) {
+
+    StringBuilder buffer=fStrings[aSlot];//get text buffer
+    if (buffer==null) {//if no buffer yet
+      buffer=new StringBuilder(aEnd-aStart);//create buffer
+      fStrings[aSlot]=buffer;//keep buffer for later messages
+    }//if no buffer yet
+    buffer.setLength(0);//empty buffer
+    buffer.append(aMessage, aStart, aEnd);//copy text
+
+  }//set()
+
+}//SlotRecord{}
@@ -0,0 +1,457 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable node of a balanced binary tree holding the members of a persistent object or the
+ * elements of a persistent array.
+ * <P>
+ * The tree is an AVL tree ordered by key for objects, and by position for arrays, with each node
+ * recording the size of its subtree so that elements can be found by index. Nodes are never changed:
+ * an update copies the nodes on the path from the root to the node updated and shares every other
+ * node with the tree it was made from, so each update costs O(log n).
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see PersistentObjectElement
+ * @see PersistentArrayElement
+ */
+final class TreeNode implements Map.Entry<String,Element> {
+
+  /**
+   * Iterate over the keys of the nodes
+   */
+  static final int KEYS=0;
+  /**
+   * Iterate over the elements of the nodes
+   */
+  static final int ELEMENTS=1;
+  /**
+   * Iterate over the nodes as map entries
+   */
+  static final int ENTRIES=2;
+
+  /**
+   * Object key; or null for an array element
+   */
+  final String fKey;
+  /**
+   * Element held by the node
+   */
+  final Element fElement;
+  /**
+   * Subtree of preceding nodes; or null if none
+   */
+  final TreeNode fLeft;
+  /**
+   * Subtree of following nodes; or null if none
+   */
+  final TreeNode fRight;
+  /**
+   * Height of the subtree rooted at the node
+   */
+  final int fHeight;
+  /**
+   * Number of nodes in the subtree rooted at the node
+   */
+  final int fSize;
+
+  /**
+   * Constructs a node
+   * @param aKey object key; or null for an array element
+   * @param aElement element held by the node
+   * @param aLeft subtree of preceding nodes
+   * @param aRight subtree of following nodes
+   */
+  private TreeNode(String aKey, Element aElement, TreeNode aLeft, TreeNode aRight) {
+
+    fKey=aKey;//set key
+    fElement=aElement;//set element
+    fLeft=aLeft;//set left subtree
+    fRight=aRight;//set right subtree
+    fHeight=Math.max(height(aLeft), height(aRight))+1;//one above the higher subtree
+    fSize=size(aLeft)+size(aRight)+1;//count subtrees and node
+
+  }//TreeNode()
+
+  /**
+   * Returns the object key of the node
+   * @return object key
+   */
+  @Override
+  public String getKey() {
+
+    return fKey;//return key
+
+  }//getKey()
+
+  /**
+   * Returns the element held by the node
+   * @return element
+   */
+  @Override
+  public Element getValue() {
+
+    return fElement;//return element
+
+  }//getValue()
+
+  /**
+   * Always throws an exception as nodes cannot be changed
+   * @param aElement ignored
+   * @return never returns
+   */
+  @Override
+  public Element setValue(Element aElement) {
+
+    throw new UnsupportedOperationException();//read only
+
+  }//setValue()
+
+  /**
+   * Returns the number of nodes in a tree
+   * @param aNode root of the tree; or null if empty
+   * @return number of nodes
+   */
+  static int size(TreeNode aNode) {
+
+    return (aNode==null)?0:aNode.fSize;//return size
+
+  }//size()
+
+  /**
+   * Returns the height of a tree
+   * @param aNode root of the tree; or null if empty
+   * @return height of the tree
+   */
+  static int height(TreeNode aNode) {
+
+    return (aNode==null)?0:aNode.fHeight;//return height
+
+  }//height()
+
+  /**
+   * Returns the node with a given key
+   * @param aNode root of a tree ordered by key
+   * @param aKey key to search for
+   * @return node with the key; or null if none
+   */
+  static TreeNode get(TreeNode aNode, String aKey) {
+
+    while (aNode!=null) {//until fallen off the tree
+      int order=aKey.compareTo(aNode.fKey);//compare keys
+      if (order==0) return aNode;//found key
+      aNode=(order<0)?aNode.fLeft:aNode.fRight;//descend towards key
+    }//until fallen off the tree
+
+    return null;//key not found
+
+  }//get()
+
+  /**
+   * Returns the node at a given position
+   * @param aNode root of a tree
+   * @param aIndex position of the node, which must be less than the size of the tree
+   * @return node at the position
+   */
+  static TreeNode get(TreeNode aNode, int aIndex) {
+
+    assert (aIndex>=0)&&(aIndex<size(aNode));
+
+    while (true) {//until found
+      int left=size(aNode.fLeft);//number of preceding nodes
+      if (aIndex==left) return aNode;//found position
+      if (aIndex<left) {//if position in left subtree
+        aNode=aNode.fLeft;//descend left
+      } else {//else position in right subtree
+        aIndex-=left+1;//position within right subtree
+        aNode=aNode.fRight;//descend right
+      }//if position in left subtree
+    }//until found
+
+  }//get()
+
+  /**
+   * Returns a tree with an element put under a key
+   * @param aNode root of a tree ordered by key; or null if empty
+   * @param aKey object key
+   * @param aElement element to be put
+   * @return root of the new tree
+   */
+  static TreeNode put(TreeNode aNode, String aKey, Element aElement) {
+
+    if (aNode==null) return new TreeNode(aKey, aElement, null, null);//new leaf
+    int order=aKey.compareTo(aNode.fKey);//compare keys
+    if (order==0) return new TreeNode(aKey, aElement, aNode.fLeft, aNode.fRight);//replace element
+    if (order<0) return balance(aNode.fKey, aNode.fElement, put(aNode.fLeft, aKey, aElement), aNode.fRight);//put on the left
+
+    return balance(aNode.fKey, aNode.fElement, aNode.fLeft, put(aNode.fRight, aKey, aElement));//put on the right
+
+  }//put()
+
+  /**
+   * Returns a tree without the node with a given key
+   * @param aNode root of a tree ordered by key; or null if empty
+   * @param aKey object key
+   * @return root of the new tree; or the same root if the key is not found
+   */
+  static TreeNode remove(TreeNode aNode, String aKey) {
+
+    if (aNode==null) return null;//key not found
+    int order=aKey.compareTo(aNode.fKey);//compare keys
+    if (order==0) return join(aNode.fLeft, aNode.fRight);//drop node
+    if (order<0) {//if key on the left
+      TreeNode left=remove(aNode.fLeft, aKey);//remove from left
+      return (left==aNode.fLeft)?aNode:balance(aNode.fKey, aNode.fElement, left, aNode.fRight);//rebuild if changed
+    }//if key on the left
+    TreeNode right=remove(aNode.fRight, aKey);//remove from right
+
+    return (right==aNode.fRight)?aNode:balance(aNode.fKey, aNode.fElement, aNode.fLeft, right);//rebuild if changed
+
+  }//remove()
+
+  /**
+   * Returns a tree with the element at a given position replaced
+   * @param aNode root of a tree
+   * @param aIndex position of the element, which must be less than the size of the tree
+   * @param aElement replacement element
+   * @return root of the new tree
+   */
+  static TreeNode set(TreeNode aNode, int aIndex, Element aElement) {
+
+    int left=size(aNode.fLeft);//number of preceding nodes
+    if (aIndex==left) return new TreeNode(null, aElement, aNode.fLeft, aNode.fRight);//replace element
+    if (aIndex<left) return new TreeNode(null, aNode.fElement, set(aNode.fLeft, aIndex, aElement), aNode.fRight);//replace on the left
+
+    return new TreeNode(null, aNode.fElement, aNode.fLeft, set(aNode.fRight, aIndex-left-1, aElement));//replace on the right
+
+  }//set()
+
+  /**
+   * Returns a tree with an element inserted at a given position
+   * @param aNode root of a tree; or null if empty
+   * @param aIndex position of the new element, from zero to the size of the tree
+   * @param aElement element to be inserted
+   * @return root of the new tree
+   */
+  static TreeNode insert(TreeNode aNode, int aIndex, Element aElement) {
+
+    if (aNode==null) return new TreeNode(null, aElement, null, null);//new leaf
+    int left=size(aNode.fLeft);//number of preceding nodes
+    if (aIndex<=left) return balance(null, aNode.fElement, insert(aNode.fLeft, aIndex, aElement), aNode.fRight);//insert on the left
+
+    return balance(null, aNode.fElement, aNode.fLeft, insert(aNode.fRight, aIndex-left-1, aElement));//insert on the right
+
+  }//insert()
+
+  /**
+   * Returns a tree without the element at a given position
+   * @param aNode root of a tree
+   * @param aIndex position of the element, which must be less than the size of the tree
+   * @return root of the new tree
+   */
+  static TreeNode remove(TreeNode aNode, int aIndex) {
+
+    int left=size(aNode.fLeft);//number of preceding nodes
+    if (aIndex==left) return join(aNode.fLeft, aNode.fRight);//drop node
+    if (aIndex<left) return balance(null, aNode.fElement, remove(aNode.fLeft, aIndex), aNode.fRight);//remove on the left
+
+    return balance(null, aNode.fElement, aNode.fLeft, remove(aNode.fRight, aIndex-left-1));//remove on the right
+
+  }//remove()
+
+  /**
+   * Builds a perfectly balanced tree from elements in order
+   * @param aKeys object keys in order; or null for array elements
+   * @param aElements elements in order
+   * @param aStart position of first element
+   * @param aEnd position after last element
+   * @return root of the tree; or null if empty
+   */
+  static TreeNode build(String[] aKeys, Element[] aElements, int aStart, int aEnd) {
+
+    if (aStart>=aEnd) return null;//empty tree
+    int middle=(aStart+aEnd)>>>1;//middle position
+
+    return new TreeNode((aKeys==null)?null:aKeys[middle], aElements[middle], build(aKeys, aElements, aStart, middle), build(aKeys, aElements, middle+1, aEnd));//root at middle
+
+  }//build()
+
+  /**
+   * Joins two trees whose nodes are in order
+   * @param aLeft preceding tree; or null if empty
+   * @param aRight following tree; or null if empty
+   * @return root of the joined tree
+   */
+  private static TreeNode join(TreeNode aLeft, TreeNode aRight) {
+
+    if (aLeft==null) return aRight;//nothing on the left
+    if (aRight==null) return aLeft;//nothing on the right
+    TreeNode first=aRight;//first node on the right
+    while (first.fLeft!=null) first=first.fLeft;//find first node
+
+    return balance(first.fKey, first.fElement, aLeft, removeFirst(aRight));//first node on the right becomes root
+
+  }//join()
+
+  /**
+   * Returns a tree without its first node
+   * @param aNode root of a tree
+   * @return root of the new tree
+   */
+  private static TreeNode removeFirst(TreeNode aNode) {
+
+    if (aNode.fLeft==null) return aNode.fRight;//drop first node
+
+    return balance(aNode.fKey, aNode.fElement, removeFirst(aNode.fLeft), aNode.fRight);//remove on the left
+
+  }//removeFirst()
+
+  /**
+   * Creates a node, rotating it if its subtrees differ in height by more than one
+   * @param aKey object key; or null for an array element
+   * @param aElement element held by the node
+   * @param aLeft subtree of preceding nodes
+   * @param aRight subtree of following nodes
+   * @return root of the balanced subtree
+   */
+  private static TreeNode balance(String aKey, Element aElement, TreeNode aLeft, TreeNode aRight) {
+
+    int left=height(aLeft);//height on the left
+    int right=height(aRight);//height on the right
+    if (left>right+1) {//if left heavy
+      if (height(aLeft.fLeft)>=height(aLeft.fRight)) {//if outer subtree higher
+        return new TreeNode(aLeft.fKey, aLeft.fElement, aLeft.fLeft, new TreeNode(aKey, aElement, aLeft.fRight, aRight));//rotate right
+      }//if outer subtree higher
+      TreeNode inner=aLeft.fRight;//inner subtree
+      return new TreeNode(inner.fKey, inner.fElement, new TreeNode(aLeft.fKey, aLeft.fElement, aLeft.fLeft, inner.fLeft), new TreeNode(aKey, aElement, inner.fRight, aRight));//rotate left then right
+    }//if left heavy
+    if (right>left+1) {//if right heavy
+      if (height(aRight.fRight)>=height(aRight.fLeft)) {//if outer subtree higher
+        return new TreeNode(aRight.fKey, aRight.fElement, new TreeNode(aKey, aElement, aLeft, aRight.fLeft), aRight.fRight);//rotate left
+      }//if outer subtree higher
+      TreeNode inner=aRight.fLeft;//inner subtree
+      return new TreeNode(inner.fKey, inner.fElement, new TreeNode(aKey, aElement, aLeft, inner.fLeft), new TreeNode(aRight.fKey, aRight.fElement, inner.fRight, aRight.fRight));//rotate right then left
+    }//if right heavy
+
+    return new TreeNode(aKey, aElement, aLeft, aRight);//already balanced
+
+  }//balance()
+
+  /**
+   * Iterates over the nodes of a tree in order
+   * @param <T> type returned for each node
+   */
+  static final class Cursor<T> implements Iterator<T> {
+
+    /**
+     * Part of each node returned
+     */
+    private final int fPart;
+    /**
+     * Stack of nodes whose right subtrees are still to be visited
+     */
+    private final TreeNode[] fStack;
+    /**
+     * Number of nodes on the stack
+     */
+    private int iDepth;
+
+    /**
+     * Constructs a cursor
+     * @param aNode root of the tree; or null if empty
+     * @param aPart part of each node returned, one of KEYS, ELEMENTS or ENTRIES
+     */
+    Cursor(TreeNode aNode, int aPart) {
+
+      fPart=aPart;//set part
+      fStack=new TreeNode[height(aNode)];//stack as deep as the tree
+      push(aNode);//descend to first node
+
+    }//Cursor()
+
+    /**
+     * Indicates if there is another node
+     * @return true if another node remains
+     */
+    @Override
+    public boolean hasNext() {
+
+      return iDepth>0;//any nodes left?
+
+    }//hasNext()
+
+    /**
+     * Returns the next node
+     * @return key, element or entry of the next node
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+
+      if (iDepth==0) throw new NoSuchElementException();//no more nodes
+      TreeNode node=fStack[--iDepth];//pop next node
+      push(node.fRight);//descend to the node following it
+
+      switch (fPart) {//switch on part returned
+        case KEYS: return (T)node.fKey;//return key
+        case ELEMENTS: return (T)node.fElement;//return element
+        default: return (T)node;//return entry
+      }//switch on part returned
+
+    }//next()
+
+    /**
+     * Always throws an exception as nodes cannot be removed
+     */
+    @Override
+    public void remove() {
+
+      throw new UnsupportedOperationException();//read only
+
+    }//remove()
+
+    /**
+     * Pushes a node and the nodes down its left edge
+     * @param aNode node; or null if none
+     */
+    private void push(TreeNode aNode) {
+
+      while (aNode!=null) {//down the left edge
+        fStack[iDepth++]=aNode;//push node
+        aNode=aNode.fLeft;//step left
+      }//down the left edge
+
+    }//push()
+
+  }//Cursor{}
+
+}//TreeNode{}
@@ -0,0 +1,302 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An appendable encoding characters as UTF-8 into an output stream or byte buffer.
+ * <P>
+ * Bytes are encoded straight into the backing array of a heap byte buffer. For a stream or a
+ * direct byte buffer, they are gathered in a small array and written in blocks. Runs of ASCII
+ * characters are copied without going through the encoder. A byte buffer that fills is replaced
+ * by a larger one of the same kind. Unpaired surrogates are encoded as a question mark.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ * @see Serializer
+ */
+class Utf8Output implements Appendable {
+
+  /**
+   * Staging array of encoded bytes for a stream or direct byte buffer
+   */
+  private final byte[] fBytes=new byte[8192];
+  /**
+   * Array being encoded into, either the staging array or the array of a heap byte buffer
+   */
+  private byte[] iBytes=fBytes;
+  /**
+   * Position in the array of the next byte
+   */
+  private int iCount;
+  /**
+   * Position in the array after the last byte that fits
+   */
+  private int iLimit=fBytes.length;
+  /**
+   * Indicates if bytes are encoded straight into the array of the byte buffer
+   */
+  private boolean iBacked;
+  /**
+   * High surrogate awaiting its low surrogate; or 0 if none
+   */
+  private char iHigh;
+  /**
+   * Stream to write to; or null if writing to a byte buffer
+   */
+  private OutputStream iOut;
+  /**
+   * Byte buffer to write to; or null if writing to a stream
+   */
+  private ByteBuffer iBuffer;
+
+  /**
+   * Starts encoding into an output stream
+   * @param aOut stream to write to
+   */
+  void open(OutputStream aOut) {
+
+    assert aOut!=null;
+
+    iOut=aOut;//encode into stream
+    iBuffer=null;//not a byte buffer
+    stage();//gather bytes in staging array
+
+  }//open()
+
+  /**
+   * Starts encoding into a byte buffer, from its position
+   * @param aBuffer buffer to write to
+   */
+  void open(ByteBuffer aBuffer) {
+
+    assert aBuffer!=null;
+
+    iBuffer=aBuffer;//encode into buffer
+    iOut=null;//not a stream
+    if (aBuffer.hasArray()) {//if heap buffer that may be written
+      back(aBuffer, aBuffer.arrayOffset()+aBuffer.position());//encode into its array from its position
+    } else {//else direct or read only buffer
+      stage();//gather bytes in staging array
+    }//if heap buffer that may be written
+
+  }//open()
+
+  /**
+   * Returns the byte buffer being written to
+   * @return byte buffer, which may have replaced the one opened; or null if writing to a stream
+   */
+  ByteBuffer getBuffer() {
+
+    return iBuffer;//return buffer
+
+  }//getBuffer()
+
+  /**
+   * Stops encoding, discarding any bytes not yet written
+   */
+  void close() {
+
+    iOut=null;//release stream
+    iBuffer=null;//release buffer
+    stage();//discard any unwritten bytes and release array of buffer
+    iHigh=0;//discard any pending surrogate
+
+  }//close()
+
+  /**
+   * Encodes a character sequence
+   * @param aText character sequence
+   * @return this appendable
+   * @throws IOException if the stream cannot be written
+   */
+  @Override
+  public Appendable append(CharSequence aText) throws IOException {
+
+    return append(aText, 0, aText.length());//encode whole sequence
+
+  }//append()
+
+  /**
+   * Encodes part of a character sequence
+   * @param aText character sequence
+   * @param aStart position of first character
+   * @param aEnd position after last character
+   * @return this appendable
+   * @throws IOException if the stream cannot be written
+   */
+  @Override
+  public Appendable append(CharSequence aText, int aStart, int aEnd) throws IOException {
+
+    int i=aStart;//position of next character
+    while (i<aEnd) {//until all characters encoded
+      if (iHigh==0) {//if no surrogate pending
+        byte[] bytes=iBytes;//array being encoded into
+        int count=iCount;//position of next byte
+        int limit=Math.min(aEnd, i+iLimit-count);//last position that fits in the array
+        char chr;//next character
+        while ((i<limit)&&((chr=aText.charAt(i))<0x80)) {//while ASCII characters fit
+          bytes[count++]=(byte)chr;//copy ASCII character
+          ++i;//next character
+        }//while ASCII characters fit
+        iCount=count;//keep position
+        if (i==aEnd) break;//all characters encoded
+      }//if no surrogate pending
+      append(aText.charAt(i++));//encode other character
+    }//until all characters encoded
+
+    return this;//for chaining
+
+  }//append()
+
+  /**
+   * Encodes a character
+   * @param aChar character
+   * @return this appendable
+   * @throws IOException if the stream cannot be written
+   */
+  @Override
+  public Appendable append(char aChar) throws IOException {
+
+    if (iCount+4>iLimit) {//if longest encoding may not fit
+      int size=(iHigh!=0)?4:(aChar<0x80)?1:(aChar<0x800)?2:3;//most bytes needed for character
+      if (iCount+size>iLimit) drain();//make room
+    }//if longest encoding may not fit
+    if (iHigh!=0) {//if high surrogate pending
+      char high=iHigh;//get high surrogate
+      iHigh=0;//no longer pending
+      if (Character.isLowSurrogate(aChar)) {//if surrogate pair complete
+        int code=Character.toCodePoint(high, aChar);//get code point
+        iBytes[iCount++]=(byte)(0xf0|(code>>18));//first of four bytes
+        iBytes[iCount++]=(byte)(0x80|((code>>12)&0x3f));//second of four bytes
+        iBytes[iCount++]=(byte)(0x80|((code>>6)&0x3f));//third of four bytes
+        iBytes[iCount++]=(byte)(0x80|(code&0x3f));//fourth of four bytes
+        return this;//pair encoded
+      }//if surrogate pair complete
+      iBytes[iCount++]='?';//replace unpaired high surrogate
+      if (iCount+4>iLimit) drain();//make room again
+    }//if high surrogate pending
+
+    if (aChar<0x80) {//if ASCII
+      iBytes[iCount++]=(byte)aChar;//single byte
+    } else if (aChar<0x800) {//else if two byte character
+      iBytes[iCount++]=(byte)(0xc0|(aChar>>6));//first of two bytes
+      iBytes[iCount++]=(byte)(0x80|(aChar&0x3f));//second of two bytes
+    } else if (Character.isHighSurrogate(aChar)) {//else if high surrogate
+      iHigh=aChar;//wait for low surrogate
+    } else if (Character.isLowSurrogate(aChar)) {//else if unpaired low surrogate
+      iBytes[iCount++]='?';//replace unpaired low surrogate
+    } else {//else three byte character
+      iBytes[iCount++]=(byte)(0xe0|(aChar>>12));//first of three bytes
+      iBytes[iCount++]=(byte)(0x80|((aChar>>6)&0x3f));//second of three bytes
+      iBytes[iCount++]=(byte)(0x80|(aChar&0x3f));//third of three bytes
+    }//if ASCII
+
+    return this;//for chaining
+
+  }//append()
+
+  /**
+   * Writes all encoded bytes, replacing any unpaired high surrogate
+   * @throws IOException if the stream cannot be written
+   */
+  void flush() throws IOException {
+
+    if (iHigh!=0) {//if high surrogate pending
+      iHigh=0;//no longer pending
+      iBytes[iCount++]='?';//replace unpaired high surrogate
+    }//if high surrogate pending
+    if (iBacked) {//if encoding into array of buffer
+      iBuffer.position(iCount-iBuffer.arrayOffset());//bytes are already in place
+    } else {//else bytes are staged
+      drain();//write bytes
+    }//if encoding into array of buffer
+
+  }//flush()
+
+  /**
+   * Makes room for more bytes, writing staged bytes to the stream or byte buffer, or growing a byte buffer that is full
+   * @throws IOException if the stream cannot be written
+   */
+  private void drain() throws IOException {
+
+    if (iBacked) {//if encoding into array of buffer
+      int offset=iBuffer.arrayOffset();//start of buffer in array
+      int capacity=Math.max(iBuffer.capacity()*2, iCount-offset+4);//larger capacity, with room for the longest encoding
+      ByteBuffer buffer=ByteBuffer.allocate(capacity);//allocate heap buffer
+      System.arraycopy(iBytes, offset, buffer.array(), 0, iCount-offset);//copy bytes written so far
+      back(buffer, iCount-offset);//use larger buffer
+      return;//room made
+    }//if encoding into array of buffer
+
+    if (iOut!=null) {//if writing to a stream
+      iOut.write(fBytes, 0, iCount);//write bytes
+    } else {//else writing to a byte buffer
+      if (iBuffer.remaining()<iCount) {//if byte buffer is full
+        int capacity=Math.max(iBuffer.capacity()*2, iBuffer.position()+iCount);//larger capacity
+        ByteBuffer buffer=iBuffer.isDirect()?ByteBuffer.allocateDirect(capacity):ByteBuffer.allocate(capacity);//allocate same kind of buffer
+        iBuffer.flip();//prepare to copy bytes written so far
+        buffer.put(iBuffer);//copy bytes
+        iBuffer=buffer;//use larger buffer
+      }//if byte buffer is full
+      iBuffer.put(fBytes, 0, iCount);//copy bytes
+    }//if writing to a stream
+    iCount=0;//buffer is empty
+
+  }//drain()
+
+  /**
+   * Encodes straight into the array of a heap byte buffer
+   * @param aBuffer heap byte buffer
+   * @param aCount position in its array of the next byte
+   */
+  private void back(ByteBuffer aBuffer, int aCount) {
+
+    iBuffer=aBuffer;//use buffer
+    iBytes=aBuffer.array();//encode into its array
+    iCount=aCount;//from the position given
+    iLimit=aBuffer.arrayOffset()+aBuffer.limit();//up to its limit
+    iBacked=true;//bytes go straight into the buffer
+
+  }//back()
+
+  /**
+   * Gathers encoded bytes in the staging array
+   */
+  private void stage() {
+
+    iBytes=fBytes;//encode into staging array
+    iCount=0;//staging array is empty
+    iLimit=fBytes.length;//up to its length
+    iBacked=false;//bytes are staged
+
+  }//stage()
+
+}//Utf8Output{}
@@ -0,0 +1,481 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+/**
+ * Validates JSON messages without parsing them into elements.
+ * <P>
+ * A validator strictly checks that a message is a single JSON value conforming to RFC 8259,
+ * optionally surrounded by whitespace. Messages may be given either as strings or as UTF-8 encoded
+ * bytes, in which case the encoding is also verified. No objects are created while validating,
+ * so a single validator instance may be used to cheaply vet many messages before they are forwarded
+ * or parsed.
+ * </P>
+ * <br>
+ * Code example:
+ * <pre><code>
+ *
+ * Validator validator=new Validator();
+ * if (!validator.validate(bytes)) System.out.println("bad message at "+validator.getErrorIndex());
+ *
+ * </code></pre>
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class Validator {
+
+  /**
+   * Represents no character at end of message
+   */
+  private static final int NONE=-1;
+  /**
+   * Number of nesting levels held by each word of the nesting stack
+   */
+  private static final int WORD=64;
+
+  /**
+   * Message bytes being validated; or null if validating a string
+   */
+  private byte[] iBytes;
+  /**
+   * Message string being validated; or null if validating bytes
+   */
+  private String iString;
+  /**
+   * Length of message being validated
+   */
+  private int iLength;
+  /**
+   * Character position in message being validated
+   */
+  private int iIndex;
+  /**
+   * Nesting stack with one bit per level, set for an object and clear for an array
+   */
+  private long[] iNesting;
+  /**
+   * Current nesting depth
+   */
+  private int iDepth;
+  /**
+   * Character position of the last validation error; or -1 if none
+   */
+  private int iErrorIndex=-1;
+
+  /**
+   * Constructor for validator
+   */
+  public Validator() {
+
+    iNesting=new long[1];//room for the first 64 nesting levels
+
+  }//Validator()
+
+  /**
+   * Validates a JSON message string
+   * @param aMessage message to be validated
+   * @return true if the message is valid JSON
+   */
+  public boolean validate(String aMessage) {
+
+    assert aMessage!=null;
+
+    iBytes=null;//not validating bytes
+    iString=aMessage;//set message string
+    iLength=aMessage.length();//set message length
+
+    iIndex=0;//start at first character
+    boolean valid=validate();//validate message
+    iString=null;//release message
+    return valid;//return verdict
+
+  }//validate()
+
+  /**
+   * Validates a UTF-8 encoded JSON message
+   * @param aMessage message bytes to be validated
+   * @return true if the message is valid JSON
+   */
+  public boolean validate(byte[] aMessage) {
+
+    assert aMessage!=null;
+
+    return validate(aMessage, 0, aMessage.length);//validate all bytes
+
+  }//validate()
+
+  /**
+   * Validates a UTF-8 encoded JSON message held in part of a byte array
+   * @param aMessage array holding the message bytes
+   * @param aOffset offset of first message byte
+   * @param aLength number of message bytes
+   * @return true if the message is valid JSON
+   */
+  public boolean validate(byte[] aMessage, int aOffset, int aLength) {
+
+    assert aMessage!=null;
+    assert aOffset>=0;
+    assert aLength>=0;
+    assert aOffset+aLength<=aMessage.length;
+
+    iString=null;//not validating a string
+    iBytes=aMessage;//set message bytes
+    iLength=aOffset+aLength;//set end of message
+
+    iIndex=aOffset;//start at first byte
+    boolean valid=validate();//validate message
+    if (!valid) iErrorIndex-=aOffset;//report error relative to the message start
+    iBytes=null;//release message
+    return valid;//return verdict
+
+  }//validate()
+
+  /**
+   * Returns the position at which the last message failed validation
+   * @return character (or byte) position of the error; or -1 if the last message was valid
+   */
+  public int getErrorIndex() {
+
+    return iErrorIndex;//return error position
+
+  }//getErrorIndex()
+
+  /**
+   * Validates the current message
+   * @return true if the message is valid
+   */
+  private boolean validate() {
+
+    iDepth=0;//not nested
+    iErrorIndex=-1;//no error yet
+
+    white();//skip leading whitespace
+    while (true) {//for each value expected
+
+      int chr=peek();//get next character
+      if ((chr=='{')||(chr=='[')) {//if opening an object or array
+        ++iIndex;//consume open bracket
+        push(chr=='{');//nest one level deeper
+        white();//skip whitespace
+        if (peek()!=(chr=='{'?'}':']')) {//if not empty
+          if ((chr=='{')&&!key()) return fail();//object member must start with a key
+          continue;//first value expected
+        }//if not empty
+        ++iIndex;//consume close bracket
+        --iDepth;//pop empty object or array
+      } else if (!scalar()) {//else if not a scalar value
+        return fail();//value expected
+      }//if opening an object or array
+
+      while (true) {//for each value completed
+        white();//skip whitespace
+        if (iDepth==0) {//if root value complete
+          if (iIndex<iLength) return fail();//nothing may follow root value
+          return true;//message is valid
+        }//if root value complete
+        chr=peek();//get next character
+        if (chr==',') {//if another value follows
+          ++iIndex;//consume comma
+          white();//skip whitespace
+          if (object()&&!key()) return fail();//object member must start with a key
+          break;//next value
+        } else if (chr==(object()?'}':']')) {//else if matching close bracket
+          ++iIndex;//consume close bracket
+          --iDepth;//pop nesting level
+        } else {//else something unexpected
+          return fail();//bad separator
+        }//if another value follows
+      }//for each value completed
+
+    }//for each value expected
+
+  }//validate()
+
+  /**
+   * Validates a scalar value
+   * @return true if a valid scalar value was found
+   */
+  private boolean scalar() {
+
+    switch (peek()) {//switch on next character
+      case '"': return string();//validate string
+      case 't': return literal("true");//validate true token
+      case 'f': return literal("false");//validate false token
+      case 'n': return literal("null");//validate null token
+      case '-':
+      case '0':
+      case '1':
+      case '2':
+      case '3':
+      case '4':
+      case '5':
+      case '6':
+      case '7':
+      case '8':
+      case '9': return number();//validate number
+      default : return false;//not a value
+    }//switch on next character
+
+  }//scalar()
+
+  /**
+   * Validates an object member key and the colon following it
+   * @return true if the key is valid
+   */
+  private boolean key() {
+
+    if (peek()!='"') return false;//key must be a string
+    if (!string()) return false;//validate key
+    white();//skip whitespace
+    if (peek()!=':') return false;//key must be followed by colon
+    ++iIndex;//consume colon
+    white();//skip whitespace
+
+    return true;//key is valid
+
+  }//key()
+
+  /**
+   * Validates a string including its quotes
+   * @return true if the string is valid
+   */
+  private boolean string() {
+
+    ++iIndex;//consume open quote
+    while (true) {//until close quote
+      int chr=peek();//get next character
+      if (chr=='"') {//if close quote
+        ++iIndex;//consume close quote
+        return true;//string is valid
+      } else if (chr=='\\') {//else if escape
+        ++iIndex;//consume escape character
+        switch (peek()) {//switch on escaped character
+          case '"':
+          case '\\':
+          case '/':
+          case 'b':
+          case 'f':
+          case 'n':
+          case 'r':
+          case 't': ++iIndex;//consume escaped character
+                    break;
+          case 'u': ++iIndex;//consume u
+                    for (int i=0;i<4;++i) {//for each hex digit
+                      if (Character.digit(peek(), 16)<0) return false;//not a hex digit
+                      ++iIndex;//consume hex digit
+                    }//for each hex digit
+                    break;
+          default : return false;//bad escape
+        }//switch on escaped character
+      } else if (chr<' ') {//else if control character or end of message
+        return false;//unterminated string or unescaped control character
+      } else if ((chr>=0x80)&&(iBytes!=null)) {//else if multi-byte UTF-8 sequence
+        if (!utf8(chr)) return false;//bad encoding
+      } else {//else plain character
+        ++iIndex;//consume character
+      }//if close quote
+    }//until close quote
+
+  }//string()
+
+  /**
+   * Validates a multi-byte UTF-8 sequence rejecting overlong forms, surrogates and out of range code points
+   * @param aLead lead byte of the sequence
+   * @return true if the sequence is valid
+   */
+  private boolean utf8(int aLead) {
+
+    assert aLead>=0x80;
+
+    int count;//number of continuation bytes
+    int min;//lowest valid second byte
+    int max;//highest valid second byte
+    if ((aLead>=0xC2)&&(aLead<=0xDF)) {//if two byte sequence
+      count=1; min=0x80; max=0xBF;
+    } else if (aLead==0xE0) {//else if three byte sequence excluding overlongs
+      count=2; min=0xA0; max=0xBF;
+    } else if (aLead==0xED) {//else if three byte sequence excluding surrogates
+      count=2; min=0x80; max=0x9F;
+    } else if ((aLead>=0xE1)&&(aLead<=0xEF)) {//else if three byte sequence
+      count=2; min=0x80; max=0xBF;
+    } else if (aLead==0xF0) {//else if four byte sequence excluding overlongs
+      count=3; min=0x90; max=0xBF;
+    } else if ((aLead>=0xF1)&&(aLead<=0xF3)) {//else if four byte sequence
+      count=3; min=0x80; max=0xBF;
+    } else if (aLead==0xF4) {//else if four byte sequence up to U+10FFFF
+      count=3; min=0x80; max=0x8F;
+    } else {//else invalid lead byte
+      return false;//bad encoding
+    }//if two byte sequence
+
+    ++iIndex;//consume lead byte
+    for (int i=0;i<count;++i) {//for each continuation byte
+      int chr=peek();//get continuation byte
+      if ((chr<min)||(chr>max)) return false;//bad continuation byte
+      ++iIndex;//consume continuation byte
+      min=0x80; max=0xBF;//remaining bytes have the full continuation range
+    }//for each continuation byte
+
+    return true;//sequence is valid
+
+  }//utf8()
+
+  /**
+   * Validates a number
+   * @return true if the number is valid
+   */
+  private boolean number() {
+
+    if (peek()=='-') ++iIndex;//consume minus sign
+    if (peek()=='0') {//if leading zero
+      ++iIndex;//consume zero which must stand alone
+    } else if (!digits()) {//else if no integer digits
+      return false;//integer part missing
+    }//if leading zero
+    if (peek()=='.') {//if fraction
+      ++iIndex;//consume decimal point
+      if (!digits()) return false;//fraction digits missing
+    }//if fraction
+    int chr=peek();//get next character
+    if ((chr=='e')||(chr=='E')) {//if exponent
+      ++iIndex;//consume exponent character
+      chr=peek();//get next character
+      if ((chr=='+')||(chr=='-')) ++iIndex;//consume exponent sign
+      if (!digits()) return false;//exponent digits missing
+    }//if exponent
+
+    return true;//number is valid
+
+  }//number()
+
+  /**
+   * Consumes a run of decimal digits
+   * @return true if at least one digit was consumed
+   */
+  private boolean digits() {
+
+    int start=iIndex;//remember start of digits
+    while (iIndex<iLength) {//until end of message
+      int chr=peek();//get next character
+      if ((chr<'0')||(chr>'9')) break;//if not a digit then done
+      ++iIndex;//consume digit
+    }//until end of message
+
+    return iIndex>start;//digits found?
+
+  }//digits()
+
+  /**
+   * Validates a literal token
+   * @param aToken expected token
+   * @return true if the token is present
+   */
+  private boolean literal(String aToken) {
+
+    assert aToken!=null;
+
+    for (int i=0;i<aToken.length();++i) {//for each token character
+      if (peek()!=aToken.charAt(i)) return false;//token mismatch
+      ++iIndex;//consume token character
+    }//for each token character
+
+    return true;//token is present
+
+  }//literal()
+
+  /**
+   * Skips over whitespace
+   */
+  private void white() {
+
+    while (iIndex<iLength) {//until end of message
+      int chr=peek();//get next character
+      if ((chr!=' ')&&(chr!='\n')&&(chr!='\r')&&(chr!='\t')) return;//not whitespace
+      ++iIndex;//consume whitespace
+    }//until end of message
+
+  }//white()
+
+  /**
+   * Peeks at the next character from the message
+   * @return next character; or NONE if at end of message
+   */
+  private int peek() {
+
+    if (iIndex>=iLength) return NONE;//no character beyond end of the message
+    if (iBytes!=null) return iBytes[iIndex]&0xFF;//return unsigned byte
+    return iString.charAt(iIndex);//return character
+
+  }//peek()
+
+  /**
+   * Indicates if the innermost nesting level is an object
+   * @return true if the innermost level is an object; or false if an array
+   */
+  private boolean object() {
+
+    assert iDepth>0;
+
+    int level=iDepth-1;//innermost level
+    return (iNesting[level/WORD]&(1L<<(level%WORD)))!=0;//test nesting bit
+
+  }//object()
+
+  /**
+   * Pushes a nesting level
+   * @param aObject true if an object is nested; or false if an array
+   */
+  private void push(boolean aObject) {
+
+    int word=iDepth/WORD;//word holding the new level
+    if (word==iNesting.length) {//if nesting stack is full
+      long[] nesting=new long[iNesting.length*2];//double the stack
+      System.arraycopy(iNesting, 0, nesting, 0, iNesting.length);//copy existing levels
+      iNesting=nesting;//keep the larger stack for later messages
+    }//if nesting stack is full
+    long bit=1L<<(iDepth%WORD);//bit for the new level
+    if (aObject) {//if object
+      iNesting[word]|=bit;//set bit
+    } else {//else array
+      iNesting[word]&=~bit;//clear bit
+    }//if object
+    ++iDepth;//one level deeper
+
+  }//push()
+
+  /**
+   * Records a validation failure at the current position
+   * @return always returns false
+   */
+  private boolean fail() {
+
+    iErrorIndex=iIndex;//remember error position
+    return false;//message is invalid
+
+  }//fail()
+
+}//Validator{}
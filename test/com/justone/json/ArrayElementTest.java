@@ -26,6 +26,7 @@ SOFTWARE.
 
 package com.justone.json;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Iterator;
 import org.junit.Test;
@@ -389,4 +390,125 @@ public class ArrayElementTest {
     
   }//testGetDescendentElements()
   
+  /**
+   * Test of equals, hashCode and getHash methods, of class ArrayElement.
+   */
+  @Test
+  public void testEquals() {
+    
+    System.out.println("equals");
+    
+    Parser parser = new Parser();
+    parser.parse("[1,[2,3],{\"a\":4}]");
+    Element instance = parser.getRootElement();
+    parser.parse("[1,[2,3],{\"a\":4}]");
+    assertEquals(true, instance.equals(parser.getRootElement()));
+    assertEquals(instance.hashCode(), parser.getRootElement().hashCode());
+    
+    parser.parse("[1,[3,2],{\"a\":4}]");
+    assertEquals(false, instance.equals(parser.getRootElement()));
+    assertEquals(true, instance.getHash()!=parser.getRootElement().getHash());
+    
+    parser.parse("[1,[2,3]]");
+    Element other = parser.getRootElement();
+    assertEquals(false, instance.equals(other));
+    ObjectElement object = new ObjectElement();
+    object.putElement("a", new ScalarElement(4));
+    ((ArrayElement)other).addElement(object);
+    assertEquals(true, instance.equals(other));
+    
+    HashMap<Element,String> map = new HashMap<>();
+    map.put(instance, "found");
+    assertEquals("found", map.get(other));
+    
+  }//testEquals()
+
+  /**
+   * Test of removing through the iterator of getChildElements method, of class ArrayElement.
+   */
+  @Test
+  public void testIteratorRemove() {
+    
+    System.out.println("getChildElements().remove()");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"x\":[1,2,3]}");
+    Element root = parser.getRootElement();
+    ArrayElement instance = (ArrayElement)root.getChildElement("x");
+    long hash = root.getHash();
+    Iterator<Element> iterator = instance.getChildElements();
+    Element first = iterator.next();
+    iterator.remove();
+    assertEquals(null, first.getParentElement());
+    try {
+      iterator.remove();
+      fail("IllegalStateException expected");
+    } catch (IllegalStateException e) {
+    }//try
+    assertEquals("2", iterator.next().toString());
+    assertEquals(0, instance.getChildElement(0).getIndex());
+    assertEquals(1, instance.getChildElement(1).getIndex());
+    
+    parser.parse("{\"x\":[2,3]}");
+    Element expected = parser.getRootElement();
+    assertEquals(true, hash!=root.getHash());
+    assertEquals(expected.getHash(), root.getHash());
+    assertEquals(true, expected.equals(root));
+    assertEquals(true, expected.getChildElement("x").equals(instance));
+    Serializer serializer = new Serializer();
+    serializer.setVerbatim(true);
+    assertEquals("{\"x\":[2,3]}", serializer.write(root, new StringBuilder()).toString());
+    
+    root.freeze();
+    try {
+      instance.getChildElements().remove();
+      fail("UnsupportedOperationException expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals(2, instance.size());
+    }//try
+    
+  }//testIteratorRemove()
+
+  /**
+   * Test of insertElement, setElement and removeElement methods, of class ArrayElement.
+   */
+  @Test
+  public void testMutators() {
+    
+    System.out.println("insertElement/setElement/removeElement");
+    
+    Parser parser = new Parser();
+    parser.parse("[1,2,3]");
+    ArrayElement instance = (ArrayElement)parser.getRootElement();
+    long hash = instance.getHash();
+    ScalarElement zero = new ScalarElement(0);
+    instance.insertElement(0, zero);
+    assertEquals("[0,1,2,3]", instance.toString());
+    assertSame(instance, zero.getParentElement());
+    assertEquals(3, instance.getChildElement(3).getIndex());
+    assertEquals(true, hash!=instance.getHash());
+    
+    Element previous = instance.setElement(2, new ScalarElement("x"));
+    assertEquals("2", previous.toString());
+    assertEquals(null, previous.getParentElement());
+    assertEquals("[0,1,\"x\",3]", instance.toString());
+    assertEquals(2, instance.getChildElement(2).getIndex());
+    
+    Element removed = instance.removeElement(0);
+    assertSame(zero, removed);
+    assertEquals(null, zero.getParentElement());
+    assertEquals("[1,\"x\",3]", instance.toString());
+    assertEquals(2, instance.getChildElement(2).getIndex());
+    parser.parse("[1,\"x\",3]");
+    assertEquals(true, instance.equals(parser.getRootElement()));
+    
+    try {
+      instance.removeElement(3);
+      fail("bad index expected");
+    } catch (IndexOutOfBoundsException e) {
+      assertEquals("Bad index : 3", e.getMessage());
+    }//try
+    
+  }//testMutators()
+
 }//ArrayElementTest{}
@@ -0,0 +1,189 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+package com.justone.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class BinderTest {
+  
+  public BinderTest() {
+  }
+
+  static class Base {
+    long identity;
+  }
+
+  static class Location {
+    double latitude;
+    double longitude;
+  }
+
+  static class Sighting extends Base {
+    private int count;
+    short code;
+    boolean seen;
+    float score;
+    String name;
+    Integer rank;
+    Boolean flag;
+    BigDecimal price;
+    BigInteger serial;
+    Location location;
+    List<Location> trail;
+    List<String> tags;
+    Sighting previous;
+    transient int ignored;
+    static int shared;
+    private Sighting() {
+    }
+  }
+
+  static class Inner {
+    Inner(int aValue) {
+    }
+  }
+
+  static class Raw {
+    @SuppressWarnings("rawtypes")
+    List items;
+  }
+
+  /**
+   * Test of bind method, of class Binder.
+   */
+  @Test
+  public void testBind() {
+    
+    System.out.println("bind");
+    
+    Binder<Sighting> instance = new Binder<>(Sighting.class);
+    Sighting sighting = instance.bind(" {\"identity\":12345678901234,\"count\":3,\"code\":-7,\"seen\":true,\"score\":2.5,"
+                                    + "\"name\":\"a\\\"b\\u0041\",\"rank\":9,\"flag\":false,\"price\":0.1234567890123456789,"
+                                    + "\"serial\":123456789012345678901234,\"unknown\":{\"x\":[1,{\"y\":\"]\"}]},"
+                                    + "\"location\":{\"longitude\":-0.0787108,\"latitude\":51.5047650},"
+                                    + "\"trail\":[{\"latitude\":1},null,{}],\"tags\":[\"p\",\"q\"],\"ignored\":4,\"shared\":5,"
+                                    + "\"previous\":{\"identity\":1,\"name\":null,\"count\":null}} ");
+    assertEquals(12345678901234L, sighting.identity);
+    assertEquals(3, sighting.count);
+    assertEquals(-7, sighting.code);
+    assertEquals(true, sighting.seen);
+    assertEquals(2.5, sighting.score, 0.0);
+    assertEquals("a\"bA", sighting.name);
+    assertEquals(Integer.valueOf(9), sighting.rank);
+    assertEquals(Boolean.FALSE, sighting.flag);
+    assertEquals(new BigDecimal("0.1234567890123456789"), sighting.price);
+    assertEquals(new BigInteger("123456789012345678901234"), sighting.serial);
+    assertEquals(51.504765, sighting.location.latitude, 0.0);
+    assertEquals(-0.0787108, sighting.location.longitude, 0.0);
+    assertEquals(3, sighting.trail.size());
+    assertEquals(1.0, sighting.trail.get(0).latitude, 0.0);
+    assertNull(sighting.trail.get(1));
+    assertEquals(0.0, sighting.trail.get(2).latitude, 0.0);
+    assertEquals("q", sighting.tags.get(1));
+    assertEquals(0, sighting.ignored);
+    assertEquals(0, Sighting.shared);
+    assertEquals(1L, sighting.previous.identity);
+    assertNull(sighting.previous.name);
+    assertEquals(0, sighting.previous.count);
+    assertNull(sighting.previous.previous);
+    
+    assertNull(instance.bind("null"));
+    assertNotSame(instance.bind("{}"), instance.bind("{}"));
+    assertEquals(0L, instance.bind("{}").identity);
+    
+  }//testBind()
+
+  /**
+   * Test of bind method, of class Binder, with values that do not fit their fields.
+   */
+  @Test
+  public void testBindMismatch() {
+    
+    System.out.println("bind(mismatch)");
+    
+    Binder<Sighting> instance = new Binder<>(Sighting.class);
+    String[] messages = {"{\"count\":\"3\"}", "{\"count\":3.5}", "{\"count\":2147483648}", "{\"code\":40000}",
+                         "{\"seen\":1}", "{\"name\":7}", "{\"serial\":1.5}", "{\"location\":[]}", "{\"tags\":{}}",
+                         "{\"identity\":99999999999999999999}"};
+    String[] labels = {"Sighting.count", "Sighting.count", "Sighting.count", "Sighting.code", "Sighting.seen",
+                       "Sighting.name", "Sighting.serial", "Sighting.location", "Sighting.tags", "Base.identity"};
+    for (int i=0;i<messages.length;++i) {
+      try {
+        instance.bind(messages[i]);
+        fail("bad value expected");
+      } catch (JsonParseException e) {
+        fail("bad value expected");
+      } catch (RuntimeException e) {
+        assertEquals(true, e.getMessage().startsWith("Bad value : "+labels[i]+" at offset "));
+      }//try
+    }//for
+    
+    String[] malformed = {"", "[]", "{\"count\":3", "{\"count\" 3}", "{\"count\":3,}", "{} {}", "{\"score\":1.2.3}",
+                          "{\"score\":1.}", "{\"score\":-.5}", "{\"count\":1-}", "{\"count\":01}", "{\"price\":1e+}"};
+    for (String message : malformed) {
+      try {
+        instance.bind(message);
+        fail("parse exception expected");
+      } catch (JsonParseException e) {
+        assertEquals(true, e.getMessage().startsWith("Invalid syntax"));
+      }//try
+    }//for
+    
+  }//testBindMismatch()
+
+  /**
+   * Test of Binder constructor with classes that cannot be bound.
+   */
+  @Test
+  public void testBinder() {
+    
+    System.out.println("Binder");
+    
+    try {
+      new Binder<>(Inner.class);
+      fail("bad class expected");
+    } catch (RuntimeException e) {
+      assertEquals("Bad class : com.justone.json.BinderTest$Inner", e.getMessage());
+    }//try
+    
+    try {
+      new Binder<>(Raw.class);
+      fail("bad field expected");
+    } catch (RuntimeException e) {
+      assertEquals("Bad field : Raw.items", e.getMessage());
+    }//try
+    
+  }//testBinder()
+
+}//BinderTest{}
@@ -0,0 +1,116 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class DiffTest {
+  
+  public DiffTest() {
+  }
+
+  /**
+   * Returns the patch between two messages
+   * @param aSource source message
+   * @param aTarget target message
+   * @return patch text
+   */
+  private static String diff(String aSource, String aTarget) {
+    
+    Parser source = new Parser();
+    source.parse(aSource);
+    Parser target = new Parser();
+    target.parse(aTarget);
+    return new Diff().diff(source.getRootElement(), target.getRootElement());
+    
+  }//diff()
+
+  /**
+   * Test of diff method for objects, of class Diff.
+   */
+  @Test
+  public void testDiffObjects() {
+    
+    System.out.println("diff(objects)");
+    
+    assertEquals("[]", diff("{\"a\":1,\"b\":[2]}", "{\"b\":[2],\"a\":1}"));
+    assertEquals("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":2}]", diff("{\"a\":1,\"b\":[2]}", "{\"a\":2,\"b\":[2]}"));
+    assertEquals("[{\"op\":\"remove\",\"path\":\"/a\"},{\"op\":\"add\",\"path\":\"/c\",\"value\":{\"d\":null}}]", diff("{\"a\":1,\"b\":2}", "{\"b\":2,\"c\":{\"d\":null}}"));
+    assertEquals("[{\"op\":\"replace\",\"path\":\"/x/y/z\",\"value\":\"new\"}]", diff("{\"x\":{\"y\":{\"z\":\"old\",\"w\":1}}}", "{\"x\":{\"y\":{\"z\":\"new\",\"w\":1}}}"));
+    assertEquals("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":[1]}]", diff("{\"a\":{}}", "{\"a\":[1]}"));
+    assertEquals("[{\"op\":\"replace\",\"path\":\"\",\"value\":[]}]", diff("{}", "[]"));
+    assertEquals("[{\"op\":\"add\",\"path\":\"/a~1b~0c\\\"d\",\"value\":1}]", diff("{}", "{\"a/b~c\\\"d\":1}"));
+    
+  }//testDiffObjects()
+
+  /**
+   * Test of diff method for arrays, of class Diff.
+   */
+  @Test
+  public void testDiffArrays() {
+    
+    System.out.println("diff(arrays)");
+    
+    assertEquals("[]", diff("[1,2,3]", "[1,2,3]"));
+    assertEquals("[{\"op\":\"add\",\"path\":\"/2\",\"value\":9}]", diff("[1,2,3,4]", "[1,2,9,3,4]"));
+    assertEquals("[{\"op\":\"remove\",\"path\":\"/1\"}]", diff("[1,2,3,4]", "[1,3,4]"));
+    assertEquals("[{\"op\":\"replace\",\"path\":\"/1\",\"value\":5}]", diff("[1,2,3]", "[1,5,3]"));
+    assertEquals("[{\"op\":\"remove\",\"path\":\"/0\"},{\"op\":\"add\",\"path\":\"/2\",\"value\":\"c\"}]", diff("[\"x\",\"a\",\"b\"]", "[\"a\",\"b\",\"c\"]"));
+    assertEquals("[{\"op\":\"replace\",\"path\":\"/1/n\",\"value\":3}]", diff("[{\"n\":1},{\"n\":2},{\"n\":0}]", "[{\"n\":1},{\"n\":3},{\"n\":0}]"));
+    assertEquals("[{\"op\":\"add\",\"path\":\"/0\",\"value\":1},{\"op\":\"add\",\"path\":\"/1\",\"value\":2}]", diff("[]", "[1,2]"));
+    assertEquals("[{\"op\":\"remove\",\"path\":\"/0\"},{\"op\":\"remove\",\"path\":\"/0\"}]", diff("[1,2]", "[]"));
+    
+  }//testDiffArrays()
+
+  /**
+   * Test of diff method for large arrays, of class Diff.
+   */
+  @Test
+  public void testDiffLargeArrays() {
+    
+    System.out.println("diff(large arrays)");
+    
+    StringBuilder source = new StringBuilder("[");
+    StringBuilder target = new StringBuilder("[");
+    for (int i=0;i<1000;++i) {
+      source.append(i==0?"":",").append(i);
+      target.append(i==0?"":",").append(i%2==0?i:-i);
+    }//for each element
+    source.append(']');
+    target.append(']');
+    String patch = diff(source.toString(), target.toString());
+    assertEquals(true, patch.startsWith("[{\"op\":\"replace\",\"path\":\"/1\",\"value\":-1},{\"op\":\"replace\",\"path\":\"/3\",\"value\":-3}"));
+    assertEquals(true, patch.endsWith("{\"op\":\"replace\",\"path\":\"/999\",\"value\":-999}]"));
+    
+  }//testDiffLargeArrays()
+  
+}//DiffTest{}
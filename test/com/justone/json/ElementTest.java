@@ -0,0 +1,172 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.math.BigDecimal;
+import java.util.LinkedList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class ElementTest {
+  
+  /**
+   * Message read concurrently
+   */
+  private static final String MESSAGE = "{\"a\":[1,2,{\"b\":\"x\",\"c\":[true,null]}],\"d\":{\"b\":{\"e\":3.5}},\"f\":\"y\\u00e9\"}";
+  
+  /**
+   * Frozen element published to reader threads
+   */
+  private volatile Element iShared;
+  
+  public ElementTest() {
+  }
+
+  /**
+   * Test of freeze and isFrozen methods, of class Element.
+   */
+  @Test
+  public void testFreeze() {
+    
+    System.out.println("freeze");
+    
+    Parser parser = new Parser();
+    parser.parse(MESSAGE);
+    Element root = parser.getRootElement();
+    ObjectElement d = (ObjectElement)root.getChildElement("d");
+    assertEquals(false, root.isFrozen());
+    assertSame(d, d.freeze());
+    assertEquals(true, root.isFrozen());
+    assertEquals(true, root.getChildElement("a").getChildElement(2).getChildElement("c").getChildElement(1).isFrozen());
+    assertEquals(MESSAGE, root.toString());
+    
+    try {
+      d.putElement("g", new ScalarElement(1));
+      fail("frozen element expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals("Frozen element", e.getMessage());
+    }//try
+    try {
+      ((ArrayElement)root.getChildElement("a")).removeElement(0);
+      fail("frozen element expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals("Frozen element", e.getMessage());
+    }//try
+    try {
+      new ArrayElement().addElement(root.getChildElement("f"));
+      fail("frozen element expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals("Frozen element", e.getMessage());
+    }//try
+    try {
+      root.getChildElements().remove();
+      fail("read only iterator expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals(3, root.size());
+    }//try
+    try {
+      new KeyIndex(root);
+      fail("frozen element expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals("Frozen element", e.getMessage());
+    }//try
+    
+    parser.parse(MESSAGE);
+    assertEquals(true, root.equals(parser.getRootElement()));
+    assertEquals(root.getHash(), parser.getRootElement().getHash());
+    Element copy = new Patch().apply(parser.getRootElement(), "[{\"op\":\"copy\",\"from\":\"/f\",\"path\":\"/g\"}]");
+    assertEquals(false, copy.isFrozen());
+    assertEquals(false, copy.equals(root));
+    
+  }//testFreeze()
+
+  /**
+   * Test of reading a frozen element from many threads, of class Element.
+   * @throws InterruptedException if interrupted while waiting for readers
+   */
+  @Test
+  public void testFreezeShared() throws InterruptedException {
+    
+    System.out.println("freeze(shared)");
+    
+    Parser parser = new Parser();
+    parser.parse(MESSAGE);
+    final String expected = parser.getRootElement().toString();
+    final long hash = parser.getRootElement().getHash();
+    final Path path = new Path("/@a/#2/@c/#0");
+    final Path number = new Path("/@d/@b/@e");
+    final Path text = new Path("/@f");
+    final AtomicInteger failures = new AtomicInteger();
+    final AtomicInteger reads = new AtomicInteger();
+    
+    for (int round=0;round<20;++round) {
+      iShared = null;
+      final CountDownLatch ready = new CountDownLatch(8);
+      final CountDownLatch finished = new CountDownLatch(8);
+      for (int i=0;i<8;++i) {
+        new Thread(new Runnable() {
+          @Override
+          public void run() {
+            ready.countDown();
+            Element element;
+            while ((element=iShared)==null) Thread.yield();
+            for (int j=0;j<100;++j) {
+              if (!expected.equals(element.toString())) failures.incrementAndGet();
+              if (hash!=element.getHash()) failures.incrementAndGet();
+              if (!"true".equals(path.iterator(element).next().toString())) failures.incrementAndGet();
+              if (element.getDescendentElements("b", new LinkedList<Element>()).size()!=2) failures.incrementAndGet();
+              ScalarElement decimal = (ScalarElement)number.iterator(element).next();
+              if (decimal.getNumber().doubleValue()!=3.5) failures.incrementAndGet();
+              if (!new BigDecimal("3.5").equals(decimal.getBigDecimal())) failures.incrementAndGet();
+              ScalarElement string = (ScalarElement)text.iterator(element).next();
+              if (!"y\u00e9".equals(string.getString())) failures.incrementAndGet();
+              if (!"\"y\\u00e9\"".equals(string.toString())) failures.incrementAndGet();
+              reads.incrementAndGet();
+            }//for each read
+            finished.countDown();
+          }//run()
+        }).start();
+      }//for each reader
+      ready.await();
+      Parser writer = new Parser();
+      writer.parse(MESSAGE);
+      iShared = writer.getRootElement().freeze();
+      finished.await();
+    }//for each round
+    
+    assertEquals(0, failures.get());
+    assertEquals(20*8*100, reads.get());
+    
+  }//testFreezeShared()
+
+}//ElementTest{}
@@ -0,0 +1,175 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class ExtractorTest {
+  
+  public ExtractorTest() {
+  }
+
+  /**
+   * Test of size method, of class Extractor.
+   */
+  @Test
+  public void testSize() {
+    
+    System.out.println("size");
+    
+    Extractor instance = new Extractor(new Path[]{new Path("/@a"),new Path("/@b")});
+    assertEquals(2, instance.size());
+    
+  }//testSize()
+
+  /**
+   * Test of extract method, of class Extractor.
+   */
+  @Test
+  public void testExtract() {
+    
+    System.out.println("extract");
+    
+    Extractor instance = new Extractor(new Path[]{
+      new Path("/@identity"),
+      new Path("/@location/@latitude"),
+      new Path("/@location/@longitude"),
+      new Path("/@name"),
+      new Path("/@flags/#1"),
+      new Path("/@missing"),
+      new Path("/@location"),
+      new Path("/@none"),
+    });
+    SlotRecord record = new SlotRecord(instance.size());
+    
+    String message="{\"skip\":{\"a\":[1,{\"b\":\"}\"}]},\"identity\":12345,\"location\":{\"latitude\":51.5047650,\"longitude\":-2.4841220},"
+                  +"\"name\":\"J\\\"S\",\"flags\":[false,true],\"none\":null}";
+    assertSame(record, instance.extract(message, record));
+    
+    assertEquals(true, record.isPresent(0));
+    assertEquals(Element.NUMBER, record.getType(0));
+    assertEquals(12345L, record.getLong(0));
+    assertEquals(12345.0, record.getDouble(0), 0.0);
+    assertEquals("12345", record.getString(0).toString());
+    
+    assertEquals(51.5047650, record.getDouble(1), 0.0);
+    assertEquals(51L, record.getLong(1));
+    assertEquals(-2.4841220, record.getDouble(2), 0.0);
+    
+    assertEquals(Element.STRING, record.getType(3));
+    assertEquals("J\\\"S", record.getString(3).toString());
+    
+    assertEquals(Element.BOOLEAN, record.getType(4));
+    assertEquals(true, record.getBoolean(4));
+    
+    assertEquals(false, record.isPresent(5));
+    assertEquals(0, record.getType(5));
+    assertNull(record.getString(5));
+    
+    assertEquals(Element.OBJECT, record.getType(6));
+    assertNull(record.getString(6));
+    
+    assertEquals(Element.NULL, record.getType(7));
+    
+    instance.extract("{\"identity\":-7,\"flags\":[true,false]}", record);
+    assertEquals(-7L, record.getLong(0));
+    assertEquals(false, record.getBoolean(4));
+    assertEquals(false, record.isPresent(1));
+    assertEquals(false, record.isPresent(3));
+    
+  }//testExtract()
+
+  /**
+   * Test of extract method with numbers, of class Extractor.
+   */
+  @Test
+  public void testExtractNumbers() {
+    
+    System.out.println("extract(numbers)");
+    
+    String[] numbers={"0","-0","1.5","-1.25e2","1E-3","123456789012345678","9223372036854775807",
+                      "-9223372036854775808","12345678901234567890","0.1","1e300","4.9e-324","3.141592653589793238"};
+    Extractor instance = new Extractor(new Path[]{new Path("/#0")});
+    SlotRecord record = new SlotRecord(1);
+    for (String number : numbers) {
+      instance.extract("["+number+"]", record);
+      assertEquals(number, Double.parseDouble(number), record.getDouble(0), 0.0);
+    }//for each number
+    
+    instance.extract("[9223372036854775807]", record);
+    assertEquals(Long.MAX_VALUE, record.getLong(0));
+    instance.extract("[-9223372036854775808]", record);
+    assertEquals(Long.MIN_VALUE, record.getLong(0));
+    instance.extract("[-12.75]", record);
+    assertEquals(-12L, record.getLong(0));
+    
+  }//testExtractNumbers()
+
+  /**
+   * Test of extract method stopping once all paths are found, of class Extractor.
+   */
+  @Test
+  public void testExtractEarlyStop() {
+    
+    System.out.println("extract(early stop)");
+    
+    Extractor instance = new Extractor(new Path[]{new Path("/@a")});
+    SlotRecord record = new SlotRecord(1);
+    instance.extract("{\"a\":1,\"b\":this is never looked at", record);
+    assertEquals(1L, record.getLong(0));
+    
+  }//testExtractEarlyStop()
+
+  /**
+   * Test of extract method with malformed messages, of class Extractor.
+   */
+  @Test
+  public void testExtractMalformed() {
+    
+    System.out.println("extract(malformed)");
+    
+    Extractor instance = new Extractor(new Path[]{new Path("/@a"),new Path("/@b")});
+    SlotRecord record = new SlotRecord(2);
+    String[] messages={"{\"a\":1","{\"a\" 1}","{\"a\":1 \"b\":2}","{\"a\":nul}","{\"a\":\"x}","{\"a\":1-}","{\"c\":[1,2}","{\"a\":1}x",
+                    "{\"a\":1.}","{\"a\":-.5}","{\"a\":01}","{\"a\":1e+}"};
+    for (String message : messages) {
+      try {
+        instance.extract(message, record);
+        fail(message);
+      } catch (JsonParseException e) {
+        assertTrue(e.getOffset()<=message.length());
+      }//try
+    }//for each message
+    
+  }//testExtractMalformed()
+
+}//ExtractorTest{}
@@ -0,0 +1,198 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class JsonGeneratorTest {
+  
+  public JsonGeneratorTest() {
+  }
+
+  /**
+   * Test of startObject, name, value and endObject methods, of class JsonGenerator.
+   */
+  @Test
+  public void testObject() throws Exception {
+    
+    System.out.println("startObject/name/value/endObject");
+    
+    StringBuilder buffer = new StringBuilder();
+    JsonGenerator instance = new JsonGenerator(buffer);
+    instance.startObject()
+            .name("a").value(1)
+            .name("b").startArray().value(true).value(false).nullValue().value((CharSequence)null).endArray()
+            .name("c").startObject().endObject()
+            .name("d").startArray().endArray()
+            .name("e").value("x\"y\n")
+            .name("f\\").startArray().startObject().name("g").value(-2.5).endObject().startArray().endArray().endArray()
+            .endObject();
+    assertEquals("{\"a\":1,\"b\":[true,false,null,null],\"c\":{},\"d\":[],\"e\":\"x\\\"y\\n\",\"f\\\\\":[{\"g\":-2.5},[]]}", buffer.toString());
+    assertEquals(true, instance.isComplete());
+    
+    Parser parser = new Parser();
+    parser.parse(buffer.toString());
+    assertEquals(buffer.toString(), parser.getRootElement().toString());
+    
+    buffer.setLength(0);
+    instance.reset();
+    instance.startArray().value(parser.getElement(new Path("/@b"))).value(new ScalarElement(3)).endArray();
+    assertEquals("[[true,false,null,null],3]", buffer.toString());
+    
+    buffer.setLength(0);
+    instance.reset();
+    instance.value("root");
+    assertEquals("\"root\"", buffer.toString());
+    assertEquals(true, instance.isComplete());
+    
+  }//testObject()
+
+  /**
+   * Test of value methods for numbers, of class JsonGenerator.
+   */
+  @Test
+  public void testValueNumbers() throws Exception {
+    
+    System.out.println("value(numbers)");
+    
+    long[] longs={0,7,-7,10,1234567890123L,Long.MAX_VALUE,Long.MIN_VALUE};
+    for (long value : longs) {
+      StringBuilder buffer = new StringBuilder();
+      new JsonGenerator(buffer).value(value);
+      assertEquals(Long.toString(value), buffer.toString());
+    }//for each long
+    
+    double[] doubles={0.0,-0.0,1.0,-1.0,9999999.0,1e7,-1e7,0.5,1e-4,3.141592653589793,1e300,-12345.0,(double)(1L<<52)};
+    for (double value : doubles) {
+      StringBuilder buffer = new StringBuilder();
+      new JsonGenerator(buffer).value(value);
+      assertEquals(Double.toString(value), buffer.toString());
+    }//for each double
+    
+    StringBuilder exact = new StringBuilder();
+    new JsonGenerator(exact).startArray().value(new BigDecimal("0.1234567890123456789")).value(new BigInteger("123456789012345678901234"))
+                            .value((BigDecimal)null).value(new BigDecimal("1E+3")).endArray();
+    assertEquals("[0.1234567890123456789,123456789012345678901234,null,1E+3]", exact.toString());
+    
+    try {
+      new JsonGenerator(new StringBuilder()).value(Double.NaN);
+      fail("bad number expected");
+    } catch (RuntimeException e) {
+      assertEquals(true, e.getMessage().startsWith("Bad number"));
+    }//try
+    
+  }//testValueNumbers()
+
+  /**
+   * Test of UTF-8 output, of class JsonGenerator.
+   */
+  @Test
+  public void testBytes() throws Exception {
+    
+    System.out.println("bytes");
+    
+    String expected = "{\"caf\u00e9\":[\"\u20ac\",\"\ud83d\ude00\",42]}";
+    
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    JsonGenerator instance = new JsonGenerator(stream);
+    instance.startObject().name("caf\u00e9").startArray().value("\u20ac").value("\ud83d\ude00").value(42).endArray().endObject();
+    assertEquals(0, stream.size());
+    instance.flush();
+    assertEquals(expected, stream.toString("UTF-8"));
+    assertNull(instance.getBuffer());
+    
+    instance = new JsonGenerator(ByteBuffer.allocate(4));
+    instance.startObject().name("caf\u00e9").startArray().value("\u20ac").value("\ud83d\ude00").value(42).endArray().endObject();
+    ByteBuffer buffer = instance.getBuffer();
+    byte[] bytes = new byte[buffer.position()];
+    buffer.flip();
+    buffer.get(bytes);
+    assertEquals(expected, new String(bytes, "UTF-8"));
+    
+  }//testBytes()
+
+  /**
+   * Test of structure checks, of class JsonGenerator.
+   */
+  @Test
+  public void testStructure() throws Exception {
+    
+    System.out.println("structure");
+    
+    boolean asserts = false;
+    assert asserts = true;
+    if (!asserts) return;//structure is only checked with assertions enabled
+    
+    JsonGenerator instance = new JsonGenerator(new StringBuilder());
+    instance.startObject();
+    try {
+      instance.value(1);
+      fail("value without name");
+    } catch (AssertionError e) {
+    }//try
+    
+    instance = new JsonGenerator(new StringBuilder());
+    instance.startArray();
+    try {
+      instance.name("a");
+      fail("name in array");
+    } catch (AssertionError e) {
+    }//try
+    try {
+      instance.endObject();
+      fail("end object in array");
+    } catch (AssertionError e) {
+    }//try
+    
+    instance = new JsonGenerator(new StringBuilder());
+    instance.startObject().name("a");
+    try {
+      instance.endObject();
+      fail("name without value");
+    } catch (AssertionError e) {
+    }//try
+    
+    instance = new JsonGenerator(new StringBuilder());
+    instance.value(1);
+    try {
+      instance.value(2);
+      fail("message complete");
+    } catch (AssertionError e) {
+    }//try
+    
+  }//testStructure()
+  
+}//JsonGeneratorTest{}
@@ -0,0 +1,113 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class JsonParseExceptionTest {
+  
+  public JsonParseExceptionTest() {
+  }
+
+  /**
+   * Test of getOffset method, of class JsonParseException.
+   */
+  @Test
+  public void testGetOffset() {
+    
+    System.out.println("getOffset");
+    
+    JsonParseException instance = new JsonParseException("{\"a\":x}", 5, false);
+    assertEquals(5, instance.getOffset());
+    
+  }//testGetOffset()
+
+  /**
+   * Test of getLine and getColumn methods, of class JsonParseException.
+   */
+  @Test
+  public void testGetLineColumn() {
+    
+    System.out.println("getLine/getColumn");
+    
+    JsonParseException instance = new JsonParseException("{\"a\":x}", 5, false);
+    assertEquals(1, instance.getLine());
+    assertEquals(6, instance.getColumn());
+    
+    instance = new JsonParseException("{\n\"a\":1,\n\"b\":x}", 13, false);
+    assertEquals(3, instance.getLine());
+    assertEquals(5, instance.getColumn());
+    
+    instance = new JsonParseException("{\n", 2, false);
+    assertEquals(2, instance.getLine());
+    assertEquals(1, instance.getColumn());
+    
+  }//testGetLineColumn()
+
+  /**
+   * Test of getSnippet method, of class JsonParseException.
+   */
+  @Test
+  public void testGetSnippet() {
+    
+    System.out.println("getSnippet");
+    
+    JsonParseException instance = new JsonParseException("{\"a\":x}", 5, false);
+    assertEquals("{\"a\": ^ x}", instance.getSnippet());
+    
+    StringBuilder message=new StringBuilder("[");
+    for (int i=0;i<100;++i) message.append("1,");
+    message.append("x]");
+    instance = new JsonParseException(message, 201, false);
+    String snippet=instance.getSnippet();
+    assertEquals("..."+message.substring(201-JsonParseException.SNIPPET,201)+" ^ x]", snippet);
+    
+    instance = new JsonParseException(message, 1, false);
+    assertEquals("[ ^ "+message.substring(1,1+JsonParseException.SNIPPET)+"...", instance.getSnippet());
+    
+  }//testGetSnippet()
+
+  /**
+   * Test of getMessage method, of class JsonParseException.
+   */
+  @Test
+  public void testGetMessage() {
+    
+    System.out.println("getMessage");
+    
+    JsonParseException instance = new JsonParseException("{\"a\":x}", 5, true);
+    assertEquals("Invalid syntax at line 1 column 6 : {\"a\": ^ x}", instance.getMessage());
+    assertEquals(0, instance.getStackTrace().length);
+    
+  }//testGetMessage()
+
+}//JsonParseExceptionTest{}
@@ -0,0 +1,183 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+package com.justone.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class JsonReaderTest {
+  
+  public JsonReaderTest() {
+  }
+
+  /**
+   * Test of object and array methods, of class JsonReader.
+   */
+  @Test
+  public void testStructure() {
+    
+    System.out.println("startObject/nextKey/startArray/nextItem");
+    
+    JsonReader instance = new JsonReader(" { \"a\" : 1 , \"b\":[true, null ,{}], \"c\":{\"d\":[1,{\"e\":\"]\"}]}, \"f\":\"x\\\"y\" } ");
+    instance.startObject();
+    assertEquals(true, instance.nextKey());
+    assertEquals("a".hashCode(), instance.keyHash());
+    assertEquals(true, instance.isKey("a"));
+    assertEquals(false, instance.isKey("b"));
+    assertEquals(1L, instance.readLong());
+    assertEquals(true, instance.nextKey());
+    assertEquals(true, instance.isKey("b"));
+    instance.startArray();
+    assertEquals(true, instance.nextItem());
+    assertEquals(true, instance.readBoolean());
+    assertEquals(true, instance.nextItem());
+    assertEquals(true, instance.isNull());
+    assertEquals(true, instance.nextItem());
+    assertEquals(false, instance.isNull());
+    instance.startObject();
+    assertEquals(false, instance.nextKey());
+    assertEquals(false, instance.nextItem());
+    assertEquals(true, instance.nextKey());
+    assertEquals(true, instance.isKey("c"));
+    instance.skipValue();
+    assertEquals(true, instance.nextKey());
+    assertEquals("f".hashCode(), instance.keyHash());
+    assertEquals("x\"y", instance.readString());
+    assertEquals(false, instance.nextKey());
+    instance.end();
+    
+    assertEquals("Aa".hashCode(), keyHash("{\"Aa\":0}"));
+    assertEquals("BB".hashCode(), keyHash("{\"BB\":0}"));
+    assertEquals("\u00e9t\u00e9".hashCode(), keyHash("{\"\u00e9t\u00e9\":0}"));
+    
+    String[] malformed = {"{\"a\":1 \"b\":2}", "{,\"a\":1}", "{\"a\" 1}", "{\"a\":1,}", "[1,]", "[1 2]", "{\"a\":1]", "{\"a"};
+    for (String message : malformed) {
+      try {
+        JsonReader reader = new JsonReader(message);
+        if (message.startsWith("{")) {
+          reader.startObject();
+          while (reader.nextKey()) reader.readLong();
+        } else {
+          reader.startArray();
+          while (reader.nextItem()) reader.readLong();
+        }//if
+        fail("parse exception expected");
+      } catch (JsonParseException e) {
+        assertEquals(true, e.getMessage().startsWith("Invalid syntax"));
+      }//try
+    }//for
+    
+    try {
+      JsonReader reader = new JsonReader("{} x");
+      reader.startObject();
+      reader.nextKey();
+      reader.end();
+      fail("parse exception expected");
+    } catch (JsonParseException e) {
+      assertEquals(3, e.getOffset());
+    }//try
+    
+  }//testStructure()
+
+  /**
+   * Returns the hash of the first key of a message
+   * @param aMessage message holding an object
+   * @return key hash
+   */
+  private static int keyHash(String aMessage) {
+    
+    JsonReader reader = new JsonReader(aMessage);
+    reader.startObject();
+    reader.nextKey();
+    return reader.keyHash();
+    
+  }//keyHash()
+
+  /**
+   * Test of number methods, of class JsonReader.
+   */
+  @Test
+  public void testReadNumber() {
+    
+    System.out.println("readLong/readDouble/readBigInteger/readBigDecimal");
+    
+    String[] doubles = {"0", "-0", "2.5", "-0.0787108", "51.504765", "1e3", "1.5E-7", "123456789012345678901", "0.1234567890123456789",
+                        "9007199254740993", "3.141592653589793", "1.7976931348623157e308", "4.9e-324", "0.30000000000000004"};
+    for (String text : doubles) {
+      assertEquals(Double.valueOf(text), Double.valueOf(new JsonReader(text).readDouble()));
+    }//for
+    
+    assertEquals(Long.MAX_VALUE, new JsonReader(Long.toString(Long.MAX_VALUE)).readLong());
+    assertEquals(Long.MIN_VALUE, new JsonReader(Long.toString(Long.MIN_VALUE)).readLong());
+    assertEquals(-42L, new JsonReader("-42").readLong(-42, 42));
+    assertEquals(new BigInteger("123456789012345678901234"), new JsonReader("123456789012345678901234").readBigInteger());
+    assertEquals(new BigDecimal("0.1234567890123456789"), new JsonReader("0.1234567890123456789").readBigDecimal());
+    
+    String[] mismatched = {"43", "-43", "1.5", "1e3", "99999999999999999999", "\"1\"", "true"};
+    for (String text : mismatched) {
+      try {
+        new JsonReader(text).readLong(-42, 42);
+        fail("bad value expected");
+      } catch (JsonParseException e) {
+        fail("bad value expected");
+      } catch (RuntimeException e) {
+        assertEquals("Bad value at offset 0", e.getMessage());
+      }//try
+    }//for
+    
+    try {
+      new JsonReader("1.5").readBigInteger();
+      fail("bad value expected");
+    } catch (RuntimeException e) {
+      assertEquals("Bad value at offset 0", e.getMessage());
+    }//try
+    
+    String[] malformed = {"", "-", "1.", "-.5", "1-", "01", "1e+", "1.2.3"};
+    int[] offsets = {0, 1, 2, 1, 1, 1, 3, 3};
+    for (int i=0;i<malformed.length;++i) {
+      try {
+        new JsonReader(malformed[i]).readDouble();
+        fail("parse exception expected");
+      } catch (JsonParseException e) {
+        assertEquals(malformed[i], offsets[i], e.getOffset());
+      }//try
+      try {
+        new JsonReader(malformed[i]).readLong();
+        fail("parse exception expected");
+      } catch (JsonParseException e) {
+        assertEquals(malformed[i], offsets[i], e.getOffset());
+      }//try
+    }//for
+    
+  }//testReadNumber()
+
+}//JsonReaderTest{}
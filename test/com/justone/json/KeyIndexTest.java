@@ -0,0 +1,169 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.LinkedList;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class KeyIndexTest {
+  
+  public KeyIndexTest() {
+  }
+  
+  /**
+   * Builds {"a":{"a":1,"b":{"a":2}},"b":[{"a":3},{"c":{"a":4}}],"c":{"b":5}}
+   * @return root element
+   */
+  private static ObjectElement build() {
+    
+    ObjectElement root=new ObjectElement();
+    ObjectElement a=new ObjectElement();
+    a.putElement("a", new ScalarElement(1));
+    ObjectElement ab=new ObjectElement();
+    ab.putElement("a", new ScalarElement(2));
+    a.putElement("b", ab);
+    root.putElement("a", a);
+    ArrayElement b=new ArrayElement();
+    ObjectElement b0=new ObjectElement();
+    b0.putElement("a", new ScalarElement(3));
+    b.addElement(b0);
+    ObjectElement b1=new ObjectElement();
+    ObjectElement b1c=new ObjectElement();
+    b1c.putElement("a", new ScalarElement(4));
+    b1.putElement("c", b1c);
+    b.addElement(b1);
+    root.putElement("b", b);
+    ObjectElement c=new ObjectElement();
+    c.putElement("b", new ScalarElement(5));
+    root.putElement("c", c);
+    return root;
+    
+  }//build()
+
+  /**
+   * Test of count method, of class KeyIndex.
+   */
+  @Test
+  public void testCount() {
+    
+    System.out.println("count");
+    
+    KeyIndex instance = new KeyIndex(build());
+    assertEquals(5, instance.count("a"));
+    assertEquals(3, instance.count("b"));
+    assertEquals(2, instance.count("c"));
+    assertEquals(0, instance.count("d"));
+    
+  }//testCount()
+
+  /**
+   * Test of getDescendentElements method, of class KeyIndex.
+   */
+  @Test
+  public void testGetDescendentElements() {
+    
+    System.out.println("getDescendentElements");
+    
+    ObjectElement root=build();
+    String[] keys={"a","b","c","d"};
+    Element[] elements={root, root.getChildElement("a"), root.getChildElement("b"), root.getChildElement("b").getChildElement(1), root.getChildElement("c")};
+    
+    String[][] expected=new String[elements.length][keys.length];
+    for (int i=0;i<elements.length;++i) {
+      for (int j=0;j<keys.length;++j) {
+        expected[i][j]=elements[i].getDescendentElements(keys[j], new LinkedList<Element>()).toString();
+      }//for each key
+    }//for each element
+    assertEquals("[{\"a\":1,\"b\":{\"a\":2}}, 3, 4]", expected[0][0]);
+    
+    KeyIndex instance = new KeyIndex(root);
+    for (int i=0;i<elements.length;++i) {
+      for (int j=0;j<keys.length;++j) {
+        assertEquals(expected[i][j], instance.getDescendentElements(elements[i], keys[j], new LinkedList<Element>()).toString());
+        assertEquals(expected[i][j], elements[i].getDescendentElements(keys[j], new LinkedList<Element>()).toString());
+      }//for each key
+    }//for each element
+    
+  }//testGetDescendentElements()
+
+  /**
+   * Test of isValid method, of class KeyIndex.
+   */
+  @Test
+  public void testIsValid() {
+    
+    System.out.println("isValid");
+    
+    ObjectElement root=build();
+    KeyIndex instance = new KeyIndex(root);
+    assertEquals(true, instance.isValid());
+    assertEquals(3, root.getDescendentElements("a", new LinkedList<Element>()).size());
+    
+    ((ArrayElement)root.getChildElement("b")).addElement(new ScalarElement());
+    assertEquals(false, instance.isValid());
+    assertEquals(3, root.getDescendentElements("a", new LinkedList<Element>()).size());
+    ((ObjectElement)root.getChildElement("c")).putElement("a", new ScalarElement(6));
+    assertEquals(4, root.getDescendentElements("a", new LinkedList<Element>()).size());
+    assertEquals(root.getDescendentElements("a", new LinkedList<Element>()), instance.getDescendentElements(root, "a", new LinkedList<Element>()));
+    assertEquals(0, instance.getDescendentElements(new ObjectElement(), "a", new LinkedList<Element>()).size());
+    
+  }//testIsValid()
+
+  /**
+   * Test of building an index over part of an indexed hierarchy, of class KeyIndex.
+   */
+  @Test
+  public void testReindex() {
+    
+    System.out.println("reindex");
+    
+    ObjectElement expected=build();
+    ObjectElement root=build();
+    KeyIndex outer = new KeyIndex(root);
+    KeyIndex inner = new KeyIndex(root.getChildElement("b"));
+    assertEquals(false, outer.isValid());
+    assertEquals(true, inner.isValid());
+    for (String key:new String[]{"a","b","c"}) {
+      assertEquals(expected.getDescendentElements(key, new LinkedList<Element>()), root.getDescendentElements(key, new LinkedList<Element>()));
+      assertEquals(expected.getChildElement("b").getDescendentElements(key, new LinkedList<Element>()), root.getChildElement("b").getDescendentElements(key, new LinkedList<Element>()));
+    }//for each key
+    
+    KeyIndex other = new KeyIndex(build());
+    KeyIndex again = new KeyIndex(root);
+    assertEquals(false, inner.isValid());
+    assertEquals(true, other.isValid());
+    assertEquals(true, again.isValid());
+    assertEquals(expected.getDescendentElements("a", new LinkedList<Element>()), again.getDescendentElements(root, "a", new LinkedList<Element>()));
+    
+  }//testReindex()
+
+}//KeyIndexTest{}
@@ -28,6 +28,7 @@ package com.justone.json;
 
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -356,4 +357,215 @@ public class ObjectElementTest {
    
   }//testGetKeyIterator()
   
+  /**
+   * Test of equals, hashCode and getHash methods, of class ObjectElement.
+   */
+  @Test
+  public void testEquals() {
+    
+    System.out.println("equals");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":1,\"b\":{\"c\":[true,null],\"d\":\"x\"}}");
+    Element instance = parser.getRootElement();
+    parser.parse("{\"b\":{\"d\":\"x\",\"c\":[true,null]},\"a\":1}");
+    Element other = parser.getRootElement();
+    assertNotSame(instance, other);
+    assertEquals(instance.getHash(), other.getHash());
+    assertEquals(instance.hashCode(), other.hashCode());
+    assertEquals(true, instance.equals(other));
+    assertEquals(false, instance.equals(null));
+    assertEquals(false, instance.equals("{}"));
+    
+    ObjectElement built = new ObjectElement();
+    built.putElement("a", new ScalarElement(1));
+    assertEquals(false, instance.equals(built));
+    ObjectElement b = new ObjectElement();
+    built.putElement("b", b);
+    ArrayElement c = new ArrayElement();
+    b.putElement("c", c);
+    b.putElement("d", new ScalarElement("x"));
+    c.addElement(new ScalarElement(true));
+    assertEquals(false, instance.equals(built));
+    c.addElement(new ScalarElement());
+    assertEquals(true, instance.equals(built));
+    assertEquals(instance.getHash(), built.getHash());
+    
+    long hash = instance.getHash();
+    ((ObjectElement)parser.getElement(new Path("/@b"))).putElement("e", new ScalarElement(false));
+    assertEquals(false, instance.equals(other));
+    assertEquals(true, hash!=other.getHash());
+    
+    assertEquals(false, new ObjectElement().equals(new ArrayElement()));
+    assertEquals(true, new ObjectElement().equals(new ObjectElement()));
+    
+  }//testEquals()
+
+  /**
+   * Test of removing through the iterators of an object held as a map, of class ObjectElement.
+   */
+  @Test
+  public void testIteratorRemove() {
+    
+    System.out.println("getKeyIterator().remove()/getChildElements().remove()");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":1,\"b\":{\"c\":2}}");
+    ObjectElement instance = (ObjectElement)parser.getRootElement();
+    instance.putElement("d", new ScalarElement(3));
+    long hash = instance.getHash();
+    Element a = instance.getChildElement("a");
+    Iterator<String> keys = instance.getKeyIterator();
+    assertEquals("a", keys.next());
+    keys.remove();
+    assertEquals(null, a.getParentElement());
+    assertEquals("b", keys.next());
+    
+    parser.parse("{\"b\":{\"c\":2},\"d\":3}");
+    Element expected = parser.getRootElement();
+    assertEquals(true, hash!=instance.getHash());
+    assertEquals(expected.getHash(), instance.getHash());
+    assertEquals(true, expected.equals(instance));
+    
+    Iterator<Element> values = instance.getChildElements();
+    values.next();
+    values.remove();
+    Serializer serializer = new Serializer();
+    serializer.setVerbatim(true);
+    assertEquals("{\"d\":3}", serializer.write(instance, new StringBuilder()).toString());
+    assertEquals(false, instance.hasKey("b"));
+    
+  }//testIteratorRemove()
+
+  /**
+   * Test of removeElement method, of class ObjectElement.
+   */
+  @Test
+  public void testRemoveElement() {
+    
+    System.out.println("removeElement");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":1,\"b\":{\"c\":2}}");
+    ObjectElement instance = (ObjectElement)parser.getRootElement();
+    long hash = instance.getHash();
+    Element b = instance.getChildElement("b");
+    assertSame(b, instance.removeElement("b"));
+    assertEquals(null, b.getParentElement());
+    assertEquals(null, instance.removeElement("b"));
+    assertEquals("{\"a\":1}", instance.toString());
+    assertEquals(true, hash!=instance.getHash());
+    
+  }//testRemoveElement()
+
+  /**
+   * Test of shaped objects, of class ObjectElement.
+   */
+  @Test
+  public void testShapes() {
+    
+    System.out.println("shapes");
+    
+    Parser parser = new Parser();
+    parser.parse("[{\"b\":1,\"a\":[2],\"c\":{\"d\":3}},{\"b\":4,\"a\":[5],\"c\":{\"d\":6}},{\"a\":1,\"a\":2,\"b\":3},{}]");
+    Element root = parser.getRootElement();
+    ObjectElement first = (ObjectElement)root.getChildElement(0);
+    ObjectElement second = (ObjectElement)root.getChildElement(1);
+    assertEquals("{\"a\":[2],\"b\":1,\"c\":{\"d\":3}}", first.toString());
+    assertEquals("{\"a\":2,\"b\":3}", root.getChildElement(2).toString());
+    assertEquals("{}", root.getChildElement(3).toString());
+    assertEquals(3, first.size());
+    assertEquals(true, first.hasKey("c"));
+    assertEquals(false, first.hasKey("d"));
+    assertEquals(null, first.getChildElement("d"));
+    assertSame(first, first.getChildElement("c").getParentElement());
+    Iterator<String> keys = first.getKeyIterator();
+    Iterator<Element> values = first.getChildElements();
+    for (String key:new String[]{"a","b","c"}) {
+      assertEquals(key, keys.next());
+      assertSame(first.getChildElement(key), values.next());
+    }//for
+    assertEquals(false, keys.hasNext());
+    assertEquals(false, values.hasNext());
+    ObjectElement removed = (ObjectElement)first.copy();
+    Iterator<Map.Entry<String,Element>> entries = removed.getEntryIterator();
+    try {
+      entries.remove();
+      fail("IllegalStateException expected");
+    } catch (IllegalStateException e) {
+    }//try
+    Map.Entry<String,Element> entry = entries.next();
+    assertEquals("a", entry.getKey());
+    assertSame(removed.getChildElement("a"), entry.getValue());
+    Element a = entry.getValue();
+    entries.remove();
+    assertEquals(null, a.getParentElement());
+    assertEquals("b", entries.next().getKey());
+    entries.next();
+    entries.remove();
+    assertEquals(false, entries.hasNext());
+    assertEquals("{\"b\":1}", removed.toString());
+    assertEquals(3, first.size());
+    
+    Element copy = first.copy();
+    assertEquals(first, copy);
+    assertSame(copy, copy.getChildElement("a").getParentElement());
+    assertEquals(false, first.equals(second));
+    second.putElement("b", new ScalarElement(1L));
+    second.putElement("a", first.getChildElement("a").copy());
+    second.putElement("c", first.getChildElement("c").copy());
+    assertEquals(first, second);
+    assertEquals(first.hashCode(), second.hashCode());
+    
+    second.putElement("e", new ScalarElement(7L));
+    assertEquals("{\"a\":[2],\"b\":1,\"c\":{\"d\":3},\"e\":7}", second.toString());
+    assertEquals(false, first.equals(second));
+    assertEquals(first.getChildElement("c"), second.removeElement("c"));
+    assertEquals(null, first.removeElement("e"));
+    assertEquals(3, first.size());
+    assertEquals("{\"a\":[2],\"b\":1,\"e\":7}", second.toString());
+    
+    StringBuilder message = new StringBuilder("{");
+    for (int i=0;i<ObjectShape.MAXIMUM_KEYS+1;++i) message.append((i==0)?"":",").append("\"k").append(i).append("\":").append(i);
+    parser.parse(message.append("}").toString());
+    assertEquals(ObjectShape.MAXIMUM_KEYS+1, parser.getRootElement().size());
+    assertEquals(64L, ((ScalarElement)parser.getRootElement().getChildElement("k64")).getLong());
+    
+  }//testShapes()
+
+  /**
+   * Test of putElement method with keys holding special characters, of class ObjectElement.
+   */
+  @Test
+  public void testEscapedKeys() {
+    
+    System.out.println("escapedKeys");
+    
+    String[] keys = {"k\"ey", "back\\slash", "line\nbreak", "tab\t", "\u0001", "sl/ash"};
+    ObjectElement instance = new ObjectElement();
+    for (int i=0;i<keys.length;++i) instance.putElement(Serializer.escape(keys[i]), new ScalarElement(keys[i]+"\"x"));
+    
+    Parser parser = new Parser();
+    assertEquals(true, parser.tryParse(instance.toString()));
+    Element root = parser.getRootElement();
+    assertEquals(true, instance.equals(root));
+    assertEquals(instance.toString(), root.toString());
+    for (int i=0;i<keys.length;++i) {
+      Element element = root.getChildElement(Serializer.escape(keys[i]));
+      assertEquals(keys[i], Serializer.unescape(element.getKey()));
+      assertEquals(keys[i]+"\"x", ((ScalarElement)element).getString());
+    }//for each key
+    
+    Iterator<String> iterator = ((ObjectElement)root).getKeyIterator();
+    while (iterator.hasNext()) assertEquals(true, instance.hasKey(iterator.next()));
+    
+    try {
+      instance.putElement("k\"ey", new ScalarElement());
+      fail("assertion expected");
+    } catch (AssertionError e) {
+      assertEquals(false, instance.hasKey("k\"ey"));
+    }//try
+    
+  }//testEscapedKeys()
+
 }//ObjectElementTest{}
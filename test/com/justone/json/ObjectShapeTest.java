@@ -0,0 +1,119 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+package com.justone.json;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class ObjectShapeTest {
+  
+  public ObjectShapeTest() {
+  }
+
+  /**
+   * Test of next method, of class ObjectShape.
+   */
+  @Test
+  public void testNext() {
+    
+    System.out.println("next");
+    
+    ObjectShape root = new ObjectShape();
+    assertEquals(0, root.size());
+    assertEquals(-1, root.slot("a"));
+    ObjectShape b = root.next("b");
+    ObjectShape ba = b.next("a");
+    assertSame(b, root.next(new String("b")));
+    assertSame(ba, b.next("a"));
+    assertSame(ba, ba.next("b"));
+    assertNotSame(ba, root.next("a").next("b"));
+    assertSame(ba, root.next("b").next("a"));
+    
+    assertEquals(2, ba.size());
+    assertEquals("b", ba.key(0));
+    assertEquals("a", ba.key(1));
+    assertEquals(1, ba.order(0));
+    assertEquals(0, ba.order(1));
+    assertEquals(1, ba.slot("a"));
+    assertEquals(0, ba.slot(new String("b")));
+    assertEquals(-1, ba.slot("c"));
+    assertEquals(1, b.size());
+    assertEquals(-1, b.slot("a"));
+    
+  }//testNext()
+
+  /**
+   * Test of slot method, of class ObjectShape.
+   */
+  @Test
+  public void testSlot() {
+    
+    System.out.println("slot");
+    
+    ObjectShape shape = new ObjectShape();
+    String[] keys = {"Aa", "BB", "m", "C#", "z", "", "a"};
+    for (String key:keys) shape = shape.next(key);
+    assertEquals(keys.length, shape.size());
+    for (int i=0;i<keys.length;++i) assertEquals(i, shape.slot(keys[i]));
+    assertEquals(-1, shape.slot("AaBB"));
+    String previous = null;
+    for (int i=0;i<keys.length;++i) {
+      String key = shape.key(shape.order(i));
+      assertEquals(true, (previous==null)||(previous.compareTo(key)<0));
+      previous = key;
+    }//for
+    
+  }//testSlot()
+
+  /**
+   * Test of the bounds of a shape tree, of class ObjectShape.
+   */
+  @Test
+  public void testBounds() {
+    
+    System.out.println("bounds");
+    
+    ObjectShape shape = new ObjectShape();
+    for (int i=0;i<ObjectShape.MAXIMUM_KEYS;++i) shape = shape.next("k"+i);
+    assertEquals(ObjectShape.MAXIMUM_KEYS, shape.size());
+    assertEquals(null, shape.next("k"));
+    assertSame(shape, shape.next("k0"));
+    
+    ObjectShape root = new ObjectShape();
+    int created = 0;
+    for (int i=0;i<ObjectShape.MAXIMUM_SHAPES;++i) {
+      if (root.next("k"+i)!=null) ++created;
+    }//for
+    assertEquals(ObjectShape.MAXIMUM_SHAPES-1, created);
+    assertNotNull(root.next("k0"));
+    
+  }//testBounds()
+  
+}
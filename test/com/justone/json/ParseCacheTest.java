@@ -0,0 +1,146 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class ParseCacheTest {
+  
+  public ParseCacheTest() {
+  }
+
+  /**
+   * Test of parse method, of class ParseCache.
+   */
+  @Test
+  public void testParse() {
+    
+    System.out.println("parse");
+    
+    ParseCache instance = new ParseCache(1<<20);
+    Element first = instance.parse("{\"a\":[1,2]}");
+    assertEquals("{\"a\":[1,2]}", first.toString());
+    assertEquals(0, instance.getHitCount());
+    assertEquals(1, instance.getMissCount());
+    
+    assertSame(first, instance.parse(new String("{\"a\":[1,2]}")));
+    assertEquals(true, first.isFrozen());
+    assertEquals(true, first.getChildElement("a").getChildElement(1).isFrozen());
+    assertEquals(1, instance.getHitCount());
+    assertEquals(1, instance.size());
+    
+    Element second = instance.parse("{\"a\":[1,3]}");
+    assertNotSame(first, second);
+    assertEquals(2, instance.getMissCount());
+    assertEquals(2, instance.size());
+    assertEquals(true, instance.getRetainedBytes()>0);
+    
+    try {
+      instance.parse("{\"a\":");
+      fail("malformed message expected");
+    } catch (JsonParseException e) {
+    }//try
+    assertEquals(2, instance.size());
+    
+    instance.clear();
+    assertEquals(0, instance.size());
+    assertEquals(0, instance.getRetainedBytes());
+    assertNotSame(first, instance.parse("{\"a\":[1,2]}"));
+    
+  }//testParse()
+
+  /**
+   * Test of eviction, of class ParseCache.
+   */
+  @Test
+  public void testEviction() {
+    
+    System.out.println("eviction");
+    
+    ParseCache instance = new ParseCache(3*(128+10*7));
+    Element a = instance.parse("{\"a\":1}");
+    Element b = instance.parse("{\"b\":1}");
+    instance.parse("{\"c\":1}");
+    assertEquals(3, instance.size());
+    assertEquals(0, instance.getEvictionCount());
+    
+    assertSame(a, instance.parse("{\"a\":1}"));
+    instance.parse("{\"d\":1}");
+    assertEquals(3, instance.size());
+    assertEquals(1, instance.getEvictionCount());
+    assertSame(a, instance.parse("{\"a\":1}"));
+    assertNotSame(b, instance.parse("{\"b\":1}"));
+    assertEquals(2, instance.getEvictionCount());
+    
+    StringBuilder large = new StringBuilder("[0");
+    for (int i=0;i<100;++i) large.append(",0");
+    large.append(']');
+    Element root = instance.parse(large.toString());
+    assertEquals(101, root.size());
+    assertEquals(3, instance.size());
+    assertNotSame(root, instance.parse(large.toString()));
+    
+  }//testEviction()
+
+  /**
+   * Test of concurrent use, of class ParseCache.
+   */
+  @Test
+  public void testConcurrent() throws Exception {
+    
+    System.out.println("concurrent");
+    
+    final ParseCache instance = new ParseCache(1<<16);
+    final AtomicInteger failures = new AtomicInteger();
+    Thread[] threads = new Thread[4];
+    for (int t=0;t<threads.length;++t) {
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i=0;i<2000;++i) {
+            String message = "{\"k\":"+(i%50)+"}";
+            if (!instance.parse(message).toString().equals(message)) failures.incrementAndGet();
+          }//for each message
+        }//run()
+      };
+      threads[t].start();
+    }//for each thread
+    for (Thread thread : threads) thread.join();
+    
+    assertEquals(0, failures.get());
+    assertEquals(8000, instance.getHitCount()+instance.getMissCount());
+    assertEquals(50, instance.size());
+    
+  }//testConcurrent()
+  
+}//ParseCacheTest{}
@@ -25,6 +25,10 @@ SOFTWARE.
 */
 package com.justone.json;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.LinkedList;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -69,6 +73,119 @@ public class ParserTest {
     
   }//testParse()
 
+  /**
+   * Test of parse method with malformed messages, of class Parser.
+   */
+  @Test
+  public void testParseMalformed() {
+    
+    System.out.println("parseMalformed");
+    
+    Parser instance = new Parser();
+    try {
+      instance.parse("{\"a\":1,\n\"b\":?}");
+      fail("malformed message parsed");
+    } catch (JsonParseException e) {
+      assertEquals(12, e.getOffset());
+      assertEquals(2, e.getLine());
+      assertEquals(5, e.getColumn());
+      assertEquals(12, instance.getErrorIndex());
+      assertTrue(e.getStackTrace().length>0);
+    }//try
+    
+    instance.setStackless(true);
+    try {
+      instance.parse("");
+      fail("empty message parsed");
+    } catch (JsonParseException e) {
+      assertEquals(0, e.getOffset());
+      assertEquals(0, e.getStackTrace().length);
+    }//try
+    
+  }//testParseMalformed()
+
+  /**
+   * Test of tryParse method, of class Parser.
+   */
+  @Test
+  public void testTryParse() {
+    
+    System.out.println("tryParse");
+    
+    Parser instance = new Parser();
+    assertEquals(true, instance.tryParse("{\"a\":[1,2]}"));
+    assertEquals(-1, instance.getErrorIndex());
+    assertEquals("{\"a\":[1,2]}", instance.toString());
+    
+    assertEquals(false, instance.tryParse("{\"a\":[1,2}"));
+    assertEquals(9, instance.getErrorIndex());
+    assertEquals(false, instance.tryParse("{\"a\" 1}"));
+    assertEquals(false, instance.tryParse("  "));
+    assertEquals(false, instance.tryParse("{\"a\":\"b"));
+    
+    assertEquals(true, instance.tryParse("[]"));
+    assertEquals(-1, instance.getErrorIndex());
+    
+    assertEquals(false, instance.tryParse("[nope]"));
+    assertEquals(false, instance.tryParse("{\"a\":truth}"));
+    assertEquals(false, instance.tryParse("[fals]"));
+    
+    String[] numbers = {"1-2e+", "01", "1.", "-", "-a", "1e", "1e+", ".5", "+1", "1.e2", "--1", "1.5.2", "0x1"};
+    for (String number:numbers) {
+      assertEquals(number, false, instance.tryParse("{\"a\":"+number+"}"));
+      assertEquals(number, false, instance.tryParse("["+number+"]"));
+      try {
+        instance.parse("["+number+"]");
+        fail("JsonParseException expected : "+number);
+      } catch (JsonParseException e) {
+        assertEquals(true, e.getOffset()>=1);
+      }//try
+    }//for each number
+    assertEquals(false, instance.tryParse("{\"a\":1-2e+}"));
+    assertEquals(6, instance.getErrorIndex());
+    
+    instance.parse("[0,-0,1.5,-1.25e2,1E-3,2e+10,0.0e-0,-123]");
+    assertEquals("[0,-0,1.5,-1.25e2,1E-3,2e+10,0.0e-0,-123]", instance.toString());
+    
+  }//testTryParse()
+
+  /**
+   * Test of tryParse method against the Validator corpus, of class Parser.
+   */
+  @Test
+  public void testTryParseGrammar() {
+    
+    System.out.println("tryParseGrammar");
+    
+    Parser instance = new Parser();
+    Validator validator = new Validator();
+    for (String message:ValidatorTest.VALID) {
+      assertEquals(message, validator.validate(message), instance.tryParse(message));
+      assertEquals(message, -1, instance.getErrorIndex());
+    }//for each valid message
+    for (String message:ValidatorTest.INVALID) {
+      assertEquals(message, validator.validate(message), instance.tryParse(message));
+      assertEquals(message, true, instance.getErrorIndex()>=0);
+    }//for each invalid message
+    
+    String[] valid = {"{\"a\":1 }", "[1 ]", "[ 1 , 2 ]", "{\n  \"a\" : [\n    1,\n    2.5e3\n  ]\n}\n", "{\"a\":\"\\u00e9\"}"};
+    for (String message:valid) {
+      assertEquals(message, true, validator.validate(message));
+      assertEquals(message, true, instance.tryParse(message));
+    }//for each valid message
+    String[] invalid = {"{\"a\":1,}", "[1,]", "[,1]", "[1,,2]", "{\"a\":1}x", "{\"a\":{}}}", "[true false]", "{\"a\":\"\\q\"}", "{\"a\":\"\\u00g9\"}", "[\"\u0001\"]"};
+    for (String message:invalid) {
+      assertEquals(message, false, validator.validate(message));
+      assertEquals(message, false, instance.tryParse(message));
+    }//for each invalid message
+    
+    assertEquals(false, instance.tryParse("[1,,2]"));
+    assertEquals(3, instance.getErrorIndex());
+    assertEquals(false, instance.tryParse("{\"a\":1}x"));
+    assertEquals(7, instance.getErrorIndex());
+    
+  }//testTryParseGrammar()
+
   /**
    * Test of getRootElement method, of class Parser.
    */
@@ -236,6 +353,152 @@ public class ParserTest {
     
   }//testContainsAny()  
   
+  /**
+   * Test of containsAll and containsAny methods with path sets, of class Parser.
+   */
+  @Test
+  public void testContainsPathSet() {
+    
+    System.out.println("containsAll/containsAny(PathSet)");
+
+    Path[] paths=new Path[]{new Path("/@a"),new Path("/@b")};
+    PathSet pathSet=new PathSet(paths);
+    
+    Parser instance = new Parser();
+    instance.parse("{\"a\":null}");
+    assertEquals(false, instance.containsAll(pathSet));
+    assertEquals(true, instance.containsAny(pathSet));
+    assertEquals(false, instance.containsAll(paths));
+    
+    instance.parse("{\"a\":null,\"b\":null}");
+    assertEquals(true, instance.containsAll(pathSet));
+    assertEquals(true, instance.containsAll(paths));
+    
+    paths[1]=new Path("/@c");
+    assertEquals(false, instance.containsAll(paths));
+    assertEquals(true, instance.containsAll(pathSet));
+    
+  }//testContainsPathSet()
+  
+  /**
+   * Test of getElements method, of class Parser.
+   */
+  @Test
+  public void testGetElements() {
+    
+    System.out.println("getElements");
+    
+    PathSet pathSet=new PathSet(new Path[]{new Path("/@a/#0"),new Path("/@a/#1"),new Path("/@b")});
+    Element[] elements=new Element[pathSet.size()];
+    
+    Parser instance = new Parser();
+    instance.parse("{\"a\":[1,2]}");
+    instance.getElements(pathSet, elements);
+    assertEquals("1", elements[0].toString());
+    assertEquals("2", elements[1].toString());
+    assertNull(elements[2]);
+    
+  }//testGetElements()
+  
+  /**
+   * Test of getElements and getElement methods with search paths, of class Parser.
+   */
+  @Test
+  public void testGetElementsSearch() {
+    
+    System.out.println("getElements(Path)");
+    
+    Parser instance = new Parser();
+    instance.parse("{\"a\":[{\"b\":1},{\"c\":2},{\"b\":3}]}");
+    
+    Iterator<Element> iterator=instance.getElements(new Path("/@a/#*/@b"));
+    assertEquals("1", iterator.next().toString());
+    assertEquals("3", iterator.next().toString());
+    assertEquals(false, iterator.hasNext());
+    
+    assertEquals("1", instance.getElement(new Path("//@b")).toString());
+    assertEquals("3", instance.getElement(new Path("/@a/#1:/@b")).toString());
+    assertNull(instance.getElement(new Path("/@a/#*/@d")));
+    assertEquals(true, instance.contains(new Path("//@c")));
+    assertEquals(false, instance.contains(new Path("//@d")));
+    
+    Path a = new Path("/@a");
+    Path b = new Path("//@b");
+    Path d = new Path("/@a/#*/@d");
+    assertEquals(true, instance.containsAll(new Path[]{new Path("/@a/#*")}));
+    assertEquals(true, instance.containsAll(new Path[]{a, b, new Path("/@a/#1:/@c")}));
+    assertEquals(false, instance.containsAll(new Path[]{a, b, d}));
+    assertEquals(false, instance.containsAll(new Path[]{new Path("/@e"), b}));
+    assertEquals(true, instance.containsAny(new Path[]{new Path("/@e"), b}));
+    assertEquals(true, instance.containsAny(new Path[]{a, d}));
+    assertEquals(false, instance.containsAny(new Path[]{new Path("/@e"), d}));
+    assertEquals(false, instance.containsAny(new Path[]{d}));
+    
+  }//testGetElementsSearch()
+  
+  /**
+   * Test of setIndexed and getKeyIndex methods, of class Parser.
+   */
+  @Test
+  public void testGetKeyIndex() {
+    
+    System.out.println("getKeyIndex");
+    
+    Parser instance = new Parser();
+    instance.parse("{\"a\":[{\"k\":1},{\"k\":2}],\"b\":{\"k\":{\"k\":3}}}");
+    KeyIndex index=instance.getKeyIndex();
+    assertSame(index, instance.getKeyIndex());
+    assertEquals(4, index.count("k"));
+    assertEquals("[1, 2, {\"k\":3}]", instance.getRootElement().getDescendentElements("k", new LinkedList<Element>()).toString());
+    
+    instance.setIndexed(true);
+    instance.parse("[{\"k\":4}]");
+    assertNotSame(index, instance.getKeyIndex());
+    assertEquals(1, instance.getKeyIndex().count("k"));
+    assertEquals("[4]", instance.getRootElement().getDescendentElements("k", new LinkedList<Element>()).toString());
+    
+    index=instance.getKeyIndex();
+    ((ObjectElement)instance.getRootElement().getChildElement(0)).putElement("k", new ScalarElement(5));
+    assertEquals(false, index.isValid());
+    assertEquals("[5]", index.getDescendentElements(instance.getRootElement(), "k", new LinkedList<Element>()).toString());
+    assertNotSame(index, instance.getKeyIndex());
+    assertEquals(true, instance.getKeyIndex().isValid());
+    assertEquals("[5]", instance.getKeyIndex().getDescendentElements(instance.getRootElement(), "k", new LinkedList<Element>()).toString());
+    
+  }//testGetKeyIndex()
+  
+  /**
+   * Test of parent, key and index linkage of parsed elements, of class Parser.
+   */
+  @Test
+  public void testParseLinkage() {
+    
+    System.out.println("parse(linkage)");
+    
+    Parser instance = new Parser();
+    instance.parse("{\"a\":[\"x\",{\"b\":null}],\"c\":1}");
+    Element root = instance.getRootElement();
+    assertNull(root.getParentElement());
+    
+    Element a = instance.getElement(new Path("/@a"));
+    assertSame(root, a.getParentElement());
+    assertEquals("a", a.getKey());
+    assertEquals(-1, a.getIndex());
+    
+    Element x = instance.getElement(new Path("/@a/#0"));
+    Element b = instance.getElement(new Path("/@a/#1/@b"));
+    assertSame(a, x.getParentElement());
+    assertNull(x.getKey());
+    assertEquals(0, x.getIndex());
+    assertSame(a, b.getParentElement().getParentElement());
+    assertEquals(1, b.getParentElement().getIndex());
+    assertEquals("@b", Path.getTag(b));
+    assertEquals("/@a/#1/@b", Path.getPath(b, '/'));
+    
+    assertEquals("[null]", root.getDescendentElements("b", new LinkedList<Element>()).toString());
+    
+  }//testParseLinkage()
+  
   /**
    * Test of extract method, of class Parser.
    */
@@ -290,4 +553,107 @@ public class ParserTest {
     
   }//testGetElement()
 
+  /**
+   * Test of setNumberPolicy method, of class Parser.
+   */
+  @Test
+  public void testSetNumberPolicy() {
+    
+    System.out.println("setNumberPolicy");
+    
+    String message="[12345678901234567890,0.1234567890123456789012345678,42,-7.5]";
+    Parser instance = new Parser();
+    
+    instance.parse(message);
+    Element root = instance.getRootElement();
+    assertEquals(Double.valueOf("12345678901234567890"), ((ScalarElement)root.getChildElement(0)).getNumber());
+    assertEquals(Double.valueOf("0.1234567890123456789012345678"), ((ScalarElement)root.getChildElement(1)).getNumber());
+    assertEquals(Long.valueOf(42), ((ScalarElement)root.getChildElement(2)).getNumber());
+    assertEquals(new BigInteger("12345678901234567890"), ((ScalarElement)root.getChildElement(0)).getBigInteger());
+    
+    instance.setNumberPolicy(Parser.LOSSLESS_NUMBERS);
+    instance.parse(message);
+    root = instance.getRootElement();
+    ScalarElement id = (ScalarElement)root.getChildElement(0);
+    assertEquals(new BigInteger("12345678901234567890"), id.getNumber());
+    assertSame(id.getNumber(), id.getBigInteger());
+    assertEquals(new BigDecimal("12345678901234567890"), id.getBigDecimal());
+    ScalarElement fraction = (ScalarElement)root.getChildElement(1);
+    assertEquals(new BigDecimal("0.1234567890123456789012345678"), fraction.getNumber());
+    assertSame(fraction.getNumber(), fraction.getBigDecimal());
+    assertEquals(BigInteger.ZERO, fraction.getBigInteger());
+    assertEquals(Long.valueOf(42), ((ScalarElement)root.getChildElement(2)).getNumber());
+    assertEquals(new BigDecimal("-7.5"), ((ScalarElement)root.getChildElement(3)).getNumber());
+    assertEquals(-7.5, ((ScalarElement)root.getChildElement(3)).getDouble(), 0.0);
+    assertEquals(message, root.toString());
+    assertEquals(new BigInteger("12345678901234567890"), ((ScalarElement)root.copy().getChildElement(0)).getNumber());
+    
+    instance.setNumberPolicy(Parser.DOUBLE_NUMBERS);
+    instance.parse(message);
+    root = instance.getRootElement();
+    assertEquals(Double.valueOf(42), ((ScalarElement)root.getChildElement(2)).getNumber());
+    assertEquals(42L, ((ScalarElement)root.getChildElement(2)).getLong());
+    assertEquals(BigInteger.valueOf(42), ((ScalarElement)root.getChildElement(2)).getBigInteger());
+    
+  }//testSetNumberPolicy()
+
+  /**
+   * Test of setAdaptive method, of class Parser.
+   */
+  @Test
+  public void testSetAdaptive() {
+    
+    System.out.println("setAdaptive");
+    
+    String[] messages = {
+      "{\"identity\":1,\"location\":{\"latitude\":51.5,\"longitude\":-2.5},\"tags\":[{\"k\":\"a\"},{\"k\":\"b\"}]}",
+      "{\"identity\":2,\"location\":{\"latitude\":52.5,\"longitude\":-3.5},\"tags\":[{\"k\":\"c\"}]}",
+      "{ \"identity\" : 3, \"location\" : { \"latitude\" : 53.5, \"longitude\" : -4.5} , \"tags\" : [ ] }",
+      "{\"identity\":4,\"location\":{\"latitudes\":54.5,\"longitude\":-5.5},\"tags\":[{\"k\":\"d\"}]}",
+      "{\"identity\":5,\"location\":{\"latitude\":55.5,\"longitude\":-6.5},\"tags\":[{\"k\":\"e\"}]}",
+      "{\"identity\":6,\"location\":{\"latitude\":56.5},\"tags\":[{\"k\":\"f\"}]}",
+      "{\"identity\":7,\"location\":{\"latitud\":57.5,\"longitude\":-7.5},\"tags\":[{\"k\":\"g\"}],\"extra\":{\"a\\\"b\":1}}",
+      "{\"identity\":8,\"location\":{\"latitud\":58.5,\"longitude\":-8.5},\"tags\":[{\"k\":\"h\"}],\"extra\":{\"a\\\"b\":1}}",
+      "{\"identity\":9,\"tags\":[{\"k\":\"i\"}],\"location\":{\"latitude\":59.5,\"longitude\":-9.5}}",
+      "{\"identity\":10,\"location\":{\"latitude\":60.5,\"longitude\":-10.5},\"tags\":[{\"k\":\"j\"}]}"
+    };
+    
+    Parser instance = new Parser();
+    Parser generic = new Parser();
+    instance.setAdaptive(true);
+    assertEquals(0.0, instance.getShapeHitRate(), 0.0);
+    for (String message:messages) {
+      instance.parse(message);
+      generic.parse(message);
+      assertEquals(message, generic.getRootElement(), instance.getRootElement());
+      assertEquals(message, generic.getRootElement().toString(), instance.getRootElement().toString());
+      assertSame(instance.getRootElement(), instance.getRootElement().getChildElement("identity").getParentElement());
+    }//for
+    
+    instance.setAdaptive(true);
+    assertEquals(0.0, instance.getShapeHitRate(), 0.0);
+    instance.parse(messages[0]);
+    assertEquals(0.0, instance.getShapeHitRate(), 0.0);
+    instance.parse(messages[0]);
+    assertEquals(0.5, instance.getShapeHitRate(), 0.0);
+    String key = ((ObjectElement)instance.getRootElement()).getKeyIterator().next();
+    instance.parse(messages[1]);
+    assertSame(key, ((ObjectElement)instance.getRootElement()).getKeyIterator().next());
+    assertEquals(7.0/11, instance.getShapeHitRate(), 0.0);
+    instance.parse(messages[3]);
+    assertEquals(7.0/14, instance.getShapeHitRate(), 0.0);
+    instance.parse(messages[4]);
+    instance.parse(messages[4]);
+    assertEquals(10.0/20, instance.getShapeHitRate(), 0.0);
+    
+    assertEquals(false, instance.tryParse("{\"identity\":1,\"location\":{\"latitude\":51.5,\"longitude"));
+    assertEquals(false, instance.tryParse("{\"identity\":1,\"location\":{\"latitude\""));
+    assertEquals(true, instance.tryParse(messages[4]));
+    
+    instance.setAdaptive(false);
+    instance.parse(messages[0]);
+    assertEquals(0.0, instance.getShapeHitRate(), 0.0);
+    
+  }//testSetAdaptive()
+
 }
@@ -0,0 +1,227 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class PatchTest {
+  
+  public PatchTest() {
+  }
+
+  /**
+   * Applies a patch to a message
+   * @param aMessage message to be patched
+   * @param aPatch patch text
+   * @return patched message text
+   */
+  private static String apply(String aMessage, String aPatch) {
+    
+    Parser parser = new Parser();
+    parser.parse(aMessage);
+    return new Patch().apply(parser.getRootElement(), aPatch).toString();
+    
+  }//apply()
+
+  /**
+   * Applies a merge patch to a message
+   * @param aMessage message to be patched
+   * @param aPatch merge patch text
+   * @return patched message text
+   */
+  private static String merge(String aMessage, String aPatch) {
+    
+    Parser target = new Parser();
+    target.parse(aMessage);
+    Parser patch = new Parser();
+    patch.parse(aPatch);
+    return new Patch().merge(target.getRootElement(), patch.getRootElement()).toString();
+    
+  }//merge()
+
+  /**
+   * Returns the message of the exception thrown by applying a patch
+   * @param aMessage message to be patched
+   * @param aPatch patch text
+   * @return exception message
+   */
+  private static String error(String aMessage, String aPatch) {
+    
+    try {
+      apply(aMessage, aPatch);
+      fail("bad patch expected");
+    } catch (RuntimeException e) {
+      return e.getMessage();
+    }//try
+    return null;
+    
+  }//error()
+
+  /**
+   * Test of apply method for objects, of class Patch.
+   */
+  @Test
+  public void testApplyObjects() {
+    
+    System.out.println("apply(objects)");
+    
+    assertEquals("{\"a\":1,\"b\":2}", apply("{\"a\":1}", "[{\"op\":\"add\",\"path\":\"/b\",\"value\":2}]"));
+    assertEquals("{\"a\":3}", apply("{\"a\":1}", "[{\"op\":\"add\",\"path\":\"/a\",\"value\":3}]"));
+    assertEquals("{}", apply("{\"a\":1}", "[{\"op\":\"remove\",\"path\":\"/a\"}]"));
+    assertEquals("{\"a\":{\"b\":[1]}}", apply("{\"a\":{\"b\":\"x\"}}", "[{\"op\":\"replace\",\"path\":\"/a/b\",\"value\":[1]}]"));
+    assertEquals("{\"b\":{\"c\":1}}", apply("{\"a\":1,\"b\":{}}", "[{\"op\":\"move\",\"from\":\"/a\",\"path\":\"/b/c\"}]"));
+    assertEquals("{\"a\":{\"x\":1},\"b\":{\"x\":1}}", apply("{\"a\":{\"x\":1}}", "[{\"op\":\"copy\",\"from\":\"/a\",\"path\":\"/b\"}]"));
+    assertEquals("{\"a/b~c\\\"d\":1}", apply("{}", "[{\"op\":\"add\",\"path\":\"/a~1b~0c\\\"d\",\"value\":1}]"));
+    assertEquals("[]", apply("{}", "[{\"op\":\"replace\",\"path\":\"\",\"value\":[]}]"));
+    assertEquals("{\"a\":2}", apply("{\"a\":1}", "[{\"op\":\"test\",\"path\":\"/a\",\"value\":1},{\"op\":\"replace\",\"path\":\"/a\",\"value\":2}]"));
+    
+  }//testApplyObjects()
+
+  /**
+   * Test of apply method for arrays, of class Patch.
+   */
+  @Test
+  public void testApplyArrays() {
+    
+    System.out.println("apply(arrays)");
+    
+    assertEquals("[1,2,9,3]", apply("[1,2,3]", "[{\"op\":\"add\",\"path\":\"/2\",\"value\":9}]"));
+    assertEquals("[1,2,3,4]", apply("[1,2,3]", "[{\"op\":\"add\",\"path\":\"/-\",\"value\":4}]"));
+    assertEquals("[1,2,3,4]", apply("[1,2,3]", "[{\"op\":\"add\",\"path\":\"/3\",\"value\":4}]"));
+    assertEquals("[1,3]", apply("[1,2,3]", "[{\"op\":\"remove\",\"path\":\"/1\"}]"));
+    assertEquals("[1,5,3]", apply("[1,2,3]", "[{\"op\":\"replace\",\"path\":\"/1\",\"value\":5}]"));
+    assertEquals("[2,3,1]", apply("[1,2,3]", "[{\"op\":\"move\",\"from\":\"/0\",\"path\":\"/-\"}]"));
+    assertEquals("[{\"n\":[1,2]},{\"n\":[3]}]", apply("[{\"n\":[1]},{\"n\":[2,3]}]", "[{\"op\":\"move\",\"from\":\"/1/n/0\",\"path\":\"/0/n/1\"}]"));
+    
+    Parser parser = new Parser();
+    parser.parse("[[1,2],[3]]");
+    Element root = parser.getRootElement();
+    new Patch().apply(root, "[{\"op\":\"remove\",\"path\":\"/0/0\"},{\"op\":\"remove\",\"path\":\"/0/0\"},{\"op\":\"add\",\"path\":\"/0/0\",\"value\":4}]");
+    assertEquals("[[4],[3]]", root.toString());
+    assertEquals(0, root.getChildElement(0).getChildElement(0).getIndex());
+    assertEquals(1, root.getChildElement(1).getIndex());
+    assertSame(root, root.getChildElement(1).getParentElement());
+    
+  }//testApplyArrays()
+
+  /**
+   * Test of apply method for bad patches, of class Patch.
+   */
+  @Test
+  public void testApplyErrors() {
+    
+    System.out.println("apply(errors)");
+    
+    assertEquals("Bad patch : not an array", error("{}", "{}"));
+    assertEquals("Bad patch : no op [0]", error("{}", "[{\"path\":\"/a\"}]"));
+    assertEquals("Bad patch : unknown op swap [0]", error("{}", "[{\"op\":\"swap\",\"path\":\"/a\"}]"));
+    assertEquals("Bad patch : no element /b [1]", error("{\"a\":1}", "[{\"op\":\"remove\",\"path\":\"/a\"},{\"op\":\"remove\",\"path\":\"/b\"}]"));
+    assertEquals("Bad patch : no element /x [0]", error("{}", "[{\"op\":\"add\",\"path\":\"/x/y\",\"value\":1}]"));
+    assertEquals("Bad patch : no index /5 [0]", error("[1]", "[{\"op\":\"add\",\"path\":\"/5\",\"value\":1}]"));
+    assertEquals("Bad patch : bad index 01 [0]", error("[1,2]", "[{\"op\":\"remove\",\"path\":\"/01\"}]"));
+    assertEquals("Bad patch : bad pointer a [0]", error("{}", "[{\"op\":\"add\",\"path\":\"a\",\"value\":1}]"));
+    assertEquals("Bad patch : no value [0]", error("{}", "[{\"op\":\"add\",\"path\":\"/a\"}]"));
+    assertEquals("Bad patch : test failed [0]", error("{\"a\":1}", "[{\"op\":\"test\",\"path\":\"/a\",\"value\":2}]"));
+    assertEquals("Bad patch : move into itself [0]", error("{\"a\":{}}", "[{\"op\":\"move\",\"from\":\"/a\",\"path\":\"/a/b\"}]"));
+    assertEquals("Bad patch : cannot remove root [0]", error("{}", "[{\"op\":\"remove\",\"path\":\"\"}]"));
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":1}");
+    try {
+      new Patch().apply(parser.getRootElement(), "[{\"op\":\"add\",\"path\":\"/b\",\"value\":2},{\"op\":\"remove\",\"path\":\"/c\"}]");
+      fail("bad patch expected");
+    } catch (RuntimeException e) {
+      assertEquals("{\"a\":1,\"b\":2}", parser.getRootElement().toString());
+    }//try
+    
+  }//testApplyErrors()
+
+  /**
+   * Test of apply method with patches written by Diff, of class Patch.
+   */
+  @Test
+  public void testApplyDiff() {
+    
+    System.out.println("apply(diff)");
+    
+    String[][] pairs = {
+      {"{\"a\":1,\"b\":[1,2,3],\"c\":{\"d\":\"x\"}}", "{\"a\":2,\"b\":[0,1,3,4],\"e\":null}"},
+      {"[\"x\",\"a\",\"b\"]", "[\"a\",\"b\",\"c\"]"},
+      {"[{\"n\":1},{\"n\":2},{\"n\":0}]", "[{\"n\":1},{\"n\":3,\"m\":[]},{\"n\":0}]"},
+      {"{\"a/b\":{\"~\":[1]}}", "{\"a/b\":{\"~\":[1,2]}}"},
+      {"{}", "[1]"}
+    };
+    Diff diff = new Diff();
+    Patch patch = new Patch();
+    for (String[] pair : pairs) {
+      Parser source = new Parser();
+      source.parse(pair[0]);
+      Parser target = new Parser();
+      target.parse(pair[1]);
+      Element patched = patch.apply(source.getRootElement(), diff.diff(source.getRootElement(), target.getRootElement()));
+      assertEquals(target.getRootElement().toString(), patched.toString());
+      assertEquals(true, patched.equals(target.getRootElement()));
+    }//for each pair
+    
+  }//testApplyDiff()
+
+  /**
+   * Test of merge method, of class Patch.
+   */
+  @Test
+  public void testMerge() {
+    
+    System.out.println("merge");
+    
+    assertEquals("{\"a\":\"z\",\"c\":{\"d\":\"e\"}}", merge("{\"a\":\"b\",\"c\":{\"d\":\"e\",\"f\":\"g\"}}", "{\"a\":\"z\",\"c\":{\"f\":null}}"));
+    assertEquals("{\"a\":\"c\"}", merge("{\"a\":\"b\"}", "{\"a\":\"c\"}"));
+    assertEquals("{\"a\":\"b\",\"b\":\"c\"}", merge("{\"a\":\"b\"}", "{\"b\":\"c\"}"));
+    assertEquals("{}", merge("{\"a\":\"b\"}", "{\"a\":null}"));
+    assertEquals("{\"a\":[\"b\"]}", merge("{\"a\":[\"c\"]}", "{\"a\":[\"b\"]}"));
+    assertEquals("{\"a\":{\"b\":\"c\"}}", merge("{\"a\":[{\"b\":\"c\"}]}", "{\"a\":{\"b\":\"c\"}}"));
+    assertEquals("[\"c\"]", merge("{\"a\":\"foo\"}", "[\"c\"]"));
+    assertEquals("{\"a\":{\"bb\":{}}}", merge("[1,2]", "{\"a\":{\"bb\":{\"ccc\":null}}}"));
+    
+    Parser target = new Parser();
+    target.parse("{\"a\":{\"b\":1},\"c\":[2]}");
+    Element root = target.getRootElement();
+    Element c = root.getChildElement("c");
+    Parser patch = new Parser();
+    patch.parse("{\"a\":{\"b\":3}}");
+    assertSame(root, new Patch().merge(root, patch.getRootElement()));
+    assertSame(c, root.getChildElement("c"));
+    assertEquals("{\"a\":{\"b\":3},\"c\":[2]}", root.toString());
+    assertEquals("{\"a\":{\"b\":3}}", patch.getRootElement().toString());
+    
+  }//testMerge()
+
+}//PatchTest{}
@@ -0,0 +1,128 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class PathRegistryTest {
+  
+  public PathRegistryTest() {
+  }
+
+  /**
+   * Test of compile method, of class PathRegistry.
+   */
+  @Test
+  public void testCompile() {
+    
+    System.out.println("compile");
+    
+    PathRegistry instance = new PathRegistry();
+    Path a=instance.compile("/@a/@b/#1");
+    assertSame(a, instance.compile("/@a/@b/#1"));
+    assertEquals("/@a/@b/#1", a.toString());
+    
+    Path b=instance.compile("/@b/@a");
+    assertNotSame(a, b);
+    assertSame(a.fKeys[0], b.fKeys[1]);
+    assertSame(a.fKeys[1], b.fKeys[0]);
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":{\"b\":[1,2]},\"b\":{\"a\":3}}");
+    assertEquals("2", parser.getElement(a).toString());
+    assertEquals("3", parser.getElement(b).toString());
+    
+    try {
+      instance.compile("/@a/");
+      fail("bad tag expected");
+    } catch (RuntimeException e) {
+      assertTrue(e.getMessage().startsWith("Bad tag"));
+    }//try
+    assertEquals(2, instance.size());
+    
+  }//testCompile()
+
+  /**
+   * Test of compile method for elements, of class PathRegistry.
+   */
+  @Test
+  public void testCompileElement() {
+    
+    System.out.println("compile(Element)");
+    
+    PathRegistry instance = new PathRegistry();
+    Parser parser = new Parser();
+    parser.parse("{\"a\":[{\"b\":1},{\"b\":2}]}");
+    Path path = instance.compile(parser.getElement(new Path("/@a/#1/@b")), '/');
+    assertEquals("/@a/#1/@b", path.toString());
+    assertEquals(0, path.getId());
+    
+    parser.parse("{\"a\":[0,{\"b\":3}]}");
+    assertSame(path, instance.compile(parser.getElement(new Path("/@a/#1/@b")), '/'));
+    
+    try {
+      instance.compile(parser.getRootElement(), '/');
+      fail("root element has no path");
+    } catch (RuntimeException e) {
+    }//try
+    
+  }//testCompileElement()
+
+  /**
+   * Test of getPath and size methods, of class PathRegistry.
+   */
+  @Test
+  public void testGetPath() {
+    
+    System.out.println("getPath");
+    
+    PathRegistry instance = new PathRegistry();
+    assertEquals(0, instance.size());
+    Path[] paths=new Path[40];
+    for (int i=0;i<paths.length;++i) {
+      paths[i]=instance.compile("/#"+i);
+    }//for each path
+    assertEquals(40, instance.size());
+    for (int i=0;i<paths.length;++i) {
+      assertEquals(i, paths[i].getId());
+      assertSame(paths[i], instance.getPath(i));
+    }//for each path
+    
+    try {
+      instance.getPath(40);
+      fail("bad id expected");
+    } catch (IndexOutOfBoundsException e) {
+    }//try
+    
+  }//testGetPath()
+  
+}//PathRegistryTest{}
@@ -0,0 +1,137 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class PathSetTest {
+  
+  public PathSetTest() {
+  }
+
+  /**
+   * Test of size and getPath methods, of class PathSet.
+   */
+  @Test
+  public void testGetPath() {
+    
+    System.out.println("getPath");
+    
+    Path a=new Path("/@a");
+    Path b=new Path("/@a/#1");
+    PathSet instance = new PathSet(new Path[]{a,b,a});
+    assertEquals(3, instance.size());
+    assertSame(a, instance.getPath(0));
+    assertSame(b, instance.getPath(1));
+    assertSame(a, instance.getPath(2));
+    
+  }//testGetPath()
+
+  /**
+   * Test of getElements method, of class PathSet.
+   */
+  @Test
+  public void testGetElements() {
+    
+    System.out.println("getElements");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"p\":{\"m\":{\"a\":1,\"b\":[2,3]},\"n\":4},\"q\":[{\"r\":5}]}");
+    
+    PathSet instance = new PathSet(new Path[]{
+      new Path("/@p/@m/@a"),
+      new Path("/@p/@m/@b/#1"),
+      new Path("/@p/@n"),
+      new Path("/@p/@m/@c"),
+      new Path("/@q/#0/@r"),
+      new Path("/@q/#1/@r"),
+      new Path("/@p/@m/@a"),
+      new Path("/@p/@m"),
+    });
+    Element[] elements = instance.getElements(parser.getRootElement(), new Element[instance.size()]);
+    assertEquals("1", elements[0].toString());
+    assertEquals("3", elements[1].toString());
+    assertEquals("4", elements[2].toString());
+    assertNull(elements[3]);
+    assertEquals("5", elements[4].toString());
+    assertNull(elements[5]);
+    assertEquals("1", elements[6].toString());
+    assertEquals("{\"a\":1,\"b\":[2,3]}", elements[7].toString());
+    
+    parser.parse("{\"p\":{\"n\":6}}");
+    assertSame(elements, instance.getElements(parser.getRootElement(), elements));
+    assertNull(elements[0]);
+    assertEquals("6", elements[2].toString());
+    assertNull(elements[7]);
+    
+  }//testGetElements()
+
+  /**
+   * Test of containsAll method, of class PathSet.
+   */
+  @Test
+  public void testContainsAll() {
+    
+    System.out.println("containsAll");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":{\"b\":1,\"c\":[null]}}");
+    Element root=parser.getRootElement();
+    
+    assertEquals(true, new PathSet(new Path[]{}).containsAll(root));
+    assertEquals(true, new PathSet(new Path[]{new Path("/@a/@b"),new Path("/@a/@c/#0")}).containsAll(root));
+    assertEquals(true, new PathSet(new Path[]{new Path("/@a"),new Path("/@a/@b")}).containsAll(root));
+    assertEquals(false, new PathSet(new Path[]{new Path("/@a/@b"),new Path("/@a/@c/#1")}).containsAll(root));
+    assertEquals(false, new PathSet(new Path[]{new Path("/@a/@b/@c")}).containsAll(root));
+    
+  }//testContainsAll()
+
+  /**
+   * Test of containsAny method, of class PathSet.
+   */
+  @Test
+  public void testContainsAny() {
+    
+    System.out.println("containsAny");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":{\"b\":1,\"c\":[null]}}");
+    Element root=parser.getRootElement();
+    
+    assertEquals(false, new PathSet(new Path[]{}).containsAny(root));
+    assertEquals(true, new PathSet(new Path[]{new Path("/@x"),new Path("/@a/@c/#0")}).containsAny(root));
+    assertEquals(true, new PathSet(new Path[]{new Path("/@a/@x"),new Path("/@a")}).containsAny(root));
+    assertEquals(false, new PathSet(new Path[]{new Path("/@a/@x"),new Path("/@a/@c/#1")}).containsAny(root));
+    
+  }//testContainsAny()
+
+}//PathSetTest{}
@@ -25,6 +25,10 @@ SOFTWARE.
 */
 package com.justone.json;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -107,8 +111,129 @@ public class PathTest {
     
     arrayInstance.addElement(objectInstance);
     assertEquals("/#1/@a", Path.getPath(elementa,'/'));
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":[0,1,2,3,4,5,6,7,8,9,{\"bc\":[true]}],\"d\":{}}");
+    Element element = parser.getElement(new Path("/@a/#10/@bc/#0"));
+    assertEquals("/@a/#10/@bc/#0", Path.getPath(element,'/'));
+    assertEquals("|@d", Path.getPath(parser.getElement(new Path("/@d")),'|'));
+    assertEquals("", Path.getPath(parser.getRootElement(),'/'));
 
   }//testGetLabel() 
   
   
+  /**
+   * Test of toString method with search tags, of class Path.
+   */
+  @Test
+  public void testToStringSearch() {
+    
+    System.out.println("toString(search)");
+    
+    String[] strings={"/@*","/#*","/#1:3","/#:3","/#2:","/#:","/@a//@b","//@b","/@a/#*/@p","\\@a\\\\#0"};
+    String[] expected={"/@*","/#*","/#1:3","/#:3","/#2:","/#:","/@a//@b","//@b","/@a/#*/@p","\\@a\\\\#0"};
+    for (int i=0;i<strings.length;++i) {
+      assertEquals(expected[i], new Path(strings[i]).toString());
+    }//for each path string
+    
+    String[] bad={"/@a/","/@a///@b","/#1:x","/#x:1","/#-1:2","//","/#99999999999","/#1:2:3"};
+    for (String string : bad) {
+      try {
+        new Path(string);
+        fail(string);
+      } catch (RuntimeException e) {
+        assertTrue(e.getMessage().startsWith("Bad tag")||e.getMessage().startsWith("Empty path"));
+      }//try
+    }//for each bad path string
+    
+  }//testToStringSearch()
+  
+  /**
+   * Test of isExact method, of class Path.
+   */
+  @Test
+  public void testIsExact() {
+    
+    System.out.println("isExact");
+    
+    assertEquals(true, new Path("/@a/#0/@b").isExact());
+    assertEquals(false, new Path("/@a/#*/@b").isExact());
+    assertEquals(false, new Path("/@*").isExact());
+    assertEquals(false, new Path("/@a/#0:1").isExact());
+    assertEquals(false, new Path("/@a//@b").isExact());
+    
+  }//testIsExact()
+  
+  /**
+   * Test of getId method, of class Path.
+   */
+  @Test
+  public void testGetId() {
+    
+    System.out.println("getId");
+    
+    assertEquals(-1, new Path("/@a").getId());
+    
+    PathRegistry registry=new PathRegistry();
+    assertEquals(0, registry.compile("/@a").getId());
+    assertEquals(1, registry.compile("/@b").getId());
+    assertEquals(0, registry.compile("/@a").getId());
+    
+  }//testGetId()
+  
+  /**
+   * Test of iterator method, of class Path.
+   */
+  @Test
+  public void testIterator() {
+    
+    System.out.println("iterator");
+    
+    Parser parser=new Parser();
+    parser.parse("{\"orders\":[{\"price\":1,\"items\":[{\"price\":10}]},{\"price\":2},{\"qty\":3},{\"price\":4}],\"price\":0}");
+    Element root=parser.getRootElement();
+    
+    assertEquals("[1, 2, 4]", matches(new Path("/@orders/#*/@price"), root));
+    assertEquals("[2]", matches(new Path("/@orders/#1:3/@price"), root));
+    assertEquals("[1, 2]", matches(new Path("/@orders/#:2/@price"), root));
+    assertEquals("[2, 4]", matches(new Path("/@orders/#1:/@price"), root));
+    assertEquals("[10, 1, 2, 4, 0]", matches(new Path("//@price"), root));
+    assertEquals("[10, 1, 2, 4]", matches(new Path("/@orders//@price"), root));
+    assertEquals("[10]", matches(new Path("/@orders/#*/@items//@price"), root));
+    assertEquals("[]", matches(new Path("/@orders/#*/@*/@qty"), root));
+    assertEquals("[3]", matches(new Path("/@orders/#2/@*"), root));
+    assertEquals("[]", matches(new Path("/@orders/@*"), root));
+    assertEquals("[]", matches(new Path("/@price/#*"), root));
+    assertEquals("[1]", matches(new Path("/@orders/#0/@price"), root));
+    assertEquals("[]", matches(new Path("/@orders/#9/@price"), root));
+    
+    Iterator<Element> iterator=new Path("//@price").iterator(root);
+    assertEquals("10", iterator.next().toString());
+    assertEquals(true, iterator.hasNext());
+    
+    iterator=new Path("/@none/#*").iterator(root);
+    assertEquals(false, iterator.hasNext());
+    try {
+      iterator.next();
+      fail("no element expected");
+    } catch (NoSuchElementException e) {
+    }//try
+    
+  }//testIterator()
+  
+  /**
+   * Returns the string representations of the elements matched by a path
+   * @param aPath path to match
+   * @param aElement element to match from
+   * @return list of matched elements as a string
+   */
+  private static String matches(Path aPath, Element aElement) {
+    
+    List<String> list=new ArrayList<>();
+    Iterator<Element> iterator=aPath.iterator(aElement);
+    while (iterator.hasNext()) list.add(iterator.next().toString());
+    return list.toString();
+    
+  }//matches()
+  
 }//PathTest{}
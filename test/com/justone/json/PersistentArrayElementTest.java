@@ -0,0 +1,143 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class PersistentArrayElementTest {
+  
+  public PersistentArrayElementTest() {
+  }
+
+  /**
+   * Test of withElement, withInsertedElement and withoutElement methods, of class PersistentArrayElement.
+   */
+  @Test
+  public void testWithElement() {
+    
+    System.out.println("withElement/withInsertedElement/withoutElement");
+    
+    PersistentArrayElement empty = new PersistentArrayElement();
+    assertEquals("[]", empty.toString());
+    PersistentArrayElement one = empty.withElement(new ScalarElement(1));
+    PersistentArrayElement two = one.withElement(new ScalarElement(3));
+    PersistentArrayElement three = two.withInsertedElement(1, new ScalarElement(2));
+    assertEquals("[]", empty.toString());
+    assertEquals("[1,3]", two.toString());
+    assertEquals("[1,2,3]", three.toString());
+    assertSame(two.getChildElement(1), three.getChildElement(2));
+    assertEquals(null, three.getChildElement(2).getParentElement());
+    assertEquals("[1,5,3]", three.withElement(1, new ScalarElement(5)).toString());
+    assertEquals("[2,3]", three.withoutElement(0).toString());
+    assertEquals("[1,2,3]", three.toString());
+    assertEquals(true, three.hasIndex(2));
+    assertEquals(false, three.hasIndex(3));
+    assertEquals(null, three.getChildElement(3));
+    
+    Parser parser = new Parser();
+    parser.parse("[1,2,3]");
+    assertEquals(true, three.equals(parser.getRootElement()));
+    assertEquals(true, parser.getRootElement().equals(three));
+    
+    try {
+      three.withoutElement(3);
+      fail("bad index expected");
+    } catch (IndexOutOfBoundsException e) {
+      assertEquals("Bad index : 3", e.getMessage());
+    }//try
+    try {
+      three.addElement(new ScalarElement());
+      fail("unsupported operation expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals("[1,2,3]", three.toString());
+    }//try
+    
+    PersistentArrayElement nested = empty.withElement(three);
+    try {
+      new ArrayElement().insertElement(0, nested.getChildElement(0));
+      fail("unsupported operation expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals(null, nested.getChildElement(0).getParentElement());
+    }//try
+    try {
+      new ObjectElement().putElement("z", nested);
+      fail("unsupported operation expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals(null, nested.getKey());
+    }//try
+    
+  }//testWithElement()
+
+  /**
+   * Test of getChildElement and getChildElements methods, of class PersistentArrayElement.
+   */
+  @Test
+  public void testGetChildElements() {
+    
+    System.out.println("getChildElement/getChildElements");
+    
+    Random random = new Random(7);
+    ArrayList<Element> list = new ArrayList<>();
+    PersistentArrayElement instance = new PersistentArrayElement();
+    for (int i=0;i<3000;++i) {
+      int choice = random.nextInt(4);
+      if ((choice==0)&&(list.size()>0)) {
+        int index = random.nextInt(list.size());
+        list.remove(index);
+        instance = instance.withoutElement(index);
+      } else if ((choice==1)&&(list.size()>0)) {
+        int index = random.nextInt(list.size());
+        ScalarElement value = new ScalarElement(i);
+        list.set(index, value);
+        instance = instance.withElement(index, value);
+      } else {
+        int index = random.nextInt(list.size()+1);
+        ScalarElement value = new ScalarElement(i);
+        list.add(index, value);
+        instance = instance.withInsertedElement(index, value);
+      }//if removing
+    }//for each update
+    
+    assertEquals(list.size(), instance.size());
+    Iterator<Element> elements = instance.getChildElements();
+    for (int i=0;i<list.size();++i) {
+      assertSame(list.get(i), elements.next());
+      assertSame(list.get(i), instance.getChildElement(i));
+    }//for each element
+    assertEquals(false, elements.hasNext());
+    
+  }//testGetChildElements()
+
+}//PersistentArrayElementTest{}
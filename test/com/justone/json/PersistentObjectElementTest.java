@@ -0,0 +1,154 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class PersistentObjectElementTest {
+  
+  public PersistentObjectElementTest() {
+  }
+
+  /**
+   * Test of withElement and withoutElement methods, of class PersistentObjectElement.
+   */
+  @Test
+  public void testWithElement() {
+    
+    System.out.println("withElement/withoutElement");
+    
+    PersistentObjectElement empty = new PersistentObjectElement();
+    assertEquals("{}", empty.toString());
+    PersistentObjectElement one = empty.withElement("b", new ScalarElement(1));
+    PersistentObjectElement two = one.withElement("a", new ScalarElement("x"));
+    assertEquals("{}", empty.toString());
+    assertEquals("{\"b\":1}", one.toString());
+    assertEquals("{\"a\":\"x\",\"b\":1}", two.toString());
+    assertSame(one.getChildElement("b"), two.getChildElement("b"));
+    assertEquals(null, two.getChildElement("b").getParentElement());
+    assertEquals(true, two.hasKey("a"));
+    assertEquals(false, one.hasKey("a"));
+    
+    PersistentObjectElement three = two.withElement("b", new ScalarElement(2));
+    assertEquals("{\"a\":\"x\",\"b\":1}", two.toString());
+    assertEquals("{\"a\":\"x\",\"b\":2}", three.toString());
+    assertSame(two, two.withoutElement("c"));
+    assertEquals("{\"b\":2}", three.withoutElement("a").toString());
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":\"x\",\"b\":2}");
+    assertEquals(true, three.equals(parser.getRootElement()));
+    assertEquals(true, parser.getRootElement().equals(three));
+    assertEquals(three.getHash(), parser.getRootElement().getHash());
+    
+    try {
+      three.putElement("c", new ScalarElement());
+      fail("unsupported operation expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals("{\"a\":\"x\",\"b\":2}", three.toString());
+    }//try
+    
+    PersistentObjectElement nested = empty.withElement("c", three);
+    try {
+      new ObjectElement().putElement("z", nested.getChildElement("c"));
+      fail("unsupported operation expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals(null, nested.getChildElement("c").getParentElement());
+      assertEquals(null, nested.getChildElement("c").getKey());
+    }//try
+    try {
+      new ArrayElement().addElement(nested);
+      fail("unsupported operation expected");
+    } catch (UnsupportedOperationException e) {
+      assertEquals(null, nested.getParentElement());
+    }//try
+    
+  }//testWithElement()
+
+  /**
+   * Test of getKeyIterator and getChildElements methods, of class PersistentObjectElement.
+   */
+  @Test
+  public void testGetKeyIterator() {
+    
+    System.out.println("getKeyIterator/getChildElements");
+    
+    Random random = new Random(42);
+    TreeMap<String,Element> map = new TreeMap<>();
+    PersistentObjectElement instance = new PersistentObjectElement();
+    for (int i=0;i<2000;++i) {
+      String key = "k"+random.nextInt(500);
+      if (random.nextInt(3)==0) {
+        map.remove(key);
+        instance = instance.withoutElement(key);
+      } else {
+        ScalarElement value = new ScalarElement(i);
+        map.put(key, value);
+        instance = instance.withElement(key, value);
+      }//if removing
+    }//for each update
+    
+    assertEquals(map.size(), instance.size());
+    Iterator<String> keys = instance.getKeyIterator();
+    Iterator<Element> elements = instance.getChildElements();
+    for (String key : map.keySet()) {
+      assertEquals(key, keys.next());
+      assertSame(map.get(key), elements.next());
+      assertSame(map.get(key), instance.getChildElement(key));
+    }//for each key
+    assertEquals(false, keys.hasNext());
+    assertEquals(false, elements.hasNext());
+    
+  }//testGetKeyIterator()
+
+  /**
+   * Test of getDescendentElements method, of class PersistentObjectElement.
+   */
+  @Test
+  public void testGetDescendentElements() {
+    
+    System.out.println("getDescendentElements");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":{\"b\":1},\"c\":[{\"b\":2},{\"d\":{\"b\":3}}]}");
+    Element instance = Persistent.of(parser.getRootElement());
+    assertEquals("[1, 2, 3]", instance.getDescendentElements("b", new java.util.LinkedList<Element>()).toString());
+    assertEquals("[{\"b\":1}]", instance.getDescendentElements("a", new java.util.LinkedList<Element>()).toString());
+    assertEquals(true, new Path("/@c/#1/@d/@b").iterator(instance).hasNext());
+    assertEquals("3", new Path("/@c/#1/@d/@b").iterator(instance).next().toString());
+    
+  }//testGetDescendentElements()
+
+}//PersistentObjectElementTest{}
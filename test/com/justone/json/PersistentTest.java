@@ -0,0 +1,139 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class PersistentTest {
+  
+  public PersistentTest() {
+  }
+
+  /**
+   * Test of of method, of class Persistent.
+   */
+  @Test
+  public void testOf() {
+    
+    System.out.println("of");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"b\":[1,{\"c\":true}],\"a\":null}");
+    Element instance = Persistent.of(parser.getRootElement());
+    assertEquals(true, instance instanceof PersistentObjectElement);
+    assertEquals(true, instance.getChildElement("b") instanceof PersistentArrayElement);
+    assertEquals(true, instance.getChildElement("b").getChildElement(1) instanceof PersistentObjectElement);
+    assertEquals(parser.getRootElement().toString(), instance.toString());
+    assertEquals(true, instance.equals(parser.getRootElement()));
+    assertEquals(null, instance.getChildElement("a").getParentElement());
+    assertSame(instance, Persistent.of(instance));
+    
+    ScalarElement scalar = new ScalarElement(1);
+    assertSame(scalar, Persistent.of(scalar));
+    
+  }//testOf()
+
+  /**
+   * Test of put method, of class Persistent.
+   */
+  @Test
+  public void testPut() {
+    
+    System.out.println("put");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":{\"b\":[1,2]},\"c\":{\"d\":3}}");
+    Element version1 = Persistent.of(parser.getRootElement());
+    Element version2 = Persistent.put(version1, new Path("/@a/@b/#1"), new ScalarElement(5));
+    Element version3 = Persistent.put(version2, new Path("/@a/@b/#2"), new ScalarElement(6));
+    Element version4 = Persistent.put(version3, new Path("/@e"), parser.getRootElement().getChildElement("c"));
+    
+    assertEquals("{\"a\":{\"b\":[1,2]},\"c\":{\"d\":3}}", version1.toString());
+    assertEquals("{\"a\":{\"b\":[1,5]},\"c\":{\"d\":3}}", version2.toString());
+    assertEquals("{\"a\":{\"b\":[1,5,6]},\"c\":{\"d\":3}}", version3.toString());
+    assertEquals("{\"a\":{\"b\":[1,5,6]},\"c\":{\"d\":3},\"e\":{\"d\":3}}", version4.toString());
+    assertSame(version1.getChildElement("c"), version3.getChildElement("c"));
+    assertSame(version1.getChildElement("a").getChildElement("b").getChildElement(0), version3.getChildElement("a").getChildElement("b").getChildElement(0));
+    assertSame(version3.getChildElement("a"), version4.getChildElement("a"));
+    assertNotSame(version1.getChildElement("a"), version2.getChildElement("a"));
+    
+    try {
+      Persistent.put(version1, new Path("/@x/@y"), new ScalarElement());
+      fail("no element expected");
+    } catch (RuntimeException e) {
+      assertEquals("No element : /@x/@y [1]", e.getMessage());
+    }//try
+    try {
+      Persistent.put(version1, new Path("/@a/@*"), new ScalarElement());
+      fail("inexact path expected");
+    } catch (RuntimeException e) {
+      assertEquals("Inexact path : /@a/@*", e.getMessage());
+    }//try
+    try {
+      Persistent.put(version1, new Path("/@a/#0"), new ScalarElement());
+      fail("not a persistent array expected");
+    } catch (RuntimeException e) {
+      assertEquals("Not a persistent array : /@a/#0 [1]", e.getMessage());
+    }//try
+    try {
+      Persistent.put(parser.getRootElement(), new Path("/@a"), new ScalarElement());
+      fail("not a persistent object expected");
+    } catch (RuntimeException e) {
+      assertEquals("Not a persistent object : /@a [0]", e.getMessage());
+    }//try
+    
+  }//testPut()
+
+  /**
+   * Test of remove method, of class Persistent.
+   */
+  @Test
+  public void testRemove() {
+    
+    System.out.println("remove");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"a\":{\"b\":[1,2]},\"c\":{\"d\":3}}");
+    Element version1 = Persistent.of(parser.getRootElement());
+    Element version2 = Persistent.remove(version1, new Path("/@a/@b/#0"));
+    Element version3 = Persistent.remove(version2, new Path("/@c/@d"));
+    
+    assertEquals("{\"a\":{\"b\":[1,2]},\"c\":{\"d\":3}}", version1.toString());
+    assertEquals("{\"a\":{\"b\":[2]},\"c\":{\"d\":3}}", version2.toString());
+    assertEquals("{\"a\":{\"b\":[2]},\"c\":{}}", version3.toString());
+    assertSame(version3, Persistent.remove(version3, new Path("/@c/@d")));
+    assertSame(version2.getChildElement("a"), version3.getChildElement("a"));
+    assertEquals("[{\"op\":\"remove\",\"path\":\"/a/b/0\"},{\"op\":\"remove\",\"path\":\"/c/d\"}]", new Diff().diff(version1, version3));
+    
+  }//testRemove()
+
+}//PersistentTest{}
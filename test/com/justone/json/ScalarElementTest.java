@@ -25,6 +25,7 @@ SOFTWARE.
 */
 package com.justone.json;
 
+import java.math.BigDecimal;
 import java.util.Iterator;
 import java.util.LinkedList;
 import org.junit.Test;
@@ -116,6 +117,9 @@ public class ScalarElementTest {
     instance = new ScalarElement("string");
     assertEquals("\"string\"", instance.toString());
 
+    instance = new ScalarElement("say \"hi\"");
+    assertEquals("\"say \\\"hi\\\"\"", instance.toString());
+
     instance = new ScalarElement(Element.STRING,"string");
     assertEquals("\"string\"", instance.toString());
     
@@ -308,4 +312,87 @@ public class ScalarElementTest {
     
   }//testGetDescendentElements()
   
+  /**
+   * Test of equals, hashCode and getHash methods, of class ScalarElement.
+   */
+  @Test
+  public void testEquals() {
+    
+    System.out.println("equals");
+    
+    assertEquals(new ScalarElement("a"), new ScalarElement("a"));
+    assertEquals(new ScalarElement("a").getHash(), new ScalarElement("a").getHash());
+    assertEquals(new ScalarElement(1), new ScalarElement(Element.NUMBER, "1"));
+    assertEquals(new ScalarElement(), new ScalarElement());
+    assertEquals(false, new ScalarElement("a").equals(new ScalarElement("b")));
+    assertEquals(false, new ScalarElement("1").equals(new ScalarElement(1)));
+    assertEquals(false, new ScalarElement(1).equals(new ScalarElement(1.0)));
+    assertEquals(false, new ScalarElement(true).equals(new ScalarElement(Element.STRING, "true")));
+    assertEquals(true, new ScalarElement("a").getHash()!=new ScalarElement("b").getHash());
+    
+  }//testEquals()
+
+  /**
+   * Test of getString method, of class ScalarElement.
+   */
+  @Test
+  public void testGetString() {
+    
+    System.out.println("getString");
+    
+    Parser parser = new Parser();
+    parser.parse("[\"a\\\"b\\u0041\",12,true,null]");
+    ScalarElement instance = (ScalarElement)parser.getRootElement().getChildElement(0);
+    assertEquals("a\"bA", instance.getString());
+    assertSame(instance.getString(), instance.getString());
+    assertSame(instance.toString(), instance.toString());
+    assertEquals("\"a\\\"b\\u0041\"", instance.toString());
+    assertEquals("12", ((ScalarElement)parser.getRootElement().getChildElement(1)).getString());
+    assertEquals("true", ((ScalarElement)parser.getRootElement().getChildElement(2)).getString());
+    assertEquals(null, ((ScalarElement)parser.getRootElement().getChildElement(3)).getString());
+    assertEquals("x/y", new ScalarElement("x/y").getString());
+    
+  }//testGetString()
+
+  /**
+   * Test of getBoolean, getLong, getDouble and getBigDecimal methods, of class ScalarElement.
+   */
+  @Test
+  public void testGetNumber() {
+    
+    System.out.println("getBoolean/getLong/getDouble/getBigDecimal");
+    
+    Parser parser = new Parser();
+    parser.parse("[-42,2.75,1e3,123456789012345678901,0,true,false,\"7\"]");
+    Element root = parser.getRootElement();
+    ScalarElement integer = (ScalarElement)root.getChildElement(0);
+    assertEquals(-42L, integer.getLong());
+    assertEquals(-42.0, integer.getDouble(), 0.0);
+    assertEquals(true, integer.getBoolean());
+    assertEquals(new BigDecimal("-42"), integer.getBigDecimal());
+    assertSame(integer.getBigDecimal(), integer.getBigDecimal());
+    assertEquals(-42L, integer.getLong());
+    
+    ScalarElement fraction = (ScalarElement)root.getChildElement(1);
+    assertEquals(2.75, fraction.getDouble(), 0.0);
+    assertEquals(2L, fraction.getLong());
+    assertEquals(new BigDecimal("2.75"), fraction.getBigDecimal());
+    assertEquals(1000L, ((ScalarElement)root.getChildElement(2)).getLong());
+    assertEquals(new BigDecimal("123456789012345678901"), ((ScalarElement)root.getChildElement(3)).getBigDecimal());
+    assertEquals(1.2345678901234568E20, ((ScalarElement)root.getChildElement(3)).getDouble(), 0.0);
+    assertEquals(false, ((ScalarElement)root.getChildElement(4)).getBoolean());
+    assertEquals(true, ((ScalarElement)root.getChildElement(5)).getBoolean());
+    assertEquals(1L, ((ScalarElement)root.getChildElement(5)).getLong());
+    assertEquals(0.0, ((ScalarElement)root.getChildElement(6)).getDouble(), 0.0);
+    assertEquals(Long.MIN_VALUE+1, new ScalarElement(Long.MIN_VALUE+1).getLong());
+    
+    try {
+      ((ScalarElement)root.getChildElement(7)).getLong();
+      fail("not a number expected");
+    } catch (RuntimeException e) {
+      assertEquals("Not a number : \"7\"", e.getMessage());
+    }//try
+    
+  }//testGetNumber()
+
 }//ScalarElementTest{}
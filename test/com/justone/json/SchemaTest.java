@@ -0,0 +1,204 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+package com.justone.json;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class SchemaTest {
+  
+  private static final String SCHEMA="{\"type\":\"object\",\"required\":[\"identity\",\"location\"],\"properties\":{"
+    +"\"identity\":{\"type\":\"integer\",\"minimum\":1,\"maximum\":1000},"
+    +"\"name\":{\"type\":[\"string\",\"null\"],\"minLength\":1,\"maxLength\":3,\"pattern\":\"^[a-z\\u00e9]+$\"},"
+    +"\"ratio\":{\"type\":\"number\",\"exclusiveMinimum\":0,\"exclusiveMaximum\":0.5},"
+    +"\"state\":{\"enum\":[\"open\",\"closed\",1]},"
+    +"\"location\":{\"type\":\"object\",\"required\":[\"latitude\"],\"properties\":{\"latitude\":{\"type\":\"number\"}}},"
+    +"\"tags\":{\"type\":\"array\",\"items\":{\"type\":\"string\"}},"
+    +"\"extra\":{\"description\":\"anything\"}}}";
+  
+  public SchemaTest() {
+  }
+
+  /**
+   * Test of parsing conforming messages, of class Schema.
+   */
+  @Test
+  public void testConforming() {
+    
+    System.out.println("parse(conforming)");
+    
+    Parser parser = new Parser();
+    parser.setSchema(new Schema(SCHEMA));
+    
+    parser.parse("{\"identity\":1000,\"location\":{\"latitude\":51.5}}");
+    assertEquals(1000L, ((ScalarElement)parser.getRootElement().getChildElement("identity")).getLong());
+    parser.parse("{\"identity\":1.0e2,\"name\":\"\u00e9t\u00e9\",\"ratio\":0.25,\"state\":\"open\",\"location\":{\"latitude\":0},\"tags\":[\"a\",\"b\"],\"extra\":[{\"x\":[1,true]}]}");
+    parser.parse("{\"identity\":1,\"name\":null,\"state\":1,\"location\":{\"latitude\":-1,\"other\":\"x\"},\"tags\":[]}");
+    
+    parser.setSchema(null);
+    parser.parse("{}");
+    parser.setSchema(new Schema("true"));
+    parser.parse("[1,\"a\"]");
+    parser.setSchema(new Schema("{\"type\":\"boolean\"}"));
+    parser.parse("true");
+    
+  }
+
+  /**
+   * Test of parsing messages violating the schema, of class Schema.
+   */
+  @Test
+  public void testViolations() {
+    
+    System.out.println("parse(violations)");
+    
+    Parser parser = new Parser();
+    parser.setSchema(new Schema(SCHEMA));
+    
+    String location = ",\"location\":{\"latitude\":0}}";
+    assertViolation(parser, "[]", "type", null);
+    assertViolation(parser, "{\"location\":{\"latitude\":0}}", "required", null);
+    assertViolation(parser, "{\"identity\":1}", "required", null);
+    assertViolation(parser, "{\"identity\":1,\"location\":{}}", "required", "/@location");
+    assertViolation(parser, "{\"identity\":1,\"location\":[]}", "type", "/@location");
+    assertViolation(parser, "{\"identity\":1,\"location\":{\"latitude\":\"0\"}}", "type", "/@location/@latitude");
+    assertViolation(parser, "{\"identity\":\"1\""+location, "type", "/@identity");
+    assertViolation(parser, "{\"identity\":1.5"+location, "type", "/@identity");
+    assertViolation(parser, "{\"identity\":0"+location, "minimum", "/@identity");
+    assertViolation(parser, "{\"identity\":1000.0000000000000001"+location, "type", "/@identity");
+    assertViolation(parser, "{\"identity\":1001"+location, "maximum", "/@identity");
+    assertViolation(parser, "{\"identity\":1,\"name\":\"\""+location, "minLength", "/@name");
+    assertViolation(parser, "{\"identity\":1,\"name\":\"abcd\""+location, "maxLength", "/@name");
+    assertViolation(parser, "{\"identity\":1,\"name\":\"aB\""+location, "pattern", "/@name");
+    assertViolation(parser, "{\"identity\":1,\"name\":1"+location, "type", "/@name");
+    assertViolation(parser, "{\"identity\":1,\"ratio\":0"+location, "exclusiveMinimum", "/@ratio");
+    assertViolation(parser, "{\"identity\":1,\"ratio\":0.5"+location, "exclusiveMaximum", "/@ratio");
+    assertViolation(parser, "{\"identity\":1,\"ratio\":0.50000000000000000001"+location, "exclusiveMaximum", "/@ratio");
+    assertViolation(parser, "{\"identity\":1,\"state\":\"shut\""+location, "enum", "/@state");
+    assertViolation(parser, "{\"identity\":1,\"state\":1.0"+location, "enum", "/@state");
+    assertViolation(parser, "{\"identity\":1,\"tags\":[\"a\",2]"+location, "type", "/@tags/#1");
+    
+    parser.setSchema(new Schema("{\"type\":\"array\",\"items\":{\"type\":\"array\",\"items\":{\"maxLength\":1}}}"));
+    assertViolation(parser, "[[\"a\"],[\"b\",\"\\u0063d\"]]", "maxLength", "/#1/#1");
+    assertViolation(parser, "false", "type", null);
+    
+    parser.setSchema(new Schema("{\"required\":[\"a\\\"b\",\"c\\\\d\"]}"));
+    parser.parse("{\"a\\\"b\":1,\"c\\\\d\":2}");
+    assertViolation(parser, "{\"a\\\"b\":1}", "required", null);
+    
+  }
+
+  /**
+   * Test of failing fast, of class Schema.
+   */
+  @Test
+  public void testFailFast() {
+    
+    System.out.println("parse(fail fast)");
+    
+    Parser parser = new Parser();
+    parser.setSchema(new Schema("{\"properties\":{\"a\":{\"type\":\"array\"}}}"));
+    
+    try {
+      parser.parse("{\"a\":{\"b\":[1,2,");
+      fail("SchemaException expected");
+    } catch (SchemaException e) {
+      assertEquals("type", e.getKeyword());
+      assertEquals(5, e.getOffset());
+      assertEquals(5, parser.getErrorIndex());
+      assertEquals("Schema violation : type at /@a line 1 column 6", e.getMessage());
+    }//try
+    
+    assertEquals(false, parser.tryParse("{\"a\":{}}"));
+    assertEquals(5, parser.getErrorIndex());
+    assertEquals(true, parser.tryParse("{\"a\":[],\"b\":{\"c\":\"d\"}}"));
+    assertEquals(-1, parser.getErrorIndex());
+    assertEquals(false, parser.tryParse("{\"a\":[],\"b\":{\"c\":}}"));
+    
+    try {
+      parser.parse("{\"b\":{\"c\":}}");
+      fail("JsonParseException expected");
+    } catch (SchemaException e) {
+      fail("JsonParseException expected");
+    } catch (JsonParseException e) {
+      assertEquals(10, e.getOffset());
+    }//try
+    
+  }
+
+  /**
+   * Test of compiling bad schemas, of class Schema.
+   */
+  @Test
+  public void testBadSchema() {
+    
+    System.out.println("Schema(bad)");
+    
+    String[] schemas = {"[]", "false", "{\"type\":\"decimal\"}", "{\"type\":[]}", "{\"type\":1}", "{\"enum\":1}",
+      "{\"minimum\":\"1\"}", "{\"maxLength\":-1}", "{\"pattern\":\"[\"}", "{\"required\":[1]}",
+      "{\"properties\":[]}", "{\"properties\":{\"a\":1}}", "{\"items\":[{}]}"};
+    for (String schema:schemas) {
+      try {
+        new Schema(schema);
+        fail("Bad schema expected : "+schema);
+      } catch (JsonParseException e) {
+        fail("Bad schema expected : "+schema);
+      } catch (RuntimeException e) {
+        assertEquals(true, e.getMessage().startsWith("Bad schema : #"));
+      }//try
+    }//for
+    
+    try {
+      new Schema("{\"properties\":{\"a\":{\"items\":{\"type\":\"int\"}}}}");
+      fail("Bad schema expected");
+    } catch (RuntimeException e) {
+      assertEquals("Bad schema : #/properties/a/items/type", e.getMessage());
+    }//try
+    
+  }
+  
+  private static void assertViolation(Parser aParser, String aMessage, String aKeyword, String aPath) {
+    
+    try {
+      aParser.parse(aMessage);
+      fail("SchemaException expected : "+aMessage);
+    } catch (SchemaException e) {
+      assertEquals(aMessage, aKeyword, e.getKeyword());
+      if (aPath==null) {
+        assertNull(aMessage, e.getPath());
+      } else {
+        assertEquals(aMessage, new Path(aPath).toString(), e.getPath().toString());
+      }//if
+    }//try
+    assertEquals(aMessage, false, aParser.tryParse(aMessage));
+    
+  }
+  
+}
@@ -0,0 +1,124 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+package com.justone.json;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the speed and allocation of writing an element as UTF-8 into heap and direct byte buffers
+ * with going through a String.
+ * <P>
+ * Run from the command line with the test classes and the library on the class path; the timings and
+ * bytes allocated per message are printed and nothing is asserted, so the benchmark is kept apart from
+ * the unit tests. Allocation is only reported on JVMs that count the bytes allocated by each thread.
+ * </P>
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class SerializerBenchmark {
+
+  /**
+   * Runs the benchmark
+   * @param aArguments optional number of messages written per round
+   */
+  public static void main(String[] aArguments) {
+
+    int count = (aArguments.length>0)?Integer.parseInt(aArguments[0]):100000;
+    StringBuilder message = new StringBuilder("{\"items\":[");
+    for (int i=0;i<12;++i) {
+      message.append((i==0)?"":",").append("{\"id\":").append(1000+i).append(",\"name\":\"item \\\"").append(i)
+             .append("\\\"\",\"price\":").append(i*1.25).append(",\"tags\":[\"a\",\"b\u00e9\"],\"stock\":null}");
+    }//for
+    Parser parser = new Parser();
+    parser.parse(message.append("],\"total\":12}").toString());
+    final Element root = parser.getRootElement();
+    final Serializer serializer = new Serializer();
+    System.out.println("message : "+root.toString().getBytes(StandardCharsets.UTF_8).length+" bytes");
+
+    run("writeHeap", count, new Runnable() {
+      private ByteBuffer iBuffer = ByteBuffer.allocate(256);
+      @Override
+      public void run() {
+        iBuffer.clear();
+        iBuffer = serializer.write(root, iBuffer);
+      }//run()
+    });
+    run("writeDirect", count, new Runnable() {
+      private ByteBuffer iBuffer = ByteBuffer.allocateDirect(256);
+      @Override
+      public void run() {
+        iBuffer.clear();
+        iBuffer = serializer.write(root, iBuffer);
+      }//run()
+    });
+    run("stringPathHeap", count, new Runnable() {
+      private final ByteBuffer fBuffer = ByteBuffer.allocate(4096);
+      @Override
+      public void run() {
+        fBuffer.clear();
+        fBuffer.put(root.toString().getBytes(StandardCharsets.UTF_8));
+      }//run()
+    });
+    run("stringPathDirect", count, new Runnable() {
+      private final ByteBuffer fBuffer = ByteBuffer.allocateDirect(4096);
+      @Override
+      public void run() {
+        fBuffer.clear();
+        fBuffer.put(root.toString().getBytes(StandardCharsets.UTF_8));
+      }//run()
+    });
+
+  }//main()
+
+  /**
+   * Times a write, printing the best of several rounds and the bytes allocated per write
+   * @param aName name of the write
+   * @param aCount number of writes in each round
+   * @param aWrite write to be timed
+   */
+  private static void run(String aName, int aCount, Runnable aWrite) {
+
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    com.sun.management.ThreadMXBean allocations = (threads instanceof com.sun.management.ThreadMXBean)?(com.sun.management.ThreadMXBean)threads:null;
+    long thread = Thread.currentThread().getId();
+
+    long time = Long.MAX_VALUE;
+    long allocated = -1;
+    for (int round=0;round<10;++round) {
+      long bytes = (allocations==null)?0:allocations.getThreadAllocatedBytes(thread);
+      long start = System.nanoTime();
+      for (int i=0;i<aCount;++i) aWrite.run();
+      time = Math.min(time, System.nanoTime()-start);
+      if (allocations!=null) allocated = (allocations.getThreadAllocatedBytes(thread)-bytes)/aCount;
+    }//for
+    System.out.println(aName+" : "+(time/aCount)+" ns/message"+((allocated<0)?"":", "+allocated+" bytes/message"));
+
+  }//run()
+
+}//SerializerBenchmark{}
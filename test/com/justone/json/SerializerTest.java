@@ -0,0 +1,267 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class SerializerTest {
+  
+  public SerializerTest() {
+  }
+
+  /**
+   * Test of escape method, of class Serializer.
+   */
+  @Test
+  public void testEscape() {
+    
+    System.out.println("escape");
+    
+    String text="plain text \u00e9";
+    assertSame(text, Serializer.escape(text));
+    assertEquals("", Serializer.escape(""));
+    assertEquals("a\\\"b\\\\c", Serializer.escape("a\"b\\c"));
+    assertEquals("\\b\\f\\n\\r\\t", Serializer.escape("\b\f\n\r\t"));
+    assertEquals("x\\u0000\\u001fy", Serializer.escape("x\u0000\u001fy"));
+    assertEquals("\"a\\nb\"", new ScalarElement("a\nb").toString());
+    
+  }//testEscape()
+
+  /**
+   * Test of unescape method, of class Serializer.
+   */
+  @Test
+  public void testUnescape() {
+    
+    System.out.println("unescape");
+    
+    String text="plain text";
+    assertSame(text, Serializer.unescape(text));
+    assertEquals("a\"b\\c/d", Serializer.unescape("a\\\"b\\\\c\\/d"));
+    assertEquals("\b\f\n\r\t", Serializer.unescape("\\b\\f\\n\\r\\t"));
+    assertEquals("x\u00e9\u20acy", Serializer.unescape("x\\u00e9\\u20ACy"));
+    String[] texts={"", "tab\there", "quote\"", "\u0001", "back\\slash"};
+    for (String string : texts) {
+      assertEquals(string, Serializer.unescape(Serializer.escape(string)));
+    }//for each text
+    
+    try {
+      Serializer.unescape("\\u12");
+      fail("bad escape expected");
+    } catch (RuntimeException e) {
+      assertEquals(true, e.getMessage().startsWith("Bad escape"));
+    }//try
+    
+  }//testUnescape()
+
+  /**
+   * Test of write method for string builders, of class Serializer.
+   */
+  @Test
+  public void testWriteStringBuilder() {
+    
+    System.out.println("write(StringBuilder)");
+    
+    String[] messages={
+      "{}",
+      "[]",
+      "{\"a\":{},\"b\":[],\"c\":[[],{}]}",
+      "[1,\"two\",true,false,null,{\"k\":[1.5,-2e3]}]",
+      "{\"a\\\"b\":\"c\\\\d\\u00e9\"}",
+    };
+    Serializer instance = new Serializer();
+    Parser parser = new Parser();
+    StringBuilder buffer = new StringBuilder();
+    for (String message : messages) {
+      parser.parse(message);
+      buffer.setLength(0);
+      assertSame(buffer, instance.write(parser.getRootElement(), buffer));
+      assertEquals(message, buffer.toString());
+      assertEquals(message, parser.getRootElement().toString());
+    }//for each message
+    
+    buffer.setLength(0);
+    assertEquals("\"x\"", instance.write(new ScalarElement("x"), buffer).toString());
+    
+  }//testWriteStringBuilder()
+
+  /**
+   * Test of verbatim mode, of class Serializer.
+   */
+  @Test
+  public void testWriteVerbatim() {
+    
+    System.out.println("write(verbatim)");
+    
+    String message = " { \"z\" : [ 1, 2] , \"a\" : { \"q\" : true , \"p\" : [ { } ] } , \"m\" : [ ] } ";
+    Parser parser = new Parser();
+    parser.parse(message);
+    Element root = parser.getRootElement();
+    Serializer instance = new Serializer();
+    instance.setVerbatim(true);
+    assertEquals(message.trim(), instance.write(root, new StringBuilder()).toString());
+    assertEquals("{\"a\":{\"p\":[{}],\"q\":true},\"m\":[],\"z\":[1,2]}", root.toString());
+    
+    ((ArrayElement)parser.getElement(new Path("/@m"))).addElement(new ScalarElement(3));
+    assertEquals("{\"a\":{ \"q\" : true , \"p\" : [ { } ] },\"m\":[3],\"z\":[ 1, 2]}", instance.write(root, new StringBuilder()).toString());
+    
+    ((ObjectElement)parser.getElement(new Path("/@a/@p/#0"))).putElement("k", new ScalarElement("v"));
+    assertEquals("{\"a\":{\"p\":[{\"k\":\"v\"}],\"q\":true},\"m\":[3],\"z\":[ 1, 2]}", instance.write(root, new StringBuilder()).toString());
+    
+    instance.setVerbatim(false);
+    assertEquals("{\"a\":{\"p\":[{\"k\":\"v\"}],\"q\":true},\"m\":[3],\"z\":[1,2]}", instance.write(root, new StringBuilder()).toString());
+    
+  }//testWriteVerbatim()
+
+  /**
+   * Test of write method for deeply nested elements, of class Serializer.
+   */
+  @Test
+  public void testWriteNested() {
+    
+    System.out.println("write(nested)");
+    
+    ArrayElement root = new ArrayElement();
+    Element element = root;
+    for (int i=0;i<5000;++i) {
+      ArrayElement child = new ArrayElement();
+      ((ArrayElement)element).addElement(child);
+      element = child;
+    }//for each level
+    
+    String string = root.toString();
+    assertEquals(10002, string.length());
+    assertEquals(true, string.startsWith("[[[[") && string.endsWith("]]]]"));
+    
+  }//testWriteNested()
+
+  /**
+   * Test of writeTo methods, of class Element.
+   */
+  @Test
+  public void testWriteTo() throws Exception {
+    
+    System.out.println("writeTo");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"k\":[\"caf\u00e9\",\"\u20ac\",\"\ud83d\ude00\"]}");
+    Element root = parser.getRootElement();
+    
+    StringWriter writer = new StringWriter();
+    root.writeTo(writer);
+    assertEquals("{\"k\":[\"caf\u00e9\",\"\u20ac\",\"\ud83d\ude00\"]}", writer.toString());
+    
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    root.writeTo(stream);
+    assertArrayEquals(writer.toString().getBytes("UTF-8"), stream.toByteArray());
+    
+    stream.reset();
+    new ScalarElement("\ud83d").writeTo(stream);
+    assertEquals("\"?\"", stream.toString("UTF-8"));
+    
+  }//testWriteTo()
+
+  /**
+   * Test of write method for byte buffers, of class Serializer.
+   */
+  @Test
+  public void testWriteByteBuffer() throws Exception {
+    
+    System.out.println("write(ByteBuffer)");
+    
+    Parser parser = new Parser();
+    parser.parse("{\"k\":[\"caf\u00e9\",\"\u20ac\",\"\ud83d\ude00\",12345678901234567890]}");
+    Element root = parser.getRootElement();
+    byte[] expected = root.toString().getBytes("UTF-8");
+    Serializer instance = new Serializer();
+    
+    ByteBuffer buffer = ByteBuffer.allocate(64);
+    buffer.put((byte)'>');
+    assertSame(buffer, instance.write(root, buffer));
+    assertEquals(1+expected.length, buffer.position());
+    byte[] bytes = new byte[expected.length];
+    buffer.flip();
+    buffer.get();
+    buffer.get(bytes);
+    assertArrayEquals(expected, bytes);
+    
+    buffer = ByteBuffer.allocateDirect(4);
+    buffer.put((byte)'>');
+    ByteBuffer grown = instance.write(root, buffer);
+    assertNotSame(buffer, grown);
+    assertEquals(true, grown.isDirect());
+    assertEquals(1+expected.length, grown.position());
+    grown.flip();
+    assertEquals('>', grown.get());
+    grown.get(bytes);
+    assertArrayEquals(expected, bytes);
+    
+    StringBuilder text = new StringBuilder("[\"");
+    for (int i=0;i<10000;++i) text.append((char)('a'+i%26));
+    text.append("\"]");
+    parser.parse(text.toString());
+    grown = instance.write(parser.getRootElement(), ByteBuffer.allocate(16));
+    assertEquals(text.length(), grown.position());
+    
+    ByteBuffer slice = ByteBuffer.allocate(40);
+    slice.position(3);
+    slice = slice.slice();
+    slice.put((byte)'>');
+    grown = instance.write(root, slice);
+    assertNotSame(slice, grown);
+    assertEquals(false, grown.isDirect());
+    assertEquals(1+expected.length, grown.position());
+    grown.flip();
+    assertEquals('>', grown.get());
+    grown.get(bytes);
+    assertArrayEquals(expected, bytes);
+    
+    slice = ByteBuffer.allocate(110);
+    slice.position(10);
+    slice = slice.slice();
+    slice.put((byte)'>');
+    assertSame(slice, instance.write(root, slice));
+    assertSame(slice, instance.write(root, slice));
+    assertEquals(1+2*expected.length, slice.position());
+    slice.flip();
+    slice.get();
+    slice.get(bytes);
+    assertArrayEquals(expected, bytes);
+    slice.get(bytes);
+    assertArrayEquals(expected, bytes);
+    
+  }//testWriteByteBuffer()
+  
+}//SerializerTest{}
@@ -0,0 +1,96 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class SlotRecordTest {
+  
+  public SlotRecordTest() {
+  }
+
+  /**
+   * Test of size method, of class SlotRecord.
+   */
+  @Test
+  public void testSize() {
+    
+    System.out.println("size");
+    
+    assertEquals(0, new SlotRecord(0).size());
+    assertEquals(130, new SlotRecord(130).size());
+    
+  }//testSize()
+
+  /**
+   * Test of isPresent and clear methods, of class SlotRecord.
+   */
+  @Test
+  public void testClear() {
+    
+    System.out.println("clear");
+    
+    SlotRecord instance = new SlotRecord(130);
+    assertEquals(true, instance.set(0, Element.NULL));
+    assertEquals(false, instance.set(0, Element.NULL));
+    assertEquals(true, instance.set(129, Element.OBJECT));
+    assertEquals(true, instance.isPresent(0));
+    assertEquals(false, instance.isPresent(64));
+    assertEquals(true, instance.isPresent(129));
+    
+    instance.clear();
+    assertEquals(false, instance.isPresent(0));
+    assertEquals(false, instance.isPresent(129));
+    
+  }//testClear()
+
+  /**
+   * Test of getString method, of class SlotRecord.
+   */
+  @Test
+  public void testGetString() {
+    
+    System.out.println("getString");
+    
+    SlotRecord instance = new SlotRecord(1);
+    instance.set(0, Element.STRING);
+    instance.set(0, "[\"abc\"]", 2, 5);
+    CharSequence text=instance.getString(0);
+    assertEquals("abc", text.toString());
+    
+    instance.set(0, "[\"de\"]", 2, 4);
+    assertSame(text, instance.getString(0));
+    assertEquals("de", text.toString());
+    
+  }//testGetString()
+
+}//SlotRecordTest{}
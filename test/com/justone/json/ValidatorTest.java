@@ -0,0 +1,222 @@
+/*
+
+MIT License
+ 
+Copyright (c) 2016 JustOne Database Inc
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+*/
+
+package com.justone.json;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Duncan Pauly
+ * @version 1.0
+ */
+public class ValidatorTest {
+  
+  /**
+   * Messages which must be accepted
+   */
+  static final String[] VALID={
+    "{}",
+    "[]",
+    " \t\r\n{} \t\r\n",
+    "null",
+    "true",
+    "false",
+    "0",
+    "-0",
+    "123",
+    "-123",
+    "1.5",
+    "-0.0",
+    "1e5",
+    "1E5",
+    "1e+5",
+    "1e-5",
+    "1.25e-005",
+    "\"\"",
+    "\"string\"",
+    "\"\\\"\\\\\\/\\b\\f\\n\\r\\t\"",
+    "\"\\u0000\\uFFFF\\uabcd\"",
+    "\"\u00e9\u4e2d\ud83d\ude00\"",
+    "[null,true,false,1,-1.5e3,\"a\",{},[]]",
+    "{\"a\":1,\"b\":[1,2,{\"c\":null}],\"d\":{\"e\":\"f\"}}",
+    "{ \"a\" : 1 , \"b\" : [ 1 , 2 ] }",
+    "[[[[[[[[[[[[[[[[[[[[]]]]]]]]]]]]]]]]]]]]",
+    "{\"\":\"\"}",
+    "{\"a\":{\"a\":{\"a\":{}}}}",
+  };
+  
+  /**
+   * Messages which must be rejected
+   */
+  static final String[] INVALID={
+    "",
+    " ",
+    "{",
+    "}",
+    "[",
+    "]",
+    "[}",
+    "{]",
+    "[1,]",
+    "[,1]",
+    "[1 2]",
+    "{\"a\":1,}",
+    "{,\"a\":1}",
+    "{\"a\" 1}",
+    "{\"a\":}",
+    "{a:1}",
+    "{1:1}",
+    "{\"a\":1 \"b\":2}",
+    "{}{}",
+    "[] x",
+    "nul",
+    "nulll",
+    "nope",
+    "tru",
+    "trux",
+    "fals",
+    "falsy",
+    "True",
+    "NULL",
+    "01",
+    "-01",
+    "1.",
+    ".1",
+    "-",
+    "+1",
+    "1e",
+    "1e+",
+    "1-2e+",
+    "1.e5",
+    "0x10",
+    "1.5.5",
+    "NaN",
+    "Infinity",
+    "\"",
+    "\"abc",
+    "\"\\x\"",
+    "\"\\u12\"",
+    "\"\\u12G4\"",
+    "\"a\tb\"",
+    "\"a\nb\"",
+    "'a'",
+    "[1,2",
+    "{\"a\":[1,2}",
+    "{\"a\":{\"b\":1]}",
+  };
+
+  public ValidatorTest() {
+  }
+
+  /**
+   * Test of validate method with strings, of class Validator.
+   */
+  @Test
+  public void testValidateString() {
+    
+    System.out.println("validate(String)");
+    
+    Validator instance = new Validator();
+    for (String message : VALID) {
+      assertTrue(message, instance.validate(message));
+      assertEquals(-1, instance.getErrorIndex());
+    }//for each valid message
+    for (String message : INVALID) {
+      assertFalse(message, instance.validate(message));
+      assertTrue(instance.getErrorIndex()>=0);
+    }//for each invalid message
+    
+  }//testValidateString()
+
+  /**
+   * Test of validate method with bytes, of class Validator.
+   */
+  @Test
+  public void testValidateBytes() {
+    
+    System.out.println("validate(byte[])");
+    
+    Validator instance = new Validator();
+    for (String message : VALID) {
+      assertTrue(message, instance.validate(message.getBytes(StandardCharsets.UTF_8)));
+    }//for each valid message
+    for (String message : INVALID) {
+      assertFalse(message, instance.validate(message.getBytes(StandardCharsets.UTF_8)));
+    }//for each invalid message
+    
+    byte[] buffer="xx[1,2]yy".getBytes(StandardCharsets.UTF_8);
+    assertTrue(instance.validate(buffer, 2, 5));
+    assertFalse(instance.validate(buffer, 2, 4));
+    assertEquals(4, instance.getErrorIndex());
+    
+  }//testValidateBytes()
+
+  /**
+   * Test of validate method with malformed UTF-8, of class Validator.
+   */
+  @Test
+  public void testValidateEncoding() {
+    
+    System.out.println("validate(encoding)");
+    
+    Validator instance = new Validator();
+    assertTrue(instance.validate(new byte[]{'"', (byte)0xC3, (byte)0xA9, '"'}));
+    assertTrue(instance.validate(new byte[]{'"', (byte)0xF0, (byte)0x9F, (byte)0x98, (byte)0x80, '"'}));
+    assertFalse(instance.validate(new byte[]{'"', (byte)0xC3, '"'}));//truncated sequence
+    assertFalse(instance.validate(new byte[]{'"', (byte)0xA9, '"'}));//lone continuation byte
+    assertFalse(instance.validate(new byte[]{'"', (byte)0xC0, (byte)0xAF, '"'}));//overlong form
+    assertFalse(instance.validate(new byte[]{'"', (byte)0xE0, (byte)0x80, (byte)0xAF, '"'}));//overlong form
+    assertFalse(instance.validate(new byte[]{'"', (byte)0xED, (byte)0xA0, (byte)0x80, '"'}));//surrogate
+    assertFalse(instance.validate(new byte[]{'"', (byte)0xF4, (byte)0x90, (byte)0x80, (byte)0x80, '"'}));//beyond U+10FFFF
+    assertFalse(instance.validate(new byte[]{'"', (byte)0xFF, '"'}));//invalid byte
+    assertFalse(instance.validate(new byte[]{(byte)0xC3, (byte)0xA9}));//non-ASCII outside string
+    
+  }//testValidateEncoding()
+
+  /**
+   * Test of validate method with deep nesting, of class Validator.
+   */
+  @Test
+  public void testValidateNesting() {
+    
+    System.out.println("validate(nesting)");
+    
+    StringBuilder message=new StringBuilder();
+    for (int i=0;i<100000;++i) message.append(i%2==0?"[":"{\"a\":");
+    message.append("1");
+    for (int i=99999;i>=0;--i) message.append(i%2==0?"]":"}");
+    
+    Validator instance = new Validator();
+    assertTrue(instance.validate(message.toString()));
+    message.setCharAt(message.length()-2, ']');
+    assertFalse(instance.validate(message.toString()));
+    assertEquals(message.length()-2, instance.getErrorIndex());
+    
+  }//testValidateNesting()
+
+}//ValidatorTest{}